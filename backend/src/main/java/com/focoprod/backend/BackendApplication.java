@@ -1,9 +1,11 @@
 package com.focoprod.backend;
 
 import ch.qos.logback.core.encoder.JsonEscapeUtil;
+import com.focoprod.backend.service.CalentamientoArranque;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 import java.security.Principal;
 
@@ -17,8 +19,18 @@ import java.security.Principal;
 // Documentación oficial:
 // https://docs.spring.io/spring-boot/docs/current/reference/html/features.html#features.developing-auto-configuration
 @SpringBootApplication
+// @ConfigurationPropertiesScan registra las clases @ConfigurationProperties del proyecto
+// (paquete config) sin tener que listarlas una a una.
+// https://docs.spring.io/spring-boot/reference/features/external-config.html#features.external-config.typesafe-configuration-properties.enabling-annotated-types
+@ConfigurationPropertiesScan
 public class BackendApplication implements CommandLineRunner {
 
+    private final CalentamientoArranque calentamiento;
+
+    public BackendApplication(CalentamientoArranque calentamiento) {
+        this.calentamiento = calentamiento;
+    }
+
     // Método main: punto de entrada de cualquier aplicación Java.
     // Aquí se inicia la aplicación Spring Boot.
     //
@@ -43,8 +55,9 @@ public class BackendApplication implements CommandLineRunner {
     // https://docs.spring.io/spring-boot/docs/current/reference/html/features.html#features.spring-application.command-line-runner
     @Override
     public void run(String... args) throws Exception {
-        // Actualmente está vacío.
-        // Aquí podrías agregar lógica que se ejecute al iniciar la aplicación,
-        // por ejemplo: crear un usuario admin o verificar la conexión a la BD.
+        // Calienta los caminos de registro y login antes de aceptar tráfico (focoprod.warmup).
+        // Se ejecuta aquí, en el hilo de arranque, a propósito: mientras no termine, readiness sigue
+        // en OUT_OF_SERVICE. Ver CalentamientoArranque.
+        calentamiento.ejecutar();
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Propiedades de autenticación (prefijo "focoprod.auth").
+@Data
+@ConfigurationProperties(prefix = "focoprod.auth")
+public class AuthProperties {
+
+    // SESSION   → sesión HTTP del servidor (cookie JSESSIONID), como siempre.
+    // STATELESS → tras el login se emiten tokens firmados; cada petición se valida sin sesión ni BD.
+    public enum Modo { SESSION, STATELESS }
+
+    private Modo mode = Modo.SESSION;
+
+    private Tokens tokens = new Tokens();
+
+    private Oidc oidc = new Oidc();
+
+    @Data
+    public static class Tokens {
+
+        // Valor del claim "iss" de los tokens emitidos (y exigido al validarlos).
+        private String issuer = "focoprod";
+
+        // Vida del access token: corto, porque no se consulta la BD al validarlo.
+        private Duration accessTtl = Duration.ofMinutes(15);
+
+        // Vida del refresh token: se rota (se revoca y se emite uno nuevo) en cada uso.
+        private Duration refreshTtl = Duration.ofDays(14);
+
+        // Claves HMAC de firma. Todas sirven para verificar; activeKid indica con cuál se firma.
+        // Rotación: añadir una clave nueva, cambiar activeKid, y borrar la vieja cuando
+        // hayan expirado los refresh tokens firmados con ella.
+        private List<Clave> keys = new ArrayList<>();
+        private String activeKid;
+
+        // Cada cuánto se sincroniza la lista de revocados en memoria con la tabla tokens_revocados.
+        private Duration revocationSync = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Clave {
+
+        // Identificador de la clave (header "kid" del JWT).
+        private String kid;
+
+        // Secreto en Base64, mínimo 32 bytes (256 bits) para HS256.
+        private String secret;
+    }
+
+    // Login con proveedores OpenID Connect (Google, Apple...). Ver JwksIdTokenDecoderFactory.
+    @Data
+    public static class Oidc {
+
+        // true  → el usuario se construye con los claims del ID token (firma validada en local contra
+        //         las claves públicas del proveedor): sin llamada a user-info-uri en cada login.
+        // false → se pide también el endpoint UserInfo, como hace Spring Security por defecto.
+        private boolean confiarEnIdToken = true;
+
+        // Vida de las claves públicas (JWKS) en caché. Un "kid" desconocido (rotación de claves)
+        // fuerza una recarga antes de tiempo.
+        private Duration jwksTtl = Duration.ofHours(1);
+
+        // Margen con el que se recargan en segundo plano antes de caducar: los logins nunca esperan al JWKS.
+        private Duration jwksRefrescoAnticipado = Duration.ofMinutes(5);
+
+        // Timeout de conexión y de lectura al descargar el JWKS.
+        private Duration jwksTimeout = Duration.ofSeconds(5);
+
+        // Ajustes por registrationId (google, apple...).
+        private Map<String, Proveedor> proveedores = new HashMap<>();
+    }
+
+    @Data
+    public static class Proveedor {
+
+        // null → lo que diga confiarEnIdToken. true para proveedores cuyo ID token no trae email o nombre.
+        private Boolean userinfo;
+
+        // Parámetros extra de la petición de autorización (p. ej. response_mode=form_post en Apple).
+        private Map<String, String> parametrosAutorizacion = new HashMap<>();
+    }
+}
@@ -0,0 +1,20 @@
+package com.focoprod.backend.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Habilita la caché de Spring (@Cacheable, @CacheEvict...).
+// El proveedor (Caffeine), el tamaño y el TTL se configuran en application.yaml (spring.cache.*).
+// Con spring.cache.type=none las anotaciones siguen presentes pero no cachean nada.
+// Más info:
+// https://docs.spring.io/spring-framework/reference/integration/cache/annotations.html
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // CuentaUsuario por email. Solo usuarios que existen: "no existe" no se cachea.
+    public static final String USUARIOS_POR_EMAIL = "usuariosPorEmail";
+
+    // CuentaUsuario por "provider:providerId" (logins OAuth2).
+    public static final String USUARIOS_POR_PROVIDER = "usuariosPorProvider";
+}
@@ -0,0 +1,36 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Calentamiento al arrancar (prefijo "focoprod.warmup"). Ver CalentamientoArranque.
+@Data
+@ConfigurationProperties(prefix = "focoprod.warmup")
+public class CalentamientoProperties {
+
+    // false → el nodo se declara listo sin calentar.
+    private boolean enabled = true;
+
+    // Tope de todo el calentamiento: al superarlo se salta lo que falte y el nodo se declara listo.
+    private Duration duracionMaxima = Duration.ofSeconds(30);
+
+    // Conexiones abiertas a la vez para llenar el pool. 0 → el máximo del pool (maximum-pool-size).
+    private int conexiones = 0;
+
+    // Ejecuciones de las consultas de UsuarioRepository (findByEmail, findByProviderAndProviderId).
+    private int consultas = 200;
+
+    // Registros y upserts OAuth2 sintéticos, en transacciones que se deshacen.
+    private int escrituras = 20;
+
+    // Hashes BCrypt (en paralelo en el pool de PasswordHashingEngine) y sus comprobaciones.
+    private int hashes = 8;
+
+    // Serializaciones y lecturas JSON de cada DTO de la API.
+    private int serializaciones = 2_000;
+
+    // Peticiones HTTP locales (Tomcat, filtros de seguridad, Actuator, frontend).
+    private int peticionesHttp = 100;
+}
@@ -0,0 +1,30 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+// Dashboard en vivo por SSE (prefijo "focoprod.dashboard"). Ver PublicadorDashboard.
+@Data
+@ConfigurationProperties(prefix = "focoprod.dashboard")
+public class DashboardProperties {
+
+    // Zona horaria con la que se decide qué es "hoy" en los totales.
+    private ZoneId zona = ZoneId.of("UTC");
+
+    // Cada cuánto se envía un comentario SSE a cada conexión: mantiene abiertos los proxies y
+    // descubre los clientes que se fueron sin cerrar.
+    private Duration latido = Duration.ofSeconds(30);
+
+    // Una conexión que lleva más que esto escribiendo un mensaje (cliente que no lee) se cierra.
+    private Duration timeoutEnvio = Duration.ofSeconds(10);
+
+    // Vida máxima de una conexión. Al cerrarse, EventSource reconecta solo; así las conexiones
+    // se reparten entre nodos nuevos tras un despliegue o un escalado.
+    private Duration duracionMaxima = Duration.ofMinutes(30);
+
+    // Conexiones abiertas por usuario (pestañas, dispositivos). Al superarlo se cierra la más antigua.
+    private int maxConexionesPorUsuario = 5;
+}
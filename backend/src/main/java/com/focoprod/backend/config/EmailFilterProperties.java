@@ -0,0 +1,23 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Propiedades del filtro de existencia de emails (prefijo "focoprod.email-filter").
+@Data
+@ConfigurationProperties(prefix = "focoprod.email-filter")
+public class EmailFilterProperties {
+
+    // false → el filtro siempre responde "podría existir" y todo va a la BD como antes.
+    private boolean enabled = true;
+
+    // Número de emails para el que se dimensiona el filtro.
+    // Al arrancar se usa el mayor entre este valor y el doble de los usuarios existentes.
+    private long expectedInsertions = 1_000_000;
+
+    // Tasa de falsos positivos deseada con expectedInsertions elementos.
+    private double falsePositiveRate = 0.01;
+
+    // Filas por viaje de red al recorrer la tabla usuarios durante la construcción.
+    private int fetchSize = 5000;
+}
@@ -0,0 +1,90 @@
+package com.focoprod.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Elige el pool de cada conexión (ver ReplicasConfig):
+//  - Transacción de solo lectura (@Transactional(readOnly = true)) → una réplica, por turnos.
+//  - Lo demás (escrituras, y también lo que no declara readOnly) → el primario.
+//  - Tras usar el primario, el resto de la petición HTTP también lee del primario: la réplica va con
+//    algo de retraso y no vería lo que la propia petición acaba de escribir ("read your writes").
+//    La marca va en los atributos de la petición; fuera de una petición (jobs programados) no aplica.
+// Solo funciona detrás de LazyConnectionDataSourceProxy: Spring marca la transacción como de solo
+// lectura después de pedir la conexión, así que hay que esperar a la primera sentencia para decidir.
+// Más info:
+// https://docs.spring.io/spring-framework/docs/current/javadoc-api/org/springframework/jdbc/datasource/lookup/AbstractRoutingDataSource.html
+public class EnrutadorDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARIO = "primario";
+
+    private static final String ATRIBUTO_PRIMARIO_FIJO = EnrutadorDataSource.class.getName() + ".primarioFijo";
+
+    private final List<String> replicas;
+    private final List<HikariDataSource> poolsReplicas;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    // focoprod.datasource.routes{target=primary|replica, reason=read_write|read_your_writes|read_only}
+    private final Counter escrituras;
+    private final Counter lecturasPrimario;
+    private final Counter lecturasReplica;
+
+    public EnrutadorDataSource(DataSource primario, List<HikariDataSource> replicas, MeterRegistry registry) {
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        for (HikariDataSource replica : replicas) {
+            destinos.put(replica.getPoolName(), replica);
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        setLenientFallback(false);
+        this.replicas = replicas.stream().map(HikariDataSource::getPoolName).toList();
+        this.poolsReplicas = replicas;
+        this.escrituras = ruta(registry, "primary", "read_write");
+        this.lecturasPrimario = ruta(registry, "primary", "read_your_writes");
+        this.lecturasReplica = ruta(registry, "replica", "read_only");
+    }
+
+    private static Counter ruta(MeterRegistry registry, String destino, String motivo) {
+        return Counter.builder("focoprod.datasource.routes")
+                .tag("target", destino)
+                .tag("reason", motivo)
+                .description("Conexiones obtenidas por pool de destino y motivo")
+                .register(registry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        RequestAttributes peticion = RequestContextHolder.getRequestAttributes();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()) {
+            if (peticion != null) {
+                peticion.setAttribute(ATRIBUTO_PRIMARIO_FIJO, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+            escrituras.increment();
+            return PRIMARIO;
+        }
+        if (peticion != null && peticion.getAttribute(ATRIBUTO_PRIMARIO_FIJO, RequestAttributes.SCOPE_REQUEST) != null) {
+            lecturasPrimario.increment();
+            return PRIMARIO;
+        }
+        lecturasReplica.increment();
+        return replicas.get(Math.floorMod(turno.getAndIncrement(), replicas.size()));
+    }
+
+    // Los pools de las réplicas no son beans (hay tantos como réplicas configuradas): se cierran aquí.
+    @Override
+    public void destroy() {
+        poolsReplicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,36 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Ingesta de eventos de sesiones de foco (prefijo "focoprod.eventos"). Ver IngestaEventosSesion.
+@Data
+@ConfigurationProperties(prefix = "focoprod.eventos")
+public class EventosSesionProperties {
+
+    // Eventos aceptados pero aún sin guardar que caben en memoria. Lleno → 503 con Retry-After.
+    private int capacidadBuffer = 100_000;
+
+    // Se escribe en cuanto hay este número de eventos pendientes...
+    private int tamanoLote = 2_000;
+
+    // ...o cuando el primero lleva este tiempo esperando, lo que ocurra antes.
+    private Duration intervaloFlush = Duration.ofMillis(100);
+
+    // Máximo de eventos en una petición (lo que no quepa, en otra).
+    private int maxPorPeticion = 5_000;
+
+    // Eventos más antiguos que esto (clientes que estuvieron mucho tiempo sin conexión) se rechazan.
+    private Duration antiguedadMaxima = Duration.ofDays(30);
+
+    // Margen para relojes de dispositivos adelantados.
+    private Duration margenFuturo = Duration.ofDays(1);
+
+    // Meses futuros cuyas particiones se crean por adelantado.
+    private int mesesParticionesFuturas = 2;
+
+    // Valor del header Retry-After cuando el buffer está lleno.
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,38 @@
+package com.focoprod.backend.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// CBOR (application/cbor) y Smile (application/x-jackson-smile) además de JSON en toda la API.
+// Los mismos DTOs y la misma configuración de Jackson; solo cambia la codificación, que en la app móvil
+// ocupa menos y se lee más rápido que el texto (medido en benchmarks/FormatosBenchmark).
+//
+// Spring MVC elige el conversor por cabeceras, en cada endpoint y sin código en los controladores:
+//   Content-Type → formato del cuerpo de la petición (@RequestBody).
+//   Accept       → formato de la respuesta. Sin Accept, o con */*, sigue siendo JSON (el navegador no cambia).
+//
+// Spring MVC ya añade estos conversores si las librerías están en el classpath, pero con un ObjectMapper
+// propio. Como beans, Spring Boot los pone en su lugar y se construyen con el Jackson2ObjectMapperBuilder
+// de Spring Boot: mismas opciones spring.jackson.* y módulos (fechas como Instant...) que en JSON.
+// Más info:
+// https://docs.spring.io/spring-boot/reference/web/servlet.html#web.servlet.spring-mvc.message-converters
+// https://github.com/FasterXML/jackson-dataformats-binary
+@Configuration
+public class FormatosBinariosConfig {
+
+    // Jackson2ObjectMapperBuilder es un bean prototype: cada inyección es un builder nuevo.
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
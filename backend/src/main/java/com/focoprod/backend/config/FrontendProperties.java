@@ -0,0 +1,28 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Propiedades del frontend servido por el backend (prefijo "focoprod.frontend"). Ver FrontendBundle.
+@Data
+@ConfigurationProperties(prefix = "focoprod.frontend")
+public class FrontendProperties {
+
+    // false → el backend no sirve el frontend (p. ej. si lo sirve un CDN o Live Server).
+    private boolean enabled = true;
+
+    // Carpeta con los fuentes del frontend. El build copia ../frontend en el jar (ver pom.xml);
+    // en desarrollo se puede apuntar a la carpeta del repo: file:../frontend/
+    private String location = "classpath:frontend/";
+
+    // Página que se sirve en "/".
+    private String paginaInicio = "index.html";
+
+    // Cache-Control de los assets con huella en el nombre: su contenido no cambia nunca.
+    private Duration cacheAssets = Duration.ofDays(365);
+
+    // Solo se guarda la versión gzip si ahorra al menos este porcentaje (imágenes ya comprimidas, etc.).
+    private int ahorroMinimoGzip = 10;
+}
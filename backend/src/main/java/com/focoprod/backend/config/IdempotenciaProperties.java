@@ -0,0 +1,27 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Header Idempotency-Key de POST /api/auth/register (prefijo "focoprod.idempotencia").
+// Ver IdempotenciaRegistro.
+@Data
+@ConfigurationProperties(prefix = "focoprod.idempotencia")
+public class IdempotenciaProperties {
+
+    // Tiempo durante el que una clave devuelve la respuesta guardada (en memoria y en la BD).
+    private Duration ttl = Duration.ofHours(24);
+
+    // Claves en la caché en memoria de cada nodo; al llenarse expulsa las menos usadas
+    // (siguen en la BD hasta ttl).
+    private int maxClaves = 100_000;
+
+    // Una clave reservada sin respuesta durante más de esto se da por abandonada (el nodo que la
+    // ejecutaba cayó) y la siguiente petición con esa clave vuelve a ejecutar el registro.
+    private Duration reservaMaxima = Duration.ofMinutes(1);
+
+    // Valor del header Retry-After cuando la misma clave está en curso en otro nodo.
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
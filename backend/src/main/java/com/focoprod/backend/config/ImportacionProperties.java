@@ -0,0 +1,18 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Propiedades de la importación masiva de usuarios (prefijo "focoprod.import").
+@Data
+@ConfigurationProperties(prefix = "focoprod.import")
+public class ImportacionProperties {
+
+    // Filas que se leen, validan, hashean e insertan juntas.
+    // Es lo único que vive en memoria a la vez, así que acota el uso de heap.
+    private int chunkSize = 1000;
+
+    // Máximo de errores por fila que se devuelven en la respuesta.
+    // Los demás solo se cuentan, para no acumular millones de errores en memoria.
+    private int maxErrores = 1000;
+}
@@ -0,0 +1,20 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Propiedades del listado y la exportación de usuarios (prefijo "focoprod.listado").
+@Data
+@ConfigurationProperties(prefix = "focoprod.listado")
+public class ListadoProperties {
+
+    // Usuarios por página si la petición no indica "limite".
+    private int tamanioPagina = 50;
+
+    // Máximo que se acepta en "limite".
+    private int maxTamanioPagina = 500;
+
+    // Filas por viaje de red en la exportación (cursor del lado del servidor).
+    // Es lo único que vive en memoria a la vez, da igual cuántos usuarios haya.
+    private int fetchSize = 1000;
+}
@@ -0,0 +1,75 @@
+package com.focoprod.backend.config;
+
+import com.focoprod.backend.dto.DashboardResumen;
+import com.focoprod.backend.dto.ErrorEvento;
+import com.focoprod.backend.dto.ErrorFila;
+import com.focoprod.backend.dto.EventoSesionRequest;
+import com.focoprod.backend.dto.ImportacionResultado;
+import com.focoprod.backend.dto.IngestaEventosResultado;
+import com.focoprod.backend.dto.PaginaUsuarios;
+import com.focoprod.backend.dto.RefreshRequest;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.TokenResponse;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.model.CuentaUsuario;
+import com.focoprod.backend.model.TokenRevocado;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.security.CustomOAuth2SuccessHandler;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+
+// Pistas ("runtime hints") para el procesado AOT y la imagen nativa de GraalVM (perfiles aot, cds y native
+// del pom). En una imagen nativa solo existe la reflexión, los proxies y los recursos que se declaran en
+// tiempo de compilación; Spring deduce casi todo (beans, parámetros de los controladores, entidades),
+// y aquí se añade lo que usa el código por su cuenta. En la JVM normal no tienen ningún efecto.
+// Más info:
+// https://docs.spring.io/spring-framework/reference/core/aot.html#aot.hints
+@Configuration
+@ImportRuntimeHints(NativeConfig.Hints.class)
+public class NativeConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        private final BindingReflectionHintsRegistrar jackson = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Entidades: Hibernate lee y escribe los campos por reflexión. Usuario además por SpEL:
+            // la clave de caché de UsuarioRepository.findByEmail llama a Usuario.normalizarEmail.
+            for (Class<?> entidad : new Class<?>[]{Usuario.class, TokenRevocado.class}) {
+                hints.reflection().registerType(entidad,
+                        MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            // Hibernate crea CuentaUsuario ("select new" de UsuarioRepository) llamando a su constructor.
+            hints.reflection().registerType(CuentaUsuario.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+            // DTOs de Lombok: Jackson usa los getters/setters generados. Los de @RequestBody y los
+            // valores devueltos por los controladores ya los registra Spring, pero la importación
+            // (ObjectMapper.readValue de RegistroRequest) y la exportación (writerFor de UsuarioResponse)
+            // usan el ObjectMapper directamente. Se registran todos para no depender de eso.
+            jackson.registerReflectionHints(hints.reflection(),
+                    RegistroRequest.class, UsuarioResponse.class, PaginaUsuarios.class,
+                    ImportacionResultado.class, ErrorFila.class, RefreshRequest.class, TokenResponse.class,
+                    EventoSesionRequest.class, IngestaEventosResultado.class, ErrorEvento.class, DashboardResumen.class);
+
+            // El frontend empaquetado (classpath:frontend/, ver FrontendBundle): en la imagen nativa solo
+            // existen los recursos del classpath que se declaran.
+            hints.resources().registerPattern("frontend/**");
+
+            // CustomOAuth2SuccessHandler lleva @Observed: el bean real es un proxy del aspecto.
+            // Con proxies de clase (lo normal en Spring Boot) el AOT genera la subclase CGLIB al compilar;
+            // si se configura spring.aop.proxy-target-class=false es un proxy JDK de la interfaz.
+            hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(AuthenticationSuccessHandler.class));
+            hints.reflection().registerType(CustomOAuth2SuccessHandler.class,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Propiedades de la normalización de emails antiguos (prefijo "focoprod.email-normalization").
+@Data
+@ConfigurationProperties(prefix = "focoprod.email-normalization")
+public class NormalizacionEmailsProperties {
+
+    // false → no se ejecuta al arrancar.
+    private boolean enabled = true;
+
+    // Emails por transacción. Cada lote solo bloquea las filas que toca, nunca la tabla.
+    private int lote = 200;
+
+    // Espera entre lotes para no competir con el tráfico normal.
+    private Duration pausa = Duration.ofMillis(50);
+}
@@ -0,0 +1,48 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Outbox de eventos de usuarios (prefijo "focoprod.outbox"). Ver DespachadorOutbox.
+@Data
+@ConfigurationProperties(prefix = "focoprod.outbox")
+public class OutboxProperties {
+
+    // false → este nodo no entrega eventos (se siguen escribiendo; los entrega otro nodo).
+    private boolean despachador = true;
+
+    // Espera entre una ronda del despachador y la siguiente cuando no queda nada pendiente.
+    private Duration intervalo = Duration.ofSeconds(1);
+
+    // Eventos reclamados por consulta (y entregados en paralelo).
+    private int tamanoLote = 100;
+
+    // Tiempo que un evento reclamado queda reservado para este nodo. Debe superar lo que tarda el
+    // manejador más lento: al vencer, otro nodo lo vuelve a reclamar.
+    private Duration bloqueo = Duration.ofMinutes(5);
+
+    // Intentos antes de dar un evento por fallido.
+    private int maxIntentos = 10;
+
+    // Espera tras el primer fallo; se duplica en cada intento hasta backoffMaximo.
+    private Duration backoffInicial = Duration.ofSeconds(1);
+
+    private Duration backoffMaximo = Duration.ofHours(1);
+
+    // Los eventos entregados se borran pasado este tiempo.
+    private Duration retencion = Duration.ofDays(7);
+
+    // Manejador en memoria (ManejadorOutboxEnMemoria), para pruebas y desarrollo.
+    private EnMemoria enMemoria = new EnMemoria();
+
+    @Data
+    public static class EnMemoria {
+
+        private boolean enabled = false;
+
+        // Eventos que guarda; al llenarse descarta los más antiguos.
+        private int capacidad = 1_000;
+    }
+}
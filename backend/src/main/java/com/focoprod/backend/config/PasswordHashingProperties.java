@@ -0,0 +1,36 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Propiedades del motor de hashing de contraseñas (prefijo "focoprod.password-hashing").
+// Spring las llena automáticamente desde application.yaml o variables de entorno.
+// Más info:
+// https://docs.spring.io/spring-boot/reference/features/external-config.html#features.external-config.typesafe-configuration-properties
+@Data
+@ConfigurationProperties(prefix = "focoprod.password-hashing")
+public class PasswordHashingProperties {
+
+    // Número de hilos dedicados a BCrypt.
+    // 0 → se usa el número de núcleos disponibles (BCrypt es 100% CPU).
+    private int threads = 0;
+
+    // Cuántas tareas de hashing pueden esperar en cola antes de rechazar con 503.
+    private int queueCapacity = 256;
+
+    // Work factor ("cost") fijo de BCrypt.
+    // 0 → se calibra al arrancar para acercarse a targetLatency.
+    private int strength = 0;
+
+    // Latencia objetivo de un hash cuando se calibra el work factor.
+    private Duration targetLatency = Duration.ofMillis(250);
+
+    // Límites del work factor calibrado. Nunca bajamos de minStrength aunque la máquina sea lenta.
+    private int minStrength = 10;
+    private int maxStrength = 14;
+
+    // Valor del header Retry-After cuando la cola está llena.
+    private Duration retryAfter = Duration.ofSeconds(2);
+}
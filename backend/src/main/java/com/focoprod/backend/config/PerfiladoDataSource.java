@@ -0,0 +1,332 @@
+package com.focoprod.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Capa de perfilado entre la aplicación y el pool (ver PerfiladoSqlConfig): envuelve las conexiones,
+// sentencias y ResultSets con proxies dinámicos y mide cada ejecución, como datasource-proxy.
+//
+// Por cada sentencia distinta (mismo SQL, sin contar los parámetros):
+//   focoprod.sql.statements{operation, table, query, result} → latencia de execute*, con histograma.
+//   focoprod.sql.rows{operation, table, query}               → filas leídas (al cerrar el ResultSet)
+//                                                              o modificadas (executeUpdate/executeBatch).
+//   focoprod.sql.slow{query}                                 → ejecuciones por encima de umbral-lenta.
+//   focoprod.sql.repeated{query}                             → peticiones HTTP que la repitieron al menos
+//                                                              "repeticiones" veces (patrón N+1).
+// query es un identificador corto del SQL; los logs de sentencias lentas y repetidas (muestreados)
+// llevan el SQL completo. Nunca se registran los valores de los parámetros: son emails y hashes.
+//
+// Las repeticiones se cuentan en el hilo de la petición (PerfiladoSqlConfig abre y cierra el recuento
+// con un filtro). Lo que se ejecuta en otros hilos (hashing, ingesta, outbox) solo tiene métricas.
+// Más info:
+// https://jdbc-observations.github.io/datasource-proxy/docs/current/user-guide/
+public class PerfiladoDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(PerfiladoDataSource.class);
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern TABLA_LECTURA = Pattern.compile("\\bfrom\\s+([a-z_][\\w.]*)");
+    private static final Pattern TABLA_ESCRITURA = Pattern.compile("\\b(?:into|update)\\s+([a-z_][\\w.]*)");
+
+    // Recuento de la petición en curso en este hilo; null fuera de una petición.
+    private static final ThreadLocal<Peticion> PETICION = new ThreadLocal<>();
+
+    // Métricas de una sentencia. id → tag query.
+    private record Sentencia(String id, String sql, String operacion, String tabla,
+                             Timer correctas, DistributionSummary filas, Counter lentas) {
+    }
+
+    private static final class Peticion {
+        final String descripcion;
+        final Map<Sentencia, Integer> ejecuciones = new HashMap<>();
+
+        Peticion(String descripcion) {
+            this.descripcion = descripcion;
+        }
+    }
+
+    private final PerfiladoSqlProperties properties;
+    private final MeterRegistry registry;
+    private final long umbralLentaNanos;
+    private final Map<String, Sentencia> sentencias = new ConcurrentHashMap<>();
+    private final Sentencia otras;
+
+    public PerfiladoDataSource(DataSource destino, PerfiladoSqlProperties properties, MeterRegistry registry) {
+        super(destino);
+        this.properties = properties;
+        this.registry = registry;
+        this.umbralLentaNanos = properties.getUmbralLenta().toNanos();
+        this.otras = crear("other", "(varias)", "other", "other");
+    }
+
+    // Abre el recuento de repeticiones de una petición en el hilo actual.
+    public void abrirPeticion(String descripcion) {
+        PETICION.set(new Peticion(descripcion));
+    }
+
+    // Cierra el recuento y avisa de las sentencias repetidas.
+    public void cerrarPeticion() {
+        Peticion peticion = PETICION.get();
+        PETICION.remove();
+        if (peticion == null) {
+            return;
+        }
+        peticion.ejecuciones.forEach((sentencia, veces) -> {
+            if (veces < properties.getRepeticiones()) {
+                return;
+            }
+            Counter.builder("focoprod.sql.repeated")
+                    .tag("query", sentencia.id())
+                    .description("Peticiones que repiten la misma sentencia (posible N+1)")
+                    .register(registry)
+                    .increment();
+            if (muestrear()) {
+                log.atWarn()
+                        .addKeyValue("request", peticion.descripcion)
+                        .addKeyValue("query", sentencia.id())
+                        .addKeyValue("veces", veces)
+                        .addKeyValue("sql", sentencia.sql())
+                        .log("Sentencia SQL repetida en una misma petición");
+            }
+        });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return envolver(Connection.class, new Conexion(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return envolver(Connection.class, new Conexion(super.getConnection(username, password)));
+    }
+
+    private Sentencia sentencia(String sql) {
+        Sentencia sentencia = sentencias.get(sql);
+        if (sentencia != null) {
+            return sentencia;
+        }
+        if (sentencias.size() >= properties.getMaxSentencias()) {
+            return otras;
+        }
+        return sentencias.computeIfAbsent(sql, s -> {
+            String normalizada = ESPACIOS.matcher(s.strip()).replaceAll(" ");
+            String minusculas = normalizada.toLowerCase(Locale.ROOT);
+            String operacion = minusculas.split(" ", 2)[0];
+            if (!Set.of("select", "insert", "update", "delete", "with").contains(operacion)) {
+                operacion = "other";
+            }
+            Matcher tabla = (operacion.equals("select") || operacion.equals("delete")
+                    ? TABLA_LECTURA : TABLA_ESCRITURA).matcher(minusculas);
+            return crear("%08x".formatted(normalizada.hashCode()), normalizada, operacion,
+                    tabla.find() ? tabla.group(1) : "none");
+        });
+    }
+
+    private Sentencia crear(String id, String sql, String operacion, String tabla) {
+        return new Sentencia(id, sql, operacion, tabla,
+                temporizador(id, operacion, tabla, "success"),
+                DistributionSummary.builder("focoprod.sql.rows")
+                        .tag("operation", operacion).tag("table", tabla).tag("query", id)
+                        .description("Filas leídas o modificadas por sentencia")
+                        .register(registry),
+                Counter.builder("focoprod.sql.slow")
+                        .tag("query", id)
+                        .description("Sentencias por encima de focoprod.sql-profiling.umbral-lenta")
+                        .register(registry));
+    }
+
+    private Timer temporizador(String id, String operacion, String tabla, String resultado) {
+        return Timer.builder("focoprod.sql.statements")
+                .tag("operation", operacion).tag("table", tabla).tag("query", id).tag("result", resultado)
+                .description("Latencia de ejecución de cada sentencia SQL")
+                .register(registry);
+    }
+
+    private void registrar(Sentencia sentencia, long nanos, boolean correcta) {
+        (correcta ? sentencia.correctas()
+                : temporizador(sentencia.id(), sentencia.operacion(), sentencia.tabla(), "error"))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos >= umbralLentaNanos) {
+            sentencia.lentas().increment();
+            if (muestrear()) {
+                Peticion peticion = PETICION.get();
+                log.atWarn()
+                        .addKeyValue("query", sentencia.id())
+                        .addKeyValue("ms", TimeUnit.NANOSECONDS.toMillis(nanos))
+                        .addKeyValue("request", peticion != null ? peticion.descripcion : null)
+                        .addKeyValue("sql", sentencia.sql())
+                        .log("Sentencia SQL lenta");
+            }
+        }
+        Peticion peticion = PETICION.get();
+        if (peticion != null) {
+            peticion.ejecuciones.merge(sentencia, 1, Integer::sum);
+        }
+    }
+
+    private boolean muestrear() {
+        return ThreadLocalRandom.current().nextDouble() < properties.getMuestreo();
+    }
+
+    private static <T> T envolver(Class<T> tipo, InvocationHandler manejador) {
+        return tipo.cast(Proxy.newProxyInstance(PerfiladoDataSource.class.getClassLoader(),
+                new Class<?>[]{tipo}, manejador));
+    }
+
+    // Llama al método real sin la InvocationTargetException de la reflexión. equals y hashCode son los
+    // del proxy: Spring compara conexiones por identidad (p. ej. al liberar la de una transacción).
+    private static Object invocar(Object proxy, Object destino, Method metodo, Object[] args) throws Throwable {
+        if (metodo.getName().equals("equals") && metodo.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (metodo.getName().equals("hashCode") && metodo.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Connection: envuelve las sentencias que crea.
+    private final class Conexion implements InvocationHandler {
+
+        private final Connection destino;
+
+        Conexion(Connection destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            Object resultado = invocar(proxy, destino, metodo, args);
+            return switch (metodo.getName()) {
+                case "createStatement" -> envolver(Statement.class, new Sentencias((Statement) resultado, null));
+                case "prepareStatement" -> envolver(PreparedStatement.class,
+                        new Sentencias((Statement) resultado, sentencia((String) args[0])));
+                case "prepareCall" -> envolver(CallableStatement.class,
+                        new Sentencias((Statement) resultado, sentencia((String) args[0])));
+                default -> resultado;
+            };
+        }
+    }
+
+    // Statement / PreparedStatement / CallableStatement: mide cada execute* y cuenta las filas.
+    private final class Sentencias implements InvocationHandler {
+
+        private final Statement destino;
+        // SQL del PreparedStatement; en un Statement simple, el de la última sentencia ejecutada o añadida al lote.
+        private Sentencia sentencia;
+
+        Sentencias(Statement destino, Sentencia sentencia) {
+            this.destino = destino;
+            this.sentencia = sentencia;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (args != null && args.length > 0 && args[0] instanceof String sql
+                    && (nombre.startsWith("execute") || nombre.equals("addBatch"))) {
+                sentencia = sentencia(sql);
+            }
+            if (!nombre.startsWith("execute") || sentencia == null) {
+                Object resultado = invocar(proxy, destino, metodo, args);
+                return nombre.equals("getResultSet") && resultado != null && sentencia != null
+                        ? filas((ResultSet) resultado) : resultado;
+            }
+
+            long inicio = System.nanoTime();
+            Object resultado;
+            try {
+                resultado = invocar(proxy, destino, metodo, args);
+            } catch (Throwable e) {
+                registrar(sentencia, System.nanoTime() - inicio, false);
+                throw e;
+            }
+            registrar(sentencia, System.nanoTime() - inicio, true);
+            if (resultado instanceof ResultSet rs) {
+                return filas(rs);
+            }
+            if (resultado instanceof Integer n && n >= 0) {
+                sentencia.filas().record(n);
+            } else if (resultado instanceof Long n && n >= 0) {
+                sentencia.filas().record(n);
+            } else if (resultado instanceof int[] lote) {
+                long total = 0;
+                for (int n : lote) {
+                    total += Math.max(n, 0);
+                }
+                sentencia.filas().record(total);
+            }
+            return resultado;
+        }
+
+        private ResultSet filas(ResultSet rs) {
+            return envolver(ResultSet.class, new Filas(rs, sentencia));
+        }
+    }
+
+    // ResultSet: cuenta las filas leídas y las registra al cerrarlo.
+    private static final class Filas implements InvocationHandler {
+
+        private final ResultSet destino;
+        private final Sentencia sentencia;
+        private long leidas;
+        private boolean registrado;
+
+        Filas(ResultSet destino, Sentencia sentencia) {
+            this.destino = destino;
+            this.sentencia = sentencia;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            Object resultado = invocar(proxy, destino, metodo, args);
+            switch (metodo.getName()) {
+                case "next" -> {
+                    if (Boolean.TRUE.equals(resultado)) {
+                        leidas++;
+                    }
+                }
+                case "close" -> {
+                    if (!registrado) {
+                        registrado = true;
+                        sentencia.filas().record(leidas);
+                    }
+                }
+                default -> {
+                }
+            }
+            return resultado;
+        }
+    }
+}
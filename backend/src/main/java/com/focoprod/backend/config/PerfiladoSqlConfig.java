@@ -0,0 +1,73 @@
+package com.focoprod.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+// Perfilado de SQL bajo demanda (focoprod.sql-profiling.enabled=true). Sustituye al show-sql del
+// perfil "dev", que escribe cada sentencia en el log y no dice cuánto tarda.
+//
+// Desactivado (lo normal) esta clase no se carga: el DataSource es el de siempre, sin proxies.
+// Activado:
+//  - El bean "dataSource" (el que usan JPA, JdbcTemplate y Flyway; con réplicas, el
+//    LazyConnectionDataSourceProxy de ReplicasConfig) se envuelve en un PerfiladoDataSource.
+//    Los pools Hikari siguen accesibles con unwrap(): sus métricas no cambian.
+//  - Un filtro, el primero de todos (también antes de Spring Security, así que cubre
+//    CustomOAuth2SuccessHandler), cuenta las sentencias de cada petición para detectar repeticiones.
+// Más info:
+// https://docs.spring.io/spring-framework/reference/core/beans/factory-extension.html#beans-factory-extension-bpp
+@Configuration
+@ConditionalOnProperty(name = "focoprod.sql-profiling.enabled", havingValue = "true")
+public class PerfiladoSqlConfig {
+
+    private static final String DATA_SOURCE = "dataSource";
+
+    // static: los BeanPostProcessor se crean antes que el resto de beans. Las dependencias se piden
+    // al envolver, no al crear el BeanPostProcessor.
+    @Bean
+    public static BeanPostProcessor perfiladoSqlPostProcessor(ObjectProvider<PerfiladoSqlProperties> properties,
+                                                              ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE.equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof PerfiladoDataSource)) {
+                    return new PerfiladoDataSource(dataSource, properties.getObject(), registry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> perfiladoSqlFilter(DataSource dataSource) {
+        PerfiladoDataSource perfilado = (PerfiladoDataSource) dataSource;
+        FilterRegistrationBean<OncePerRequestFilter> registro = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                perfilado.abrirPeticion(request.getMethod() + " " + request.getRequestURI());
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    perfilado.cerrarPeticion();
+                }
+            }
+        });
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+}
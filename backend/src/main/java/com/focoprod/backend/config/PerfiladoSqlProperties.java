@@ -0,0 +1,28 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Perfilado de sentencias SQL (prefijo "focoprod.sql-profiling"). Ver PerfiladoDataSource.
+@Data
+@ConfigurationProperties(prefix = "focoprod.sql-profiling")
+public class PerfiladoSqlProperties {
+
+    // false → no se envuelve el DataSource: coste cero.
+    private boolean enabled = false;
+
+    // Sentencias que tardan al menos esto se cuentan como lentas (focoprod.sql.slow) y van al log.
+    private Duration umbralLenta = Duration.ofMillis(100);
+
+    // Fracción de sentencias lentas y de peticiones con repeticiones que se escriben en el log
+    // (0.0–1.0). Los contadores cuentan todas.
+    private double muestreo = 0.1;
+
+    // Una petición que ejecuta la misma sentencia al menos estas veces se marca como sospechosa de N+1.
+    private int repeticiones = 3;
+
+    // Sentencias distintas con métricas propias (tag query). Las que pasen de aquí comparten query=other.
+    private int maxSentencias = 100;
+}
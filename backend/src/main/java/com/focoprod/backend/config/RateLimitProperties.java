@@ -0,0 +1,65 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Propiedades del limitador de peticiones de las rutas públicas de autenticación
+// (prefijo "focoprod.rate-limit"). Ver RateLimitFilter.
+@Data
+@ConfigurationProperties(prefix = "focoprod.rate-limit")
+public class RateLimitProperties {
+
+    // De qué se saca la clave de cada cubo de tokens.
+    public enum Clave {
+        // Dirección del cliente (request.getRemoteAddr()). Detrás de un proxy es la de X-Forwarded-For
+        // gracias a server.forward-headers-strategy (solo si el proxy es de confianza, ver application.yaml).
+        IP,
+        // Email del formulario de login o del JSON del registro, normalizado.
+        // Si la petición no trae email, la regla no se aplica.
+        EMAIL
+    }
+
+    private boolean enabled = true;
+
+    // Número de particiones (cada una con su lock) del mapa de cubos. Potencia de 2.
+    private int stripes = 64;
+
+    // Máximo de cubos en memoria entre todas las reglas. Al llenarse una partición
+    // se descarta su cubo usado hace más tiempo.
+    private int maxBuckets = 100_000;
+
+    // Cada cuánto se borran los cubos que ya se rellenaron del todo (equivalen a uno nuevo).
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    private List<Regla> rules = new ArrayList<>();
+
+    @Data
+    public static class Regla {
+
+        // Nombre de la regla: forma parte de la clave del cubo y del tag de las métricas.
+        private String name;
+
+        // Patrón de ruta (sintaxis de PathPattern de Spring: "/oauth2/**").
+        private String path;
+
+        // Métodos HTTP a los que se aplica. Vacío → todos.
+        private List<String> methods = new ArrayList<>();
+
+        private Clave key = Clave.IP;
+
+        // Peticiones permitidas de golpe (tamaño del cubo)...
+        private int capacity = 10;
+
+        // ...y tiempo en que se recupera el cubo entero, a ritmo constante.
+        private Duration period = Duration.ofMinutes(1);
+
+        // Solo para reglas EMAIL del registro: no cobra la repetición de un registro ya hecho con la
+        // misma Idempotency-Key y los mismos datos (ver RateLimitFilter). En el login sería un agujero:
+        // una clave conocida dejaría probar contraseñas sin límite por cuenta.
+        private boolean exemptIdempotentReplays = false;
+    }
+}
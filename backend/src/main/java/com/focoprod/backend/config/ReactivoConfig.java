@@ -0,0 +1,85 @@
+package com.focoprod.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Perfil "r2dbc": pool de conexiones R2DBC a la misma BD que JDBC.
+// Con R2DBC el driver no bloquea ningún hilo mientras espera a PostgreSQL (usa unos pocos hilos
+// de E/S de Netty), y una conexión solo se toma del pool mientras se ejecuta la sentencia.
+// Lo usan UsuarioReactivoRepository y, a través de él, el registro y el login OAuth2.
+// Más info:
+// https://docs.spring.io/spring-framework/reference/data-access/r2dbc.html
+// https://github.com/r2dbc/r2dbc-pool
+@Configuration
+@Profile("r2dbc")
+public class ReactivoConfig {
+
+    // El pool no se publica como bean ConnectionFactory: DataSourceAutoConfiguration se desactiva si existe
+    // uno (entiende que la aplicación es solo R2DBC), y JPA, Flyway y el resto se quedarían sin DataSource.
+    // Por eso las métricas (r2dbc.pool.*) se registran aquí en lugar de en la autoconfiguración de Actuator.
+    @Bean
+    public DatabaseClient databaseClient(ReactivoProperties properties, DataSourceProperties dataSource,
+                                         MeterRegistry registry) {
+        String url = properties.getUrl() != null
+                ? properties.getUrl()
+                : dataSource.determineUrl().replaceFirst("^jdbc:", "r2dbc:");
+        // Una URL JDBC puede llevar user/password en la query (?user=...); R2DBC no lo admite.
+        Map<String, String> credencialesUrl = new HashMap<>();
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            StringJoiner resto = new StringJoiner("&");
+            for (String parametro : url.substring(query + 1).split("&")) {
+                String nombre = parametro.contains("=") ? parametro.substring(0, parametro.indexOf('=')) : parametro;
+                if (nombre.equals("user") || nombre.equals("password")) {
+                    credencialesUrl.put(nombre, URLDecoder.decode(parametro.substring(nombre.length() + 1), StandardCharsets.UTF_8));
+                } else if (!parametro.isEmpty()) {
+                    resto.add(parametro);
+                }
+            }
+            url = url.substring(0, query) + (resto.length() > 0 ? "?" + resto : "");
+        }
+        // Como en el driver JDBC, las de la URL mandan sobre spring.datasource.username/password.
+        String usuario = properties.getUsername() != null ? properties.getUsername()
+                : credencialesUrl.getOrDefault("user", dataSource.determineUsername());
+        String password = properties.getPassword() != null ? properties.getPassword()
+                : credencialesUrl.getOrDefault("password", dataSource.determinePassword());
+        ConnectionFactoryOptions.Builder opciones = ConnectionFactoryOptions.parse(url).mutate();
+        if (usuario != null) {
+            opciones.option(ConnectionFactoryOptions.USER, usuario);
+        }
+        if (password != null) {
+            opciones.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(opciones.build()))
+                .name("focoprod-r2dbc")
+                .initialSize(properties.getInitialSize())
+                .maxSize(properties.getMaxSize())
+                .maxAcquireTime(properties.getMaxAcquireTime())
+                .build());
+        new ConnectionPoolMetrics(pool, "focoprod-r2dbc", Tags.empty()).bindTo(registry);
+        return DatabaseClient.create(pool);
+    }
+
+    // Cierra las conexiones del pool al parar (ConnectionPool.close() solo devuelve un Mono sin ejecutarlo).
+    @Bean
+    public DisposableBean cierrePoolReactivo(DatabaseClient databaseClient) {
+        return () -> ((ConnectionPool) databaseClient.getConnectionFactory()).dispose();
+    }
+}
@@ -0,0 +1,26 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Conexión R2DBC del perfil "r2dbc" (prefijo "focoprod.r2dbc"). Ver ReactivoConfig.
+@Data
+@ConfigurationProperties(prefix = "focoprod.r2dbc")
+public class ReactivoProperties {
+
+    // r2dbc:postgresql://host:puerto/bd. null → la de spring.datasource.url cambiando "jdbc:" por "r2dbc:".
+    private String url;
+
+    // null → los de spring.datasource.
+    private String username;
+    private String password;
+
+    // Conexiones abiertas al arrancar y máximo del pool.
+    private int initialSize = 1;
+    private int maxSize = 10;
+
+    // Espera máxima por una conexión libre antes de fallar la petición.
+    private Duration maxAcquireTime = Duration.ofSeconds(30);
+}
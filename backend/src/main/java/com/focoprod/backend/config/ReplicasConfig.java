@@ -0,0 +1,80 @@
+package com.focoprod.backend.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lecturas a réplicas, escrituras al primario. Solo se activa si hay al menos una réplica en
+// focoprod.datasource.replicas; si no, Spring Boot crea el DataSource de siempre.
+//
+//   primarioDataSource  → pool Hikari de spring.datasource (el mismo que crearía Spring Boot).
+//   enrutadorDataSource → elige primario o réplica en cada conexión (ver EnrutadorDataSource).
+//   dataSource          → @Primary: lo usan JPA, JdbcTemplate y Flyway. LazyConnectionDataSourceProxy
+//                         no pide la conexión real hasta la primera sentencia, cuando ya se sabe si la
+//                         transacción es de solo lectura.
+//
+// Métricas de uso de cada pool: hikaricp.connections.active / idle / pending / usage con el tag
+// pool=primario, replica-1, replica-2... y el reparto en focoprod.datasource.routes.
+// Más info:
+// https://docs.spring.io/spring-boot/how-to/data-access.html#howto.data-access.configure-two-datasources
+// https://docs.spring.io/spring-framework/reference/data-access/jdbc/connections.html#jdbc-LazyConnectionDataSourceProxy
+@Configuration
+@ConditionalOnProperty(name = "focoprod.datasource.replicas[0].url")
+public class ReplicasConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource primario = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // Nombre por defecto del pool (spring.datasource.hikari.pool-name lo cambia): es el tag de sus métricas.
+        primario.setPoolName(EnrutadorDataSource.PRIMARIO);
+        return primario;
+    }
+
+    // Pools de las réplicas: misma configuración de Hikari que el primario, pero de solo lectura.
+    // No son beans, así que sus métricas se registran aquí (setMetricRegistry) y no en la autoconfiguración.
+    @Bean
+    public EnrutadorDataSource enrutadorDataSource(HikariDataSource primarioDataSource,
+                                                   DataSourceProperties properties,
+                                                   ReplicasProperties replicasProperties,
+                                                   Environment environment,
+                                                   MeterRegistry registry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        int numero = 1;
+        for (ReplicasProperties.Replica replica : replicasProperties.getReplicas()) {
+            HikariConfig config = new HikariConfig();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(config));
+            config.setPoolName("replica-" + numero++);
+            config.setJdbcUrl(replica.getUrl());
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setUsername(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername());
+            config.setPassword(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword());
+            config.setMaximumPoolSize(replica.getMaximumPoolSize() != null
+                    ? replica.getMaximumPoolSize() : primarioDataSource.getMaximumPoolSize());
+            config.setReadOnly(true);
+            config.setMetricRegistry(registry);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new EnrutadorDataSource(primarioDataSource, replicas, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutadorDataSource enrutadorDataSource) {
+        return new LazyConnectionDataSourceProxy(enrutadorDataSource);
+    }
+}
@@ -0,0 +1,32 @@
+package com.focoprod.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Réplicas de solo lectura de la BD (prefijo "focoprod.datasource"). Ver ReplicasConfig.
+// Sin réplicas (lo normal) todo va a spring.datasource, como siempre.
+@Data
+@ConfigurationProperties(prefix = "focoprod.datasource")
+public class ReplicasProperties {
+
+    // Cada réplica tiene su propio pool, con la configuración de spring.datasource.hikari.*
+    // salvo lo que se indique aquí.
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        // jdbc:postgresql://host:puerto/bd de la réplica.
+        private String url;
+
+        // null → los de spring.datasource.
+        private String username;
+        private String password;
+
+        // null → el mismo tamaño que el pool del primario.
+        private Integer maximumPoolSize;
+    }
+}
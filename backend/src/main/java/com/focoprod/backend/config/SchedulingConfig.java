@@ -0,0 +1,12 @@
+package com.focoprod.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Habilita las tareas periódicas (@Scheduled) del proyecto.
+// Más info:
+// https://docs.spring.io/spring-framework/reference/integration/scheduling.html#scheduling-enable-annotation-support
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,63 @@
+package com.focoprod.backend.controller;
+
+import com.focoprod.backend.exception.ClaveIdempotenciaException;
+import com.focoprod.backend.exception.ParametroInvalidoException;
+import com.focoprod.backend.exception.ServicioSaturadoException;
+import com.focoprod.backend.exception.UsuarioExistenteException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+// @RestControllerAdvice centraliza el manejo de excepciones de todos los controladores REST.
+// Más info:
+// https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-controller/ann-advice.html
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    // Un recurso interno está saturado → 503 Service Unavailable + Retry-After.
+    // El cuerpo usa la clave "error", que es la que lee el frontend (main.js).
+    // Más info sobre Retry-After:
+    // https://developer.mozilla.org/docs/Web/HTTP/Headers/Retry-After
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<Map<String, String>> servicioSaturado(ServicioSaturadoException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    // Token inválido, expirado o revocado en /api/auth/refresh → 401 Unauthorized.
+    // (En las rutas protegidas lo resuelve el propio filtro de Spring Security.)
+    @ExceptionHandler(JwtException.class)
+    public ResponseEntity<Map<String, String>> tokenInvalido(JwtException ex) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", "Token inválido o expirado"));
+    }
+
+    // Parámetro con un valor no admitido → 400 Bad Request con el motivo.
+    @ExceptionHandler(ParametroInvalidoException.class)
+    public ResponseEntity<Map<String, String>> parametroInvalido(ParametroInvalidoException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    // Registro con un email que ya tiene cuenta → 409 Conflict.
+    @ExceptionHandler(UsuarioExistenteException.class)
+    public ResponseEntity<Map<String, String>> usuarioExistente(UsuarioExistenteException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    // Idempotency-Key reutilizada con otros datos → 422; en curso en otro nodo → 409 + Retry-After.
+    @ExceptionHandler(ClaveIdempotenciaException.class)
+    public ResponseEntity<Map<String, String>> claveIdempotencia(ClaveIdempotenciaException ex) {
+        if (ex.isEnCurso()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                    .body(Map.of("error", ex.getMessage()));
+        }
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", ex.getMessage()));
+    }
+}
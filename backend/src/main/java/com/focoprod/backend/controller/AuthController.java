@@ -4,12 +4,26 @@
 package com.focoprod.backend.controller;
 
 import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.service.IdempotenciaRegistro;
+import com.focoprod.backend.service.UsuarioReactivoService;
 import com.focoprod.backend.service.UsuarioService;
 
+// @Observed mide el método con la Observation API de Micrometer: un timer con histograma
+// (métrica "focoprod.auth.register") y un span de tracing con el mismo nombre.
+// Docs: https://docs.spring.io/spring-boot/reference/actuator/observability.html#actuator.observability.annotations
+import io.micrometer.observation.annotation.Observed;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+
 // Importamos las anotaciones necesarias de Spring para construir un controlador REST.
 // Docs oficiales: https://docs.spring.io/spring-framework/reference/web/webmvc/controller.html
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 // @RestController indica que esta clase es un controlador REST.
 // Combina @Controller y @ResponseBody.
 // Más info: https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-controller.html#rest-controller
@@ -28,22 +42,59 @@ public class AuthController {
     // Más info sobre DI en Spring: https://docs.spring.io/spring-framework/reference/core/beans/dependencies/factory-collaboration.html
     private final UsuarioService usuarioService;
 
+    // Solo existe con el perfil "r2dbc"; sin él getIfAvailable() devuelve null.
+    private final ObjectProvider<UsuarioReactivoService> usuarioReactivoService;
+
+    // Respuestas de los registros con header Idempotency-Key.
+    private final IdempotenciaRegistro idempotenciaRegistro;
+
     // Constructor donde Spring inyecta UsuarioService.
     // Más info sobre constructor injection: https://docs.spring.io/spring-framework/reference/core/beans/dependencies/factory-collaboration.html#beans-constructor-injection
-    public AuthController(UsuarioService usuarioService) {
+    public AuthController(UsuarioService usuarioService,
+                          ObjectProvider<UsuarioReactivoService> usuarioReactivoService,
+                          IdempotenciaRegistro idempotenciaRegistro) {
         this.usuarioService = usuarioService;
+        this.usuarioReactivoService = usuarioReactivoService;
+        this.idempotenciaRegistro = idempotenciaRegistro;
     }
 
     // @PostMapping indica que este método atiende una petición HTTP POST.
     // Docs: https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-controller/ann-requestmapping.html#webmvc-ann-requestmapping-post
     @PostMapping("/register")
-    public String registrarUsuario(@RequestBody RegistroRequest request) {
+    @Observed(name = "focoprod.auth.register", contextualName = "registrar-usuario")
+    public CompletionStage<ResponseEntity<UsuarioResponse>> registrarUsuario(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody RegistroRequest request) {
 
         // @RequestBody convierte el JSON del cliente en un objeto Java.
         // Más info: https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-controller/ann-methods.html#webmvc-ann-requestbody
         //
+        // La respuesta es el usuario creado (UsuarioResponse). Cuerpo y respuesta pueden ir también en CBOR
+        // o Smile según Content-Type y Accept (ver FormatosBinariosConfig). Email ya registrado → 409.
+        //
+        // Con header Idempotency-Key (clientes que reintentan en redes inestables), las repeticiones
+        // reciben la respuesta de la primera petición sin volver a ejecutar el registro, marcada con
+        // "Idempotent-Replayed: true". Ver IdempotenciaRegistro.
+        if (idempotencyKey != null) {
+            return idempotenciaRegistro.ejecutar(idempotencyKey, request, () -> registrar(request))
+                    .thenApply(respuesta -> respuesta.repetida()
+                            ? ResponseEntity.ok().header("Idempotent-Replayed", "true").body(respuesta.cuerpo())
+                            : ResponseEntity.ok(respuesta.cuerpo()));
+        }
+        return registrar(request).thenApply(ResponseEntity::ok);
+    }
+
+    private CompletionStage<UsuarioResponse> registrar(RegistroRequest request) {
         // Se delega al UsuarioService la lógica de registro.
-        return usuarioService.registerUser(request);
+        // Con el perfil "r2dbc" el registro es no bloqueante: el hilo de Tomcat se libera en cuanto
+        // se devuelve el CompletionStage, y la respuesta se escribe cuando termina (el timer de
+        // @Observed también espera a que termine). Sin el perfil ya está completado al devolverlo.
+        // Más info: https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-ann-async.html
+        UsuarioReactivoService reactivo = usuarioReactivoService.getIfAvailable();
+        if (reactivo != null) {
+            return reactivo.registerUser(request).toFuture();
+        }
+        return CompletableFuture.completedFuture(usuarioService.registerUser(request));
     }
 
     // @GetMapping indica que atiende una petición HTTP GET.
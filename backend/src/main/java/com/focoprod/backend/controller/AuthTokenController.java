@@ -0,0 +1,46 @@
+package com.focoprod.backend.controller;
+
+import com.focoprod.backend.dto.RefreshRequest;
+import com.focoprod.backend.dto.TokenResponse;
+import com.focoprod.backend.security.TokenService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Endpoints de tokens del modo stateless (focoprod.auth.mode=stateless).
+// En modo sesión este controlador no existe.
+@RestController
+@RequestMapping("/api/auth")
+@CrossOrigin(origins = "http://127.0.0.1:5500")
+@ConditionalOnProperty(prefix = "focoprod.auth", name = "mode", havingValue = "stateless")
+public class AuthTokenController {
+
+    private final TokenService tokenService;
+
+    public AuthTokenController(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    // Cambia un refresh token por un par nuevo (el usado queda revocado).
+    // Un refresh token inválido, expirado o revocado → 401 (ver ApiExceptionHandler).
+    @PostMapping("/refresh")
+    public TokenResponse refrescar(@RequestBody RefreshRequest request) {
+        return tokenService.refrescar(request.getRefreshToken());
+    }
+
+    // Logout: revoca el refresh token y, si la petición trae un access token válido, también ese.
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revocar(@RequestBody RefreshRequest request, Authentication authentication) {
+        tokenService.revocar(request.getRefreshToken());
+        if (authentication != null && authentication.getPrincipal() instanceof Jwt jwt) {
+            tokenService.revocar(jwt);
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
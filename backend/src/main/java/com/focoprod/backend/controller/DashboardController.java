@@ -0,0 +1,42 @@
+package com.focoprod.backend.controller;
+
+import com.focoprod.backend.dto.DashboardResumen;
+import com.focoprod.backend.security.UsuarioActual;
+import com.focoprod.backend.service.PublicadorDashboard;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Dashboard del usuario autenticado: sesiones de foco activas y totales de hoy.
+// Requiere autenticación (no está en la lista de rutas públicas de SecurityConfig).
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final PublicadorDashboard publicador;
+    private final UsuarioActual usuarioActual;
+
+    public DashboardController(PublicadorDashboard publicador, UsuarioActual usuarioActual) {
+        this.publicador = publicador;
+        this.usuarioActual = usuarioActual;
+    }
+
+    // GET /api/dashboard → el resumen actual, una vez.
+    @GetMapping
+    public DashboardResumen resumen(@AuthenticationPrincipal Object principal) {
+        return publicador.resumen(usuarioActual.id(principal));
+    }
+
+    // GET /api/dashboard/stream → Server-Sent Events: un evento "dashboard" con el resumen al conectar y
+    // otro cada vez que cambia, más un comentario de latido periódico. En el navegador:
+    //   new EventSource("/api/dashboard/stream", {withCredentials: true})
+    // EventSource no permite enviar "Authorization": en modo stateless los clientes usan fetch() y
+    // leen el cuerpo en streaming (o una librería de SSE que acepte headers).
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal Object principal) {
+        return publicador.suscribir(usuarioActual.id(principal));
+    }
+}
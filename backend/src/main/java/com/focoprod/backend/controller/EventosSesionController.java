@@ -0,0 +1,42 @@
+package com.focoprod.backend.controller;
+
+import com.focoprod.backend.dto.EventoSesionRequest;
+import com.focoprod.backend.dto.IngestaEventosResultado;
+import com.focoprod.backend.security.UsuarioActual;
+import com.focoprod.backend.service.IngestaEventosSesion;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Subida de eventos de sesiones de foco desde los clientes (móvil, web).
+// Requiere autenticación: los eventos se guardan a nombre del usuario autenticado.
+@RestController
+@RequestMapping("/api/eventos")
+public class EventosSesionController {
+
+    private final IngestaEventosSesion ingesta;
+    private final UsuarioActual usuarioActual;
+
+    public EventosSesionController(IngestaEventosSesion ingesta, UsuarioActual usuarioActual) {
+        this.ingesta = ingesta;
+        this.usuarioActual = usuarioActual;
+    }
+
+    // POST /api/eventos con un array JSON:
+    //   [{"id": "...", "sesionId": "...", "tipo": "START", "ocurridoEn": "2025-01-31T09:15:00Z"}, ...]
+    // Responde cuando los eventos están guardados. Reenviar la misma petición es seguro: lo ya
+    // guardado se cuenta como duplicado. 503 + Retry-After si el servidor va saturado.
+    // El CompletableFuture libera el hilo de Tomcat mientras se espera a la escritura en lote.
+    // https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-ann-async.html
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<IngestaEventosResultado> subir(@AuthenticationPrincipal Object principal,
+                                                            @RequestBody List<EventoSesionRequest> eventos) {
+        return ingesta.ingerir(usuarioActual.id(principal), eventos);
+    }
+}
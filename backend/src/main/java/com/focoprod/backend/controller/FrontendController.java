@@ -0,0 +1,77 @@
+package com.focoprod.backend.controller;
+
+import com.focoprod.backend.config.FrontendProperties;
+import com.focoprod.backend.service.FrontendBundle;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.util.Locale;
+
+// Sirve las páginas y los assets del frontend que prepara FrontendBundle al arrancar:
+//  - Páginas ("/", "/registro.html"...): Cache-Control no-cache + ETag. El navegador revalida cada vez
+//    y, si la página no cambió, recibe un 304 sin cuerpo.
+//  - Assets con huella (/assets/main.<hash>.css): max-age de un año + immutable, sin revalidar nunca.
+//  - Si el cliente acepta gzip se envía la versión ya comprimida (Content-Encoding: gzip, Vary: Accept-Encoding).
+// Más info:
+// https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-caching.html
+// https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Cache-Control#immutable
+@RestController
+@ConditionalOnProperty(prefix = "focoprod.frontend", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FrontendController {
+
+    private final FrontendBundle bundle;
+    private final CacheControl cacheAssets;
+
+    public FrontendController(FrontendBundle bundle, FrontendProperties properties) {
+        this.bundle = bundle;
+        this.cacheAssets = CacheControl.maxAge(properties.getCacheAssets()).cachePublic().immutable();
+    }
+
+    // Las rutas de la API (/api/**, /home, /actuator/**...) son más específicas y tienen prioridad.
+    @GetMapping({"/", "/{pagina:[\\w-]+\\.html}", FrontendBundle.PREFIJO_ASSETS + "**"})
+    public ResponseEntity<byte[]> servir(HttpServletRequest request,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String aceptadas) {
+        FrontendBundle.Recurso recurso = bundle.buscar(UrlPathHelper.defaultInstance.getPathWithinApplication(request))
+                .orElse(null);
+        if (recurso == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        boolean gzip = recurso.gzip() != null && aceptaGzip(aceptadas);
+        // Cada codificación es una representación distinta: su propio ETag.
+        String etag = gzip ? recurso.etag().replaceFirst("\"$", "-gzip\"") : recurso.etag();
+        CacheControl cache = recurso.inmutable() ? cacheAssets : CacheControl.noCache();
+
+        // Con un ETag en la respuesta, Spring compara If-None-Match y contesta 304 sin cuerpo si coincide.
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .contentType(recurso.tipo())
+                .eTag(etag)
+                .cacheControl(cache)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return respuesta.body(gzip ? recurso.gzip() : recurso.contenido());
+    }
+
+    // "gzip" en Accept-Encoding, salvo que venga con q=0 (rechazado explícitamente).
+    private static boolean aceptaGzip(String aceptadas) {
+        if (aceptadas == null) {
+            return false;
+        }
+        for (String codificacion : aceptadas.toLowerCase(Locale.ROOT).split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            if (partes[0].trim().equals("gzip") || partes[0].trim().equals("*")) {
+                return partes.length < 2 || !partes[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -9,6 +9,11 @@ package com.focoprod.backend.controller;
 // https://docs.spring.io/spring-security/reference/servlet/authentication/principal.html
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 
+// En modo stateless (focoprod.auth.mode=stateless) el principal es el Jwt de nuestro access token.
+// https://docs.spring.io/spring-security/reference/servlet/oauth2/resource-server/jwt.html
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.core.userdetails.UserDetails;
+
 // Importamos la interfaz OAuth2User, que representa a un usuario autenticado
 // mediante OAuth 2.0 (por ejemplo Google, GitHub, etc.).
 // Docs oficiales:
@@ -33,7 +38,17 @@ public class HomeController {
     // Docs:
     // https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-controller/ann-requestmapping.html#webmvc-ann-requestmapping-get
     @GetMapping("/home")
-    public String home(@AuthenticationPrincipal OAuth2User user) {
+    public String home(@AuthenticationPrincipal Object principal) {
+
+        // Con tokens, el nombre y el email van como claims del access token: no hace falta la BD.
+        if (principal instanceof Jwt jwt) {
+            return "Bienvenido, " + jwt.getClaimAsString("name") + " (" + jwt.getClaimAsString("email") + ")";
+        }
+        // Login local con sesión: el principal es el UserDetails de UsuarioDetailsService.
+        if (principal instanceof UserDetails local) {
+            return "Bienvenido, " + local.getUsername();
+        }
+        OAuth2User user = (OAuth2User) principal;
 
         // @AuthenticationPrincipal permite acceder directamente al usuario autenticado
         // que Spring Security tiene almacenado en el contexto de seguridad.
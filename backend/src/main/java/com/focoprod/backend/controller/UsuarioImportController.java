@@ -0,0 +1,40 @@
+package com.focoprod.backend.controller;
+
+import com.focoprod.backend.dto.ImportacionResultado;
+import com.focoprod.backend.service.UsuarioImportService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Endpoint de importación masiva de usuarios para migraciones desde sistemas de partners.
+// Solo para usuarios con rol ADMIN (/api/admin/** en SecurityConfig): crea cuentas con contraseñas
+// elegidas por quien llama y ocupa el pool de BCrypt con cada fila.
+@RestController
+@RequestMapping("/api/admin/usuarios")
+public class UsuarioImportController {
+
+    private final UsuarioImportService usuarioImportService;
+
+    public UsuarioImportController(UsuarioImportService usuarioImportService) {
+        this.usuarioImportService = usuarioImportService;
+    }
+
+    // Un objeto JSON por línea: {"email": "...", "name": "...", "password": "..."}
+    // Recibimos el cuerpo como InputStream para leerlo de forma incremental, sin cargarlo entero.
+    // Más info sobre NDJSON: https://github.com/ndjson/ndjson-spec
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportacionResultado importarNdjson(InputStream cuerpo) throws IOException {
+        return usuarioImportService.importar(cuerpo, UsuarioImportService.Formato.NDJSON);
+    }
+
+    // CSV con columnas email,name,password (la cabecera es opcional: la primera línea lo es si una de
+    // sus columnas se llama exactamente "email").
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportacionResultado importarCsv(InputStream cuerpo) throws IOException {
+        return usuarioImportService.importar(cuerpo, UsuarioImportService.Formato.CSV);
+    }
+}
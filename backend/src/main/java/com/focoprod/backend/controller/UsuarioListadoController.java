@@ -0,0 +1,54 @@
+package com.focoprod.backend.controller;
+
+import com.focoprod.backend.dto.PaginaUsuarios;
+import com.focoprod.backend.repositorios.UsuarioConsultaRepository;
+import com.focoprod.backend.service.UsuarioImportService;
+import com.focoprod.backend.service.UsuarioListadoService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+// Listado, búsqueda y exportación de usuarios para administración y soporte.
+// Solo para usuarios con rol ADMIN (/api/admin/** en SecurityConfig).
+@RestController
+@RequestMapping("/api/admin/usuarios")
+public class UsuarioListadoController {
+
+    private final UsuarioListadoService usuarioListadoService;
+
+    public UsuarioListadoController(UsuarioListadoService usuarioListadoService) {
+        this.usuarioListadoService = usuarioListadoService;
+    }
+
+    // GET /api/admin/usuarios?q=ana&busqueda=PREFIJO&limite=50
+    // Página siguiente: el mismo GET con &despues=<siguiente de la respuesta anterior>.
+    // busqueda: PREFIJO (por defecto) o CONTIENE (mínimo 3 caracteres).
+    @GetMapping
+    public PaginaUsuarios listar(@RequestParam(required = false) String q,
+                                 @RequestParam(defaultValue = "PREFIJO") UsuarioConsultaRepository.Busqueda busqueda,
+                                 @RequestParam(required = false) Long despues,
+                                 @RequestParam(required = false) Integer limite) {
+        return usuarioListadoService.pagina(q, busqueda, despues, limite);
+    }
+
+    // GET /api/admin/usuarios/export?formato=NDJSON|CSV (admite también q y busqueda).
+    // Se escribe directamente en la respuesta mientras se lee de la BD (Transfer-Encoding: chunked),
+    // sin armar la lista completa en memoria.
+    @GetMapping("/export")
+    public void exportar(@RequestParam(required = false) String q,
+                         @RequestParam(defaultValue = "PREFIJO") UsuarioConsultaRepository.Busqueda busqueda,
+                         @RequestParam(defaultValue = "NDJSON") UsuarioImportService.Formato formato,
+                         HttpServletResponse response) throws IOException {
+        boolean csv = formato == UsuarioImportService.Formato.CSV;
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"usuarios." + (csv ? "csv" : "ndjson") + "\"");
+        usuarioListadoService.exportar(q, busqueda, formato, response.getOutputStream());
+    }
+}
@@ -0,0 +1,32 @@
+package com.focoprod.backend.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// DTO con el estado del dashboard de un usuario: lo que se envía en cada evento SSE "dashboard".
+@Data
+public class DashboardResumen {
+
+    // Día (en focoprod.dashboard.zona) al que se refieren los totales.
+    private LocalDate dia;
+
+    // Sesiones de hoy cuyo último evento es START o RESUME.
+    private int sesionesActivas;
+
+    // Sesiones de hoy cuyo último evento es PAUSE.
+    private int sesionesEnPausa;
+
+    // Sesiones terminadas hoy (eventos END).
+    private int sesionesCompletadas;
+
+    // Tiempo de foco de hoy: suma de duracionMs de los eventos END.
+    private long focoMs;
+
+    // Eventos de hoy recibidos.
+    private int eventos;
+
+    // Momento del último cambio.
+    private Instant actualizado;
+}
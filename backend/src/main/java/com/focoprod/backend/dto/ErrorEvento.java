@@ -0,0 +1,21 @@
+package com.focoprod.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// DTO que describe por qué un evento de una ingesta no se guardó.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorEvento {
+
+    // Posición del evento dentro del array enviado (empieza en 0).
+    private int posicion;
+
+    // Id del evento, si venía.
+    private String id;
+
+    // Motivo del rechazo.
+    private String motivo;
+}
@@ -0,0 +1,24 @@
+// Paquete donde se encuentra esta clase dentro del proyecto.
+// Más info sobre paquetes en Java:
+// https://docs.oracle.com/javase/tutorial/java/package/
+package com.focoprod.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// DTO que describe por qué una fila de una importación masiva no se insertó.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorFila {
+
+    // Número de línea dentro del archivo enviado (empieza en 1).
+    private long linea;
+
+    // Email de la fila, si se pudo leer.
+    private String email;
+
+    // Motivo del rechazo (formato inválido, usuario ya existe, etc.).
+    private String motivo;
+}
@@ -0,0 +1,25 @@
+package com.focoprod.backend.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+// Un evento de sesión de foco enviado por un cliente (POST /api/eventos, dentro de un array JSON).
+@Data
+public class EventoSesionRequest {
+
+    // Identificador que genera el cliente (p. ej. un UUID). Reenviar el mismo evento no lo duplica.
+    private String id;
+
+    // Sesión de foco a la que pertenece el evento, también generada por el cliente.
+    private String sesionId;
+
+    // START, PAUSE, RESUME o END.
+    private String tipo;
+
+    // Momento del evento en el dispositivo (ISO-8601, p. ej. "2025-01-31T09:15:00Z").
+    private Instant ocurridoEn;
+
+    // Tiempo de foco acumulado, en milisegundos (opcional; normalmente en PAUSE y END).
+    private Long duracionMs;
+}
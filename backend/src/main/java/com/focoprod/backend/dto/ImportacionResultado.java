@@ -0,0 +1,33 @@
+// Paquete donde se encuentra esta clase dentro del proyecto.
+// Más info sobre paquetes en Java:
+// https://docs.oracle.com/javase/tutorial/java/package/
+package com.focoprod.backend.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// DTO con el resumen de una importación masiva de usuarios.
+// Se devuelve como JSON al terminar de procesar el archivo.
+@Data
+public class ImportacionResultado {
+
+    // Filas leídas del archivo (sin contar la cabecera CSV ni líneas vacías).
+    private long leidas;
+
+    // Filas insertadas como usuarios nuevos.
+    private long insertadas;
+
+    // Filas descartadas porque el email ya existía (en la BD o antes en el mismo archivo).
+    private long duplicadas;
+
+    // Filas con datos inválidos.
+    private long invalidas;
+
+    // Detalle de errores por fila, limitado a focoprod.import.max-errores.
+    private List<ErrorFila> errores = new ArrayList<>();
+
+    // true si hubo más errores de los que caben en la lista.
+    private boolean erroresTruncados;
+}
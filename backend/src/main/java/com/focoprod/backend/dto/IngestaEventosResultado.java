@@ -0,0 +1,26 @@
+package com.focoprod.backend.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// DTO con el resumen de una petición de ingesta de eventos de sesión.
+// Se devuelve cuando los eventos ya están guardados en la BD.
+@Data
+public class IngestaEventosResultado {
+
+    // Eventos recibidos en la petición.
+    private int recibidos;
+
+    // Eventos guardados por primera vez.
+    private int insertados;
+
+    // Eventos que ya estaban guardados (reintentos del cliente) o repetidos en la misma petición.
+    private int duplicados;
+
+    // Eventos con datos inválidos, con el detalle en errores.
+    private int invalidos;
+
+    private List<ErrorEvento> errores = new ArrayList<>();
+}
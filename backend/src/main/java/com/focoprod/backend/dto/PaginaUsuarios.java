@@ -0,0 +1,21 @@
+package com.focoprod.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Una página del listado de usuarios (GET /api/admin/usuarios).
+//
+// "siguiente" es el cursor de la página siguiente: se pasa tal cual en el parámetro "despues".
+// Es null en la última página.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaUsuarios {
+
+    private List<UsuarioResponse> usuarios;
+
+    private Long siguiente;
+}
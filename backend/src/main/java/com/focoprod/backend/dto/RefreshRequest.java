@@ -0,0 +1,14 @@
+// Paquete donde se encuentra esta clase dentro del proyecto.
+// Más info sobre paquetes en Java:
+// https://docs.oracle.com/javase/tutorial/java/package/
+package com.focoprod.backend.dto;
+
+import lombok.Data;
+
+// DTO para /api/auth/refresh y /api/auth/revoke.
+@Data
+public class RefreshRequest {
+
+    // Refresh token recibido en el login o en el último refresh.
+    private String refreshToken;
+}
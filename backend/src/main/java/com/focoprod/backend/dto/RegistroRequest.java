@@ -9,6 +9,7 @@ package com.focoprod.backend.dto;
 // y un constructor vacío.
 // Documentación oficial de Lombok:
 // https://projectlombok.org/features/Data
+import com.focoprod.backend.model.Usuario;
 import lombok.Data;
 
 // @Data convierte esta clase en un POJO completo sin escribir código repetitivo.
@@ -28,4 +29,10 @@ public class RegistroRequest {
 
     // Contraseña proporcionada en el registro.
     private String password;
-}
\ No newline at end of file
+
+    // El email se normaliza al recibirlo (JSON del registro y filas de la importación),
+    // antes de buscar duplicados o consultar el filtro de emails.
+    public void setEmail(String email) {
+        this.email = Usuario.normalizarEmail(email);
+    }
+}
@@ -0,0 +1,29 @@
+// Paquete donde se encuentra esta clase dentro del proyecto.
+// Más info sobre paquetes en Java:
+// https://docs.oracle.com/javase/tutorial/java/package/
+package com.focoprod.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// DTO con el par de tokens emitido en modo stateless (login o refresh).
+// Los nombres siguen la respuesta de token de OAuth 2.0 (RFC 6749, sección 5.1).
+// https://www.rfc-editor.org/rfc/rfc6749#section-5.1
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponse {
+
+    // Token corto que el cliente envía en cada petición: "Authorization: Bearer <accessToken>".
+    private String accessToken;
+
+    // Token largo que solo sirve para pedir un par nuevo en /api/auth/refresh.
+    private String refreshToken;
+
+    // Siempre "Bearer".
+    private String tokenType;
+
+    // Segundos de vida del access token.
+    private long expiresIn;
+}
@@ -9,6 +9,7 @@ package com.focoprod.backend.dto;
 // y un constructor por defecto.
 // Documentación oficial de Lombok:
 // https://projectlombok.org/features/Data
+import com.focoprod.backend.model.Usuario;
 import lombok.Data;
 
 // @Data convierte esta clase en un POJO completo sin tener que escribir código repetitivo.
@@ -30,4 +31,14 @@ public class UsuarioResponse {
 
     // Proveedor OAuth o método de registro (por ejemplo: "google", "local", "github").
     private String provider;
+
+    // Datos públicos de un usuario: nunca el hash de la contraseña ni el providerId.
+    public static UsuarioResponse de(Usuario usuario) {
+        UsuarioResponse respuesta = new UsuarioResponse();
+        respuesta.setId(usuario.getId());
+        respuesta.setName(usuario.getName());
+        respuesta.setEmail(usuario.getEmail());
+        respuesta.setProvider(usuario.getProvider());
+        return respuesta;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.focoprod.backend.exception;
+
+import java.time.Duration;
+
+// Conflicto con el header Idempotency-Key. ApiExceptionHandler la traduce a:
+//  - 422 Unprocessable Content si la clave ya se usó con otros datos (retryAfter null).
+//  - 409 Conflict + Retry-After si la petición original con esa clave sigue en curso en otro nodo.
+// https://datatracker.ietf.org/doc/html/draft-ietf-httpapi-idempotency-key-header#section-2.7
+public class ClaveIdempotenciaException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    private ClaveIdempotenciaException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public static ClaveIdempotenciaException reutilizada() {
+        return new ClaveIdempotenciaException("La Idempotency-Key ya se usó con otros datos", null);
+    }
+
+    public static ClaveIdempotenciaException enCurso(Duration retryAfter) {
+        return new ClaveIdempotenciaException("Ya hay una petición en curso con esta Idempotency-Key", retryAfter);
+    }
+
+    public boolean isEnCurso() {
+        return retryAfter != null;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,10 @@
+package com.focoprod.backend.exception;
+
+// Un parámetro de la petición tiene un valor no admitido (por ejemplo un límite fuera de rango).
+// ApiExceptionHandler la traduce a un HTTP 400 con el mensaje en "error".
+public class ParametroInvalidoException extends RuntimeException {
+
+    public ParametroInvalidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.focoprod.backend.exception;
+
+import java.time.Duration;
+
+// Excepción que indica que un recurso interno acotado (por ejemplo la cola de hashing)
+// está lleno y la petición debe reintentarse más tarde.
+// ApiExceptionHandler la traduce a un HTTP 503 con el header Retry-After.
+public class ServicioSaturadoException extends RuntimeException {
+
+    // Tiempo sugerido al cliente antes de reintentar.
+    private final Duration retryAfter;
+
+    public ServicioSaturadoException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,10 @@
+package com.focoprod.backend.exception;
+
+// Registro local con un email que ya tiene cuenta. ApiExceptionHandler la traduce a un HTTP 409
+// con el mensaje en "error".
+public class UsuarioExistenteException extends RuntimeException {
+
+    public UsuarioExistenteException() {
+        super("El usuario ya existe");
+    }
+}
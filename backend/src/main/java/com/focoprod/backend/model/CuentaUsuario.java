@@ -0,0 +1,27 @@
+package com.focoprod.backend.model;
+
+// Copia inmutable de una fila de usuarios: lo que devuelven (y guardan en caché) los finders de
+// UsuarioRepository y UsuarioReactivoRepository.
+//
+// Una entidad Usuario cacheada se compartiría entre todos los hilos que leen la misma entrada:
+// cualquiera podría cambiarla (o Hibernate intentar guardarla) por debajo de los demás. Un record no
+// se puede modificar; para cambiar un usuario se carga la entidad con findById y se hace save().
+// password es el hash de BCrypt (null en usuarios de OAuth2): no sale nunca de la aplicación.
+public record CuentaUsuario(Long id, String email, String name, String password,
+                            String provider, String providerId, String rol) {
+
+    public static CuentaUsuario de(Usuario usuario) {
+        return new CuentaUsuario(usuario.getId(), usuario.getEmail(), usuario.getName(), usuario.getPassword(),
+                usuario.getProvider(), usuario.getProviderId(), usuario.getRol());
+    }
+
+    public boolean esAdmin() {
+        return Usuario.ROL_ADMIN.equals(rol);
+    }
+
+    // Sin el hash en logs ni en excepciones.
+    @Override
+    public String toString() {
+        return "CuentaUsuario[id=" + id + ", email=" + email + ", provider=" + provider + ", rol=" + rol + "]";
+    }
+}
@@ -0,0 +1,23 @@
+package com.focoprod.backend.model;
+
+import java.time.Instant;
+
+// Un evento de la tabla outbox_eventos (migración V6), tal como lo recibe cada ManejadorOutbox.
+//
+// payload es el JSON guardado: {"usuarioId", "email", "name", "provider", "providerId"} del usuario
+// en el momento del evento. intentos incluye el actual (1 en la primera entrega).
+// La entrega es "al menos una vez": un manejador puede recibir el mismo evento más de una vez
+// y debe usar id para descartar repeticiones.
+public record EventoOutbox(long id,
+                           String tipo,
+                           long usuarioId,
+                           String payload,
+                           int intentos,
+                           Instant creadoEn) {
+
+    // Alta de un usuario: registro local, importación o primer login OAuth2.
+    public static final String USUARIO_REGISTRADO = "UserRegistered";
+
+    // Un usuario existente entra por primera vez con otro proveedor (o con otra cuenta del mismo).
+    public static final String PROVEEDOR_VINCULADO = "UserLinkedProvider";
+}
@@ -0,0 +1,25 @@
+package com.focoprod.backend.model;
+
+import java.time.Instant;
+
+// Un evento de una sesión de foco, tal como se guarda en la tabla particionada eventos_sesion (V5).
+//
+// No es una entidad JPA: se escribe en lotes con JDBC (EventoSesionBatchRepository) y nunca se
+// modifica, así que no hace falta que Hibernate lo gestione.
+public record EventoSesion(long usuarioId,
+                           String eventoId,
+                           String sesionId,
+                           Tipo tipo,
+                           Instant ocurridoEn,
+                           Long duracionMs) {
+
+    public enum Tipo { START, PAUSE, RESUME, END }
+
+    // Identidad del evento: lo que hace idempotente el reintento de un cliente.
+    public record Clave(long usuarioId, String eventoId) {
+    }
+
+    public Clave clave() {
+        return new Clave(usuarioId, eventoId);
+    }
+}
@@ -0,0 +1,42 @@
+// Paquete donde se encuentra esta clase dentro del proyecto.
+// Información sobre paquetes en Java:
+// https://docs.oracle.com/javase/tutorial/java/package/
+package com.focoprod.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Token revocado antes de su expiración (logout o rotación de refresh token).
+//
+// La tabla es solo la fuente compartida entre nodos: cada nodo mantiene la lista en memoria
+// (TokenRevocationList) y nunca consulta la BD al validar una petición.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "tokens_revocados")
+public class TokenRevocado {
+
+    // "jti" (JWT ID) del token revocado.
+    @Id
+    private String jti;
+
+    // Expiración original del token: pasada esta fecha la fila ya no hace falta.
+    @Column(nullable = false)
+    private Instant expiraEn;
+
+    // Momento de la revocación; los nodos sincronizan de forma incremental con este campo.
+    @Column(nullable = false)
+    private Instant revocadoEn;
+
+    public TokenRevocado(String jti, Instant expiraEn, Instant revocadoEn) {
+        this.jti = jti;
+        this.expiraEn = expiraEn;
+        this.revocadoEn = revocadoEn;
+    }
+}
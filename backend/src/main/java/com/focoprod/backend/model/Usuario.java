@@ -16,6 +16,8 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Locale;
+
 @Data
 // @Data elimina la necesidad de escribir getters, setters, equals, hashCode y toString.
 // Lombok genera todo automáticamente.
@@ -50,6 +52,9 @@ public class Usuario {
     //
     // Más info:
     // https://jakarta.ee/specifications/persistence/3.0/apidocs/jakarta.persistence/jakarta/persistence/Column
+    //
+    // El email se guarda siempre normalizado (ver normalizarEmail): así la restricción única
+    // también impide "Foo@x.com" y "foo@x.com" como dos usuarios distintos.
     @Column(nullable = false, unique = true)
     private String email;
 
@@ -64,10 +69,33 @@ public class Usuario {
     private String provider;
 
     // providerId almacena el ID único otorgado por Google/Apple (el "sub").
+    // (provider, providerId) es único en la BD: lo crea la migración V2 (el esquema es de Flyway).
     private String providerId;
 
+    // Rol para la autorización: ROL_USUARIO (todas las cuentas) o ROL_ADMIN (se asigna a mano en la BD,
+    // ver la migración V8). Spring Security lo ve como la autoridad "ROLE_" + rol.
+    @Column(nullable = false)
+    private String rol = ROL_USUARIO;
+
+    public static final String ROL_USUARIO = "USER";
+    public static final String ROL_ADMIN = "ADMIN";
+
     // Estos campos representan la estructura básica del usuario.
     // - password puede ser null si se registró con OAuth (Google, Apple).
     // - provider indica el origen del registro.
     // - providerId almacena el ID único que provee el servicio OAuth.
-}
\ No newline at end of file
+
+    // Setter propio (en lugar del de Lombok): todo email que entra al modelo queda normalizado.
+    // Hibernate carga la entidad por campo (@Id está en el campo), así que leer de la BD no pasa por aquí.
+    public void setEmail(String email) {
+        this.email = normalizarEmail(email);
+    }
+
+    // Forma canónica del email: sin espacios alrededor y en minúsculas.
+    // La parte local de un email es sensible a mayúsculas según el RFC 5321, pero ningún proveedor
+    // real lo aplica, y tratarlos como distintos solo produce cuentas duplicadas.
+    // Las consultas comparan con lower(email) en la BD (ver UsuarioRepository.findByEmail).
+    public static String normalizarEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,82 @@
+package com.focoprod.backend.repositorios;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+// Tabla claves_idempotencia (migración V7): respaldo duradero de IdempotenciaRegistro.
+//
+// reservar() hace en UNA sentencia "si la clave no existe (o caducó, o su reserva quedó abandonada),
+// es mía": ON CONFLICT resuelve la carrera entre nodos sin bloqueos explícitos, y solo uno recibe
+// la fila de RETURNING. Los demás leen lo guardado con buscar().
+// Más info:
+// https://www.postgresql.org/docs/current/sql-insert.html#SQL-ON-CONFLICT
+@Repository
+public class ClaveIdempotenciaRepository {
+
+    private static final String RESERVAR = """
+            INSERT INTO claves_idempotencia (operacion, clave, huella, expira_en)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (operacion, clave) DO UPDATE
+                SET huella = EXCLUDED.huella, respuesta = NULL, creado_en = now(), expira_en = EXCLUDED.expira_en
+                WHERE claves_idempotencia.expira_en < now()
+                   OR (claves_idempotencia.respuesta IS NULL
+                       AND claves_idempotencia.creado_en < now() - make_interval(secs => ?))
+            RETURNING true
+            """;
+
+    private static final String BUSCAR = """
+            SELECT huella, respuesta FROM claves_idempotencia
+            WHERE operacion = ? AND clave = ? AND expira_en >= now()
+            """;
+
+    private static final String GUARDAR_RESPUESTA = """
+            UPDATE claves_idempotencia SET respuesta = ?
+            WHERE operacion = ? AND clave = ?
+            """;
+
+    private static final String LIBERAR = """
+            DELETE FROM claves_idempotencia
+            WHERE operacion = ? AND clave = ? AND respuesta IS NULL
+            """;
+
+    private static final String PURGAR = "DELETE FROM claves_idempotencia WHERE expira_en < now()";
+
+    // Lo guardado para una clave. respuesta null → en curso.
+    public record Registro(String huella, String respuesta) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClaveIdempotenciaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // true si la clave queda reservada para quien llama (debe ejecutar la operación).
+    public boolean reservar(String operacion, String clave, String huella, Instant expiraEn, Duration reservaMaxima) {
+        return !jdbcTemplate.queryForList(RESERVAR, Boolean.class, operacion, clave, huella,
+                Timestamp.from(expiraEn), reservaMaxima.toMillis() / 1000.0).isEmpty();
+    }
+
+    public Optional<Registro> buscar(String operacion, String clave) {
+        return jdbcTemplate.query(BUSCAR, (rs, i) -> new Registro(rs.getString(1), rs.getString(2)), operacion, clave)
+                .stream().findFirst();
+    }
+
+    public void guardarRespuesta(String operacion, String clave, String respuesta) {
+        jdbcTemplate.update(GUARDAR_RESPUESTA, respuesta, operacion, clave);
+    }
+
+    // Quita la reserva de una operación que falló, para que un reintento la vuelva a ejecutar.
+    public void liberar(String operacion, String clave) {
+        jdbcTemplate.update(LIBERAR, operacion, clave);
+    }
+
+    public int purgarCaducadas() {
+        return jdbcTemplate.update(PURGAR);
+    }
+}
@@ -0,0 +1,83 @@
+package com.focoprod.backend.repositorios;
+
+import com.focoprod.backend.model.EventoSesion;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Escritura en lote de la tabla particionada eventos_sesion (migración V5).
+//
+// Todo el lote va en UNA sentencia: cada columna se envía como un array y unnest() los convierte en filas.
+//  - Un único viaje de red y un único plan, sea cual sea el tamaño del lote (un INSERT ... VALUES con
+//    miles de filas se acercaría al límite de 65535 parámetros de PostgreSQL).
+//  - ON CONFLICT DO NOTHING descarta los eventos ya guardados (reintentos del cliente), cosa que COPY
+//    no permite sin una tabla intermedia.
+//  - RETURNING devuelve solo lo que se insertó: lo demás eran duplicados.
+// Más info:
+// https://www.postgresql.org/docs/current/functions-array.html#ARRAY-FUNCTIONS-TABLE
+// https://www.postgresql.org/docs/current/sql-insert.html#SQL-ON-CONFLICT
+@Repository
+public class EventoSesionBatchRepository {
+
+    private static final String INSERT = """
+            INSERT INTO eventos_sesion (usuario_id, evento_id, sesion_id, tipo, ocurrido_en, duracion_ms)
+            SELECT * FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[], ?::timestamptz[], ?::bigint[])
+            ON CONFLICT DO NOTHING
+            RETURNING usuario_id, evento_id
+            """;
+
+    private static final String CREAR_PARTICION = "SELECT crear_particion_eventos_sesion(?::date)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventoSesionBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Inserta los eventos y devuelve las claves de los que no existían.
+    public Set<EventoSesion.Clave> insertar(List<EventoSesion> eventos) {
+        int n = eventos.size();
+        Long[] usuarios = new Long[n];
+        String[] ids = new String[n];
+        String[] sesiones = new String[n];
+        String[] tipos = new String[n];
+        // ISO-8601 en UTC; PostgreSQL convierte cada elemento a timestamptz.
+        String[] momentos = new String[n];
+        Long[] duraciones = new Long[n];
+        for (int i = 0; i < n; i++) {
+            EventoSesion e = eventos.get(i);
+            usuarios[i] = e.usuarioId();
+            ids[i] = e.eventoId();
+            sesiones[i] = e.sesionId();
+            tipos[i] = e.tipo().name();
+            momentos[i] = e.ocurridoEn().toString();
+            duraciones[i] = e.duracionMs();
+        }
+
+        Set<EventoSesion.Clave> insertados = new HashSet<>(n * 2);
+        jdbcTemplate.query((Connection con) -> {
+            PreparedStatement ps = con.prepareStatement(INSERT);
+            ps.setArray(1, con.createArrayOf("bigint", usuarios));
+            ps.setArray(2, con.createArrayOf("varchar", ids));
+            ps.setArray(3, con.createArrayOf("varchar", sesiones));
+            ps.setArray(4, con.createArrayOf("varchar", tipos));
+            ps.setArray(5, con.createArrayOf("text", momentos));
+            ps.setArray(6, con.createArrayOf("bigint", duraciones));
+            return ps;
+        }, rs -> {
+            insertados.add(new EventoSesion.Clave(rs.getLong(1), rs.getString(2)));
+        });
+        return insertados;
+    }
+
+    // Crea, si falta, la partición del mes que contiene la fecha (función de la migración V5).
+    public void crearParticion(LocalDate mes) {
+        jdbcTemplate.queryForObject(CREAR_PARTICION, Object.class, mes);
+    }
+}
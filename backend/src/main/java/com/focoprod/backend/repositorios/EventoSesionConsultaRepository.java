@@ -0,0 +1,48 @@
+package com.focoprod.backend.repositorios;
+
+import com.focoprod.backend.model.EventoSesion;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+// Lecturas de eventos_sesion con JDBC.
+//
+// usuario_id + rango de ocurrido_en: solo se leen las particiones del rango y, dentro de cada una,
+// un tramo de la clave primaria (usuario_id, ocurrido_en, evento_id).
+// Van al primario aunque haya réplicas (no son transacciones readOnly): el dashboard tiene que ver
+// también los eventos recién guardados, que la réplica quizá aún no tiene.
+@Repository
+public class EventoSesionConsultaRepository {
+
+    private static final String DEL_USUARIO = """
+            SELECT usuario_id, evento_id, sesion_id, tipo, ocurrido_en, duracion_ms
+            FROM eventos_sesion
+            WHERE usuario_id = ? AND ocurrido_en >= ? AND ocurrido_en < ?
+            ORDER BY ocurrido_en
+            """;
+
+    private static final RowMapper<EventoSesion> FILA = (rs, n) -> new EventoSesion(
+            rs.getLong("usuario_id"),
+            rs.getString("evento_id"),
+            rs.getString("sesion_id"),
+            EventoSesion.Tipo.valueOf(rs.getString("tipo")),
+            rs.getObject("ocurrido_en", OffsetDateTime.class).toInstant(),
+            rs.getObject("duracion_ms", Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventoSesionConsultaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Eventos del usuario con ocurrido_en en [desde, hasta), en orden cronológico.
+    public List<EventoSesion> delUsuario(long usuarioId, Instant desde, Instant hasta) {
+        return jdbcTemplate.query(DEL_USUARIO, FILA, usuarioId,
+                desde.atOffset(ZoneOffset.UTC), hasta.atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,132 @@
+package com.focoprod.backend.repositorios;
+
+import com.focoprod.backend.model.EventoOutbox;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Acceso a la tabla outbox_eventos (migración V6).
+//
+// Escritura: el payload se arma en SQL a partir de la fila de usuarios (PAYLOAD_USUARIO), así todos los
+// caminos que crean o vinculan usuarios guardan el mismo JSON. Los que escriben el usuario con una sola
+// sentencia (login OAuth2, importación, registro R2DBC) insertan el evento en esa misma sentencia con
+// un CTE; el registro JPA llama a registrarUsuario dentro de su transacción.
+//
+// Lectura: reclamar() toma un lote de pendientes con FOR UPDATE SKIP LOCKED y lo reserva (disponible_en
+// en el futuro) en la misma sentencia. Varios nodos pueden reclamar a la vez sin esperarse ni repetir
+// eventos, y la entrega ocurre ya sin transacción abierta.
+// Solo reclama el evento más antiguo pendiente de cada usuario: mientras uno no se entregue (o quede
+// como fallido), los posteriores del mismo usuario no salen, ni en este nodo ni en otro. Así se
+// entregan en el orden en que se escribieron (un UserLinkedProvider nunca antes de su UserRegistered).
+// Más info:
+// https://www.postgresql.org/docs/current/sql-select.html#SQL-FOR-UPDATE-SHARE
+@Repository
+public class OutboxRepository {
+
+    // Columnas de usuarios → payload del evento. Lo usan también las sentencias de UsuarioRepository,
+    // UsuarioBatchRepository y UsuarioReactivoRepository (sobre sus filas RETURNING).
+    public static final String PAYLOAD_USUARIO = "jsonb_build_object('usuarioId', id, 'email', email, "
+            + "'name', name, 'provider', provider, 'providerId', provider_id)";
+
+    private static final String INSERT_USUARIO = "INSERT INTO outbox_eventos (tipo, usuario_id, payload) "
+            + "SELECT ?, id, " + PAYLOAD_USUARIO + " FROM usuarios WHERE id = ?";
+
+    // El orden (disponible_en, id) y el WHERE coinciden con el índice parcial ix_outbox_eventos_pendientes;
+    // el NOT EXISTS (un evento anterior del mismo usuario sin entregar) usa ix_outbox_eventos_pendientes_usuario.
+    // Un evento anterior reclamado por otro nodo también cuenta: sigue sin procesado_en.
+    private static final String RECLAMAR = """
+            UPDATE outbox_eventos o
+            SET disponible_en = now() + make_interval(secs => ?), intentos = o.intentos + 1
+            FROM (
+                SELECT id FROM outbox_eventos e
+                WHERE procesado_en IS NULL AND fallido_en IS NULL AND disponible_en <= now()
+                  AND NOT EXISTS (
+                      SELECT 1 FROM outbox_eventos anterior
+                      WHERE anterior.usuario_id = e.usuario_id AND anterior.id < e.id
+                        AND anterior.procesado_en IS NULL AND anterior.fallido_en IS NULL)
+                ORDER BY disponible_en, id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ) reclamados
+            WHERE o.id = reclamados.id
+            RETURNING o.id, o.tipo, o.usuario_id, o.payload::text, o.intentos, o.creado_en
+            """;
+
+    private static final String PROCESADOS = """
+            UPDATE outbox_eventos SET procesado_en = now(), ultimo_error = NULL
+            WHERE id = ANY(?)
+            """;
+
+    private static final String REPROGRAMAR = """
+            UPDATE outbox_eventos SET disponible_en = now() + make_interval(secs => ?), ultimo_error = ?
+            WHERE id = ?
+            """;
+
+    private static final String FALLIDO = """
+            UPDATE outbox_eventos SET fallido_en = now(), ultimo_error = ?
+            WHERE id = ?
+            """;
+
+    // Por lotes: un DELETE enorme retendría muchos bloqueos y mucho WAL de golpe.
+    private static final String PURGAR = """
+            DELETE FROM outbox_eventos
+            WHERE id IN (SELECT id FROM outbox_eventos WHERE procesado_en < ? LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Evento del usuario con los datos de su fila. Debe llamarse dentro de la transacción que lo escribe.
+    public void registrarUsuario(String tipo, long usuarioId) {
+        jdbcTemplate.update(INSERT_USUARIO, tipo, usuarioId);
+    }
+
+    // Reclama hasta "lote" eventos pendientes (como mucho uno por usuario) y los reserva durante "bloqueo".
+    public List<EventoOutbox> reclamar(int lote, Duration bloqueo) {
+        return jdbcTemplate.query(RECLAMAR, (rs, i) -> new EventoOutbox(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getLong(3),
+                rs.getString(4),
+                rs.getInt(5),
+                rs.getTimestamp(6).toInstant()), segundos(bloqueo), lote);
+    }
+
+    public void marcarProcesados(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update((Connection con) -> {
+            PreparedStatement ps = con.prepareStatement(PROCESADOS);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        });
+    }
+
+    // Vuelve a dejar el evento pendiente, disponible dentro de "espera".
+    public void reprogramar(long id, Duration espera, String error) {
+        jdbcTemplate.update(REPROGRAMAR, segundos(espera), error, id);
+    }
+
+    public void marcarFallido(long id, String error) {
+        jdbcTemplate.update(FALLIDO, error, id);
+    }
+
+    // Borra hasta "lote" eventos entregados antes de "antesDe". Devuelve cuántos borró.
+    public int purgar(Instant antesDe, int lote) {
+        return jdbcTemplate.update(PURGAR, Timestamp.from(antesDe), lote);
+    }
+
+    private static double segundos(Duration duracion) {
+        return duracion.toMillis() / 1000.0;
+    }
+}
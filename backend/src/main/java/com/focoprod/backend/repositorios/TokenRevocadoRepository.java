@@ -0,0 +1,42 @@
+package com.focoprod.backend.repositorios;
+
+import com.focoprod.backend.model.TokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+// Acceso a la tabla tokens_revocados (lista de revocación compartida entre nodos).
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, String> {
+
+    // Revocaciones registradas desde el instante indicado (sincronización incremental).
+    List<TokenRevocado> findByRevocadoEnAfter(Instant desde);
+
+    // Inserta la revocación solo si el jti no está ya en la tabla, en una única sentencia.
+    // Devuelve 1 si la insertó esta llamada y 0 si ya existía (otra petición u otro nodo se adelantó):
+    // dos llamadas concurrentes con el mismo jti no pueden devolver 1 las dos.
+    // Más info:
+    // https://www.postgresql.org/docs/current/sql-insert.html#SQL-ON-CONFLICT
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            INSERT INTO tokens_revocados (jti, expira_en, revocado_en)
+            VALUES (:jti, :expiraEn, :revocadoEn)
+            ON CONFLICT (jti) DO NOTHING
+            """)
+    int insertarSiNoExiste(@Param("jti") String jti,
+                           @Param("expiraEn") Instant expiraEn,
+                           @Param("revocadoEn") Instant revocadoEn);
+
+    // Borra las filas de tokens que ya expiraron: un token expirado es rechazado igual.
+    @Modifying
+    @Transactional
+    @Query("delete from TokenRevocado t where t.expiraEn < :ahora")
+    int borrarExpirados(@Param("ahora") Instant ahora);
+}
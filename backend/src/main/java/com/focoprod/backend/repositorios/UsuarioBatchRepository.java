@@ -0,0 +1,58 @@
+package com.focoprod.backend.repositorios;
+
+import com.focoprod.backend.model.Usuario;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Escrituras masivas sobre la tabla usuarios con JDBC "puro".
+//
+// Usuario usa GenerationType.IDENTITY: Hibernate necesita el id generado de cada fila justo después
+// de insertarla, así que desactiva el batching de inserts. Para la importación masiva no necesitamos
+// las entidades gestionadas, así que saltamos Hibernate y usamos JdbcTemplate.batchUpdate:
+// el driver de PostgreSQL envía todo el lote en un solo viaje de red y la BD asigna los ids.
+//
+// Más info:
+// https://docs.spring.io/spring-framework/reference/data-access/jdbc/advanced.html#jdbc-batch
+// https://docs.jboss.org/hibernate/orm/6.6/userguide/html_single/Hibernate_User_Guide.html#batch-session-batch-insert
+@Repository
+public class UsuarioBatchRepository {
+
+    // ON CONFLICT DO NOTHING: si otro proceso insertó el mismo email entre la consulta
+    // de duplicados y este insert, la fila simplemente no se inserta (cuenta de filas = 0)
+    // en lugar de abortar todo el lote por la restricción única. Sin columna de destino para que
+    // también arbitre el índice sobre lower(email) (ver UsuarioRepository.INDICE_EMAIL_NORMALIZADO).
+    //
+    // Cada fila insertada escribe también su evento UserRegistered en la outbox (misma sentencia).
+    // La cuenta de filas pasa a ser la del INSERT en la outbox, que es la misma: 1 si se insertó, 0 si no.
+    private static final String INSERT_LOCAL = """
+            WITH nuevo AS (
+                INSERT INTO usuarios (email, name, password, provider)
+                VALUES (?, ?, ?, 'local')
+                ON CONFLICT DO NOTHING
+                RETURNING id, email, name, provider, provider_id
+            )
+            INSERT INTO outbox_eventos (tipo, usuario_id, payload)
+            SELECT 'UserRegistered', id, """ + OutboxRepository.PAYLOAD_USUARIO + """
+                FROM nuevo
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UsuarioBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Inserta los usuarios en un único batch JDBC.
+    // Devuelve, para cada usuario y en el mismo orden, 1 si se insertó o 0 si el email ya existía.
+    // Este insert no pasa por UsuarioRepository.save(), pero no hay nada que invalidar en la caché:
+    // solo guarda usuarios que existen, y estos emails no existían.
+    public int[] insertarLocales(List<Usuario> usuarios) {
+        return jdbcTemplate.batchUpdate(INSERT_LOCAL, usuarios, usuarios.size(), (ps, u) -> {
+            ps.setString(1, u.getEmail());
+            ps.setString(2, u.getName());
+            ps.setString(3, u.getPassword());
+        })[0];
+    }
+}
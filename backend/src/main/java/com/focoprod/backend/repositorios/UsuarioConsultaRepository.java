@@ -0,0 +1,117 @@
+package com.focoprod.backend.repositorios;
+
+import com.focoprod.backend.config.ListadoProperties;
+import com.focoprod.backend.dto.UsuarioResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+// Lecturas del listado de usuarios con JDBC, proyectando directamente a UsuarioResponse:
+// solo se leen id, name, email y provider (nunca el hash de la contraseña) y no se crean
+// entidades gestionadas por Hibernate.
+//
+// Paginación por clave ("keyset" o "seek"): cada página empieza en "id > último id de la anterior".
+// Con OFFSET la BD tendría que leer y descartar todas las filas anteriores, y la página 10.000
+// costaría 10.000 veces más que la primera; así todas cuestan lo mismo (un rango del índice de la PK).
+// Más info:
+// https://use-the-index-luke.com/no-offset
+@Repository
+public class UsuarioConsultaRepository {
+
+    // Tipos de búsqueda de texto sobre name y email (índices de la migración V3).
+    public enum Busqueda {
+        // Empieza por el texto, sin distinguir mayúsculas: lower(columna) LIKE 'texto%'.
+        PREFIJO,
+        // Contiene el texto, sin distinguir mayúsculas: columna ILIKE '%texto%' (índice de trigramas).
+        CONTIENE
+    }
+
+    private static final String COLUMNAS = "SELECT id, name, email, provider FROM usuarios";
+
+    // El texto se pasa ya en minúsculas; "\" es el carácter de escape de LIKE (ver escaparLike).
+    private static final String FILTRO_PREFIJO =
+            " AND (lower(email) LIKE ? ESCAPE '\\' OR lower(name) LIKE ? ESCAPE '\\')";
+    private static final String FILTRO_CONTIENE =
+            " AND (email ILIKE ? ESCAPE '\\' OR name ILIKE ? ESCAPE '\\')";
+
+    private static final RowMapper<UsuarioResponse> FILA = (rs, n) -> {
+        UsuarioResponse usuario = new UsuarioResponse();
+        usuario.setId(rs.getLong("id"));
+        usuario.setName(rs.getString("name"));
+        usuario.setEmail(rs.getString("email"));
+        usuario.setProvider(rs.getString("provider"));
+        return usuario;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Para la exportación: JdbcTemplate con fetch size dentro de una transacción de solo lectura.
+    // El driver de PostgreSQL solo usa un cursor (en lugar de traer todo el resultado a memoria)
+    // si hay fetch size y la conexión no es autocommit.
+    // https://jdbc.postgresql.org/documentation/query/#getting-results-based-on-a-cursor
+    private final JdbcTemplate jdbcCursor;
+    private final TransactionTemplate soloLectura;
+
+    public UsuarioConsultaRepository(JdbcTemplate jdbcTemplate,
+                                     DataSource dataSource,
+                                     PlatformTransactionManager transactionManager,
+                                     ListadoProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcCursor = new JdbcTemplate(dataSource);
+        this.jdbcCursor.setFetchSize(properties.getFetchSize());
+        this.soloLectura = new TransactionTemplate(transactionManager);
+        this.soloLectura.setReadOnly(true);
+    }
+
+    // Hasta "limite" usuarios con id > despuesDe (null → desde el principio), en orden de id.
+    // texto null o vacío → sin filtro.
+    public List<UsuarioResponse> pagina(String texto, Busqueda busqueda, Long despuesDe, int limite) {
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(despuesDe == null ? 0L : despuesDe);
+        String sql = COLUMNAS + " WHERE id > ?" + filtro(texto, busqueda, parametros) + " ORDER BY id LIMIT ?";
+        parametros.add(limite);
+        // Solo lectura: con réplicas configuradas el listado va a una réplica (ver ReplicasConfig).
+        return soloLectura.execute(tx -> jdbcTemplate.query(sql, FILA, parametros.toArray()));
+    }
+
+    // Recorre todos los usuarios que cumplen el filtro, en orden de id, de fetchSize en fetchSize.
+    // Ocupa una conexión del pool mientras dura el recorrido.
+    public void recorrer(String texto, Busqueda busqueda, Consumer<UsuarioResponse> porFila) {
+        List<Object> parametros = new ArrayList<>();
+        String sql = COLUMNAS + " WHERE true" + filtro(texto, busqueda, parametros) + " ORDER BY id";
+        soloLectura.executeWithoutResult(tx ->
+                jdbcCursor.query(sql, rs -> {
+                    porFila.accept(FILA.mapRow(rs, 0));
+                }, parametros.toArray()));
+    }
+
+    private static String filtro(String texto, Busqueda busqueda, List<Object> parametros) {
+        if (texto == null || texto.isBlank()) {
+            return "";
+        }
+        String patron = escaparLike(texto.trim().toLowerCase(Locale.ROOT));
+        if (busqueda == Busqueda.CONTIENE) {
+            patron = "%" + patron + "%";
+            parametros.add(patron);
+            parametros.add(patron);
+            return FILTRO_CONTIENE;
+        }
+        patron = patron + "%";
+        parametros.add(patron);
+        parametros.add(patron);
+        return FILTRO_PREFIJO;
+    }
+
+    // "%" y "_" del texto del usuario se buscan literalmente, no como comodines.
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
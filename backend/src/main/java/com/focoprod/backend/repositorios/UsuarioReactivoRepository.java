@@ -0,0 +1,162 @@
+package com.focoprod.backend.repositorios;
+
+import com.focoprod.backend.config.CacheConfig;
+import com.focoprod.backend.model.CuentaUsuario;
+import com.focoprod.backend.model.Usuario;
+import io.r2dbc.spi.Readable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+// Versión no bloqueante (R2DBC) de las operaciones de UsuarioRepository que usan el registro
+// y el login OAuth2. Solo existe con el perfil "r2dbc" (ver ReactivoConfig).
+//
+// Mismas sentencias y mismo comportamiento que la versión JPA:
+//  - findByEmail compara lower(email) con el email normalizado (índice ix_usuarios_email_prefijo).
+//  - upsertOAuth2 ejecuta UsuarioRepository.UPSERT_OAUTH2 tal cual.
+//  - Comparte las cachés de Caffeine con UsuarioRepository (mismas claves y mismos valores, CuentaUsuario;
+//    sin entradas "no existe"), así que un save por un lado invalida lo que haya leído el otro.
+// Las anotaciones @Cacheable no sirven aquí (cachearían el Mono, no el usuario): la caché se usa a mano.
+// Más info:
+// https://docs.spring.io/spring-framework/reference/data-access/r2dbc.html#r2dbc-DatabaseClient
+@Repository
+@Profile("r2dbc")
+public class UsuarioReactivoRepository {
+
+    private static final String COLUMNAS = "id, email, name, password, provider, provider_id, rol";
+
+    private static final String INSERT = """
+            WITH nuevo AS (
+                INSERT INTO usuarios (email, name, password, provider, provider_id)
+                VALUES (:email, :name, :password, :provider, :providerId)
+                RETURNING id, email, name, provider, provider_id
+            ),
+            evento AS (
+                INSERT INTO outbox_eventos (tipo, usuario_id, payload)
+                SELECT 'UserRegistered', id, """ + OutboxRepository.PAYLOAD_USUARIO + """
+                    FROM nuevo
+            )
+            SELECT id FROM nuevo
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final Cache porEmail;
+    private final Cache porProvider;
+
+    public UsuarioReactivoRepository(DatabaseClient databaseClient, CacheManager cacheManager) {
+        this.databaseClient = databaseClient;
+        this.porEmail = Objects.requireNonNull(cacheManager.getCache(CacheConfig.USUARIOS_POR_EMAIL));
+        this.porProvider = Objects.requireNonNull(cacheManager.getCache(CacheConfig.USUARIOS_POR_PROVIDER));
+    }
+
+    // Vacío si no existe (como el Optional vacío de JPA, no se cachea).
+    public Mono<CuentaUsuario> findByEmail(String email) {
+        return cacheado(porEmail, Usuario.normalizarEmail(email), databaseClient
+                .sql("SELECT " + COLUMNAS + " FROM usuarios WHERE lower(email) = lower(btrim(:email)) ORDER BY id LIMIT 1")
+                .bind("email", email)
+                .map(UsuarioReactivoRepository::cuenta)
+                .one());
+    }
+
+    public Mono<CuentaUsuario> findByProviderAndProviderId(String provider, String providerId) {
+        return cacheado(porProvider, provider + ":" + providerId, databaseClient
+                .sql("SELECT " + COLUMNAS + " FROM usuarios WHERE provider = :provider AND provider_id = :providerId")
+                .bind("provider", provider)
+                .bind("providerId", providerId)
+                .map(UsuarioReactivoRepository::cuenta)
+                .one());
+    }
+
+    // INSERT si el usuario no tiene id (devuelve el mismo objeto con el id asignado), UPDATE si lo tiene.
+    // Un email repetido sale como DataIntegrityViolationException (DuplicateKeyException), como con JPA
+    // (UsuarioRepository.esEmailDuplicado lo distingue de otras violaciones).
+    // El INSERT escribe en la misma sentencia el evento UserRegistered de la outbox (como UsuarioService).
+    public Mono<Usuario> save(Usuario usuario) {
+        DatabaseClient.GenericExecuteSpec sentencia = usuario.getId() == null
+                ? databaseClient.sql(INSERT)
+                : databaseClient.sql("UPDATE usuarios SET email = :email, name = :name, password = :password, "
+                        + "provider = :provider, provider_id = :providerId WHERE id = :id RETURNING id")
+                        .bind("id", usuario.getId());
+        sentencia = enlazar(sentencia, "email", usuario.getEmail());
+        sentencia = enlazar(sentencia, "name", usuario.getName());
+        sentencia = enlazar(sentencia, "password", usuario.getPassword());
+        sentencia = enlazar(sentencia, "provider", usuario.getProvider());
+        sentencia = enlazar(sentencia, "providerId", usuario.getProviderId());
+        return sentencia
+                .map(fila -> fila.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    usuario.setId(id);
+                    return usuario;
+                })
+                .doOnSuccess(guardado -> {
+                    porEmail.evict(usuario.getEmail());
+                    porProvider.evict(usuario.getProvider() + ":" + usuario.getProviderId());
+                });
+    }
+
+    // Ver UsuarioRepository.upsertOAuth2. Vacío en el mismo caso (otro login del mismo email a la vez).
+    // La sentencia es una sola, así que no necesita transacción propia: se confirma al terminar.
+    public Mono<UsuarioRepository.ResultadoUpsert> upsertOAuth2(String email, String name,
+                                                                String provider, String providerId) {
+        return enlazar(databaseClient.sql(UsuarioRepository.UPSERT_OAUTH2), "name", name)
+                .bind("email", email)
+                .bind("provider", provider)
+                .bind("providerId", providerId)
+                .map(fila -> (UsuarioRepository.ResultadoUpsert) new Resultado(
+                        fila.get("id", Long.class), fila.get("name", String.class), fila.get("escrito", Boolean.class)))
+                .first()
+                .doOnNext(resultado -> {
+                    if (resultado.getEscrito()) {
+                        porEmail.evict(email);
+                        porProvider.evict(provider + ":" + providerId);
+                    }
+                });
+    }
+
+    // Consulta la caché antes de ir a la BD y guarda lo que devuelva si el usuario existe.
+    private static Mono<CuentaUsuario> cacheado(Cache cache, String clave, Mono<CuentaUsuario> consulta) {
+        return Mono.defer(() -> {
+            CuentaUsuario cacheada = cache.get(clave, CuentaUsuario.class);
+            if (cacheada != null) {
+                return Mono.just(cacheada);
+            }
+            return consulta.doOnNext(cuenta -> cache.put(clave, cuenta));
+        });
+    }
+
+    // R2DBC no acepta bind(nombre, null): los nulos necesitan su tipo.
+    private static DatabaseClient.GenericExecuteSpec enlazar(DatabaseClient.GenericExecuteSpec sentencia,
+                                                             String nombre, String valor) {
+        return valor != null ? sentencia.bind(nombre, valor) : sentencia.bindNull(nombre, String.class);
+    }
+
+    private static CuentaUsuario cuenta(Readable fila) {
+        return new CuentaUsuario(fila.get("id", Long.class), fila.get("email", String.class),
+                fila.get("name", String.class), fila.get("password", String.class),
+                fila.get("provider", String.class), fila.get("provider_id", String.class), fila.get("rol", String.class));
+    }
+
+    private record Resultado(Long id, String name, Boolean escrito) implements UsuarioRepository.ResultadoUpsert {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Boolean getEscrito() {
+            return escrito;
+        }
+    }
+}
@@ -5,13 +5,26 @@
 package com.focoprod.backend.repositorios;
 
 // Importamos la entidad Usuario, que será gestionada por este repositorio.
+import com.focoprod.backend.config.CacheConfig;
+import com.focoprod.backend.model.CuentaUsuario;
 import com.focoprod.backend.model.Usuario;
 
+// Anotaciones de la caché de Spring. Se aplican sobre el proxy del repositorio,
+// así que la BD solo se consulta cuando la entrada no está en caché.
+// Documentación oficial:
+// https://docs.spring.io/spring-framework/reference/integration/cache/annotations.html
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+
 // JpaRepository es la interfaz principal en Spring Data JPA para acceder a la BD.
 // Provee métodos CRUD listos para usar: save(), findById(), findAll(), deleteById(), etc.
 // Documentación oficial:
 // https://docs.spring.io/spring-data/jpa/docs/current/reference/html/#repositories
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 // @Repository marca esta interfaz como un componente de la capa de acceso a datos.
 // Maneja excepciones y permite la inyección del repositorio en servicios.
@@ -19,24 +32,228 @@ import org.springframework.data.jpa.repository.JpaRepository;
 // https://docs.spring.io/spring-framework/reference/data-access/orm/annotations.html#repository-annotation
 import org.springframework.stereotype.Repository;
 
+import io.r2dbc.spi.R2dbcException;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 // @Repository convierte esta interfaz en un bean de Spring responsable de la persistencia.
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
-    // Busca un usuario por su email.
+    // Busca un usuario por su email, sin distinguir mayúsculas ni espacios alrededor.
     // Optional evita NullPointerException y obliga a manejar la ausencia del usuario.
     //
-    // Este método usa consultas derivadas ("Query Methods"):
-    // Spring Data JPA genera la consulta automáticamente por el nombre del método.
+    // Compara lower(email) con el email normalizado: la condición coincide con el índice
+    // ix_usuarios_email_prefijo (migración V3), así que es una búsqueda en el índice, y encuentra
+    // también los emails antiguos que NormalizacionEmailsJob aún no normalizó.
+    // Mientras queden duplicados antiguos ("Foo@x.com" y "foo@x.com") devuelve el más antiguo,
+    // que es el que conserva el job al fusionarlos.
     // Más info:
-    // https://docs.spring.io/spring-data/jpa/docs/current/reference/html/#jpa.query-methods.query-creation
-    Optional<Usuario> findByEmail(String email);
+    // https://docs.spring.io/spring-data/jpa/reference/jpa/query-methods.html#jpa.query-methods.at-query
+    //
+    // @Cacheable: el resultado se guarda en la caché "usuariosPorEmail" con el email normalizado como clave.
+    // Solo se cachean los usuarios que existen ("unless": #result es el valor dentro del Optional).
+    // Un "no existe" cacheado seguiría valiendo en este nodo después de que el email se registre en otro,
+    // y el login de ese usuario fallaría aquí hasta que caducara la entrada. Los emails nuevos ya no
+    // llegan a esta consulta en el registro: los descarta antes el filtro de emails (EmailExistenceFilter).
+    //
+    // Devuelve una CuentaUsuario (record inmutable, "select new"), no la entidad: la misma entrada de
+    // caché la leen muchos hilos a la vez. Para modificar el usuario: findById(...) y save().
+    //
+    // readOnly: con réplicas configuradas (ver ReplicasConfig) la consulta va a una réplica,
+    // salvo dentro de una transacción de escritura o si la petición ya escribió en el primario.
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USUARIOS_POR_EMAIL,
+            key = "T(com.focoprod.backend.model.Usuario).normalizarEmail(#p0)",
+            unless = "#result == null")
+    @Query("select " + CUENTA + " from Usuario u where lower(u.email) = lower(trim(:email)) order by u.id limit 1")
+    Optional<CuentaUsuario> findByEmail(@Param("email") String email);
 
     // Busca un usuario por su proveedor (google, apple, local)
     // y su ID interno en el proveedor (sub de Google, por ejemplo).
     //
     // Muy útil para logins OAuth2.
-    Optional<Usuario> findByProviderAndProviderId(String provider, String providerId);
-}
\ No newline at end of file
+    // Usa el índice único ux_usuarios_provider_provider_id (db/migration/V2__indice_usuarios_provider.sql).
+    // Como findByEmail: CuentaUsuario inmutable y sin caché negativa.
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USUARIOS_POR_PROVIDER, key = "#p0 + ':' + #p1", unless = "#result == null")
+    @Query("select " + CUENTA + " from Usuario u where u.provider = :provider and u.providerId = :providerId")
+    Optional<CuentaUsuario> findByProviderAndProviderId(@Param("provider") String provider,
+                                                        @Param("providerId") String providerId);
+
+    // Expresión "select new" de CuentaUsuario (mismo orden que su constructor).
+    String CUENTA = "new com.focoprod.backend.model.CuentaUsuario("
+            + "u.id, u.email, u.name, u.password, u.provider, u.providerId, u.rol)";
+
+    // Restricción única de usuarios.email (nombre fijado en la migración V9).
+    String RESTRICCION_EMAIL = "ux_usuarios_email";
+
+    // Índice único sobre lower(email). Lo crea NormalizacionEmailsJob cuando ya no quedan emails
+    // sin normalizar (con cuentas duplicadas por mayúsculas no se podría crear).
+    String INDICE_EMAIL_NORMALIZADO = "ux_usuarios_email_normalizado";
+
+    // true si el error es un email repetido: SQLState 23505 (unique_violation) sobre RESTRICCION_EMAIL
+    // o INDICE_EMAIL_NORMALIZADO (con los dos, Postgres informa del primero que choque).
+    // Sirve para el save de JPA (PSQLException dentro de la DataIntegrityViolationException) y para el
+    // de UsuarioReactivoRepository (R2dbcException). Cualquier otra violación (NOT NULL, longitud, CHECK,
+    // otra restricción única...) no significa que la cuenta exista y no debe acabar en un 409.
+    // Postgres no expone la restricción en JDBC/R2DBC fuera de su driver: se busca su nombre en el mensaje
+    // (... violates unique constraint "ux_usuarios_email").
+    // Más info:
+    // https://www.postgresql.org/docs/current/errcodes-appendix.html
+    static boolean esEmailDuplicado(Throwable error) {
+        for (Throwable causa = error; causa != null; causa = causa.getCause()) {
+            String estado = switch (causa) {
+                case SQLException sql -> sql.getSQLState();
+                case R2dbcException r2dbc -> r2dbc.getSqlState();
+                default -> null;
+            };
+            if (estado != null) {
+                return "23505".equals(estado) && causa.getMessage() != null
+                        && (causa.getMessage().contains('"' + RESTRICCION_EMAIL + '"')
+                            || causa.getMessage().contains('"' + INDICE_EMAIL_NORMALIZADO + '"'));
+            }
+        }
+        return false;
+    }
+
+    // Redeclaramos save(...) de JpaRepository solo para invalidar la caché al guardar.
+    // Se borran las entradas del email y del provider:providerId del usuario guardado.
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_EMAIL, key = "#p0.email"),
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_PROVIDER, key = "#p0.provider + ':' + #p0.providerId")
+    })
+    <S extends Usuario> S save(S usuario);
+
+    // Devuelve cuáles de los emails recibidos ya existen, en UNA sola consulta (WHERE email IN (...)).
+    // Lo usa la importación masiva para detectar duplicados por bloque en lugar de fila por fila.
+    // Solo trae la columna email, no entidades completas.
+    // Recibe emails normalizados y devuelve los existentes también normalizados (lower).
+    // Más info sobre @Query:
+    // https://docs.spring.io/spring-data/jpa/reference/jpa/query-methods.html#jpa.query-methods.at-query
+    @Query("select lower(u.email) from Usuario u where lower(u.email) in :emails")
+    List<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+
+    // Alta o actualización de un usuario OAuth2 en UNA sola sentencia (un viaje a la BD).
+    //
+    // - Email nuevo → INSERT.
+    // - Email existente con datos distintos → UPDATE de name/provider/providerId.
+    // - Email existente sin cambios → no se escribe nada (el WHERE del UPDATE lo descarta):
+    //   ni tupla nueva, ni WAL, ni bloqueo de escritura.
+    // Un name null o vacío no pisa el nombre guardado; en un alta se usa "Usuario sin nombre".
+    //
+    // El email se busca siempre por lower(email) (:email llega normalizado): un email antiguo que
+    // NormalizacionEmailsJob aún no ha tocado ("Foo@x.com") es la misma cuenta, no una nueva.
+    // Con varias filas así se usa la más antigua, como hará la fusión.
+    //
+    // El INSERT lleva ON CONFLICT DO NOTHING sin columna: sirven de árbitro todos los índices únicos,
+    // el de email y, cuando ya existe, el de lower(email) (ver INDICE_EMAIL_NORMALIZADO). No se puede
+    // usar DO UPDATE con ese índice como destino porque, hasta que termina la normalización, puede no
+    // existir todavía. Dos primeros logins simultáneos del mismo email no chocan: uno inserta y el
+    // otro no hace nada y vuelve vacío (ver abajo).
+    //
+    // (provider, provider_id) también es único (migración V2), y la cuenta del proveedor manda:
+    // - Si el sub ya es de un usuario con otro email (el email cambió en Google) y el email nuevo
+    //   no existe → se le cambia el email a ese usuario (rama "movido") en vez de crear otro.
+    //   La entrada de caché del email antiguo caduca sola (expireAfterWrite).
+    // - Si el sub es de un usuario y el email de otro → se entra con el del email, sin quitarle
+    //   el sub al primero (provider/provider_id del segundo no se tocan).
+    //
+    // Eventos de la outbox, en la misma sentencia (ver DespachadorOutbox):
+    // - UserRegistered si la fila es nueva (rama "insertado").
+    // - UserLinkedProvider si la fila existía y su provider/provider_id cambió respecto a "previo"
+    //   (la fila antes de la sentencia). Un cambio de nombre o de email (rama "movido") no genera evento.
+    // Los nombres de tipo son los de EventoOutbox.
+    //
+    // La rama SELECT final devuelve la fila cuando no hubo escritura (RETURNING no devuelve nada en ese caso).
+    // Si la fila en conflicto la confirmó otra transacción después de empezar esta sentencia,
+    // esta no la ve y el resultado viene vacío: basta con repetir la llamada (la nueva
+    // sentencia ya la ve).
+    //
+    // Más info:
+    // https://www.postgresql.org/docs/current/sql-insert.html#SQL-ON-CONFLICT
+    // https://www.postgresql.org/docs/current/queries-with.html#QUERIES-WITH-MODIFYING
+    // https://docs.spring.io/spring-data/jpa/reference/jpa/query-methods.html#jpa.query-methods.at-query.native
+    @Transactional
+    @Query(nativeQuery = true, value = UPSERT_OAUTH2)
+    // Solo se invalida la caché si hubo escritura (#result es el Optional devuelto).
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_EMAIL, key = "#p0", condition = "#result.present and #result.get().escrito"),
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_PROVIDER, key = "#p2 + ':' + #p3", condition = "#result.present and #result.get().escrito")
+    })
+    Optional<ResultadoUpsert> upsertOAuth2(@Param("email") String email,
+                                           @Param("name") String name,
+                                           @Param("provider") String provider,
+                                           @Param("providerId") String providerId);
+
+    // Sentencia de upsertOAuth2. UsuarioReactivoRepository (perfil r2dbc) ejecuta la misma.
+    String UPSERT_OAUTH2 = """
+            WITH previo AS (
+                SELECT id, name, provider, provider_id FROM usuarios
+                WHERE lower(email) = :email
+                ORDER BY id
+                LIMIT 1
+            ),
+            propietario AS (
+                SELECT id FROM usuarios
+                WHERE provider = :provider AND provider_id = :providerId AND lower(email) <> :email
+            ),
+            movido AS (
+                UPDATE usuarios
+                SET email = :email,
+                    name = COALESCE(NULLIF(CAST(:name AS varchar), ''), usuarios.name)
+                WHERE id IN (SELECT id FROM propietario)
+                  AND NOT EXISTS (SELECT 1 FROM previo)
+                RETURNING id, name
+            ),
+            insertado AS (
+                INSERT INTO usuarios (email, name, provider, provider_id)
+                SELECT :email, COALESCE(NULLIF(CAST(:name AS varchar), ''), 'Usuario sin nombre'), :provider, :providerId
+                WHERE NOT EXISTS (SELECT 1 FROM previo) AND NOT EXISTS (SELECT 1 FROM movido)
+                ON CONFLICT DO NOTHING
+                RETURNING id, email, name, provider, provider_id, true AS insertado
+            ),
+            actualizado AS (
+                UPDATE usuarios
+                SET name = COALESCE(NULLIF(CAST(:name AS varchar), ''), usuarios.name),
+                    provider = CASE WHEN EXISTS (SELECT 1 FROM propietario) THEN usuarios.provider ELSE :provider END,
+                    provider_id = CASE WHEN EXISTS (SELECT 1 FROM propietario) THEN usuarios.provider_id ELSE :providerId END
+                WHERE usuarios.id = (SELECT id FROM previo)
+                  AND (usuarios.name IS DISTINCT FROM COALESCE(NULLIF(CAST(:name AS varchar), ''), usuarios.name)
+                       OR (NOT EXISTS (SELECT 1 FROM propietario)
+                           AND (usuarios.provider, usuarios.provider_id) IS DISTINCT FROM (:provider, :providerId)))
+                RETURNING id, email, name, provider, provider_id, false AS insertado
+            ),
+            escrito AS (
+                SELECT * FROM insertado
+                UNION ALL
+                SELECT * FROM actualizado
+            ),
+            evento AS (
+                INSERT INTO outbox_eventos (tipo, usuario_id, payload)
+                SELECT CASE WHEN insertado THEN 'UserRegistered' ELSE 'UserLinkedProvider' END,
+                       id, """ + OutboxRepository.PAYLOAD_USUARIO + """
+                FROM escrito
+                WHERE insertado OR NOT EXISTS (
+                    SELECT 1 FROM previo
+                    WHERE (previo.provider, previo.provider_id) IS NOT DISTINCT FROM (escrito.provider, escrito.provider_id))
+            )
+            SELECT id, name, true AS escrito FROM movido
+            UNION ALL
+            SELECT id, name, true AS escrito FROM escrito
+            UNION ALL
+            SELECT id, name, false AS escrito FROM previo
+            WHERE NOT EXISTS (SELECT 1 FROM escrito)
+            """;
+
+    // Fila devuelta por upsertOAuth2: id y nombre vigente, y si hubo escritura.
+    interface ResultadoUpsert {
+        Long getId();
+        String getName();
+        Boolean getEscrito();
+    }
+}
@@ -0,0 +1,51 @@
+package com.focoprod.backend.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// Calcula al arrancar el work factor ("cost") de BCrypt adecuado para esta máquina.
+//
+// Cada +1 en el cost duplica el tiempo de hash, así que basta con medir un cost base
+// y extrapolar: t(cost) = t(base) * 2^(cost - base).
+// Elegimos el mayor cost cuya latencia estimada no supere la latencia objetivo.
+//
+// Más info sobre cómo elegir el cost:
+// https://docs.spring.io/spring-security/reference/features/authentication/password-storage.html#authentication-password-storage-bcrypt
+public final class BCryptCalibrator {
+
+    // Número de mediciones; usamos la mediana para ignorar pausas del GC o del JIT.
+    private static final int MUESTRAS = 3;
+
+    private BCryptCalibrator() {
+    }
+
+    public static int calibrar(Duration objetivo, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder base = new BCryptPasswordEncoder(minStrength);
+
+        // Primera ejecución descartada: calienta el JIT y SecureRandom.
+        base.encode("calibracion");
+
+        long[] tiempos = new long[MUESTRAS];
+        for (int i = 0; i < MUESTRAS; i++) {
+            long inicio = System.nanoTime();
+            base.encode("calibracion");
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+
+        return elegir(tiempos[MUESTRAS / 2], objetivo.toNanos(), minStrength, maxStrength);
+    }
+
+    // Separado de calibrar(...) para poder razonar sobre la extrapolación sin medir tiempos.
+    static int elegir(long nanosBase, long nanosObjetivo, int minStrength, int maxStrength) {
+        int strength = minStrength;
+        long estimado = Math.max(1, nanosBase);
+        while (strength < maxStrength && estimado * 2 <= nanosObjetivo) {
+            estimado *= 2;
+            strength++;
+        }
+        return strength;
+    }
+}
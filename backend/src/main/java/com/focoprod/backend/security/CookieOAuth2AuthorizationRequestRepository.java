@@ -0,0 +1,146 @@
+package com.focoprod.backend.security;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+// Guarda la petición de autorización OAuth2 (state, redirect_uri, nonce...) en una cookie firmada
+// en lugar de en la sesión HTTP. Así el callback de Google puede llegar a cualquier nodo.
+//
+// Formato de la cookie: kid.payload.firma (Base64 URL), con la firma HMAC de TokenKeySet.
+// La firma se comprueba ANTES de deserializar: nunca deserializamos datos que no firmamos nosotros.
+//
+// Más info:
+// https://docs.spring.io/spring-security/reference/servlet/oauth2/client/authorization-grants.html#oauth2-client-authorization-request-repository
+@Component
+@ConditionalOnProperty(prefix = "focoprod.auth", name = "mode", havingValue = "stateless")
+public class CookieOAuth2AuthorizationRequestRepository
+        implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    private static final String COOKIE = "oauth2_auth_request";
+
+    // Tiempo máximo para completar el login en Google.
+    private static final Duration VIDA = Duration.ofMinutes(3);
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+    private final TokenKeySet tokenKeySet;
+
+    public CookieOAuth2AuthorizationRequestRepository(TokenKeySet tokenKeySet) {
+        this.tokenKeySet = tokenKeySet;
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        String valor = leerCookie(request);
+        if (valor == null) {
+            return null;
+        }
+        String[] partes = valor.split("\\.");
+        if (partes.length != 3) {
+            return null;
+        }
+        try {
+            byte[] payload = B64D.decode(partes[1]);
+            byte[] firma = B64D.decode(partes[2]);
+            if (!tokenKeySet.verificarHmac(partes[0], firmable(partes[0], payload), firma)) {
+                return null;
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+                return (OAuth2AuthorizationRequest) in.readObject();
+            }
+        } catch (IllegalArgumentException | IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest,
+                                         HttpServletRequest request,
+                                         HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            borrarCookie(request, response);
+            return;
+        }
+        byte[] payload = serializar(authorizationRequest);
+        String kid = tokenKeySet.kidActivo();
+        byte[] firma = tokenKeySet.hmac(kid, firmable(kid, payload));
+        String valor = kid + "." + B64.encodeToString(payload) + "." + B64.encodeToString(firma);
+        escribirCookie(request, response, valor, VIDA);
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request,
+                                                                 HttpServletResponse response) {
+        OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+        if (authorizationRequest != null) {
+            borrarCookie(request, response);
+        }
+        return authorizationRequest;
+    }
+
+    // El kid entra en lo firmado para que no se pueda cambiar por otro.
+    private static byte[] firmable(String kid, byte[] payload) {
+        byte[] prefijo = (kid + ".").getBytes(StandardCharsets.UTF_8);
+        byte[] datos = new byte[prefijo.length + payload.length];
+        System.arraycopy(prefijo, 0, datos, 0, prefijo.length);
+        System.arraycopy(payload, 0, datos, prefijo.length, payload.length);
+        return datos;
+    }
+
+    private static byte[] serializar(OAuth2AuthorizationRequest authorizationRequest) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(authorizationRequest);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo serializar la petición de autorización", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String leerCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static void borrarCookie(HttpServletRequest request, HttpServletResponse response) {
+        escribirCookie(request, response, "", Duration.ZERO);
+    }
+
+    // SameSite=Lax: el navegador envía la cookie en la redirección de vuelta desde Google.
+    private static void escribirCookie(HttpServletRequest request, HttpServletResponse response,
+                                       String valor, Duration vida) {
+        ResponseCookie cookie = ResponseCookie.from(COOKIE, valor)
+                .path("/")
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .maxAge(vida)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
@@ -1,18 +1,28 @@
 package com.focoprod.backend.security;
 
+import com.focoprod.backend.model.CuentaUsuario;
 import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.UsuarioReactivoRepository;
 import com.focoprod.backend.repositorios.UsuarioRepository;
+import com.focoprod.backend.service.EmailExistenceFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
-import java.util.Map;
 
 // @Component indica que esta clase es un bean administrado por Spring.
 // Spring la detecta en el escaneo de componentes y la inyecta donde haga falta.
@@ -20,36 +30,72 @@ import java.util.Map;
 @Component
 public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler {
 
+    // Página del frontend a la que se vuelve tras un login correcto.
+    public static final String URL_EXITO = "http://localhost:5500/success.html";
+
+    // Log con SLF4J: el appender es asíncrono (logback-spring.xml), así que escribir una línea
+    // no bloquea el hilo de la petición como hacía System.out.println.
+    private static final Logger log = LoggerFactory.getLogger(CustomOAuth2SuccessHandler.class);
+
     // Repositorio para acceder y persistir usuarios en la base de datos.
     // Lo usamos para buscar/crear/actualizar un Usuario a partir de los datos de OAuth2.
     private final UsuarioRepository usuarioRepository;
 
+    // Filtro de emails existentes: hay que avisarle de cada usuario nuevo.
+    private final EmailExistenceFilter emailExistenceFilter;
+
+    // Solo existe con focoprod.auth.mode=stateless; en modo sesión getIfAvailable() devuelve null.
+    private final ObjectProvider<TokenService> tokenService;
+
+    // Solo existe con el perfil "r2dbc": el upsert va por R2DBC y la respuesta se completa de forma asíncrona.
+    private final ObjectProvider<UsuarioReactivoRepository> usuarioReactivoRepository;
+
+    // Resultados del login: focoprod.auth.oauth2.login.results{result=written|unchanged|missing_email}.
+    private final Counter escritos;
+    private final Counter sinCambios;
+    private final Counter sinEmail;
+
     // Inyección de dependencias vía constructor.
     // Spring creará una instancia de UsuarioRepository y la pasará aquí automáticamente.
-    public CustomOAuth2SuccessHandler(UsuarioRepository usuarioRepository) {
+    public CustomOAuth2SuccessHandler(UsuarioRepository usuarioRepository,
+                                      EmailExistenceFilter emailExistenceFilter,
+                                      ObjectProvider<TokenService> tokenService,
+                                      ObjectProvider<UsuarioReactivoRepository> usuarioReactivoRepository,
+                                      MeterRegistry registry) {
         this.usuarioRepository = usuarioRepository;
-        System.out.println("✅ [CustomOAuth2SuccessHandler] BEAN CREADO");
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.tokenService = tokenService;
+        this.usuarioReactivoRepository = usuarioReactivoRepository;
+        this.escritos = resultado(registry, "written");
+        this.sinCambios = resultado(registry, "unchanged");
+        this.sinEmail = resultado(registry, "missing_email");
+    }
+
+    private static Counter resultado(MeterRegistry registry, String result) {
+        return Counter.builder("focoprod.auth.oauth2.login.results")
+                .tag("result", result)
+                .description("Logins OAuth2 por resultado")
+                .register(registry);
     }
 
     // Implementación del método de AuthenticationSuccessHandler.
     // Este método se ejecuta cuando la autenticación se realiza correctamente.
     //
-    // @Transactional garantiza que todas las operaciones sobre la base de datos
-    // dentro de este método se ejecuten dentro de una misma transacción:
-    //  - Si todo va bien → commit
-    //  - Si hay error en medio → rollback
-    //
+    // Sin @Transactional propio: la única escritura es upsertOAuth2, una sola sentencia que ya lleva
+    // su transacción (ver UsuarioRepository). Una transacción aquí ocuparía una conexión JDBC
+    // durante todo el método, también con el perfil "r2dbc", que no usa JDBC.
     // Más info @Transactional:
     // https://docs.spring.io/spring-framework/reference/data-access/transaction/declarative/annotations.html
+    //
+    // @Observed publica el timer "focoprod.auth.oauth2.login" (con histograma) y un span de tracing.
+    // Con el perfil "r2dbc" el método vuelve antes de que termine el upsert: el timer solo mide la parte síncrona.
     @Override
-    @Transactional
+    @Observed(name = "focoprod.auth.oauth2.login", contextualName = "oauth2-login")
     public void onAuthenticationSuccess(HttpServletRequest request,
                                         HttpServletResponse response,
                                         Authentication authentication)
             throws IOException, ServletException {
 
-        System.out.println("✅ [CustomOAuth2SuccessHandler] onAuthenticationSuccess() ENTRÓ");
-
         // Verificamos que la autenticación realmente provenga de OAuth2.
         // Usamos pattern matching con instanceof (Java 17+):
         // si es OAuth2AuthenticationToken, lo castea y asigna a oauthToken.
@@ -57,80 +103,106 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
         // OAuth2AuthenticationToken representa una autenticación hecha a través de OAuth2
         // (Google, GitHub, etc.).
         if (!(authentication instanceof OAuth2AuthenticationToken oauthToken)) {
-            System.out.println("❌ Autenticación no es OAuth2, no hago nada");
+            log.warn("Autenticación que no es OAuth2 en el handler de OAuth2: {}", authentication.getClass().getSimpleName());
             // Aunque no sea OAuth2, redirigimos al mismo success del front.
-            response.sendRedirect("http://localhost:5500/success.html");
+            response.sendRedirect(URL_EXITO);
             return;
         }
 
-        // registrationId es el identificador del cliente OAuth2 configurado en Spring Security,
-        // por ejemplo: "google".
-        //
-        // Más info sobre OAuth2AuthenticationToken:
-        // https://docs.spring.io/spring-security/site/docs/current/api/org/springframework/security/oauth2/client/authentication/OAuth2AuthenticationToken.html
-        String registrationId = oauthToken.getAuthorizedClientRegistrationId(); // "google"
-
-        // attrs contiene los "claims"/atributos del usuario devueltos por el proveedor OAuth2.
-        // En el caso de Google (OpenID Connect), suele incluir:
-        //  - "sub"    → id único del usuario en Google
-        //  - "email"  → correo del usuario
-        //  - "name"   → nombre completo
-        //
-        // Más info sobre UserInfo y claims:
-        // https://docs.spring.io/spring-security/reference/servlet/oauth2/login/advanced.html
-        Map<String, Object> attrs = oauthToken.getPrincipal().getAttributes();
-
-        // "sub" es el identificador único del usuario en el proveedor (OpenID Connect).
-        String providerId = (String) attrs.get("sub");          // id de Google
-        String email = (String) attrs.get("email");
-        String name = (String) attrs.getOrDefault("name", "");
-
-        System.out.println("🔵 OAuth2 success - provider=" + registrationId +
-                ", email=" + email +
-                ", providerId=" + providerId);
+        // Sacamos provider, sub, email y nombre de los atributos devueltos por el proveedor.
+        PerfilOAuth2 perfil = PerfilOAuth2.desde(oauthToken);
+        String registrationId = perfil.provider();   // "google"
+        String providerId = perfil.providerId();     // id de Google
+        String email = perfil.email();
+        String name = perfil.name();
+        // ROLE_ADMIN lo añade SecurityConfig al cargar el usuario OIDC si su cuenta vinculada es ADMIN.
+        String rol = AuthorityUtils.authorityListToSet(authentication.getAuthorities())
+                .contains("ROLE_" + Usuario.ROL_ADMIN) ? Usuario.ROL_ADMIN : Usuario.ROL_USUARIO;
+
+        log.atDebug()
+                .addKeyValue("provider", registrationId)
+                .addKeyValue("providerId", providerId)
+                .log("Login OAuth2 correcto");
 
         // Si por alguna razón el proveedor no envía email, no podemos registrar/identificar al usuario.
         // En ese caso redirigimos a la página principal.
-        if (email == null || email.isBlank()) {
-            System.out.println("❌ No vino email en el token de Google");
+        if (!perfil.tieneEmail()) {
+            sinEmail.increment();
+            log.atWarn().addKeyValue("provider", registrationId).log("El proveedor no envió email");
             response.sendRedirect("http://localhost:5500/index.html");
             return;
         }
 
-        // Buscamos si ya existe un usuario con ese email en la base de datos.
-        //
-        // usuarioRepository.findByEmail(email) devuelve un Optional<Usuario>.
-        // Usamos map(...) si existe, y orElseGet(...) si no existe:
-        //  - Si existe → actualizamos nombre, provider y providerId.
-        //  - Si no existe → creamos un nuevo Usuario con esos datos.
+        // Alta o actualización del usuario en una sola sentencia (INSERT ... ON CONFLICT DO UPDATE).
+        // Si name/provider/providerId no cambiaron, la BD no escribe nada.
+        // La misma sentencia escribe el evento UserRegistered o UserLinkedProvider de la outbox.
+        // Ver UsuarioRepository.upsertOAuth2(...).
         //
-        // Esto aprovecha los "query methods" de Spring Data JPA:
-        // https://docs.spring.io/spring-data/jpa/reference/repositories/query-methods-details.html
-        Usuario usuarioGuardado = usuarioRepository.findByEmail(email)
-                .map(u -> {
-                    System.out.println("🟡 Actualizando usuario existente con email " + email);
-                    if (name != null && !name.isBlank()) u.setName(name);
-                    u.setProvider(registrationId);   // "google"
-                    u.setProviderId(providerId);
-                    // save() actualiza el registro en la base de datos.
-                    return usuarioRepository.save(u);
-                })
-                .orElseGet(() -> {
-                    System.out.println("🟢 Creando usuario nuevo con email " + email);
-                    Usuario nuevo = new Usuario();
-                    nuevo.setEmail(email);
-                    // Si name viene vacío o null, asignamos un nombre por defecto.
-                    nuevo.setName(name != null && !name.isBlank() ? name : "Usuario sin nombre");
-                    nuevo.setProvider(registrationId);   // "google"
-                    nuevo.setProviderId(providerId);
-                    // save() inserta el nuevo usuario en la base de datos.
-                    return usuarioRepository.save(nuevo);
-                });
-
-        System.out.println("✅ Usuario guardado con id=" + usuarioGuardado.getId());
+        // El filtro de emails se avisa siempre: registrar un email que ya estaba no cambia nada.
+        emailExistenceFilter.registrar(email);
+
+        UsuarioReactivoRepository reactivo = usuarioReactivoRepository.getIfAvailable();
+        if (reactivo != null && request.isAsyncSupported()) {
+            // Perfil "r2dbc": se libera el hilo de Tomcat mientras se espera a la BD.
+            // La sesión (modo sesión) ya quedó guardada antes de llamar a este método.
+            // Más info: https://jakarta.ee/specifications/servlet/6.0/apidocs/jakarta.servlet/jakarta/servlet/asynccontext
+            AsyncContext async = request.startAsync();
+            async.setTimeout(0);
+            reactivo.upsertOAuth2(email, name, registrationId, providerId)
+                    // Vacío solo si otro login del mismo email confirmó justo a la vez: se repite una vez.
+                    .switchIfEmpty(Mono.defer(() -> reactivo.upsertOAuth2(email, name, registrationId, providerId)))
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("No se pudo registrar el usuario " + email)))
+                    .subscribe(resultado -> {
+                        try {
+                            redirigir(response, resultado, email, registrationId, providerId, rol);
+                        } catch (IOException | RuntimeException e) {
+                            log.atError().setCause(e).log("No se pudo completar el login OAuth2");
+                        } finally {
+                            async.complete();
+                        }
+                    }, error -> {
+                        log.atError().setCause(error).addKeyValue("provider", registrationId)
+                                .log("No se pudo registrar el usuario OAuth2");
+                        try {
+                            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                        } catch (IOException e) {
+                            log.atDebug().setCause(e).log("No se pudo enviar el error al cliente");
+                        } finally {
+                            async.complete();
+                        }
+                    });
+            return;
+        }
+
+        UsuarioRepository.ResultadoUpsert resultado = usuarioRepository
+                .upsertOAuth2(email, name, registrationId, providerId)
+                // Vacío solo si otro login del mismo email confirmó justo a la vez: se repite una vez.
+                .or(() -> usuarioRepository.upsertOAuth2(email, name, registrationId, providerId))
+                .orElseThrow(() -> new IllegalStateException("No se pudo registrar el usuario " + email));
+        redirigir(response, resultado, email, registrationId, providerId, rol);
+    }
+
+    // Cuenta el resultado del upsert y redirige al frontend (con tokens en modo stateless).
+    private void redirigir(HttpServletResponse response, UsuarioRepository.ResultadoUpsert resultado,
+                           String email, String registrationId, String providerId, String rol) throws IOException {
+        // Armamos el usuario con lo que ya sabemos, sin volver a leerlo de la BD.
+        // provider es el registrationId ("google").
+        CuentaUsuario usuarioGuardado = new CuentaUsuario(
+                resultado.getId(), email, resultado.getName(), null, registrationId, providerId, rol);
+
+        (resultado.getEscrito() ? escritos : sinCambios).increment();
+        log.atInfo()
+                .addKeyValue("usuarioId", usuarioGuardado.id())
+                .addKeyValue("provider", registrationId)
+                .addKeyValue("escrito", resultado.getEscrito())
+                .log("Usuario OAuth2 registrado");
 
         // Finalmente, redirigimos al frontend después de haber guardado/actualizado el usuario.
         // Aquí podrías cambiar la URL cuando tengas un front definitivo (React, Vue, etc.).
-        response.sendRedirect("http://localhost:5500/success.html");
+        // En modo stateless los tokens viajan en el fragmento de la URL (no hay sesión).
+        TokenService tokens = tokenService.getIfAvailable();
+        response.sendRedirect(tokens != null
+                ? tokens.urlConTokens(URL_EXITO, tokens.emitir(usuarioGuardado))
+                : URL_EXITO);
     }
 }
\ No newline at end of file
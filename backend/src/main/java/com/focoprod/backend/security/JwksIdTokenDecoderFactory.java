@@ -0,0 +1,192 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.config.AuthProperties;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.oauth2.client.oidc.authentication.OidcIdTokenDecoderFactory;
+import org.springframework.security.oauth2.client.oidc.authentication.OidcIdTokenValidator;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoderFactory;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Decoder del ID token de cada proveedor OpenID Connect, con sus claves públicas (JWKS) en caché.
+//
+// Spring Security ya valida siempre la firma del ID token; esta clase cambia cómo se obtienen las claves:
+//  - Un JWKSource por registrationId que vive lo que la aplicación (no uno por decoder).
+//  - Caché de jwksTtl con recarga programada en segundo plano jwksRefrescoAnticipado antes de caducar,
+//    y descarga inicial al arrancar: ningún login espera a la red para verificar una firma.
+//  - "kid" desconocido (el proveedor rotó sus claves) → recarga inmediata, limitada a una cada 30 s.
+// Validaciones de siempre (OidcIdTokenValidator): iss, aud, azp, exp, iat; el nonce lo comprueba Spring.
+//
+// Spring Security usa este bean en lugar de su OidcIdTokenDecoderFactory por ser un
+// JwtDecoderFactory<ClientRegistration>. Sirve para cualquier registro con scope "openid" y jwk-set-uri.
+//
+// Métrica: focoprod.auth.oidc.jwks.fetch{provider, outcome=success|error} → descargas del JWKS.
+// Más info:
+// https://docs.spring.io/spring-security/reference/servlet/oauth2/login/advanced.html#oauth2login-advanced-idtoken-verify
+// https://connect2id.com/products/nimbus-jose-jwt/examples/enhanced-jwk-retrieval
+@Component
+public class JwksIdTokenDecoderFactory implements JwtDecoderFactory<ClientRegistration>, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksIdTokenDecoderFactory.class);
+
+    // Algoritmos de firma aceptados: RS256 (Google, Apple y el mínimo de OIDC) y ES256.
+    private static final Set<JWSAlgorithm> ALGORITMOS = Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256);
+
+    private final AuthProperties.Oidc config;
+    private final ClientRegistrationRepository registros;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, JWKSource<SecurityContext>> fuentes = new ConcurrentHashMap<>();
+    private final Map<String, JwtDecoder> decoders = new ConcurrentHashMap<>();
+
+    public JwksIdTokenDecoderFactory(AuthProperties properties,
+                                     ClientRegistrationRepository registros,
+                                     MeterRegistry meterRegistry) {
+        this.config = properties.getOidc();
+        this.registros = registros;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public JwtDecoder createDecoder(ClientRegistration registro) {
+        return decoders.computeIfAbsent(registro.getRegistrationId(), id -> crearDecoder(registro));
+    }
+
+    private JwtDecoder crearDecoder(ClientRegistration registro) {
+        DefaultJWTProcessor<SecurityContext> procesador = new DefaultJWTProcessor<>();
+        procesador.setJWSKeySelector(new JWSVerificationKeySelector<>(ALGORITMOS, fuente(registro)));
+        // Los claims los valida Spring (abajo), no Nimbus.
+        procesador.setJWTClaimsSetVerifier((claims, contexto) -> {
+        });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(procesador);
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                new JwtTimestampValidator(), new OidcIdTokenValidator(registro)));
+        decoder.setClaimSetConverter(OidcIdTokenDecoderFactory.createDefaultClaimTypeConverter());
+        return decoder;
+    }
+
+    private JWKSource<SecurityContext> fuente(ClientRegistration registro) {
+        String jwkSetUri = registro.getProviderDetails().getJwkSetUri();
+        if (!StringUtils.hasText(jwkSetUri)) {
+            // Mismo error que daría OidcIdTokenDecoderFactory.
+            throw new OAuth2AuthenticationException(new OAuth2Error("missing_signature_verifier",
+                    "Falta jwk-set-uri en el proveedor del registro " + registro.getRegistrationId(), null));
+        }
+        return fuentes.computeIfAbsent(registro.getRegistrationId(), id -> {
+            URL url;
+            try {
+                url = URI.create(jwkSetUri).toURL();
+            } catch (MalformedURLException | IllegalArgumentException e) {
+                throw new IllegalStateException("jwk-set-uri no válida en el registro " + id + ": " + jwkSetUri, e);
+            }
+            int timeout = (int) config.getJwksTimeout().toMillis();
+            return JWKSourceBuilder.<SecurityContext>create(url, new Descarga(id, timeout))
+                    .cache(config.getJwksTtl().toMillis(), config.getJwksTimeout().toMillis())
+                    .refreshAheadCache(config.getJwksRefrescoAnticipado().toMillis(), true)
+                    .retrying(true)
+                    .build();
+        });
+    }
+
+    // Descarga inicial de las claves de cada proveedor OIDC, en segundo plano para no retrasar el arranque.
+    // A partir de aquí la caché se recarga sola antes de caducar.
+    // Más info sobre ApplicationReadyEvent:
+    // https://docs.spring.io/spring-boot/reference/features/spring-application.html#features.spring-application.application-events-and-listeners
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        if (!(registros instanceof Iterable<?> todos)) {
+            return;
+        }
+        for (Object elemento : todos) {
+            if (elemento instanceof ClientRegistration registro
+                    && registro.getScopes().contains(OidcScopes.OPENID)
+                    && StringUtils.hasText(registro.getProviderDetails().getJwkSetUri())) {
+                JWKSource<SecurityContext> fuente = fuente(registro);
+                Thread.ofVirtual().name("jwks-" + registro.getRegistrationId()).start(() -> {
+                    try {
+                        fuente.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+                    } catch (KeySourceException e) {
+                        log.warn("No se pudo precargar el JWKS de {}: se reintentará en el primer login",
+                                registro.getRegistrationId(), e);
+                    }
+                });
+            }
+        }
+    }
+
+    // Las recargas programadas usan un hilo por fuente: se paran al cerrar la aplicación.
+    @Override
+    public void destroy() throws IOException {
+        for (JWKSource<SecurityContext> fuente : fuentes.values()) {
+            if (fuente instanceof Closeable cerrable) {
+                cerrable.close();
+            }
+        }
+    }
+
+    // Descarga HTTP del JWKS con timeouts propios y métrica de cada intento.
+    private final class Descarga extends DefaultResourceRetriever {
+
+        private final String proveedor;
+
+        Descarga(String proveedor, int timeoutMs) {
+            super(timeoutMs, timeoutMs, JWKSourceBuilder.DEFAULT_HTTP_SIZE_LIMIT);
+            this.proveedor = proveedor;
+        }
+
+        @Override
+        public Resource retrieveResource(URL url) throws IOException {
+            Timer.Sample muestra = Timer.start(meterRegistry);
+            String resultado = "error";
+            try {
+                Resource recurso = super.retrieveResource(url);
+                resultado = "success";
+                return recurso;
+            } finally {
+                muestra.stop(Timer.builder("focoprod.auth.oidc.jwks.fetch")
+                        .tag("provider", proveedor)
+                        .tag("outcome", resultado)
+                        .description("Descargas del JWKS de cada proveedor OpenID Connect")
+                        .register(meterRegistry));
+                log.atDebug().addKeyValue("provider", proveedor).addKeyValue("outcome", resultado)
+                        .log("JWKS descargado de {}", url);
+            }
+        }
+    }
+}
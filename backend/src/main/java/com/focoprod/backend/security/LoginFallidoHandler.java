@@ -0,0 +1,55 @@
+package com.focoprod.backend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.exception.ServicioSaturadoException;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Fallo del login con formulario.
+//
+// El login no pasa por ningún controlador, así que ApiExceptionHandler no ve la ServicioSaturadoException
+// de PasswordHashingEngine.matches: la recibe el filtro de login envuelta en una
+// AuthenticationServiceException (ver PasswordHashingEngine.matches). Aquí se responde lo mismo que
+// ApiExceptionHandler: 503 + Retry-After y la clave "error". El cliente sabe que debe reintentar,
+// en vez de creer que la contraseña es incorrecta.
+// Cualquier otro fallo (credenciales incorrectas...) sigue como siempre: redirección a /login?error.
+// Más info:
+// https://docs.spring.io/spring-security/reference/servlet/authentication/architecture.html#servlet-authentication-authenticationfailurehandler
+public class LoginFallidoHandler implements AuthenticationFailureHandler {
+
+    private final ObjectMapper objectMapper;
+    private final AuthenticationFailureHandler porDefecto = new SimpleUrlAuthenticationFailureHandler("/login?error");
+
+    public LoginFallidoHandler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request,
+                                        HttpServletResponse response,
+                                        AuthenticationException exception) throws IOException, ServletException {
+        for (Throwable causa = exception; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ServicioSaturadoException saturado) {
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(Math.max(1, saturado.getRetryAfter().toSeconds())));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                objectMapper.writeValue(response.getOutputStream(), Map.of("error", saturado.getMessage()));
+                return;
+            }
+        }
+        porDefecto.onAuthenticationFailure(request, response, exception);
+    }
+}
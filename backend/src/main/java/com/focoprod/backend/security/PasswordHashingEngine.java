@@ -0,0 +1,208 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.config.PasswordHashingProperties;
+import com.focoprod.backend.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// PasswordEncoder que ejecuta BCrypt en un pool de hilos propio y acotado.
+//
+// BCrypt consume CPU a propósito. Si se ejecuta en los hilos de Tomcat, un pico de registros
+// ocupa todos los núcleos y el resto de endpoints se quedan sin CPU. Aquí:
+//  - el pool tiene tantos hilos como núcleos (o los configurados),
+//  - la cola es acotada: si se llena lanzamos ServicioSaturadoException (HTTP 503 + Retry-After; en el
+//    login, envuelta en una AuthenticationServiceException, ver matches),
+//  - el work factor se calibra al arrancar (ver BCryptCalibrator),
+//  - upgradeEncoding(...) permite a Spring Security re-hashear en el login los hashes con un cost viejo.
+//
+// Al implementar PasswordEncoder, todo el código que ya usa el bean (UsuarioService,
+// DaoAuthenticationProvider) pasa por el pool sin cambios.
+// Más info:
+// https://docs.spring.io/spring-security/reference/features/authentication/password-storage.html
+public class PasswordHashingEngine implements PasswordEncoder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingEngine.class);
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final int hilos;
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+
+    // Métricas: tiempo de CPU de cada operación, tiempo esperando en cola y rechazos.
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer esperaTimer;
+    private final Counter rechazos;
+
+    public PasswordHashingEngine(PasswordHashingProperties props, MeterRegistry registry) {
+        this.hilos = props.getThreads() > 0 ? props.getThreads() : Runtime.getRuntime().availableProcessors();
+
+        this.strength = props.getStrength() > 0
+                ? props.getStrength()
+                : BCryptCalibrator.calibrar(props.getTargetLatency(), props.getMinStrength(), props.getMaxStrength());
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.retryAfter = props.getRetryAfter();
+
+        // ThreadPoolExecutor con cola acotada y AbortPolicy: cuando la cola está llena,
+        // execute() lanza RejectedExecutionException en lugar de bloquear o crecer sin límite.
+        // Más info:
+        // https://docs.oracle.com/en/java/javase/21/docs/api/java.base/java/util/concurrent/ThreadPoolExecutor.html
+        this.executor = new ThreadPoolExecutor(
+                hilos, hilos,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(props.getQueueCapacity()),
+                new CustomizableThreadFactory("bcrypt-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("focoprod.password.hash")
+                .description("Tiempo de CPU de BCrypt por operación")
+                .tag("operation", "encode")
+                .register(registry);
+        this.matchesTimer = Timer.builder("focoprod.password.hash")
+                .description("Tiempo de CPU de BCrypt por operación")
+                .tag("operation", "matches")
+                .register(registry);
+        this.esperaTimer = Timer.builder("focoprod.password.hash.wait")
+                .description("Tiempo que una tarea de hashing espera en la cola")
+                .register(registry);
+        this.rechazos = Counter.builder("focoprod.password.hash.rejected")
+                .description("Tareas de hashing rechazadas por cola llena")
+                .register(registry);
+
+        // Gauges: se leen en el momento de publicar las métricas, no cuestan nada en el camino caliente.
+        Gauge.builder("focoprod.password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Tareas de hashing esperando en cola")
+                .register(registry);
+        Gauge.builder("focoprod.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos de hashing ocupados")
+                .register(registry);
+        Gauge.builder("focoprod.password.hash.strength", this, e -> e.strength)
+                .description("Work factor de BCrypt en uso")
+                .register(registry);
+
+        log.info("Motor de hashing listo: bcrypt strength={}, hilos={}, cola={}",
+                strength, hilos, props.getQueueCapacity());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return esperar(encodeAsync(rawPassword));
+    }
+
+    // matches solo se usa en el login (DaoAuthenticationProvider), dentro del filtro de Spring Security:
+    // una ServicioSaturadoException no llegaría a ApiExceptionHandler y acabaría en un 500. Como
+    // AuthenticationServiceException la recibe el AuthenticationFailureHandler del login
+    // (LoginFallidoHandler), que responde 503 + Retry-After.
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try {
+            return esperar(enviar(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer));
+        } catch (ServicioSaturadoException e) {
+            throw new AuthenticationServiceException(e.getMessage(), e);
+        }
+    }
+
+    // Solo lee el cost del hash guardado; no hace trabajo de CPU, así que no pasa por el pool.
+    // Devuelve true si el hash guardado usa un cost menor al actual → Spring Security lo re-hashea
+    // en el siguiente login correcto (ver UsuarioDetailsService.updatePassword).
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    // Versión asíncrona de encode(...) para quien quiera lanzar varios hashes en paralelo.
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return enviar(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    // Hashea una lista completa en paralelo (importaciones masivas).
+    // Como mucho hay "hilos" tareas del lote en vuelo a la vez: así el lote usa todos los núcleos
+    // pero no llena la cola compartida con las peticiones interactivas (registro, login).
+    // Devuelve los hashes en el mismo orden que la lista de entrada.
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        Semaphore ventana = new Semaphore(hilos);
+        List<CompletableFuture<String>> futuros = new ArrayList<>(rawPasswords.size());
+        for (CharSequence raw : rawPasswords) {
+            ventana.acquireUninterruptibly();
+            CompletableFuture<String> futuro;
+            try {
+                futuro = encodeAsync(raw);
+            } catch (RuntimeException e) {
+                ventana.release();
+                throw e;
+            }
+            futuro.whenComplete((hash, error) -> ventana.release());
+            futuros.add(futuro);
+        }
+
+        List<String> hashes = new ArrayList<>(futuros.size());
+        for (CompletableFuture<String> futuro : futuros) {
+            hashes.add(esperar(futuro));
+        }
+        return hashes;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    // Encola la tarea en el pool. Si la cola está llena, aplicamos backpressure con un 503.
+    private <T> CompletableFuture<T> enviar(Supplier<T> tarea, Timer timer) {
+        long encolado = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                esperaTimer.record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+                return timer.record(tarea);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new ServicioSaturadoException(
+                    "Hay demasiadas solicitudes en este momento. Intenta de nuevo en unos segundos.", retryAfter);
+        }
+    }
+
+    // El hilo que llama (p. ej. de Tomcat) espera sin consumir CPU mientras el pool hace el hash.
+    private static <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuro.cancel(true);
+            throw new IllegalStateException("Interrumpido esperando el hash de la contraseña", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Error calculando el hash de la contraseña", e.getCause());
+        }
+    }
+
+    // Al cerrar el contexto de Spring dejamos terminar los hashes en curso.
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
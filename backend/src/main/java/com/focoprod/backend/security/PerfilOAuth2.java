@@ -0,0 +1,40 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.model.Usuario;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+
+import java.util.Map;
+
+// Datos del usuario que nos interesan de un login OAuth2, sacados de los atributos del proveedor.
+//
+// En el caso de Google (OpenID Connect) los atributos suelen incluir:
+//  - "sub"    → id único del usuario en Google
+//  - "email"  → correo del usuario
+//  - "name"   → nombre completo
+//
+// Más info sobre UserInfo y claims:
+// https://docs.spring.io/spring-security/reference/servlet/oauth2/login/advanced.html
+public record PerfilOAuth2(String provider, String providerId, String email, String name) {
+
+    // registrationId es el identificador del cliente OAuth2 configurado en Spring Security,
+    // por ejemplo: "google".
+    // https://docs.spring.io/spring-security/site/docs/current/api/org/springframework/security/oauth2/client/authentication/OAuth2AuthenticationToken.html
+    public static PerfilOAuth2 desde(OAuth2AuthenticationToken token) {
+        return desde(token.getAuthorizedClientRegistrationId(), token.getPrincipal().getAttributes());
+    }
+
+    public static PerfilOAuth2 desde(String registrationId, Map<String, Object> attrs) {
+        return new PerfilOAuth2(
+                registrationId,
+                // "sub" es el identificador único del usuario en el proveedor (OpenID Connect).
+                (String) attrs.get("sub"),
+                // Normalizado: el upsert busca y escribe por email (ver Usuario.normalizarEmail).
+                Usuario.normalizarEmail((String) attrs.get("email")),
+                (String) attrs.getOrDefault("name", ""));
+    }
+
+    // Sin email no podemos registrar ni identificar al usuario.
+    public boolean tieneEmail() {
+        return email != null && !email.isBlank();
+    }
+}
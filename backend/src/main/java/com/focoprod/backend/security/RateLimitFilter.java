@@ -0,0 +1,314 @@
+package com.focoprod.backend.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.focoprod.backend.config.RateLimitProperties;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.service.IdempotenciaRegistro;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Limita las peticiones a las rutas públicas de autenticación (registro, login con formulario
+// y OAuth2) antes de que lleguen a UsuarioService o al PasswordEncoder: un registro o un login
+// con contraseña cuesta un hash BCrypt, y un solo cliente insistente podría ocupar toda la CPU.
+//
+// Va en la cadena de Spring Security antes de los filtros de OAuth2 y del login con formulario
+// (ver SecurityConfig). Por cada regla de focoprod.rate-limit.rules que encaje con la ruta se
+// gasta un token del cubo de su clave (IP o email); si alguno está vacío se responde
+// 429 Too Many Requests con Retry-After y no se sigue con la cadena.
+// Primero se cobran las reglas por IP: lo que rechazan no llega a leer el cuerpo ni a la BD.
+// En las reglas con exempt-idempotent-replays (solo el registro), la repetición de un registro ya
+// hecho con la misma Idempotency-Key y los mismos datos no gasta del cubo por email: devuelve la
+// primera respuesta sin otro hash (ver IdempotenciaRegistro.esRepeticion).
+//
+// No es un @Component a propósito: Spring Boot registraría además cualquier Filter que sea bean
+// en el contenedor de servlets, fuera de la cadena de seguridad.
+// Más info:
+// https://docs.spring.io/spring-security/reference/servlet/architecture.html#adding-custom-filter
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Un registro ocupa unos cientos de bytes. Si el cuerpo es mayor no se busca el email
+    // (se aplican solo las reglas por IP) y el controlador lo recibe entero igualmente.
+    private static final int MAX_CUERPO = 16 * 1024;
+
+    // Solo para leer el email de cuerpos binarios (readTree): no necesitan la configuración de Spring.
+    private static final ObjectMapper CBOR_MAPPER = new CBORMapper();
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    private static final ObjectMapper SMILE_MAPPER = new SmileMapper();
+
+    private record ReglaCompilada(RateLimitProperties.Regla regla, PathPattern patron,
+                                  Counter admitidas, Counter rechazadas) {
+
+        boolean aplica(HttpServletRequest request, PathContainer ruta) {
+            return (regla.getMethods().isEmpty() || regla.getMethods().contains(request.getMethod()))
+                    && patron.matches(ruta);
+        }
+    }
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final IdempotenciaRegistro idempotenciaRegistro;
+    private final List<ReglaCompilada> reglas = new ArrayList<>();
+
+    public RateLimitFilter(RateLimitProperties properties, RateLimiter rateLimiter,
+                           ObjectMapper objectMapper, IdempotenciaRegistro idempotenciaRegistro,
+                           MeterRegistry registry) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.idempotenciaRegistro = idempotenciaRegistro;
+        for (RateLimitProperties.Regla regla : properties.getRules()) {
+            reglas.add(new ReglaCompilada(regla,
+                    PathPatternParser.defaultInstance.parse(regla.getPath()),
+                    contador(registry, regla, "allowed"),
+                    contador(registry, regla, "rejected")));
+        }
+    }
+
+    private static Counter contador(MeterRegistry registry, RateLimitProperties.Regla regla, String resultado) {
+        return Counter.builder("focoprod.ratelimit.requests")
+                .tag("rule", regla.getName())
+                .tag("result", resultado)
+                .description("Peticiones a rutas de autenticación admitidas o rechazadas por el limitador")
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        PathContainer ruta = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        List<ReglaCompilada> aplicables = new ArrayList<>(2);
+        boolean porEmail = false;
+        for (ReglaCompilada regla : reglas) {
+            if (regla.aplica(request, ruta)) {
+                aplicables.add(regla);
+                porEmail |= regla.regla().getKey() == RateLimitProperties.Clave.EMAIL;
+            }
+        }
+        if (aplicables.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long espera = 0;
+        for (ReglaCompilada regla : aplicables) {
+            if (regla.regla().getKey() == RateLimitProperties.Clave.IP) {
+                espera = Math.max(espera, cobrar(regla, request.getRemoteAddr()));
+            }
+        }
+        if (espera > 0) {
+            rechazar(response, espera);
+            return;
+        }
+
+        if (porEmail) {
+            String email;
+            String name = null;
+            ObjectMapper lector = lector(request);
+            if (lector != null) {
+                CuerpoLeido cuerpo = new CuerpoLeido(request);
+                request = cuerpo;
+                JsonNode json = cuerpo.json(lector);
+                email = texto(json, "email");
+                name = texto(json, "name");
+            } else {
+                email = request.getParameter("email");
+            }
+            email = Usuario.normalizarEmail(email);
+            Boolean repeticion = null;
+            for (ReglaCompilada regla : aplicables) {
+                if (regla.regla().getKey() != RateLimitProperties.Clave.EMAIL || email == null || email.isEmpty()) {
+                    continue;
+                }
+                if (regla.regla().isExemptIdempotentReplays()) {
+                    if (repeticion == null) {
+                        repeticion = esRepeticion(request, email, name);
+                    }
+                    if (repeticion) {
+                        continue;
+                    }
+                }
+                espera = Math.max(espera, cobrar(regla, email));
+            }
+            if (espera > 0) {
+                rechazar(response, espera);
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    // Gasta un token del cubo de la regla para "clave"; devuelve la espera en nanos si estaba vacío (0 si no).
+    private long cobrar(ReglaCompilada regla, String clave) {
+        if (clave == null || clave.isEmpty()) {
+            return 0;
+        }
+        long nanos = rateLimiter.intentar(regla.regla(), clave);
+        (nanos > 0 ? regla.rechazadas() : regla.admitidas()).increment();
+        return nanos;
+    }
+
+    // Repetición de un registro ya hecho: misma Idempotency-Key y misma huella (email y nombre) que
+    // el original. Una clave conocida con otro email se cobra como cualquier registro.
+    private boolean esRepeticion(HttpServletRequest request, String email, String name) {
+        String clave = request.getHeader("Idempotency-Key");
+        if (clave == null) {
+            return false;
+        }
+        RegistroRequest registro = new RegistroRequest();
+        registro.setEmail(email);
+        registro.setName(name);
+        return idempotenciaRegistro.esRepeticion(clave, registro);
+    }
+
+    private static String texto(JsonNode json, String campo) {
+        JsonNode valor = json == null ? null : json.get(campo);
+        return valor != null && valor.isTextual() ? valor.textValue() : null;
+    }
+
+    // Mismo formato que ApiExceptionHandler: clave "error" y Retry-After en segundos.
+    private void rechazar(HttpServletResponse response, long esperaNanos) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(),
+                Map.of("error", "Demasiados intentos. Vuelve a intentarlo más tarde."));
+    }
+
+    // ObjectMapper con el que leer el cuerpo según su Content-Type (JSON, CBOR o Smile, ver
+    // FormatosBinariosConfig); null si es un formulario u otro formato.
+    private ObjectMapper lector(HttpServletRequest request) {
+        String tipo = request.getContentType();
+        if (tipo == null) {
+            return null;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(tipo);
+            if (MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+                return objectMapper;
+            }
+            if (MediaType.APPLICATION_CBOR.isCompatibleWith(mediaType)) {
+                return CBOR_MAPPER;
+            }
+            return APPLICATION_SMILE.isCompatibleWith(mediaType) ? SMILE_MAPPER : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Lee el principio del cuerpo para sacar el email y se lo devuelve intacto al controlador:
+    // primero los bytes ya leídos y después el resto del stream original.
+    private static final class CuerpoLeido extends HttpServletRequestWrapper {
+
+        private final byte[] leido;
+        private final boolean completo;
+        private ServletInputStream stream;
+        private BufferedReader reader;
+
+        CuerpoLeido(HttpServletRequest request) throws IOException {
+            super(request);
+            this.leido = request.getInputStream().readNBytes(MAX_CUERPO + 1);
+            this.completo = leido.length <= MAX_CUERPO;
+        }
+
+        JsonNode json(ObjectMapper objectMapper) {
+            if (!completo) {
+                return null;
+            }
+            try {
+                return objectMapper.readTree(leido);
+            } catch (IOException e) {
+                // Cuerpo mal formado: lo rechazará el controlador con 400.
+                return null;
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                stream = new Releido(leido, super.getInputStream());
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+    }
+
+    private static final class Releido extends ServletInputStream {
+
+        private final ByteArrayInputStream inicio;
+        private final ServletInputStream resto;
+
+        Releido(byte[] leido, ServletInputStream resto) {
+            this.inicio = new ByteArrayInputStream(leido);
+            this.resto = resto;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = inicio.read();
+            return b >= 0 ? b : resto.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n = inicio.read(b, off, len);
+            return n > 0 ? n : resto.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return inicio.available() == 0 && resto.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return inicio.available() > 0 || resto.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            resto.setReadListener(listener);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.config.RateLimitProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Cubos de tokens ("token bucket") en memoria, uno por regla y clave (IP o email).
+// Cada cubo admite "capacity" peticiones de golpe y se rellena a ritmo constante
+// (capacity tokens por period). Una petición gasta un token; sin tokens se rechaza.
+//
+// El mapa está partido en "stripes" particiones, cada una con su propio lock: dos peticiones
+// solo compiten si sus claves caen en la misma partición, y el trabajo bajo el lock es
+// una búsqueda en un HashMap y unas pocas operaciones aritméticas.
+//
+// Memoria acotada:
+//  - Cada partición es un LinkedHashMap en orden de acceso con tamaño máximo: al llenarse
+//    se descarta el cubo usado hace más tiempo (LRU).
+//  - Periódicamente se borran los cubos que ya se rellenaron del todo: uno nuevo es idéntico.
+// Más info:
+// https://en.wikipedia.org/wiki/Token_bucket
+@Component
+public class RateLimiter {
+
+    private static final class Cubo {
+        double tokens;
+        long ultimo;
+        // Instante en que el cubo volverá a estar lleno si no llegan más peticiones.
+        long llenoEn;
+    }
+
+    private static final class Particion {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, Cubo> cubos;
+
+        Particion(int maximo) {
+            this.cubos = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Cubo> eldest) {
+                    return size() > maximo;
+                }
+            };
+        }
+    }
+
+    private final Particion[] particiones;
+    private final LongSupplier reloj;
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties, MeterRegistry registry) {
+        this(properties, System::nanoTime);
+        Gauge.builder("focoprod.ratelimit.buckets", this, RateLimiter::tamanio)
+                .description("Cubos de tokens en memoria")
+                .register(registry);
+    }
+
+    // Con reloj propio para los tests.
+    RateLimiter(RateLimitProperties properties, LongSupplier reloj) {
+        // Potencia de 2 para elegir la partición con una máscara.
+        int n = Integer.highestOneBit(Math.max(1, properties.getStripes() - 1) << 1);
+        int maximoPorParticion = Math.max(1, properties.getMaxBuckets() / n);
+        this.particiones = new Particion[n];
+        for (int i = 0; i < n; i++) {
+            particiones[i] = new Particion(maximoPorParticion);
+        }
+        this.reloj = reloj;
+    }
+
+    // Intenta gastar un token del cubo (regla, clave).
+    // Devuelve 0 si se admite la petición, o los nanosegundos hasta que haya un token disponible.
+    public long intentar(RateLimitProperties.Regla regla, String clave) {
+        String id = regla.getName() + '|' + clave;
+        double nanosPorToken = nanosPorToken(regla);
+        Particion particion = particion(id);
+        long ahora = reloj.getAsLong();
+        particion.lock.lock();
+        try {
+            Cubo cubo = particion.cubos.get(id);
+            if (cubo == null) {
+                cubo = new Cubo();
+                cubo.tokens = regla.getCapacity();
+                cubo.ultimo = ahora;
+                particion.cubos.put(id, cubo);
+            } else {
+                rellenar(cubo, regla, nanosPorToken, ahora);
+            }
+            if (cubo.tokens >= 1) {
+                cubo.tokens -= 1;
+                cubo.llenoEn = ahora + (long) ((regla.getCapacity() - cubo.tokens) * nanosPorToken);
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - cubo.tokens) * nanosPorToken));
+        } finally {
+            particion.lock.unlock();
+        }
+    }
+
+    // Borra los cubos que ya están llenos. Se hace partición por partición:
+    // mientras se limpia una, las demás siguen atendiendo peticiones.
+    @Scheduled(fixedDelayString = "${focoprod.rate-limit.sweep-interval:1m}")
+    public void limpiar() {
+        long ahora = reloj.getAsLong();
+        for (Particion particion : particiones) {
+            particion.lock.lock();
+            try {
+                Iterator<Cubo> it = particion.cubos.values().iterator();
+                while (it.hasNext()) {
+                    Cubo cubo = it.next();
+                    if (cubo.llenoEn - ahora <= 0) {
+                        it.remove();
+                    }
+                }
+            } finally {
+                particion.lock.unlock();
+            }
+        }
+    }
+
+    int tamanio() {
+        int total = 0;
+        for (Particion particion : particiones) {
+            particion.lock.lock();
+            try {
+                total += particion.cubos.size();
+            } finally {
+                particion.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    private static void rellenar(Cubo cubo, RateLimitProperties.Regla regla, double nanosPorToken, long ahora) {
+        long transcurrido = ahora - cubo.ultimo;
+        if (transcurrido > 0) {
+            cubo.tokens = Math.min(regla.getCapacity(), cubo.tokens + transcurrido / nanosPorToken);
+            cubo.ultimo = ahora;
+        }
+    }
+
+    private static double nanosPorToken(RateLimitProperties.Regla regla) {
+        return (double) regla.getPeriod().toNanos() / Math.max(1, regla.getCapacity());
+    }
+
+    private Particion particion(String id) {
+        int h = id.hashCode();
+        return particiones[(h ^ (h >>> 16)) & (particiones.length - 1)];
+    }
+}
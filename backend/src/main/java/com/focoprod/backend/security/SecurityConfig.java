@@ -1,18 +1,49 @@
 package com.focoprod.backend.security;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.config.AuthProperties;
+import com.focoprod.backend.config.PasswordHashingProperties;
+import com.focoprod.backend.config.RateLimitProperties;
+import com.focoprod.backend.model.CuentaUsuario;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import com.focoprod.backend.service.IdempotenciaRegistro;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 // @Configuration indica que esta clase define beans de configuración de Spring.
 // Más info: https://docs.spring.io/spring-framework/reference/core/beans/java-config.html
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 // @EnableWebSecurity habilita la configuración de seguridad web de Spring Security.
 // Más info: https://docs.spring.io/spring-security/reference/servlet/architecture.html
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-// PasswordEncoder se usa para encriptar contraseñas de forma segura.
-// Más info: https://docs.spring.io/spring-security/reference/features/authentication/password-storage.html
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizationRequestResolver;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestRedirectFilter;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 // Clase de configuración de seguridad.
 @Configuration
@@ -22,9 +53,25 @@ public class SecurityConfig {
     // Inyectamos nuestro CustomOAuth2SuccessHandler para usarlo en la configuración de OAuth2.
     private final CustomOAuth2SuccessHandler customOAuth2SuccessHandler;
 
+    // Modo de autenticación: sesión HTTP o tokens (focoprod.auth.mode).
+    private final AuthProperties authProperties;
+
+    // Beans que solo existen en modo stateless.
+    private final ObjectProvider<TokenService> tokenService;
+    private final ObjectProvider<CookieOAuth2AuthorizationRequestRepository> authorizationRequestRepository;
+    private final ObjectProvider<TokenLoginSuccessHandler> tokenLoginSuccessHandler;
+
     // Inyección por constructor: Spring pasará la instancia del handler automáticamente.
-    public SecurityConfig(CustomOAuth2SuccessHandler customOAuth2SuccessHandler) {
+    public SecurityConfig(CustomOAuth2SuccessHandler customOAuth2SuccessHandler,
+                          AuthProperties authProperties,
+                          ObjectProvider<TokenService> tokenService,
+                          ObjectProvider<CookieOAuth2AuthorizationRequestRepository> authorizationRequestRepository,
+                          ObjectProvider<TokenLoginSuccessHandler> tokenLoginSuccessHandler) {
         this.customOAuth2SuccessHandler = customOAuth2SuccessHandler;
+        this.authProperties = authProperties;
+        this.tokenService = tokenService;
+        this.authorizationRequestRepository = authorizationRequestRepository;
+        this.tokenLoginSuccessHandler = tokenLoginSuccessHandler;
     }
 
     // Definimos un bean de tipo SecurityFilterChain.
@@ -32,7 +79,24 @@ public class SecurityConfig {
     //
     // Más info: https://docs.spring.io/spring-security/reference/servlet/authentication/index.html#_securityfilterchain_bean
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           RateLimitProperties rateLimitProperties,
+                                           RateLimiter rateLimiter,
+                                           IdempotenciaRegistro idempotenciaRegistro,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry,
+                                           ClientRegistrationRepository clientRegistrationRepository,
+                                           OidcUserService oidcUserService,
+                                           UsuarioRepository usuarioRepository,
+                                           Environment environment) throws Exception {
+        // Limitador de peticiones de registro y login: antes del primer filtro de OAuth2
+        // (y por tanto del login con formulario), para que lo rechazado no llegue a BCrypt.
+        if (rateLimitProperties.isEnabled()) {
+            http.addFilterBefore(new RateLimitFilter(rateLimitProperties, rateLimiter, objectMapper,
+                    idempotenciaRegistro, meterRegistry),
+                    OAuth2AuthorizationRequestRedirectFilter.class);
+        }
+
         http
                 // Deshabilitamos CSRF (Cross-Site Request Forgery) para simplificar mientras se desarrolla
                 // o si el front es completamente separado y se manejan tokens de otra forma.
@@ -51,21 +115,60 @@ public class SecurityConfig {
                         // Rutas públicas que no requieren autenticación.
                         .requestMatchers(
                                 "/api/auth/register",
+                                // Refresh y logout del modo stateless (validan el refresh token ellos mismos).
+                                "/api/auth/refresh",
+                                "/api/auth/revoke",
                                 "/oauth2/**",
                                 "/login/**",
-                                "/error"
+                                "/error",
+                                // Frontend servido por el backend (FrontendController).
+                                "/",
+                                "/*.html",
+                                "/assets/**",
+                                // Solo la salud de Actuator (sondas del balanceador, calentamiento, loadtest).
+                                "/actuator/health/**"
                         ).permitAll()
+                        // El resto de Actuator (métricas, prometheus, cachés) dice cuántos usuarios hay, qué
+                        // rutas reciben tráfico, el tamaño de las colas...: en el puerto de la aplicación, solo ADMIN.
+                        // Con management.server.port (un puerto que solo ve la red interna, donde está Prometheus)
+                        // las peticiones que llegan por ese puerto no piden login.
+                        // https://docs.spring.io/spring-boot/reference/actuator/monitoring.html#actuator.monitoring.customizing-management-server-port
+                        .requestMatchers(puertoDeGestion(environment)).permitAll()
+                        .requestMatchers("/actuator/**").hasRole(Usuario.ROL_ADMIN)
+                        // Administración de usuarios (listado, exportación e importación): solo ADMIN.
+                        // Cualquiera puede crearse una cuenta con /api/auth/register, así que "autenticado"
+                        // no basta. El rol está en la tabla usuarios (migración V8).
+                        .requestMatchers("/api/admin/**").hasRole(Usuario.ROL_ADMIN)
                         // Cualquier otra ruta requiere estar autenticado.
                         .anyRequest().authenticated()
                 )
 
                 // Configuración del login vía OAuth2 (Google, etc.).
                 .oauth2Login(oauth -> oauth
+                        // Parámetros extra por proveedor en la redirección de login
+                        // (focoprod.auth.oidc.proveedores.<id>.parametros-autorizacion).
+                        .authorizationEndpoint(endpoint -> endpoint
+                                .authorizationRequestResolver(resolverAutorizacion(clientRegistrationRepository)))
+                        // Usuario OIDC a partir del ID token, sin pedir user-info-uri (ver oidcUserService),
+                        // con el rol de su cuenta.
+                        .userInfoEndpoint(userInfo -> userInfo.oidcUserService(
+                                peticion -> conRol(oidcUserService.loadUser(peticion), peticion, usuarioRepository)))
                         // Usamos nuestro handler personalizado cuando el login OAuth2
                         // se realiza con éxito.
                         .successHandler(customOAuth2SuccessHandler)
                 )
 
+                // Login local con email + contraseña (usuarios registrados en /api/auth/register).
+                // DaoAuthenticationProvider usa UsuarioDetailsService y nuestro PasswordEncoder,
+                // y re-hashea la contraseña si el cost guardado quedó desactualizado.
+                // https://docs.spring.io/spring-security/reference/servlet/authentication/passwords/form.html
+                // Si el pool de hashing está lleno, 503 + Retry-After en vez de un error de login (LoginFallidoHandler).
+                .formLogin(form -> form
+                        .usernameParameter("email")
+                        .defaultSuccessUrl("http://localhost:5500/success.html", true)
+                        .failureHandler(new LoginFallidoHandler(objectMapper))
+                )
+
                 // Configuración del logout.
                 .logout(logout -> logout
                         // URL para cerrar sesión.
@@ -78,15 +181,141 @@ public class SecurityConfig {
                         .deleteCookies("JSESSIONID")
                 );
 
+        if (authProperties.getMode() == AuthProperties.Modo.STATELESS) {
+            configurarStateless(http);
+        }
+
         // Construimos y devolvemos la cadena de filtros de seguridad.
         return http.build();
     }
 
+    // Resolver por defecto de /oauth2/authorization/{registrationId}, más los parámetros configurados
+    // para cada proveedor (p. ej. Apple exige response_mode=form_post si se piden email o nombre).
+    private DefaultOAuth2AuthorizationRequestResolver resolverAutorizacion(ClientRegistrationRepository registros) {
+        DefaultOAuth2AuthorizationRequestResolver resolver = new DefaultOAuth2AuthorizationRequestResolver(
+                registros, OAuth2AuthorizationRequestRedirectFilter.DEFAULT_AUTHORIZATION_REQUEST_BASE_URI);
+        Map<String, AuthProperties.Proveedor> proveedores = authProperties.getOidc().getProveedores();
+        resolver.setAuthorizationRequestCustomizer(peticion -> peticion.attributes(atributos -> {
+            AuthProperties.Proveedor proveedor = proveedores.get((String) atributos.get(OAuth2ParameterNames.REGISTRATION_ID));
+            if (proveedor != null) {
+                peticion.additionalParameters(extra -> extra.putAll(proveedor.getParametrosAutorizacion()));
+            }
+        }));
+        return resolver;
+    }
+
+    // Usuario de un login OpenID Connect. Con focoprod.auth.oidc.confiar-en-id-token (por defecto) sus
+    // atributos son los claims del ID token, ya verificado contra el JWKS en caché (JwksIdTokenDecoderFactory):
+    // sub, email y name, lo único que lee CustomOAuth2SuccessHandler. Así el login no hace otra llamada
+    // HTTP bloqueante al proveedor. Un proveedor cuyo ID token no traiga esos datos puede seguir pidiendo
+    // UserInfo con focoprod.auth.oidc.proveedores.<id>.userinfo=true.
+    // Más info:
+    // https://docs.spring.io/spring-security/reference/servlet/oauth2/login/advanced.html#oauth2login-advanced-oidc-user-service
+    @Bean
+    public OidcUserService oidcUserService() {
+        OidcUserService service = new OidcUserService();
+        service.setRetrieveUserInfo(this::pedirUserInfo);
+        return service;
+    }
+
+    // Añade ROLE_ADMIN al usuario OIDC si la cuenta vinculada a esa identidad del proveedor (provider + sub,
+    // no solo el email) es ADMIN. El primer login de una cuenta nueva nunca es ADMIN: aún no existe.
+    // La consulta usa la caché de findByProviderAndProviderId.
+    private static OidcUser conRol(OidcUser usuario, OidcUserRequest peticion, UsuarioRepository usuarioRepository) {
+        ClientRegistration registro = peticion.getClientRegistration();
+        boolean admin = usuarioRepository.findByProviderAndProviderId(registro.getRegistrationId(), usuario.getSubject())
+                .filter(CuentaUsuario::esAdmin)
+                .isPresent();
+        if (!admin) {
+            return usuario;
+        }
+        Set<GrantedAuthority> autoridades = new LinkedHashSet<>(usuario.getAuthorities());
+        autoridades.add(new SimpleGrantedAuthority("ROLE_" + Usuario.ROL_ADMIN));
+        String atributoNombre = registro.getProviderDetails().getUserInfoEndpoint().getUserNameAttributeName();
+        return StringUtils.hasText(atributoNombre)
+                ? new DefaultOidcUser(autoridades, usuario.getIdToken(), usuario.getUserInfo(), atributoNombre)
+                : new DefaultOidcUser(autoridades, usuario.getIdToken(), usuario.getUserInfo());
+    }
+
+    // Peticiones que llegan por management.server.port. Sin ese puerto, o si es el mismo que server.port
+    // (o 0, aleatorio), no coincide ninguna: Actuator queda en el puerto de la aplicación y pide ADMIN.
+    private static RequestMatcher puertoDeGestion(Environment environment) {
+        int gestion = environment.getProperty("management.server.port", Integer.class, -1);
+        int aplicacion = environment.getProperty("server.port", Integer.class, 8080);
+        if (gestion <= 0 || gestion == aplicacion) {
+            return request -> false;
+        }
+        return request -> request.getLocalPort() == gestion;
+    }
+
+    private boolean pedirUserInfo(OidcUserRequest peticion) {
+        ClientRegistration registro = peticion.getClientRegistration();
+        if (!StringUtils.hasText(registro.getProviderDetails().getUserInfoEndpoint().getUri())) {
+            return false;
+        }
+        AuthProperties.Oidc oidc = authProperties.getOidc();
+        AuthProperties.Proveedor proveedor = oidc.getProveedores().get(registro.getRegistrationId());
+        return proveedor != null && proveedor.getUserinfo() != null
+                ? proveedor.getUserinfo()
+                : !oidc.isConfiarEnIdToken();
+    }
+
+    // Modo stateless: ningún estado de login queda en la memoria del nodo.
+    //  - No se crea HttpSession (ni para el contexto de seguridad ni para la petición guardada).
+    //  - El estado del flujo OAuth2 viaja en una cookie firmada.
+    //  - Tras el login se emiten tokens y cada petición se autentica con "Authorization: Bearer".
+    // Así cualquier nodo atiende cualquier petición sin sticky sessions ni sesión compartida.
+    // Más info:
+    // https://docs.spring.io/spring-security/reference/servlet/authentication/session-management.html#stateless-authentication
+    private void configurarStateless(HttpSecurity http) throws Exception {
+        http
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+                .oauth2Login(oauth -> oauth
+                        .authorizationEndpoint(endpoint -> endpoint
+                                .authorizationRequestRepository(authorizationRequestRepository.getObject()))
+                        // No guardamos el access token de Google: solo lo usamos para el login.
+                        .authorizedClientRepository(new SinClientesAutorizados())
+                )
+                .formLogin(form -> form.successHandler(tokenLoginSuccessHandler.getObject()))
+                .oauth2ResourceServer(resource -> resource
+                        .jwt(jwt -> jwt
+                                .decoder(tokenService.getObject().accessTokenDecoder())
+                                .jwtAuthenticationConverter(tokenService.getObject().accessTokenAuthenticationConverter())));
+    }
+
+    // OAuth2AuthorizedClientRepository que no guarda nada (por defecto se guardaría en memoria o en sesión).
+    private static final class SinClientesAutorizados implements OAuth2AuthorizedClientRepository {
+
+        @Override
+        public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId,
+                                                                         Authentication principal,
+                                                                         HttpServletRequest request) {
+            return null;
+        }
+
+        @Override
+        public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient,
+                                         Authentication principal,
+                                         HttpServletRequest request,
+                                         HttpServletResponse response) {
+        }
+
+        @Override
+        public void removeAuthorizedClient(String clientRegistrationId,
+                                           Authentication principal,
+                                           HttpServletRequest request,
+                                           HttpServletResponse response) {
+        }
+    }
+
     // Bean que define el algoritmo de encriptación de contraseñas.
     // BCrypt es una opción recomendada para almacenar contraseñas de forma segura.
+    // PasswordHashingEngine ejecuta BCrypt en un pool acotado (no en los hilos de Tomcat)
+    // con un work factor calibrado al arrancar.
     // Más info: https://docs.spring.io/spring-security/reference/features/authentication/password-storage.html#page-title
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordHashingEngine passwordEncoder(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        return new PasswordHashingEngine(properties, meterRegistry);
     }
 }
\ No newline at end of file
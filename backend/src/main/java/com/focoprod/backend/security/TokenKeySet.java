@@ -0,0 +1,113 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.config.AuthProperties;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Conjunto de claves de firma de los tokens, cargado una sola vez en memoria.
+//
+// Todas las claves sirven para verificar (el header "kid" del JWT indica cuál);
+// la clave activa es la única que firma tokens nuevos. Así se rotan claves sin invalidar
+// los tokens ya emitidos. Verificar nunca requiere BD ni llamadas de red.
+//
+// Usamos HMAC (HS256) con secretos compartidos por configuración: todos los nodos
+// firman y verifican con las mismas claves sin coordinarse entre sí.
+// Más info:
+// https://docs.spring.io/spring-security/reference/servlet/oauth2/resource-server/jwt.html
+// https://connect2id.com/products/nimbus-jose-jwt/examples/jwt-with-hmac
+@Component
+@ConditionalOnProperty(prefix = "focoprod.auth", name = "mode", havingValue = "stateless")
+public class TokenKeySet {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenKeySet.class);
+
+    private final Map<String, SecretKey> claves = new LinkedHashMap<>();
+    private final String kidActivo;
+    private final JWKSource<SecurityContext> jwkSource;
+
+    public TokenKeySet(AuthProperties properties) {
+        AuthProperties.Tokens tokens = properties.getTokens();
+
+        for (AuthProperties.Clave clave : tokens.getKeys()) {
+            byte[] secreto = Base64.getDecoder().decode(clave.getSecret());
+            if (secreto.length < 32) {
+                throw new IllegalStateException("La clave de tokens '" + clave.getKid() + "' debe tener al menos 32 bytes");
+            }
+            claves.put(clave.getKid(), new SecretKeySpec(secreto, "HmacSHA256"));
+        }
+
+        if (claves.isEmpty()) {
+            // Sin claves configuradas generamos una aleatoria: sirve para desarrollo,
+            // pero los tokens no valen en otros nodos ni sobreviven a un reinicio.
+            byte[] secreto = new byte[32];
+            new SecureRandom().nextBytes(secreto);
+            claves.put("efimera", new SecretKeySpec(secreto, "HmacSHA256"));
+            log.warn("No hay claves en focoprod.auth.tokens.keys: se usa una clave efímera solo válida en este nodo");
+        }
+
+        this.kidActivo = tokens.getActiveKid() != null
+                ? tokens.getActiveKid()
+                : new ArrayList<>(claves.keySet()).get(claves.size() - 1);
+        if (!claves.containsKey(kidActivo)) {
+            throw new IllegalStateException("focoprod.auth.tokens.active-kid no coincide con ninguna clave");
+        }
+
+        List<JWK> jwks = new ArrayList<>();
+        claves.forEach((kid, clave) -> jwks.add(new OctetSequenceKey.Builder(clave)
+                .keyID(kid)
+                .algorithm(JWSAlgorithm.HS256)
+                .build()));
+        this.jwkSource = new ImmutableJWKSet<>(new JWKSet(jwks));
+    }
+
+    public JWKSource<SecurityContext> jwkSource() {
+        return jwkSource;
+    }
+
+    public String kidActivo() {
+        return kidActivo;
+    }
+
+    // HMAC de datos arbitrarios con la clave indicada (p. ej. para firmar cookies).
+    // Devuelve null si el kid no existe.
+    public byte[] hmac(String kid, byte[] datos) {
+        SecretKey clave = claves.get(kid);
+        if (clave == null) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(clave);
+            return mac.doFinal(datos);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo calcular el HMAC", e);
+        }
+    }
+
+    // Comparación en tiempo constante para no filtrar información por tiempos de respuesta.
+    public boolean verificarHmac(String kid, byte[] datos, byte[] firma) {
+        byte[] esperado = hmac(kid, datos);
+        return esperado != null && MessageDigest.isEqual(esperado, firma);
+    }
+}
@@ -0,0 +1,37 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.model.CuentaUsuario;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+// Login local (email + contraseña) en modo stateless: en vez de crear sesión,
+// redirige al frontend con el par de tokens en el fragmento de la URL.
+@Component
+@ConditionalOnProperty(prefix = "focoprod.auth", name = "mode", havingValue = "stateless")
+public class TokenLoginSuccessHandler implements AuthenticationSuccessHandler {
+
+    private final UsuarioRepository usuarioRepository;
+    private final TokenService tokenService;
+
+    public TokenLoginSuccessHandler(UsuarioRepository usuarioRepository, TokenService tokenService) {
+        this.usuarioRepository = usuarioRepository;
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request,
+                                        HttpServletResponse response,
+                                        Authentication authentication) throws IOException {
+        // El nombre del principal es el email (ver UsuarioDetailsService).
+        CuentaUsuario usuario = usuarioRepository.findByEmail(authentication.getName()).orElseThrow();
+        response.sendRedirect(tokenService.urlConTokens(
+                CustomOAuth2SuccessHandler.URL_EXITO, tokenService.emitir(usuario)));
+    }
+}
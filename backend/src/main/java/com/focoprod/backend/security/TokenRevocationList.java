@@ -0,0 +1,86 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.model.TokenRevocado;
+import com.focoprod.backend.repositorios.TokenRevocadoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Lista de tokens revocados, consultada en memoria en cada petición.
+//
+// estaRevocado(...) es un simple lookup en un ConcurrentHashMap: no hay BD en el camino caliente.
+// Para que una revocación hecha en un nodo llegue a los demás, se guarda en la tabla
+// tokens_revocados y cada nodo trae las nuevas cada focoprod.auth.tokens.revocation-sync.
+// Las entradas se descartan cuando el token expira, así que la lista se mantiene pequeña.
+@Component
+@ConditionalOnProperty(prefix = "focoprod.auth", name = "mode", havingValue = "stateless")
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    // Margen al sincronizar para no perder filas de transacciones que confirmaron tarde.
+    private static final Duration MARGEN_SINCRONIZACION = Duration.ofSeconds(5);
+
+    private final TokenRevocadoRepository tokenRevocadoRepository;
+
+    // jti → expiración del token.
+    private final Map<String, Instant> revocados = new ConcurrentHashMap<>();
+    private volatile Instant ultimaSincronizacion = Instant.EPOCH;
+
+    public TokenRevocationList(TokenRevocadoRepository tokenRevocadoRepository) {
+        this.tokenRevocadoRepository = tokenRevocadoRepository;
+    }
+
+    public boolean estaRevocado(String jti) {
+        return jti != null && revocados.containsKey(jti);
+    }
+
+    public void revocar(String jti, Instant expiraEn) {
+        revocados.put(jti, expiraEn);
+        // Revocar dos veces (logout repetido, o a la vez que un refresco) no es un error.
+        tokenRevocadoRepository.insertarSiNoExiste(jti, expiraEn, Instant.now());
+    }
+
+    // Revoca el token solo si nadie lo había revocado antes; true si lo revocó esta llamada.
+    // La BD decide (INSERT ... ON CONFLICT DO NOTHING): la lista en memoria de cada nodo va hasta
+    // revocation-sync por detrás, así que no sirve para saber si otro nodo ya usó el token.
+    public boolean reclamar(String jti, Instant expiraEn) {
+        if (estaRevocado(jti)) {
+            return false;
+        }
+        boolean reclamado = tokenRevocadoRepository.insertarSiNoExiste(jti, expiraEn, Instant.now()) == 1;
+        revocados.put(jti, expiraEn);
+        return reclamado;
+    }
+
+    // Trae las revocaciones de otros nodos y limpia las que ya expiraron.
+    // La primera ejecución (al arrancar) carga todas las vigentes.
+    @Scheduled(fixedDelayString = "${focoprod.auth.tokens.revocation-sync:10s}")
+    public void sincronizar() {
+        Instant ahora = Instant.now();
+        try {
+            for (TokenRevocado t : tokenRevocadoRepository.findByRevocadoEnAfter(
+                    ultimaSincronizacion.minus(MARGEN_SINCRONIZACION))) {
+                revocados.put(t.getJti(), t.getExpiraEn());
+            }
+            ultimaSincronizacion = ahora;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo sincronizar la lista de tokens revocados", e);
+        }
+        revocados.values().removeIf(expira -> expira.isBefore(ahora));
+    }
+
+    // Una vez por hora se borran de la tabla las filas de tokens ya expirados.
+    @Scheduled(fixedDelay = 1, initialDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void purgar() {
+        tokenRevocadoRepository.borrarExpirados(Instant.now());
+    }
+}
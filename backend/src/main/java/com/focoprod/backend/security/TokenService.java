@@ -0,0 +1,185 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.config.AuthProperties;
+import com.focoprod.backend.dto.TokenResponse;
+import com.focoprod.backend.model.CuentaUsuario;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.stereotype.Service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Emisión, validación, refresco y revocación de tokens del modo stateless.
+//
+// El access token lleva todo lo que necesita una petición (id, email, nombre, proveedor),
+// así que validarlo es verificar la firma y los claims en memoria: ni sesión ni consulta a la BD.
+// El refresh token sí pasa por la BD (para releer el usuario), pero solo una vez por accessTtl.
+//
+// Más info:
+// https://docs.spring.io/spring-security/reference/servlet/oauth2/resource-server/jwt.html
+@Service
+@ConditionalOnProperty(prefix = "focoprod.auth", name = "mode", havingValue = "stateless")
+public class TokenService {
+
+    private static final String CLAIM_USO = "token_use";
+    private static final String USO_ACCESS = "access";
+    private static final String USO_REFRESH = "refresh";
+    private static final String CLAIM_ROLES = "roles";
+
+    private final AuthProperties.Tokens config;
+    private final TokenKeySet tokenKeySet;
+    private final TokenRevocationList revocationList;
+    private final UsuarioRepository usuarioRepository;
+
+    private final JwtEncoder encoder;
+    private final JwtDecoder accessDecoder;
+    private final JwtDecoder refreshDecoder;
+
+    public TokenService(AuthProperties properties,
+                        TokenKeySet tokenKeySet,
+                        TokenRevocationList revocationList,
+                        UsuarioRepository usuarioRepository) {
+        this.config = properties.getTokens();
+        this.tokenKeySet = tokenKeySet;
+        this.revocationList = revocationList;
+        this.usuarioRepository = usuarioRepository;
+
+        this.encoder = new NimbusJwtEncoder(tokenKeySet.jwkSource());
+        this.accessDecoder = decoder(USO_ACCESS);
+        this.refreshDecoder = decoder(USO_REFRESH);
+    }
+
+    // Decoder para Authorization: Bearer en todas las rutas protegidas.
+    public JwtDecoder accessTokenDecoder() {
+        return accessDecoder;
+    }
+
+    // Autoridades de una petición con Bearer: "ROLE_" + cada valor del claim "roles" (ver firmar).
+    // El rol se lee de la BD al emitir: un cambio de rol se aplica como mucho en accessTtl (al refrescar).
+    public JwtAuthenticationConverter accessTokenAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter roles = new JwtGrantedAuthoritiesConverter();
+        roles.setAuthoritiesClaimName(CLAIM_ROLES);
+        roles.setAuthorityPrefix("ROLE_");
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(roles);
+        return converter;
+    }
+
+    public TokenResponse emitir(CuentaUsuario usuario) {
+        Instant ahora = Instant.now();
+        String access = firmar(usuario, USO_ACCESS, ahora, ahora.plus(config.getAccessTtl()));
+        String refresh = firmar(usuario, USO_REFRESH, ahora, ahora.plus(config.getRefreshTtl()));
+        return new TokenResponse(access, refresh, "Bearer", config.getAccessTtl().toSeconds());
+    }
+
+    // Rotación: el refresh token usado queda revocado y se emite un par nuevo.
+    // Reutilizar un refresh token viejo (p. ej. robado) falla con 401.
+    //
+    // El jti se reclama antes de emitir nada, con un INSERT atómico en tokens_revocados (ver
+    // TokenRevocationList.reclamar): de dos refrescos simultáneos con el mismo token, en este nodo
+    // o en otro, solo uno obtiene tokens nuevos; el otro recibe 401.
+    public TokenResponse refrescar(String refreshToken) {
+        Jwt jwt = refreshDecoder.decode(refreshToken);
+        if (!revocationList.reclamar(jwt.getId(), jwt.getExpiresAt())) {
+            throw new BadJwtException("El refresh token ya se usó");
+        }
+        CuentaUsuario usuario = usuarioRepository.findById(Long.valueOf(jwt.getSubject()))
+                .map(CuentaUsuario::de)
+                .orElseThrow(() -> new BadJwtException("El usuario del token ya no existe"));
+        return emitir(usuario);
+    }
+
+    // Revoca un refresh token (logout). Un token inválido o ya revocado no es un error.
+    public void revocar(String refreshToken) {
+        try {
+            Jwt jwt = refreshDecoder.decode(refreshToken);
+            revocationList.revocar(jwt.getId(), jwt.getExpiresAt());
+        } catch (JwtException e) {
+            // Nada que revocar: el token ya no sirve para obtener tokens nuevos.
+        }
+    }
+
+    public void revocar(Jwt jwt) {
+        revocationList.revocar(jwt.getId(), jwt.getExpiresAt());
+    }
+
+    // URL de redirección al frontend con los tokens en el fragmento (#...):
+    // el fragmento no se envía al servidor ni queda en logs de acceso ni en Referer.
+    public String urlConTokens(String urlBase, TokenResponse tokens) {
+        return urlBase
+                + "#access_token=" + codificar(tokens.getAccessToken())
+                + "&refresh_token=" + codificar(tokens.getRefreshToken())
+                + "&token_type=" + tokens.getTokenType()
+                + "&expires_in=" + tokens.getExpiresIn();
+    }
+
+    private String firmar(CuentaUsuario usuario, String uso, Instant emitidoEn, Instant expiraEn) {
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
+                .issuer(config.getIssuer())
+                .subject(String.valueOf(usuario.id()))
+                .issuedAt(emitidoEn)
+                .expiresAt(expiraEn)
+                .id(UUID.randomUUID().toString())
+                .claim(CLAIM_USO, uso);
+        if (USO_ACCESS.equals(uso)) {
+            claims.claim("email", usuario.email())
+                    .claim("name", usuario.name())
+                    .claim("provider", usuario.provider())
+                    .claim(CLAIM_ROLES, List.of(usuario.rol()));
+        }
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).keyId(tokenKeySet.kidActivo()).build();
+        return encoder.encode(JwtEncoderParameters.from(header, claims.build())).getTokenValue();
+    }
+
+    private JwtDecoder decoder(String uso) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.HS256, tokenKeySet.jwkSource()));
+        // Los claims los valida Spring (abajo); Nimbus solo comprueba la firma.
+        processor.setJWTClaimsSetVerifier((claims, context) -> { });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                JwtValidators.createDefaultWithIssuer(config.getIssuer()),
+                new JwtClaimValidator<String>(CLAIM_USO, uso::equals),
+                noRevocado()));
+        return decoder;
+    }
+
+    private OAuth2TokenValidator<Jwt> noRevocado() {
+        OAuth2Error error = new OAuth2Error("invalid_token", "El token fue revocado", null);
+        return jwt -> revocationList.estaRevocado(jwt.getId())
+                ? OAuth2TokenValidatorResult.failure(error)
+                : OAuth2TokenValidatorResult.success();
+    }
+
+    private static String codificar(String valor) {
+        return URLEncoder.encode(valor, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,38 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.model.CuentaUsuario;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+// Id en la tabla usuarios del usuario autenticado, sea cual sea el tipo de login:
+//  - Modo stateless: el "sub" del access token ya es el id (sin BD).
+//  - Sesión con formulario (UserDetails) u OAuth2 (OAuth2User): se busca por email con
+//    UsuarioRepository.findByEmail, que está en caché, así que normalmente tampoco toca la BD.
+@Component
+public class UsuarioActual {
+
+    private final UsuarioRepository usuarioRepository;
+
+    public UsuarioActual(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    public long id(Object principal) {
+        if (principal instanceof Jwt jwt) {
+            return Long.parseLong(jwt.getSubject());
+        }
+        String email = switch (principal) {
+            case UserDetails local -> local.getUsername();
+            case OAuth2User oauth2 -> oauth2.getAttribute("email");
+            case null, default -> null;
+        };
+        return usuarioRepository.findByEmail(Usuario.normalizarEmail(email))
+                .map(CuentaUsuario::id)
+                .orElseThrow(() -> new InsufficientAuthenticationException("Usuario autenticado sin cuenta"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Puente entre Spring Security y nuestra tabla de usuarios para el login local (email + contraseña).
+//
+// UserDetailsService → carga el usuario por email para que DaoAuthenticationProvider compare la contraseña.
+// UserDetailsPasswordService → Spring Security lo llama tras un login correcto cuando
+// PasswordEncoder.upgradeEncoding(...) indica que el hash guardado usa un cost viejo.
+// Así los hashes se actualizan de forma transparente, sin pedir nada al usuario.
+//
+// Más info:
+// https://docs.spring.io/spring-security/reference/servlet/authentication/passwords/user-details-service.html
+// https://docs.spring.io/spring-security/reference/servlet/authentication/passwords/dao-authentication-provider.html
+@Component
+public class UsuarioDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private final UsuarioRepository usuarioRepository;
+
+    public UsuarioDetailsService(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        // Los usuarios de OAuth2 no tienen contraseña: para el login local es como si no existieran.
+        return usuarioRepository.findByEmail(email)
+                .filter(u -> u.password() != null)
+                .map(u -> User.withUsername(u.email())
+                        .password(u.password())
+                        .roles(u.rol())
+                        .build())
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+    }
+
+    // findByEmail devuelve una copia inmutable (la de la caché): se carga la entidad para modificarla.
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        usuarioRepository.findByEmail(user.getUsername())
+                .flatMap(cuenta -> usuarioRepository.findById(cuenta.id()))
+                .ifPresent(u -> {
+                    u.setPassword(newPassword);
+                    usuarioRepository.save(u);
+                });
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.focoprod.backend.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom: estructura probabilística de pertenencia a un conjunto.
+//
+//  - podriaContener(x) == false → x seguro NO fue agregado (nunca hay falsos negativos).
+//  - podriaContener(x) == true  → x probablemente fue agregado (puede haber falsos positivos).
+//
+// Se dimensiona a partir del número esperado de elementos (n) y la tasa de falsos positivos (p):
+//   bits   m = -n·ln(p) / (ln 2)²
+//   hashes k = (m / n)·ln 2
+// Los k índices se derivan de dos hashes de 64 bits (técnica de Kirsch–Mitzenmacher).
+// Los bits viven en un AtomicLongArray, así que agregar y consultar es seguro entre hilos sin locks.
+//
+// Más info:
+// https://en.wikipedia.org/wiki/Bloom_filter
+// https://www.eecs.harvard.edu/~michaelm/postscripts/rsa2008.pdf
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    private BloomFilter(long numBits, int numHashes) {
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        this.bits = new AtomicLongArray((int) ((numBits + 63) / 64));
+    }
+
+    public static BloomFilter crear(long elementosEsperados, double tasaFalsosPositivos) {
+        long n = Math.max(1, elementosEsperados);
+        double ln2 = Math.log(2);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(tasaFalsosPositivos) / (ln2 * ln2)));
+        int k = Math.max(1, (int) Math.round((double) m / n * ln2));
+        return new BloomFilter(m, k);
+    }
+
+    public void agregar(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual = bits.get(palabra);
+            while ((actual & mascara) == 0 && !bits.compareAndSet(palabra, actual, actual | mascara)) {
+                actual = bits.get(palabra);
+            }
+        }
+    }
+
+    public boolean podriaContener(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tasa de falsos positivos actual, estimada con la fracción de bits encendidos: (bits a 1 / m)^k.
+    // Recorre todo el arreglo, así que está pensada para métricas, no para el camino caliente.
+    public double tasaFalsosPositivosEstimada() {
+        long encendidos = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            encendidos += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) encendidos / numBits, numHashes);
+    }
+
+    // Memoria ocupada por los bits del filtro.
+    public long bytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    // FNV-1a de 64 bits sobre los caracteres, seguido de un mezclado final (fmix64 de MurmurHash3)
+    // para repartir bien los bits.
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
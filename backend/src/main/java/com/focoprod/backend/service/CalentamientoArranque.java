@@ -0,0 +1,293 @@
+package com.focoprod.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.config.CacheConfig;
+import com.focoprod.backend.config.CalentamientoProperties;
+import com.focoprod.backend.dto.DashboardResumen;
+import com.focoprod.backend.dto.EventoSesionRequest;
+import com.focoprod.backend.dto.IngestaEventosResultado;
+import com.focoprod.backend.dto.PaginaUsuarios;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.TokenResponse;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.model.EventoOutbox;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.OutboxRepository;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import com.focoprod.backend.security.PasswordHashingEngine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Calentamiento de los caminos de autenticación antes de recibir tráfico.
+//
+// Tras un despliegue, los primeros registros y logins pagaban todo lo que la JVM y las librerías
+// inicializan de forma perezosa: el JIT sin compilar, el pool abriendo conexiones de una en una,
+// los planes de consulta de Hibernate y los prepared statements del driver, los serializadores
+// de Jackson y el código de BCrypt. Aquí se ejecuta todo eso con datos sintéticos:
+//  1. pool:        abre a la vez todas las conexiones del pool (SELECT 1 en cada una).
+//  2. consultas:   findByEmail y findByProviderAndProviderId con emails inexistentes (*.invalid).
+//  3. escrituras:  alta local (save + evento de la outbox) y upsertOAuth2, en transacciones que se
+//                  deshacen: no queda ningún usuario ni evento (solo se consumen ids de la secuencia).
+//  4. hashes:      encodeAll y matches en el pool de PasswordHashingEngine.
+//  5. json:        ida y vuelta de los DTOs de la API con el ObjectMapper de Spring MVC.
+//  6. http:        peticiones a este mismo nodo (Tomcat, filtros de seguridad, Actuator, frontend).
+// Los contadores de negocio (focoprod.auth.register.results...) y el filtro de emails no se tocan;
+// las métricas de hashing y de las consultas sí incluyen el calentamiento.
+//
+// Lo ejecuta BackendApplication.run (CommandLineRunner). Spring Boot no pasa el estado de readiness a
+// ACCEPTING_TRAFFIC hasta que terminan los runners, así que /actuator/health/readiness responde
+// OUT_OF_SERVICE (503) mientras se calienta y el balanceador no envía tráfico; liveness ya es UP.
+//
+// Métrica: focoprod.warmup{step} → duración de cada paso (y step=total).
+// Más info:
+// https://docs.spring.io/spring-boot/reference/features/spring-application.html#features.spring-application.application-availability
+@Component
+public class CalentamientoArranque {
+
+    private static final Logger log = LoggerFactory.getLogger(CalentamientoArranque.class);
+
+    // Dominio reservado (RFC 2606): nunca coincide con un usuario real.
+    private static final String DOMINIO = "@warmup.invalid";
+    private static final String PROVEEDOR = "warmup";
+
+    private final CalentamientoProperties properties;
+    private final DataSource dataSource;
+    private final UsuarioRepository usuarioRepository;
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordHashingEngine passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final ApplicationContext applicationContext;
+    private final MeterRegistry registry;
+
+    public CalentamientoArranque(CalentamientoProperties properties,
+                                 DataSource dataSource,
+                                 UsuarioRepository usuarioRepository,
+                                 OutboxRepository outboxRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 PasswordHashingEngine passwordEncoder,
+                                 ObjectMapper objectMapper,
+                                 CacheManager cacheManager,
+                                 ApplicationContext applicationContext,
+                                 MeterRegistry registry) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.usuarioRepository = usuarioRepository;
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.applicationContext = applicationContext;
+        this.registry = registry;
+    }
+
+    // Un paso del calentamiento. Puede lanzar cualquier excepción: se registra y se sigue con el siguiente.
+    @FunctionalInterface
+    private interface Paso {
+        void ejecutar() throws Exception;
+    }
+
+    public void ejecutar() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        long limite = inicio + properties.getDuracionMaxima().toNanos();
+        paso("pool", limite, this::llenarPool);
+        paso("consultas", limite, this::consultas);
+        paso("escrituras", limite, this::escrituras);
+        paso("hashes", limite, this::hashes);
+        paso("json", limite, this::json);
+        paso("http", limite, this::http);
+        long total = System.nanoTime() - inicio;
+        medir("total", total);
+        log.atInfo().addKeyValue("ms", TimeUnit.NANOSECONDS.toMillis(total)).log("Calentamiento terminado");
+    }
+
+    private void paso(String nombre, long limite, Paso paso) {
+        if (System.nanoTime() > limite) {
+            log.atWarn().addKeyValue("step", nombre).log("Calentamiento: se supera duracion-maxima, se omite el paso");
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            paso.ejecutar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Un paso fallido solo significa que esa parte no se calentó: el nodo arranca igual.
+            log.atWarn().setCause(e).addKeyValue("step", nombre).log("Calentamiento: paso fallido");
+        }
+        long duracion = System.nanoTime() - inicio;
+        medir(nombre, duracion);
+        log.atDebug().addKeyValue("step", nombre).addKeyValue("ms", TimeUnit.NANOSECONDS.toMillis(duracion))
+                .log("Calentamiento: paso terminado");
+    }
+
+    private void medir(String paso, long nanos) {
+        Timer.builder("focoprod.warmup")
+                .tag("step", paso)
+                .description("Duración del calentamiento al arrancar, por paso")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Todas las conexiones abiertas a la vez: cada hilo retiene la suya hasta que las demás están abiertas.
+    private void llenarPool() throws InterruptedException {
+        // El pool puede estar detrás de otros DataSource (réplicas, perfilado de SQL).
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        int conexiones = properties.getConexiones() > 0 ? properties.getConexiones()
+                : hikari != null ? hikari.getMaximumPoolSize() : 1;
+        CountDownLatch abiertas = new CountDownLatch(conexiones);
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < conexiones; i++) {
+                hilos.execute(() -> {
+                    try (Connection conexion = dataSource.getConnection();
+                         Statement sentencia = conexion.createStatement()) {
+                        sentencia.execute("SELECT 1");
+                        abiertas.countDown();
+                        abiertas.await(hikari != null ? hikari.getConnectionTimeout() : 5_000, TimeUnit.MILLISECONDS);
+                    } catch (Exception e) {
+                        abiertas.countDown();
+                        log.atDebug().setCause(e).log("Calentamiento: no se pudo abrir una conexión");
+                    }
+                });
+            }
+        }
+    }
+
+    // Los emails sintéticos no existen, así que no dejan entradas en la caché (solo cachea usuarios que existen).
+    private void consultas() {
+        for (int i = 0; i < properties.getConsultas(); i++) {
+            usuarioRepository.findByEmail(email(i));
+            usuarioRepository.findByProviderAndProviderId(PROVEEDOR, "warmup-" + i);
+        }
+    }
+
+    private void escrituras() {
+        try {
+            for (int i = 0; i < properties.getEscrituras(); i++) {
+                int n = i;
+                transactionTemplate.executeWithoutResult(tx -> {
+                    Usuario usuario = new Usuario();
+                    usuario.setName("Warmup");
+                    usuario.setEmail("alta-" + email(n));
+                    usuario.setPassword("{noop}warmup");
+                    usuario.setProvider("local");
+                    Usuario guardado = usuarioRepository.save(usuario);
+                    outboxRepository.registrarUsuario(EventoOutbox.USUARIO_REGISTRADO, guardado.getId());
+                    usuarioRepository.upsertOAuth2(email(n), "Warmup", PROVEEDOR, "warmup-" + n);
+                    tx.setRollbackOnly();
+                });
+            }
+        } finally {
+            limpiarCache(properties.getEscrituras());
+        }
+    }
+
+    private void limpiarCache(int n) {
+        Cache porEmail = cacheManager.getCache(CacheConfig.USUARIOS_POR_EMAIL);
+        Cache porProvider = cacheManager.getCache(CacheConfig.USUARIOS_POR_PROVIDER);
+        for (int i = 0; i < n; i++) {
+            if (porEmail != null) {
+                porEmail.evict(email(i));
+                porEmail.evict("alta-" + email(i));
+            }
+            if (porProvider != null) {
+                porProvider.evict(PROVEEDOR + ":warmup-" + i);
+            }
+        }
+    }
+
+    private void hashes() {
+        List<String> claves = new ArrayList<>();
+        for (int i = 0; i < properties.getHashes(); i++) {
+            claves.add("clave-warmup-" + i);
+        }
+        List<String> hashes = passwordEncoder.encodeAll(claves);
+        for (int i = 0; i < hashes.size(); i++) {
+            passwordEncoder.matches(claves.get(i), hashes.get(i));
+        }
+    }
+
+    private void json() throws Exception {
+        RegistroRequest registro = new RegistroRequest();
+        registro.setEmail(email(0));
+        registro.setName("Warmup");
+        registro.setPassword("clave-warmup");
+        UsuarioResponse usuario = new UsuarioResponse();
+        usuario.setId(1L);
+        usuario.setName("Warmup");
+        usuario.setEmail(email(0));
+        usuario.setProvider("local");
+        EventoSesionRequest evento = new EventoSesionRequest();
+        evento.setId("warmup");
+        evento.setSesionId("warmup");
+        evento.setTipo("START");
+        evento.setOcurridoEn(Instant.now());
+        DashboardResumen resumen = new DashboardResumen();
+        resumen.setDia(LocalDate.now());
+        resumen.setActualizado(Instant.now());
+        List<Object> dtos = List.of(registro, usuario, evento, resumen, new IngestaEventosResultado(),
+                new TokenResponse("a", "r", "Bearer", 900), new PaginaUsuarios(List.of(usuario), 2L));
+        for (int i = 0; i < properties.getSerializaciones(); i++) {
+            for (Object dto : dtos) {
+                objectMapper.readValue(objectMapper.writeValueAsBytes(dto), dto.getClass());
+            }
+        }
+    }
+
+    // Solo con servidor web (no en tests con MockMvc). Peticiones GET sin efectos.
+    private void http() throws Exception {
+        if (!(applicationContext instanceof WebServerApplicationContext web) || web.getWebServer() == null
+                || web.getWebServer().getPort() <= 0) {
+            return;
+        }
+        String base = "http://localhost:" + web.getWebServer().getPort();
+        List<HttpRequest> peticiones = List.of(
+                HttpRequest.newBuilder(URI.create(base + "/actuator/health/liveness")).build(),
+                HttpRequest.newBuilder(URI.create(base + "/api/auth/dashboard")).build(),
+                HttpRequest.newBuilder(URI.create(base + "/")).build());
+        try (HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build()) {
+            for (int i = 0; i < properties.getPeticionesHttp(); i++) {
+                for (HttpRequest peticion : peticiones) {
+                    cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                }
+            }
+        }
+    }
+
+    private static String email(int n) {
+        return "warmup-" + n + DOMINIO;
+    }
+}
@@ -0,0 +1,232 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.OutboxProperties;
+import com.focoprod.backend.model.EventoOutbox;
+import com.focoprod.backend.repositorios.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Entrega en segundo plano los eventos de outbox_eventos a los ManejadorOutbox registrados.
+//
+// Un hilo virtual por nodo repite:
+//  1. Reclama un lote de pendientes (OutboxRepository.reclamar, FOR UPDATE SKIP LOCKED): cada nodo se
+//     lleva eventos distintos, y ninguno queda bloqueado esperando a otro. Solo sale el evento más
+//     antiguo sin entregar de cada usuario: los de un mismo usuario se entregan en orden, y si uno
+//     falla los siguientes esperan a su reintento. Uno que queda como fallido ya no los retiene.
+//  2. Los entrega en paralelo (un hilo virtual por evento; en el lote no hay dos del mismo usuario).
+//  3. Marca los entregados en una sola sentencia. Los que fallan vuelven a quedar pendientes con
+//     backoff exponencial (backoffInicial · 2^(intento-1), hasta backoffMaximo, con jitter) y, tras
+//     maxIntentos, quedan como fallidos.
+// Si el lote vino lleno repite enseguida; si no, espera "intervalo". La entrega no ocupa ninguna
+// conexión: la transacción termina al reclamar.
+// Sin manejadores registrados los eventos se marcan como entregados (no hay nada que hacer con ellos).
+//
+// No usa @Scheduled para la entrega: un manejador lento ocuparía el hilo de tareas que comparten
+// el latido del dashboard y los demás jobs.
+//
+// Métricas: focoprod.outbox.events{result=delivered|retried|failed}, focoprod.outbox.lag (de la
+// creación del evento a su entrega).
+// Más info: https://microservices.io/patterns/data/transactional-outbox.html
+@Component
+public class DespachadorOutbox implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachadorOutbox.class);
+
+    private static final int MAX_ERROR = 2_000;
+    private static final int LOTE_PURGA = 10_000;
+    private static final Duration ESPERA_CIERRE = Duration.ofSeconds(10);
+
+    private final OutboxRepository repositorio;
+    private final OutboxProperties properties;
+    private final ObjectProvider<ManejadorOutbox> manejadores;
+
+    private final Counter entregados;
+    private final Counter reintentados;
+    private final Counter fallidos;
+    private final Timer retraso;
+
+    private volatile Thread hilo;
+
+    public DespachadorOutbox(OutboxRepository repositorio,
+                             OutboxProperties properties,
+                             ObjectProvider<ManejadorOutbox> manejadores,
+                             MeterRegistry registry) {
+        this.repositorio = repositorio;
+        this.properties = properties;
+        this.manejadores = manejadores;
+        this.entregados = resultado(registry, "delivered");
+        this.reintentados = resultado(registry, "retried");
+        this.fallidos = resultado(registry, "failed");
+        this.retraso = Timer.builder("focoprod.outbox.lag")
+                .description("Tiempo desde que se escribe un evento de la outbox hasta que se entrega")
+                .register(registry);
+    }
+
+    private static Counter resultado(MeterRegistry registry, String result) {
+        return Counter.builder("focoprod.outbox.events")
+                .tag("result", result)
+                .description("Entregas de eventos de la outbox por resultado")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void arrancar() {
+        if (properties.isDespachador()) {
+            hilo = Thread.ofVirtual().name("outbox-despachador").start(this::bucle);
+        }
+    }
+
+    private void bucle() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                despachar();
+                Thread.sleep(properties.getIntervalo());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // BD caída o similar: lo reclamado vuelve a estar disponible al vencer el bloqueo.
+                log.warn("Error en el despachador de la outbox", e);
+                try {
+                    Thread.sleep(properties.getIntervalo());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // Entrega lotes hasta que no quede nada disponible. Devuelve cuántos eventos reclamó.
+    int despachar() {
+        int total = 0;
+        List<EventoOutbox> lote;
+        do {
+            lote = repositorio.reclamar(properties.getTamanoLote(), properties.getBloqueo());
+            entregar(lote);
+            total += lote.size();
+        } while (lote.size() == properties.getTamanoLote() && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    private void entregar(List<EventoOutbox> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        List<ManejadorOutbox> destinos = manejadores.orderedStream().toList();
+        Queue<Long> ok = new ConcurrentLinkedQueue<>();
+        // close() espera a que terminen todas las entregas del lote.
+        try (ExecutorService hilos = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("outbox-entrega-", 0).factory())) {
+            for (EventoOutbox evento : lote) {
+                hilos.execute(() -> {
+                    if (entregar(evento, destinos)) {
+                        ok.add(evento.id());
+                    }
+                });
+            }
+        }
+        repositorio.marcarProcesados(List.copyOf(ok));
+    }
+
+    private boolean entregar(EventoOutbox evento, List<ManejadorOutbox> destinos) {
+        try {
+            for (ManejadorOutbox manejador : destinos) {
+                if (manejador.acepta(evento.tipo())) {
+                    manejador.manejar(evento);
+                }
+            }
+            entregados.increment();
+            retraso.record(Duration.between(evento.creadoEn(), Instant.now()));
+            return true;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            fallo(evento, e);
+            return false;
+        }
+    }
+
+    private void fallo(EventoOutbox evento, Exception e) {
+        String error = e.toString();
+        if (error.length() > MAX_ERROR) {
+            error = error.substring(0, MAX_ERROR);
+        }
+        try {
+            if (evento.intentos() >= properties.getMaxIntentos()) {
+                repositorio.marcarFallido(evento.id(), error);
+                fallidos.increment();
+                log.atError().setCause(e)
+                        .addKeyValue("eventoId", evento.id())
+                        .addKeyValue("tipo", evento.tipo())
+                        .addKeyValue("intentos", evento.intentos())
+                        .log("Evento de la outbox fallido tras agotar los intentos");
+            } else {
+                Duration espera = espera(evento.intentos());
+                repositorio.reprogramar(evento.id(), espera, error);
+                reintentados.increment();
+                log.atWarn().setCause(e)
+                        .addKeyValue("eventoId", evento.id())
+                        .addKeyValue("tipo", evento.tipo())
+                        .addKeyValue("intentos", evento.intentos())
+                        .log("Evento de la outbox no entregado; se reintenta en {}", espera);
+            }
+        } catch (DataAccessException bd) {
+            // Sin reprogramar: se reintenta al vencer el bloqueo.
+            log.warn("No se pudo reprogramar el evento {} de la outbox", evento.id(), bd);
+        }
+    }
+
+    // Espera antes del siguiente intento: exponencial con tope y jitter (entre la mitad y el total),
+    // para que muchos eventos que fallaron a la vez no se reintenten todos juntos.
+    Duration espera(int intentos) {
+        long ms = properties.getBackoffMaximo().toMillis();
+        if (intentos <= 31) {
+            ms = Math.min(ms, properties.getBackoffInicial().toMillis() << Math.max(intentos - 1, 0));
+        }
+        return Duration.ofMillis(ms / 2 + ThreadLocalRandom.current().nextLong(ms / 2 + 1));
+    }
+
+    // Borra los eventos entregados hace más de "retencion". Da igual cuántos nodos lo ejecuten.
+    @Scheduled(cron = "0 47 3 * * *", zone = "UTC")
+    public void purgar() {
+        Instant limite = Instant.now().minus(properties.getRetencion());
+        int borrados = 0;
+        int n;
+        do {
+            n = repositorio.purgar(limite, LOTE_PURGA);
+            borrados += n;
+        } while (n == LOTE_PURGA);
+        if (borrados > 0) {
+            log.atInfo().addKeyValue("borrados", borrados).log("Eventos entregados de la outbox purgados");
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        Thread actual = hilo;
+        if (actual != null) {
+            actual.interrupt();
+            // Lo que quede a medias se vuelve a entregar al vencer su bloqueo.
+            actual.join(ESPERA_CIERRE);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.EmailFilterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+// Filtro de Bloom sobre usuarios.email para evitar consultas a la BD cuando un email es nuevo.
+//
+// La mayoría de registros son de emails nuevos; para ellos el filtro responde "seguro no existe"
+// y UsuarioService pasa directo al INSERT (la restricción única de la BD sigue protegiendo ante carreras).
+//
+// Ciclo de vida:
+//  1. Al arrancar (ApplicationReadyEvent) se dimensiona según el número de usuarios y se llena
+//     recorriendo la tabla con un cursor (fetch size fijo), en un hilo aparte.
+//  2. Mientras se construye, podriaExistir(...) responde siempre true → se consulta la BD como antes.
+//  3. Cada alta de usuario llama a registrar(...), también durante la construcción.
+@Component
+public class EmailExistenceFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailExistenceFilter.class);
+
+    private final EmailFilterProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Filtro actual (null hasta que empieza la construcción) y si ya contiene toda la tabla.
+    private volatile BloomFilter filtro;
+    private volatile boolean listo;
+
+    private final Counter ausentes;
+    private final Counter posibles;
+    private final Counter falsosPositivos;
+
+    public EmailExistenceFilter(EmailFilterProperties properties,
+                                DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry registry) {
+        this.properties = properties;
+
+        // JdbcTemplate propio con fetch size: el driver de PostgreSQL solo usa un cursor
+        // (en lugar de traer toda la tabla a memoria) si hay fetch size y la conexión no es autocommit.
+        // https://jdbc.postgresql.org/documentation/query/#getting-results-based-on-a-cursor
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        this.ausentes = Counter.builder("focoprod.email.filter.checks")
+                .tag("result", "absent")
+                .description("Consultas al filtro de emails")
+                .register(registry);
+        this.posibles = Counter.builder("focoprod.email.filter.checks")
+                .tag("result", "maybe")
+                .description("Consultas al filtro de emails")
+                .register(registry);
+        this.falsosPositivos = Counter.builder("focoprod.email.filter.false.positives")
+                .description("Emails que el filtro marcó como posibles pero no existían en la BD")
+                .register(registry);
+
+        Gauge.builder("focoprod.email.filter.bytes", this, f -> f.filtro == null ? 0 : f.filtro.bytes())
+                .description("Memoria ocupada por el filtro de emails")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("focoprod.email.filter.fpp", this, f -> f.filtro == null ? 1 : f.filtro.tasaFalsosPositivosEstimada())
+                .description("Tasa de falsos positivos estimada según los bits encendidos")
+                .register(registry);
+        Gauge.builder("focoprod.email.filter.ready", this, f -> f.listo ? 1 : 0)
+                .description("1 si el filtro ya contiene toda la tabla usuarios")
+                .register(registry);
+    }
+
+    // Se construye en un hilo virtual para no retrasar el arranque con tablas grandes.
+    // Más info sobre ApplicationReadyEvent:
+    // https://docs.spring.io/spring-boot/reference/features/spring-application.html#features.spring-application.application-events-and-listeners
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        if (properties.isEnabled()) {
+            Thread.ofVirtual().name("email-filter-build").start(this::construir);
+        }
+    }
+
+    void construir() {
+        try {
+            long inicio = System.nanoTime();
+            Long existentes = jdbcTemplate.queryForObject("SELECT count(*) FROM usuarios", Long.class);
+            long esperados = Math.max(properties.getExpectedInsertions(), 2 * (existentes == null ? 0 : existentes));
+            BloomFilter nuevo = BloomFilter.crear(esperados, properties.getFalsePositiveRate());
+
+            // Publicamos el filtro antes de recorrer la tabla: así los registros concurrentes
+            // (registrar(...)) también quedan dentro y no se pierde ningún email.
+            this.filtro = nuevo;
+            transactionTemplate.executeWithoutResult(tx ->
+                    // lower(email): el filtro trabaja con emails normalizados, igual que quien lo consulta.
+                    jdbcTemplate.query("SELECT lower(btrim(email)) FROM usuarios", rs -> {
+                        nuevo.agregar(rs.getString(1));
+                    }));
+            this.listo = true;
+
+            log.info("Filtro de emails listo: {} usuarios, {} KiB, {} hashes, en {} ms",
+                    existentes, nuevo.bytes() / 1024, nuevo.getNumHashes(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Sin filtro seguimos funcionando: podriaExistir(...) responde true y se consulta la BD.
+            log.warn("No se pudo construir el filtro de emails; se consultará siempre la BD", e);
+        }
+    }
+
+    // true → hay que consultar la BD. false → el email seguro no existe.
+    public boolean podriaExistir(String email) {
+        BloomFilter actual = filtro;
+        if (!listo || actual == null || actual.podriaContener(email)) {
+            posibles.increment();
+            return true;
+        }
+        ausentes.increment();
+        return false;
+    }
+
+    // Llamar ANTES o después de insertar un usuario. Marcar un email que al final no se insertó
+    // solo produce un falso positivo, nunca un falso negativo.
+    public void registrar(String email) {
+        BloomFilter actual = filtro;
+        if (actual != null) {
+            actual.agregar(email);
+        }
+    }
+
+    // El filtro dijo "podría existir" pero la BD dijo que no: alimenta la métrica de falsos positivos reales.
+    public void registrarFalsoPositivo() {
+        if (listo) {
+            falsosPositivos.increment();
+        }
+    }
+}
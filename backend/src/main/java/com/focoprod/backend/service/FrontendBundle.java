@@ -0,0 +1,255 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.FrontendProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// El frontend (../frontend) preparado una sola vez al arrancar y servido desde memoria por FrontendController:
+//  1. Includes en el servidor: cada <div data-include="header.html"></div> se rellena con el fragmento,
+//     así el navegador ya no pide header.html y footer.html (sin caché) en cada página.
+//  2. Huella en el nombre de los assets: /assets/main.<hash>.css. El hash es del contenido, así que se pueden
+//     cachear para siempre (immutable): una versión nueva es otra URL. Las páginas y el CSS (@import, url())
+//     se reescriben para apuntar a esas URLs; los "?v=7" manuales sobran.
+//  3. Compresión previa: la versión gzip (nivel máximo) se calcula aquí y no en cada respuesta.
+//  4. ETag de cada página (hash del HTML final) para responder 304 sin cuerpo.
+// Más info:
+// https://developer.mozilla.org/en-US/docs/Web/HTTP/Caching#cache_busting
+@Component
+@ConditionalOnProperty(prefix = "focoprod.frontend", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FrontendBundle {
+
+    private static final Logger log = LoggerFactory.getLogger(FrontendBundle.class);
+
+    public static final String PREFIJO_ASSETS = "/assets/";
+
+    private static final Pattern INCLUDE = Pattern.compile(
+            "<(\\w+)([^>]*?)\\s+data-include=\"([^\"]+)\"([^>]*)>\\s*</\\1>");
+    private static final Pattern ATRIBUTO_HTML = Pattern.compile("((?:href|src)\\s*=\\s*)\"([^\"]*)\"");
+    private static final Pattern URL_CSS = Pattern.compile("url\\(\\s*(['\"]?)([^'\")]+)\\1\\s*\\)");
+    private static final Pattern IMPORT_CSS = Pattern.compile("(@import\\s+)(['\"])([^'\"]+)\\2");
+    private static final Pattern CON_ESQUEMA = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*:.*");
+
+    // Un recurso listo para enviar. gzip es null si no compensa comprimirlo.
+    // inmutable → Cache-Control de un año; si no, no-cache + ETag (revalidar siempre, 304 si no cambió).
+    public record Recurso(MediaType tipo, byte[] contenido, byte[] gzip, String etag, boolean inmutable) {
+    }
+
+    private final FrontendProperties properties;
+    private final Map<String, byte[]> fuentes = new TreeMap<>();
+    private final Set<String> fragmentos = new HashSet<>();
+    // Ruta relativa de cada asset → URL con huella (memo del procesado del CSS).
+    private final Map<String, String> urlsAssets = new HashMap<>();
+    private final Set<String> enProceso = new HashSet<>();
+    private final Map<String, Recurso> recursos = new HashMap<>();
+
+    public FrontendBundle(FrontendProperties properties, ResourceLoader resourceLoader) {
+        this.properties = properties;
+        leer(resourceLoader);
+        for (String ruta : fuentes.keySet()) {
+            if (ruta.endsWith(".html")) {
+                Matcher include = INCLUDE.matcher(texto(ruta));
+                while (include.find()) {
+                    fragmentos.add(resolver(ruta, include.group(3)));
+                }
+            }
+        }
+
+        long bytes = 0;
+        long bytesGzip = 0;
+        int paginas = 0;
+        for (String ruta : fuentes.keySet()) {
+            if (fragmentos.contains(ruta)) {
+                continue;
+            }
+            if (ruta.endsWith(".html")) {
+                byte[] html = reescribirHtml(ruta, incluir(ruta, texto(ruta), 0)).getBytes(StandardCharsets.UTF_8);
+                Recurso pagina = recurso(ruta, html, false);
+                recursos.put("/" + ruta, pagina);
+                paginas++;
+                bytes += html.length;
+                bytesGzip += pagina.gzip() != null ? pagina.gzip().length : html.length;
+            } else {
+                String url = urlAsset(ruta);
+                Recurso asset = recursos.get(url);
+                // También por su nombre original, sin huella (y sin caché larga), para quien aún lo pida así.
+                recursos.put(PREFIJO_ASSETS + ruta, new Recurso(asset.tipo(), asset.contenido(), asset.gzip(),
+                        asset.etag(), false));
+                bytes += asset.contenido().length;
+                bytesGzip += asset.gzip() != null ? asset.gzip().length : asset.contenido().length;
+            }
+        }
+        log.atInfo()
+                .addKeyValue("paginas", paginas)
+                .addKeyValue("assets", urlsAssets.size())
+                .addKeyValue("bytes", bytes)
+                .addKeyValue("bytesGzip", bytesGzip)
+                .log("Frontend preparado desde {}", properties.getLocation());
+    }
+
+    // ruta: "/", "/index.html", "/assets/main.1a2b3c4d5e.css"...
+    public Optional<Recurso> buscar(String ruta) {
+        return Optional.ofNullable(recursos.get(ruta.equals("/") ? "/" + properties.getPaginaInicio() : ruta));
+    }
+
+    private void leer(ResourceLoader resourceLoader) {
+        String base = properties.getLocation().endsWith("/") ? properties.getLocation() : properties.getLocation() + "/";
+        try {
+            Resource raiz = resourceLoader.getResource(base);
+            if (!raiz.exists()) {
+                log.warn("No existe la carpeta del frontend {}: no se servirá ninguna página", base);
+                return;
+            }
+            String prefijo = raiz.getURL().toString();
+            for (Resource r : ResourcePatternUtils.getResourcePatternResolver(resourceLoader).getResources(base + "**/*")) {
+                String ruta = r.getURL().toString().substring(prefijo.length());
+                if (!ruta.isEmpty() && !ruta.endsWith("/") && r.isReadable()) {
+                    fuentes.put(ruta, r.getContentAsByteArray());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el frontend de " + base, e);
+        }
+    }
+
+    // Sustituye los data-include por el fragmento (que a su vez puede tener includes).
+    private String incluir(String ruta, String html, int profundidad) {
+        if (profundidad > 5) {
+            throw new IllegalStateException("Includes anidados demasiado profundos en " + ruta);
+        }
+        return INCLUDE.matcher(html).replaceAll(m -> {
+            String fragmento = resolver(ruta, m.group(3));
+            if (!fuentes.containsKey(fragmento)) {
+                log.warn("{} incluye {}, que no existe", ruta, m.group(3));
+                return Matcher.quoteReplacement(m.group());
+            }
+            return Matcher.quoteReplacement("<" + m.group(1) + m.group(2) + m.group(4) + ">"
+                    + incluir(fragmento, texto(fragmento), profundidad + 1) + "</" + m.group(1) + ">");
+        });
+    }
+
+    private String reescribirHtml(String ruta, String html) {
+        return ATRIBUTO_HTML.matcher(html).replaceAll(m ->
+                Matcher.quoteReplacement(m.group(1) + "\"" + reescribir(ruta, m.group(2)) + "\""));
+    }
+
+    private String reescribirCss(String ruta, String css) {
+        css = IMPORT_CSS.matcher(css).replaceAll(m ->
+                Matcher.quoteReplacement(m.group(1) + m.group(2) + reescribir(ruta, m.group(3)) + m.group(2)));
+        return URL_CSS.matcher(css).replaceAll(m ->
+                Matcher.quoteReplacement("url(" + m.group(1) + reescribir(ruta, m.group(2)) + m.group(1) + ")"));
+    }
+
+    // Referencia relativa a un asset del bundle → su URL con huella. Lo demás (otras páginas, anclas,
+    // URLs absolutas, mailto:...) se deja tal cual.
+    private String reescribir(String desde, String referencia) {
+        String ruta = resolver(desde, referencia);
+        if (ruta == null || ruta.endsWith(".html")) {
+            return referencia;
+        }
+        if (!fuentes.containsKey(ruta)) {
+            log.warn("{} referencia {}, que no existe en el frontend", desde, referencia);
+            return referencia;
+        }
+        return urlAsset(ruta);
+    }
+
+    private String resolver(String desde, String referencia) {
+        if (referencia.isEmpty() || referencia.startsWith("#") || referencia.startsWith("/")
+                || CON_ESQUEMA.matcher(referencia).matches()) {
+            return null;
+        }
+        String sinQuery = referencia.replaceFirst("[?#].*$", "");
+        int barra = desde.lastIndexOf('/');
+        return StringUtils.cleanPath((barra >= 0 ? desde.substring(0, barra + 1) : "") + sinQuery);
+    }
+
+    private String urlAsset(String ruta) {
+        String url = urlsAssets.get(ruta);
+        if (url != null) {
+            return url;
+        }
+        if (!enProceso.add(ruta)) {
+            throw new IllegalStateException("Referencia circular entre assets del frontend: " + ruta);
+        }
+        byte[] contenido = ruta.endsWith(".css")
+                ? reescribirCss(ruta, texto(ruta)).getBytes(StandardCharsets.UTF_8)
+                : fuentes.get(ruta);
+        Recurso asset = recurso(ruta, contenido, true);
+        int punto = ruta.lastIndexOf('.');
+        url = PREFIJO_ASSETS + (punto > ruta.lastIndexOf('/')
+                ? ruta.substring(0, punto) + "." + asset.etag().replace("\"", "") + ruta.substring(punto)
+                : ruta + "." + asset.etag().replace("\"", ""));
+        recursos.put(url, asset);
+        urlsAssets.put(ruta, url);
+        enProceso.remove(ruta);
+        return url;
+    }
+
+    private Recurso recurso(String ruta, byte[] contenido, boolean inmutable) {
+        MediaType tipo = MediaTypeFactory.getMediaType(ruta).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        boolean esTexto = tipo.getType().equals("text") || tipo.getSubtype().contains("javascript")
+                || tipo.getSubtype().contains("json") || tipo.getSubtype().contains("svg");
+        if (esTexto && tipo.getCharset() == null) {
+            tipo = new MediaType(tipo, StandardCharsets.UTF_8);
+        }
+        byte[] gzip = esTexto ? gzip(contenido) : null;
+        if (gzip != null && gzip.length > contenido.length * (100 - properties.getAhorroMinimoGzip()) / 100) {
+            gzip = null;
+        }
+        return new Recurso(tipo, contenido, gzip, "\"" + huella(contenido) + "\"", inmutable);
+    }
+
+    private String texto(String ruta) {
+        return new String(fuentes.get(ruta), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] contenido) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(contenido.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(contenido);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    // 10 caracteres hexadecimales de SHA-256: de sobra para distinguir versiones de un mismo archivo.
+    private static String huella(byte[] contenido) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contenido);
+            return HexFormat.of().formatHex(hash, 0, 5);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
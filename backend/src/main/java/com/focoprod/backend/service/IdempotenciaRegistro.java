@@ -0,0 +1,273 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.IdempotenciaProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.exception.ClaveIdempotenciaException;
+import com.focoprod.backend.exception.ParametroInvalidoException;
+import com.focoprod.backend.repositorios.ClaveIdempotenciaRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributesThreadLocalAccessor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+// Header Idempotency-Key de POST /api/auth/register: la misma clave devuelve siempre la primera
+// respuesta, y el registro (BCrypt y escritura en la BD) se ejecuta una sola vez.
+//
+//  1. Caché en memoria (Caffeine, acotada por tamaño y por ttl): clave → resultado de la primera
+//     petición (un CompletableFuture). Una repetición recibe el resultado guardado sin tocar el
+//     PasswordEncoder ni la BD, y las repeticiones que llegan mientras la primera sigue en curso
+//     esperan a ese mismo resultado en lugar de ejecutar otro registro.
+//  2. Si la clave no está en memoria (otro nodo, reinicio, expulsada), se reserva en la tabla
+//     claves_idempotencia en una sola sentencia (ClaveIdempotenciaRepository.reservar). Quien la
+//     reserva ejecuta el registro y guarda la respuesta; los demás reciben la respuesta guardada
+//     o, si aún está en curso en otro nodo, 409 con Retry-After.
+// Si el registro falla (p. ej. 503 por la cola de hashing llena) la clave se libera en memoria y en la
+// BD: el cliente puede reintentar con la misma clave.
+//
+// En la BD la respuesta se guarda como JSON, sea cual sea el formato (JSON, CBOR, Smile) en que se
+// pidió: al repetirla se vuelve a negociar el formato con el Accept de la repetición.
+//
+// La huella de la petición (SHA-256 de email y nombre) detecta una clave reutilizada con otros datos
+// (→ 422). No incluye la contraseña para no guardar en la BD un hash rápido de ella.
+// Los accesos a la BD van en hilos virtuales: con el perfil "r2dbc" el hilo de Tomcat sigue sin bloquearse.
+// El registro también se ejecuta en uno de ellos, así que cada tarea lleva el contexto del hilo que
+// la encola (ver CONTEXTO): los atributos de la petición (EnrutadorDataSource los usa para leer del
+// primario tras escribir) y la observación en curso (traceId/spanId en los logs).
+//
+// Métricas: focoprod.auth.register.idempotency{result=executed|replayed|merged|rejected} y las de la
+// caché (cache.size, cache.gets... con cache=idempotenciaRegistro).
+// Más info:
+// https://datatracker.ietf.org/doc/draft-ietf-httpapi-idempotency-key-header/
+// https://docs.micrometer.io/context-propagation/reference/
+@Service
+public class IdempotenciaRegistro implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaRegistro.class);
+
+    // Operación en claves_idempotencia. "registro.v2": la respuesta es un UsuarioResponse en JSON; las
+    // claves de "registro" (respuesta en texto plano) no se leen y caducan solas.
+    private static final String OPERACION = "registro.v2";
+
+    private static final int MAX_CLAVE = 255;
+
+    // RequestContextHolder y la Observation actual (con ella, el span de Brave y su MDC). El registro
+    // es propio para no añadir RequestAttributesThreadLocalAccessor al global de toda la aplicación.
+    private static final ContextSnapshotFactory CONTEXTO = ContextSnapshotFactory.builder()
+            .contextRegistry(new ContextRegistry()
+                    .registerThreadLocalAccessor(new RequestAttributesThreadLocalAccessor())
+                    .registerThreadLocalAccessor(ObservationThreadLocalAccessor.getInstance()))
+            .build();
+
+    // cuerpo de la respuesta; repetida = no la ejecutó esta petición.
+    public record Respuesta(UsuarioResponse cuerpo, boolean repetida) {
+    }
+
+    private record Entrada(String huella, CompletableFuture<Respuesta> resultado) {
+    }
+
+    private final ClaveIdempotenciaRepository repositorio;
+    private final IdempotenciaProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entrada> enMemoria;
+    private final ExecutorService hilos = ContextExecutorService.wrap(Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("idempotencia-", 0).factory()), CONTEXTO);
+
+    private final Counter ejecutadas;
+    private final Counter repetidas;
+    private final Counter unidas;
+    private final Counter rechazadas;
+
+    public IdempotenciaRegistro(ClaveIdempotenciaRepository repositorio,
+                                IdempotenciaProperties properties,
+                                ObjectMapper objectMapper,
+                                MeterRegistry registry) {
+        this.repositorio = repositorio;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.enMemoria = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClaves())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, enMemoria, "idempotenciaRegistro");
+        this.ejecutadas = resultado(registry, "executed");
+        this.repetidas = resultado(registry, "replayed");
+        this.unidas = resultado(registry, "merged");
+        this.rechazadas = resultado(registry, "rejected");
+    }
+
+    private static Counter resultado(MeterRegistry registry, String result) {
+        return Counter.builder("focoprod.auth.register.idempotency")
+                .tag("result", result)
+                .description("Registros con Idempotency-Key por resultado")
+                .register(registry);
+    }
+
+    // Ejecuta "registro" una sola vez por clave y devuelve su respuesta a todas las peticiones con esa clave.
+    public CompletableFuture<Respuesta> ejecutar(String clave, RegistroRequest request,
+                                                 Supplier<CompletionStage<UsuarioResponse>> registro) {
+        if (clave.isBlank() || clave.length() > MAX_CLAVE) {
+            throw new ParametroInvalidoException("Idempotency-Key debe tener entre 1 y " + MAX_CLAVE + " caracteres");
+        }
+        String huella = huella(request);
+        Entrada propia = new Entrada(huella, new CompletableFuture<>());
+        Entrada existente = enMemoria.asMap().putIfAbsent(clave, propia);
+        if (existente != null) {
+            if (!existente.huella().equals(huella)) {
+                rechazadas.increment();
+                return CompletableFuture.failedFuture(ClaveIdempotenciaException.reutilizada());
+            }
+            (existente.resultado().isDone() ? repetidas : unidas).increment();
+            return existente.resultado().thenApply(r -> new Respuesta(r.cuerpo(), true));
+        }
+
+        Instant expiraEn = Instant.now().plus(properties.getTtl());
+        CompletableFuture
+                .supplyAsync(() -> repositorio.reservar(OPERACION, clave, huella, expiraEn,
+                        properties.getReservaMaxima()), hilos)
+                .thenCompose(reservada -> reservada ? ejecutarRegistro(clave, registro) : guardada(clave, huella))
+                .whenComplete((respuesta, error) -> {
+                    if (error != null) {
+                        // Sin respuesta que recordar: la próxima petición con esta clave vuelve a intentarlo.
+                        enMemoria.asMap().remove(clave, propia);
+                        propia.resultado().completeExceptionally(
+                                error instanceof CompletionException && error.getCause() != null
+                                        ? error.getCause() : error);
+                    } else {
+                        propia.resultado().complete(respuesta);
+                    }
+                });
+        return propia.resultado();
+    }
+
+    // true si "request" con esta clave no ejecutará otro registro: la clave está en memoria (con su
+    // respuesta o en curso) o tiene respuesta guardada en la BD, y en ambos casos con la huella de
+    // este request. RateLimitFilter no cobra estas repeticiones en el cubo por email del registro: no
+    // cuestan un hash, y un cliente que reintenta por una red inestable no debe quedarse sin intentos.
+    // Con otra huella no es una repetición (ejecutar() respondería 422) y se cobra.
+    public boolean esRepeticion(String clave, RegistroRequest request) {
+        if (clave == null || clave.isBlank() || clave.length() > MAX_CLAVE) {
+            return false;
+        }
+        String huella = huella(request);
+        Entrada entrada = enMemoria.getIfPresent(clave);
+        if (entrada != null) {
+            return entrada.huella().equals(huella);
+        }
+        try {
+            return repositorio.buscar(OPERACION, clave)
+                    .map(r -> r.respuesta() != null && r.huella().equals(huella))
+                    .orElse(false);
+        } catch (DataAccessException e) {
+            // Sin BD la petición se cobra como una nueva.
+            return false;
+        }
+    }
+
+    private CompletableFuture<Respuesta> ejecutarRegistro(String clave,
+                                                          Supplier<CompletionStage<UsuarioResponse>> registro) {
+        CompletionStage<UsuarioResponse> resultado;
+        try {
+            resultado = registro.get();
+        } catch (RuntimeException e) {
+            resultado = CompletableFuture.failedFuture(e);
+        }
+        return resultado.toCompletableFuture().handleAsync((cuerpo, error) -> {
+            if (error != null) {
+                try {
+                    repositorio.liberar(OPERACION, clave);
+                } catch (DataAccessException e) {
+                    // La reserva caduca sola pasado reservaMaxima.
+                    log.warn("No se pudo liberar la Idempotency-Key de un registro fallido", e);
+                }
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            try {
+                repositorio.guardarRespuesta(OPERACION, clave, objectMapper.writeValueAsString(cuerpo));
+            } catch (DataAccessException | JsonProcessingException e) {
+                // El registro ya está hecho: se responde igual. Otro nodo podría repetirlo pasado
+                // reservaMaxima, y entonces respondería "El usuario ya existe".
+                log.warn("No se pudo guardar la respuesta de una Idempotency-Key", e);
+            }
+            ejecutadas.increment();
+            return new Respuesta(cuerpo, false);
+        }, hilos);
+    }
+
+    // La clave ya estaba reservada en la BD (otro nodo, o antes de un reinicio).
+    private CompletableFuture<Respuesta> guardada(String clave, String huella) {
+        return CompletableFuture.supplyAsync(() -> {
+            ClaveIdempotenciaRepository.Registro guardado = repositorio.buscar(OPERACION, clave).orElse(null);
+            if (guardado != null && !guardado.huella().equals(huella)) {
+                rechazadas.increment();
+                throw ClaveIdempotenciaException.reutilizada();
+            }
+            if (guardado == null || guardado.respuesta() == null) {
+                // En curso en otro nodo (o liberada justo ahora): el cliente reintenta en breve.
+                rechazadas.increment();
+                throw ClaveIdempotenciaException.enCurso(properties.getRetryAfter());
+            }
+            try {
+                UsuarioResponse cuerpo = objectMapper.readValue(guardado.respuesta(), UsuarioResponse.class);
+                repetidas.increment();
+                return new Respuesta(cuerpo, true);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Respuesta guardada ilegible para una Idempotency-Key", e);
+            }
+        }, hilos);
+    }
+
+    private static String huella(RegistroRequest request) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(Objects.toString(request.getEmail(), "").getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            sha256.update(Objects.toString(request.getName(), "").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    // Borra de la BD las claves caducadas. Da igual cuántos nodos lo ejecuten.
+    @Scheduled(cron = "0 37 3 * * *", zone = "UTC")
+    public void purgar() {
+        int borradas = repositorio.purgarCaducadas();
+        if (borradas > 0) {
+            log.atInfo().addKeyValue("borradas", borradas).log("Idempotency-Keys caducadas purgadas");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        hilos.shutdown();
+    }
+}
@@ -0,0 +1,309 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.EventosSesionProperties;
+import com.focoprod.backend.dto.ErrorEvento;
+import com.focoprod.backend.dto.EventoSesionRequest;
+import com.focoprod.backend.dto.IngestaEventosResultado;
+import com.focoprod.backend.exception.ParametroInvalidoException;
+import com.focoprod.backend.exception.ServicioSaturadoException;
+import com.focoprod.backend.model.EventoSesion;
+import com.focoprod.backend.repositorios.EventoSesionBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ingesta de eventos de sesiones de foco con escritura agrupada ("group commit").
+//
+//  1. Cada petición valida sus eventos y los deja en un buffer en memoria. No espera a la BD en un hilo
+//     de Tomcat: el controlador devuelve un CompletableFuture que se completa cuando se han guardado.
+//  2. Un único hilo escritor junta los eventos de muchas peticiones y los escribe con una sola sentencia
+//     (EventoSesionBatchRepository) cuando hay tamanoLote eventos o el primero lleva intervaloFlush
+//     esperando. Mil peticiones de un evento cuestan un INSERT, no mil.
+//  3. Buffer acotado (capacidadBuffer eventos): si la BD no da abasto y se llena, la petición se rechaza
+//     entera con 503 + Retry-After (ServicioSaturadoException) en lugar de acumular memoria.
+//  4. Idempotente: un evento reenviado (mismo id para el mismo usuario) se cuenta como duplicado.
+// La respuesta solo llega después del commit, así que un evento confirmado al cliente no se pierde si el
+// nodo cae; lo que estaba en el buffer se pierde sin confirmar y el cliente lo reintenta.
+//
+// Métricas:
+//   focoprod.eventos.buffer                       → eventos aceptados pendientes de escribir
+//   focoprod.eventos.ingested{result=...}         → inserted | duplicate | invalid | rejected
+//   focoprod.eventos.flush / flush.size           → duración y tamaño de cada escritura
+//
+// Tras cada escritura se publica EventosGuardados con los eventos nuevos (en el hilo escritor: los
+// listeners no deben bloquear). Lo usa PublicadorDashboard para el dashboard en vivo.
+@Service
+public class IngestaEventosSesion implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestaEventosSesion.class);
+
+    private static final int MAX_LONGITUD_ID = 64;
+
+    // Eventos recién guardados (sin los duplicados), en el orden en que llegaron.
+    public record EventosGuardados(List<EventoSesion> eventos) {
+    }
+
+    // Eventos de una petición, esperando al escritor.
+    private record Envio(List<EventoSesion> eventos, IngestaEventosResultado resultado,
+                         CompletableFuture<IngestaEventosResultado> futuro) {
+    }
+
+    private final EventoSesionBatchRepository repository;
+    private final EventosSesionProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Una cola sin límite propio: la capacidad se controla en eventos (no en peticiones) con el semáforo,
+    // y así una petición entra entera o no entra.
+    private final BlockingQueue<Envio> cola = new LinkedBlockingQueue<>();
+    private final Semaphore huecos;
+    private final Thread escritor;
+    // Comprobar cerrado y encolar van bajo el mismo cerrojo con el que destroy() lo activa: así ningún
+    // envío entra en la cola después de que el escritor haya visto cerrado = true y la haya vaciado.
+    // ReentrantLock y no synchronized: no fija el hilo virtual de la petición a su portador.
+    private final ReentrantLock cierre = new ReentrantLock();
+    private volatile boolean cerrado;
+
+    private final Counter insertados;
+    private final Counter duplicados;
+    private final Counter invalidos;
+    private final Counter rechazados;
+    private final Timer flush;
+    private final DistributionSummary tamanoFlush;
+
+    public IngestaEventosSesion(EventoSesionBatchRepository repository,
+                                EventosSesionProperties properties,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry) {
+        if (properties.getMaxPorPeticion() > properties.getCapacidadBuffer()) {
+            throw new IllegalStateException("focoprod.eventos.max-por-peticion no puede superar capacidad-buffer");
+        }
+        this.repository = repository;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.huecos = new Semaphore(properties.getCapacidadBuffer());
+
+        Gauge.builder("focoprod.eventos.buffer", huecos, h -> properties.getCapacidadBuffer() - h.availablePermits())
+                .description("Eventos aceptados pendientes de escribir en la BD")
+                .register(meterRegistry);
+        this.insertados = resultado(meterRegistry, "inserted");
+        this.duplicados = resultado(meterRegistry, "duplicate");
+        this.invalidos = resultado(meterRegistry, "invalid");
+        this.rechazados = resultado(meterRegistry, "rejected");
+        this.flush = Timer.builder("focoprod.eventos.flush")
+                .description("Duración de cada escritura en lote de eventos")
+                .register(meterRegistry);
+        this.tamanoFlush = DistributionSummary.builder("focoprod.eventos.flush.size")
+                .description("Eventos por escritura en lote")
+                .register(meterRegistry);
+
+        this.escritor = Thread.ofPlatform().name("eventos-sesion-escritor").daemon(true).start(this::escribirEnBucle);
+    }
+
+    private static Counter resultado(MeterRegistry registry, String resultado) {
+        return Counter.builder("focoprod.eventos.ingested")
+                .tag("result", resultado)
+                .description("Eventos de sesión recibidos, por resultado")
+                .register(registry);
+    }
+
+    // Valida los eventos y los encola. El futuro se completa cuando están guardados
+    // (o falla si la escritura falla: el cliente puede reintentar sin duplicar nada).
+    public CompletableFuture<IngestaEventosResultado> ingerir(long usuarioId, List<EventoSesionRequest> eventos) {
+        if (eventos.size() > properties.getMaxPorPeticion()) {
+            throw new ParametroInvalidoException(
+                    "Máximo " + properties.getMaxPorPeticion() + " eventos por petición, llegaron " + eventos.size());
+        }
+
+        IngestaEventosResultado resultado = new IngestaEventosResultado();
+        resultado.setRecibidos(eventos.size());
+        List<EventoSesion> validos = new ArrayList<>(eventos.size());
+        Set<String> vistos = new HashSet<>();
+        Instant ahora = Instant.now();
+        for (int i = 0; i < eventos.size(); i++) {
+            EventoSesionRequest e = eventos.get(i);
+            String motivo = e == null ? "Evento vacío" : motivoInvalido(e, ahora);
+            if (motivo != null) {
+                resultado.getErrores().add(new ErrorEvento(i, e == null ? null : e.getId(), motivo));
+                continue;
+            }
+            if (!vistos.add(e.getId())) {
+                resultado.setDuplicados(resultado.getDuplicados() + 1);
+                continue;
+            }
+            validos.add(new EventoSesion(usuarioId, e.getId(), e.getSesionId(),
+                    EventoSesion.Tipo.valueOf(e.getTipo()), e.getOcurridoEn(), e.getDuracionMs()));
+        }
+        resultado.setInvalidos(resultado.getErrores().size());
+        invalidos.increment(resultado.getInvalidos());
+        duplicados.increment(resultado.getDuplicados());
+        if (validos.isEmpty()) {
+            return CompletableFuture.completedFuture(resultado);
+        }
+
+        CompletableFuture<IngestaEventosResultado> futuro = new CompletableFuture<>();
+        cierre.lock();
+        try {
+            if (cerrado || !huecos.tryAcquire(validos.size())) {
+                rechazados.increment(validos.size());
+                throw new ServicioSaturadoException(
+                        "Demasiados eventos pendientes de guardar, inténtalo de nuevo más tarde", properties.getRetryAfter());
+            }
+            cola.add(new Envio(validos, resultado, futuro));
+        } finally {
+            cierre.unlock();
+        }
+        return futuro;
+    }
+
+    private String motivoInvalido(EventoSesionRequest e, Instant ahora) {
+        if (!identificadorValido(e.getId())) {
+            return "id obligatorio, de 1 a " + MAX_LONGITUD_ID + " caracteres";
+        }
+        if (!identificadorValido(e.getSesionId())) {
+            return "sesionId obligatorio, de 1 a " + MAX_LONGITUD_ID + " caracteres";
+        }
+        if (e.getTipo() == null || !List.of("START", "PAUSE", "RESUME", "END").contains(e.getTipo())) {
+            return "tipo debe ser START, PAUSE, RESUME o END";
+        }
+        if (e.getOcurridoEn() == null) {
+            return "ocurridoEn obligatorio";
+        }
+        // Fuera de esta ventana no hay partición garantizada (ver ParticionesEventosJob).
+        if (e.getOcurridoEn().isBefore(ahora.minus(properties.getAntiguedadMaxima()))
+                || e.getOcurridoEn().isAfter(ahora.plus(properties.getMargenFuturo()))) {
+            return "ocurridoEn fuera del rango admitido";
+        }
+        if (e.getDuracionMs() != null && e.getDuracionMs() < 0) {
+            return "duracionMs no puede ser negativa";
+        }
+        return null;
+    }
+
+    private static boolean identificadorValido(String id) {
+        return id != null && !id.isBlank() && id.length() <= MAX_LONGITUD_ID;
+    }
+
+    // Bucle del hilo escritor. Al cerrar, vacía lo que quede en la cola antes de terminar.
+    private void escribirEnBucle() {
+        long intervalo = properties.getIntervaloFlush().toNanos();
+        List<Envio> lote = new ArrayList<>();
+        while (!cerrado || !cola.isEmpty()) {
+            try {
+                Envio primero = cola.poll(intervalo, TimeUnit.NANOSECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                int eventos = primero.eventos().size();
+                long limite = System.nanoTime() + intervalo;
+                while (eventos < properties.getTamanoLote()) {
+                    Envio siguiente = cola.poll(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                    eventos += siguiente.eventos().size();
+                }
+                escribir(lote, eventos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error inesperado en el escritor de eventos de sesión", e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void escribir(List<Envio> lote, int total) {
+        List<EventoSesion> eventos = new ArrayList<>(total);
+        lote.forEach(envio -> eventos.addAll(envio.eventos()));
+        Set<EventoSesion.Clave> nuevos;
+        try {
+            nuevos = flush.recordCallable(() -> repository.insertar(eventos));
+        } catch (Exception e) {
+            huecos.release(total);
+            log.atWarn()
+                    .addKeyValue("eventos", total)
+                    .addKeyValue("peticiones", lote.size())
+                    .setCause(e)
+                    .log("No se pudo guardar un lote de eventos de sesión");
+            lote.forEach(envio -> envio.futuro().completeExceptionally(e));
+            return;
+        }
+        // Antes de responder: quien reciba su respuesta y vuelva a enviar ya encuentra el hueco libre.
+        huecos.release(total);
+        tamanoFlush.record(total);
+        // Si dos peticiones del lote traían el mismo evento, solo la primera lo cuenta como insertado.
+        List<EventoSesion> guardados = new ArrayList<>(nuevos.size());
+        for (Envio envio : lote) {
+            IngestaEventosResultado resultado = envio.resultado();
+            for (EventoSesion evento : envio.eventos()) {
+                if (nuevos.remove(evento.clave())) {
+                    guardados.add(evento);
+                    resultado.setInsertados(resultado.getInsertados() + 1);
+                } else {
+                    resultado.setDuplicados(resultado.getDuplicados() + 1);
+                }
+            }
+            insertados.increment(resultado.getInsertados());
+            duplicados.increment(envio.eventos().size() - resultado.getInsertados());
+            envio.futuro().complete(resultado);
+        }
+        if (!guardados.isEmpty()) {
+            publicar(guardados);
+        }
+    }
+
+    private void publicar(List<EventoSesion> guardados) {
+        try {
+            eventPublisher.publishEvent(new EventosGuardados(guardados));
+        } catch (RuntimeException e) {
+            // Los eventos ya están guardados y confirmados: un fallo de un listener no lo cambia.
+            log.warn("Error en un listener de EventosGuardados", e);
+        }
+    }
+
+    // Deja de aceptar eventos y espera a que el escritor guarde los pendientes.
+    // Si el escritor terminó sin vaciar la cola (interrumpido), los envíos que queden fallan
+    // en lugar de dejar sus peticiones esperando para siempre.
+    @Override
+    public void destroy() throws InterruptedException {
+        cierre.lock();
+        try {
+            cerrado = true;
+        } finally {
+            cierre.unlock();
+        }
+        escritor.join(properties.getIntervaloFlush().multipliedBy(10).plusSeconds(10).toMillis());
+        if (!escritor.isAlive()) {
+            List<Envio> pendientes = new ArrayList<>();
+            cola.drainTo(pendientes);
+            for (Envio envio : pendientes) {
+                huecos.release(envio.eventos().size());
+                envio.futuro().completeExceptionally(new ServicioSaturadoException(
+                        "El servidor se está deteniendo, inténtalo de nuevo más tarde", properties.getRetryAfter()));
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.model.EventoOutbox;
+
+// Destino de los eventos de la outbox (email de bienvenida, analítica, CRM...).
+// Basta con declararlo como bean: DespachadorOutbox entrega cada evento a todos los que lo acepten.
+//
+// Si manejar() lanza una excepción, el evento se reintenta más tarde (con backoff exponencial) y
+// vuelve a pasar por TODOS los manejadores, también por los que ya lo procesaron: cada manejador
+// debe ser idempotente (EventoOutbox.id() identifica el evento).
+// Los eventos del mismo usuario se entregan en orden dentro de un lote; los de usuarios distintos, en paralelo.
+public interface ManejadorOutbox {
+
+    // Tipos que le interesan (EventoOutbox.USUARIO_REGISTRADO...). Por defecto, todos.
+    default boolean acepta(String tipo) {
+        return true;
+    }
+
+    void manejar(EventoOutbox evento) throws Exception;
+}
@@ -0,0 +1,40 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.OutboxProperties;
+import com.focoprod.backend.model.EventoOutbox;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+// Manejador que solo guarda en memoria los últimos eventos recibidos, descartando repeticiones por id.
+// Para pruebas y desarrollo: focoprod.outbox.en-memoria.enabled=true.
+@Component
+@ConditionalOnProperty(name = "focoprod.outbox.en-memoria.enabled", havingValue = "true")
+public class ManejadorOutboxEnMemoria implements ManejadorOutbox {
+
+    private final int capacidad;
+    private final Deque<EventoOutbox> recibidos = new ArrayDeque<>();
+
+    public ManejadorOutboxEnMemoria(OutboxProperties properties) {
+        this.capacidad = properties.getEnMemoria().getCapacidad();
+    }
+
+    @Override
+    public synchronized void manejar(EventoOutbox evento) {
+        if (recibidos.stream().anyMatch(e -> e.id() == evento.id())) {
+            return;
+        }
+        if (recibidos.size() == capacidad) {
+            recibidos.removeFirst();
+        }
+        recibidos.addLast(evento);
+    }
+
+    // Copia de los eventos guardados, del más antiguo al más reciente.
+    public synchronized List<EventoOutbox> recibidos() {
+        return List.copyOf(recibidos);
+    }
+}
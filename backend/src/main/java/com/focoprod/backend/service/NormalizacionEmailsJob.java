@@ -0,0 +1,308 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.CacheConfig;
+import com.focoprod.backend.config.NormalizacionEmailsProperties;
+import com.focoprod.backend.model.EventoOutbox;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.OutboxRepository;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Normaliza los emails guardados antes de que existiera Usuario.normalizarEmail
+// y fusiona las cuentas que solo se diferenciaban en mayúsculas ("Foo@x.com" y "foo@x.com").
+//
+// Trabaja por lotes, cada uno en su propia transacción corta:
+//  1. Toma hasta "lote" usuarios con el email sin normalizar (índice parcial de la migración V4),
+//     con FOR UPDATE SKIP LOCKED: varios nodos pueden ejecutarlo a la vez sin repetir trabajo.
+//  2. Por cada email, bloquea las filas de su grupo (lower(email) igual) y se queda con la más
+//     antigua; la contraseña y la cuenta del proveedor que le falten se toman de las demás,
+//     que se borran. Se queda con el rol más alto del grupo (ADMIN > USER). Sus eventos de sesión pasan a la superviviente (ver fusionar).
+//  3. Deja el email de la superviviente normalizado.
+// Nunca se bloquea la tabla entera; registros y logins siguen funcionando mientras tanto.
+//
+// Al terminar crea el índice único sobre lower(email) (UsuarioRepository.INDICE_EMAIL_NORMALIZADO),
+// que hasta entonces fallaría por los duplicados. CONCURRENTLY para no bloquear las escrituras;
+// una construcción fallida deja el índice INVALID, así que se borra y se vuelve a intentar.
+// Cuando no queda nada por hacer, cada arranque solo cuesta una consulta a un índice vacío y otra
+// al catálogo.
+//
+// Más info:
+// https://www.postgresql.org/docs/current/sql-select.html#SQL-FOR-UPDATE-SHARE
+// https://www.postgresql.org/docs/current/sql-createindex.html#SQL-CREATEINDEX-CONCURRENTLY
+@Component
+public class NormalizacionEmailsJob {
+
+    private static final Logger log = LoggerFactory.getLogger(NormalizacionEmailsJob.class);
+
+    // El WHERE coincide exactamente con el del índice parcial ix_usuarios_email_sin_normalizar.
+    private static final String CANDIDATOS = """
+            SELECT lower(btrim(email)) AS normalizado, lower(email) AS minusculas
+            FROM usuarios
+            WHERE email <> lower(btrim(email))
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    // lower(email) usa ix_usuarios_email_prefijo (V3). Orden por id: todos los nodos bloquean
+    // las filas de un grupo en el mismo orden, así que no hay deadlocks entre ellos.
+    private static final String GRUPO = """
+            SELECT id, password, provider, provider_id, rol
+            FROM usuarios
+            WHERE lower(email) IN (?, ?)
+            ORDER BY id
+            FOR UPDATE
+            """;
+
+    // Estado del índice: sin filas si no existe, indisvalid = false si quedó a medias.
+    private static final String INDICE_VALIDO = """
+            SELECT i.indisvalid
+            FROM pg_index i
+            JOIN pg_class c ON c.oid = i.indexrelid
+            WHERE c.relname = ?
+            """;
+
+    // La clave primaria incluye usuario_id: un evento repetido en las dos cuentas (mismo evento_id
+    // y ocurrido_en) ya lo tiene la superviviente y se descarta.
+    private static final String MOVER_EVENTOS_SESION = """
+            INSERT INTO eventos_sesion (usuario_id, evento_id, sesion_id, tipo, ocurrido_en, duracion_ms, recibido_en)
+            SELECT ?, evento_id, sesion_id, tipo, ocurrido_en, duracion_ms, recibido_en
+            FROM eventos_sesion
+            WHERE usuario_id = ?
+            ON CONFLICT DO NOTHING
+            """;
+
+    private record Fila(long id, String password, String provider, String providerId, String rol) {
+    }
+
+    private record Lote(int candidatos, int normalizados, int fusionados, Set<String> emails, Set<String> providers) {
+    }
+
+    private final NormalizacionEmailsProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final OutboxRepository outboxRepository;
+    private final Counter normalizados;
+    private final Counter fusionados;
+
+    public NormalizacionEmailsJob(NormalizacionEmailsProperties properties,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  CacheManager cacheManager,
+                                  EmailExistenceFilter emailExistenceFilter,
+                                  OutboxRepository outboxRepository,
+                                  MeterRegistry registry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.outboxRepository = outboxRepository;
+        this.normalizados = Counter.builder("focoprod.email.normalization.rows")
+                .tag("result", "normalized")
+                .description("Usuarios cuyo email se normalizó")
+                .register(registry);
+        this.fusionados = Counter.builder("focoprod.email.normalization.rows")
+                .tag("result", "merged")
+                .description("Usuarios duplicados fusionados en otro y borrados")
+                .register(registry);
+    }
+
+    // En un hilo virtual para no retrasar el arranque.
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        if (properties.isEnabled()) {
+            Thread.ofVirtual().name("email-normalization").start(this::ejecutar);
+        }
+    }
+
+    void ejecutar() {
+        long inicio = System.nanoTime();
+        int totalNormalizados = 0;
+        int totalFusionados = 0;
+        try {
+            while (true) {
+                Lote lote = transactionTemplate.execute(tx -> procesarLote());
+                if (lote == null || lote.candidatos() == 0) {
+                    crearIndiceNormalizado();
+                    break;
+                }
+                // La caché se invalida después del commit: antes, otra petición podría
+                // volver a llenarla con los datos viejos.
+                invalidarCache(lote);
+                lote.emails().forEach(emailExistenceFilter::registrar);
+                totalNormalizados += lote.normalizados();
+                totalFusionados += lote.fusionados();
+                Thread.sleep(properties.getPausa());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Lo que quede se retoma en el próximo arranque (los lotes ya confirmados no se repiten).
+            log.warn("Normalización de emails interrumpida", e);
+        }
+        if (totalNormalizados > 0 || totalFusionados > 0) {
+            log.atInfo()
+                    .addKeyValue("normalizados", totalNormalizados)
+                    .addKeyValue("fusionados", totalFusionados)
+                    .addKeyValue("ms", (System.nanoTime() - inicio) / 1_000_000)
+                    .log("Normalización de emails terminada");
+        }
+    }
+
+    // Fuera de transacción: CREATE/DROP INDEX CONCURRENTLY no pueden ir dentro de una.
+    // Si otro nodo lo está creando a la vez, uno de los dos falla y se reintenta en el próximo arranque.
+    private void crearIndiceNormalizado() {
+        String indice = UsuarioRepository.INDICE_EMAIL_NORMALIZADO;
+        List<Boolean> valido = jdbcTemplate.queryForList(INDICE_VALIDO, Boolean.class, indice);
+        if (valido.contains(Boolean.TRUE)) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indice);
+        jdbcTemplate.execute("CREATE UNIQUE INDEX CONCURRENTLY " + indice + " ON usuarios (lower(email))");
+        log.atInfo()
+                .addKeyValue("indice", indice)
+                .addKeyValue("ms", (System.nanoTime() - inicio) / 1_000_000)
+                .log("Índice único de emails normalizados creado");
+    }
+
+    private Lote procesarLote() {
+        List<String[]> candidatos = jdbcTemplate.query(CANDIDATOS,
+                (rs, n) -> new String[]{rs.getString("normalizado"), rs.getString("minusculas")},
+                properties.getLote());
+
+        Set<String> emails = new HashSet<>();
+        Set<String> providers = new HashSet<>();
+        int normalizadosLote = 0;
+        int fusionadosLote = 0;
+        for (String[] candidato : candidatos) {
+            String normalizado = candidato[0];
+            // Dos candidatos del mismo grupo en el lote: el primero ya resolvió el grupo entero.
+            if (!emails.add(normalizado)) {
+                continue;
+            }
+            List<Fila> grupo = jdbcTemplate.query(GRUPO,
+                    (rs, n) -> new Fila(rs.getLong("id"), rs.getString("password"),
+                            rs.getString("provider"), rs.getString("provider_id"), rs.getString("rol")),
+                    normalizado, candidato[1]);
+            if (grupo.isEmpty()) {
+                // Otro nodo lo resolvió mientras esperábamos el bloqueo.
+                continue;
+            }
+            fusionadosLote += fusionar(normalizado, grupo, providers);
+            normalizadosLote++;
+        }
+        normalizados.increment(normalizadosLote);
+        fusionados.increment(fusionadosLote);
+        return new Lote(candidatos.size(), normalizadosLote, fusionadosLote, emails, providers);
+    }
+
+    // Devuelve cuántas filas se fusionaron (y borraron) en la superviviente.
+    private int fusionar(String normalizado, List<Fila> grupo, Set<String> providers) {
+        Fila superviviente = grupo.get(0);
+        String password = superviviente.password();
+        String provider = superviviente.provider();
+        String providerId = superviviente.providerId();
+        String rol = superviviente.rol();
+        List<Long> borrar = new ArrayList<>();
+        for (Fila fila : grupo) {
+            if (fila.providerId() != null) {
+                providers.add(fila.provider() + ":" + fila.providerId());
+            }
+            if (fila == superviviente) {
+                continue;
+            }
+            if (password == null) {
+                password = fila.password();
+            }
+            if (providerId == null && fila.providerId() != null) {
+                provider = fila.provider();
+                providerId = fila.providerId();
+            }
+            // Un admin con el email en otras mayúsculas no pierde el acceso al fusionarse.
+            if (Usuario.ROL_ADMIN.equals(fila.rol())) {
+                rol = Usuario.ROL_ADMIN;
+            }
+            borrar.add(fila.id());
+        }
+
+        // Solo cabe una cuenta de proveedor por usuario: las demás se pierden con su fila.
+        // Se dejan en el log para poder volver a vincularlas a mano.
+        List<String> descartados = new ArrayList<>();
+        for (Fila fila : grupo) {
+            if (fila.providerId() != null
+                    && !(fila.provider().equals(provider) && fila.providerId().equals(providerId))) {
+                descartados.add(fila.provider() + ":" + fila.providerId());
+            }
+        }
+        if (!descartados.isEmpty()) {
+            log.atWarn()
+                    .addKeyValue("usuarioId", superviviente.id())
+                    .addKeyValue("descartados", descartados)
+                    .log("Cuentas de proveedor descartadas al fusionar usuarios duplicados");
+        }
+
+        // Primero el DELETE: libera el email y el (provider, provider_id) de las fusionadas
+        // antes de que la superviviente los tome (ambos tienen índice único).
+        //
+        // Lo que cuelga de las fusionadas (sin FK, así que no se borraría solo):
+        // - eventos_sesion: se copian a la superviviente y se borran los originales.
+        // - outbox_eventos pendientes: se descartan. Hablan de una cuenta que ya no existe y entregarlos
+        //   después de la fusión daría de alta un usuario borrado. Si la superviviente hereda la cuenta
+        //   del proveedor, se escribe su UserLinkedProvider (abajo). Los fallidos se quedan para
+        //   revisarlos a mano, como siempre.
+        if (!borrar.isEmpty()) {
+            jdbcTemplate.batchUpdate(MOVER_EVENTOS_SESION, borrar, borrar.size(), (ps, id) -> {
+                ps.setLong(1, superviviente.id());
+                ps.setLong(2, id);
+            });
+            jdbcTemplate.batchUpdate("DELETE FROM eventos_sesion WHERE usuario_id = ?", borrar, borrar.size(),
+                    (ps, id) -> ps.setLong(1, id));
+            jdbcTemplate.batchUpdate("DELETE FROM outbox_eventos WHERE usuario_id = ? AND procesado_en IS NULL "
+                            + "AND fallido_en IS NULL", borrar, borrar.size(),
+                    (ps, id) -> ps.setLong(1, id));
+            jdbcTemplate.batchUpdate("DELETE FROM usuarios WHERE id = ?", borrar, borrar.size(),
+                    (ps, id) -> ps.setLong(1, id));
+            log.atInfo()
+                    .addKeyValue("usuarioId", superviviente.id())
+                    .addKeyValue("fusionados", borrar)
+                    .log("Usuarios duplicados fusionados");
+        }
+        jdbcTemplate.update("UPDATE usuarios SET email = ?, password = ?, provider = ?, provider_id = ?, rol = ? WHERE id = ?",
+                normalizado, password, provider, providerId, rol, superviviente.id());
+        if (superviviente.providerId() == null && providerId != null) {
+            outboxRepository.registrarUsuario(EventoOutbox.PROVEEDOR_VINCULADO, superviviente.id());
+        }
+        return borrar.size();
+    }
+
+    private void invalidarCache(Lote lote) {
+        Cache porEmail = cacheManager.getCache(CacheConfig.USUARIOS_POR_EMAIL);
+        if (porEmail != null) {
+            lote.emails().forEach(porEmail::evict);
+        }
+        Cache porProvider = cacheManager.getCache(CacheConfig.USUARIOS_POR_PROVIDER);
+        if (porProvider != null) {
+            lote.providers().forEach(porProvider::evict);
+        }
+    }
+}
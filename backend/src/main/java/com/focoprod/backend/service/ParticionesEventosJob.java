@@ -0,0 +1,49 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.EventosSesionProperties;
+import com.focoprod.backend.repositorios.EventoSesionBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+// Mantiene creadas las particiones mensuales de eventos_sesion que puede necesitar la ingesta:
+// desde el mes del evento más antiguo admitido (focoprod.eventos.antiguedad-maxima) hasta
+// mesesParticionesFuturas meses por delante. Se ejecuta al arrancar y una vez al día; crear una
+// partición que ya existe no hace nada, así que da igual cuántos nodos lo ejecuten.
+// (La migración V5 ya crea las de alrededor de la fecha en que se aplicó.)
+@Component
+public class ParticionesEventosJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticionesEventosJob.class);
+
+    private final EventoSesionBatchRepository repository;
+    private final EventosSesionProperties properties;
+
+    public ParticionesEventosJob(EventoSesionBatchRepository repository, EventosSesionProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 17 3 * * *", zone = "UTC")
+    public void crearParticiones() {
+        LocalDate hoy = LocalDate.now(ZoneOffset.UTC);
+        LocalDate mes = hoy.minusDays(properties.getAntiguedadMaxima().toDays()).withDayOfMonth(1);
+        LocalDate ultimo = hoy.plusMonths(properties.getMesesParticionesFuturas()).withDayOfMonth(1);
+        for (; !mes.isAfter(ultimo); mes = mes.plusMonths(1)) {
+            try {
+                repository.crearParticion(mes);
+            } catch (DataAccessException e) {
+                // Otro nodo creándola a la vez; se reintenta en la siguiente ejecución.
+                log.warn("No se pudo crear la partición de eventos_sesion de {}", mes, e);
+            }
+        }
+    }
+}
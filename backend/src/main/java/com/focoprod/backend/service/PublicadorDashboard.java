@@ -0,0 +1,357 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.DashboardProperties;
+import com.focoprod.backend.dto.DashboardResumen;
+import com.focoprod.backend.model.EventoSesion;
+import com.focoprod.backend.repositorios.EventoSesionConsultaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Dashboard en vivo de cada usuario por Server-Sent Events (GET /api/dashboard/stream).
+//
+//  - Una conexión abierta no ocupa ningún hilo: es una petición asíncrona de Tomcat (SseEmitter) que
+//    espera aparcada. Solo mientras se escribe un mensaje hay un hilo virtual, y se libera al acabar.
+//  - Publicador único: los eventos llegan de IngestaEventosSesion (EventosGuardados, tras el commit).
+//    Se aplican al estado del día de cada usuario conectado (los demás se ignoran) y el resumen se
+//    calcula una vez por usuario y lote, no por conexión ni por evento.
+//  - Cada conexión tiene un buzón de un solo hueco: si aún no se envió el resumen anterior, el nuevo lo
+//    sustituye. Un cliente lento recibe menos mensajes, nunca una cola creciente en memoria; si lleva
+//    más de timeoutEnvio con un mensaje a medias, se cierra la conexión (y EventSource reconecta).
+//  - El estado del día solo existe mientras el usuario tiene alguna conexión: al conectar se carga de la
+//    BD, y a partir de ahí se actualiza en memoria. Los ids de evento evitan contar dos veces los que
+//    llegan a la vez por los dos caminos.
+// Los eventos se publican en el nodo que los recibe: con varios nodos, un usuario conectado a otro nodo
+// ve los cambios al reconectar (duracionMaxima) o al cambiar de día.
+//
+// Métricas:
+//   focoprod.dashboard.connections                     → conexiones SSE abiertas
+//   focoprod.dashboard.updates{result=sent|coalesced}  → resúmenes enviados o sustituidos por uno más nuevo
+//   focoprod.dashboard.slow.consumers                  → conexiones cerradas por no leer
+// Más info:
+// https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-ann-async.html#mvc-ann-async-sse
+// https://html.spec.whatwg.org/multipage/server-sent-events.html
+@Service
+public class PublicadorDashboard implements DisposableBean {
+
+    private static final String LATIDO = "latido";
+
+    private final EventoSesionConsultaRepository repository;
+    private final DashboardProperties properties;
+
+    private final Map<Long, Suscripcion> suscripciones = new ConcurrentHashMap<>();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    // Un hilo virtual por envío en curso, ninguno por conexión en espera.
+    private final ExecutorService envios = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("dashboard-sse-", 0).factory());
+
+    private final Counter enviados;
+    private final Counter coalescidos;
+    private final Counter lentos;
+
+    public PublicadorDashboard(EventoSesionConsultaRepository repository,
+                               DashboardProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        Gauge.builder("focoprod.dashboard.connections", conexiones, AtomicInteger::get)
+                .description("Conexiones SSE del dashboard abiertas")
+                .register(meterRegistry);
+        this.enviados = actualizaciones(meterRegistry, "sent");
+        this.coalescidos = actualizaciones(meterRegistry, "coalesced");
+        this.lentos = Counter.builder("focoprod.dashboard.slow.consumers")
+                .description("Conexiones SSE cerradas por no leer a tiempo")
+                .register(meterRegistry);
+    }
+
+    private static Counter actualizaciones(MeterRegistry registry, String resultado) {
+        return Counter.builder("focoprod.dashboard.updates")
+                .tag("result", resultado)
+                .description("Resúmenes del dashboard enviados o sustituidos por uno más nuevo")
+                .register(registry);
+    }
+
+    // Abre una conexión para el usuario y le envía el estado actual.
+    public SseEmitter suscribir(long usuarioId) {
+        SseEmitter emitter = new SseEmitter(properties.getDuracionMaxima().toMillis());
+        Conexion conexion = new Conexion(usuarioId, emitter);
+        Suscripcion suscripcion = suscripciones.compute(usuarioId, (id, actual) -> {
+            Suscripcion s = actual != null ? actual : new Suscripcion();
+            s.conexiones.add(conexion);
+            return s;
+        });
+        conexiones.incrementAndGet();
+        emitter.onCompletion(() -> quitar(conexion));
+        emitter.onTimeout(conexion::cerrar);
+        emitter.onError(error -> conexion.cerrar());
+
+        if (suscripcion.conexiones.size() > properties.getMaxConexionesPorUsuario()) {
+            suscripcion.conexiones.getFirst().cerrar();
+        }
+        EstadoDia estado = suscripcion.estado.get();
+        if (estado != null && estado.dia.equals(hoy())) {
+            conexion.ofrecer(estado.resumen());
+        } else {
+            estado(usuarioId, suscripcion);
+        }
+        return emitter;
+    }
+
+    // Resumen actual sin abrir conexión (para quien prefiera consultar de vez en cuando).
+    public DashboardResumen resumen(long usuarioId) {
+        Suscripcion suscripcion = suscripciones.get(usuarioId);
+        return suscripcion != null ? estado(usuarioId, suscripcion).resumen() : cargar(usuarioId, hoy()).resumen();
+    }
+
+    // Estado del día de la suscripción; si no hay (primera conexión) o es de otro día, se carga de la BD
+    // y se envía a todas sus conexiones. Se publica en la suscripción antes de leer la BD para no perder
+    // eventos que lleguen mientras tanto.
+    private EstadoDia estado(long usuarioId, Suscripcion suscripcion) {
+        LocalDate hoy = hoy();
+        EstadoDia actual = suscripcion.estado.get();
+        if (actual != null && actual.dia.equals(hoy)) {
+            return actual;
+        }
+        EstadoDia nuevo = new EstadoDia(hoy, properties);
+        if (!suscripcion.estado.compareAndSet(actual, nuevo)) {
+            return suscripcion.estado.get();
+        }
+        repository.delUsuario(usuarioId, nuevo.desde, nuevo.hasta).forEach(nuevo::aplicar);
+        // Las conexiones que llegaron mientras se cargaba recibieron un estado incompleto.
+        DashboardResumen resumen = nuevo.resumen();
+        suscripcion.conexiones.forEach(c -> c.ofrecer(resumen));
+        return nuevo;
+    }
+
+    private EstadoDia cargar(long usuarioId, LocalDate dia) {
+        EstadoDia estado = new EstadoDia(dia, properties);
+        repository.delUsuario(usuarioId, estado.desde, estado.hasta).forEach(estado::aplicar);
+        return estado;
+    }
+
+    private LocalDate hoy() {
+        return LocalDate.now(properties.getZona());
+    }
+
+    // Publicador: se ejecuta en el hilo escritor de IngestaEventosSesion, así que no hace E/S:
+    // actualiza memoria y deja cada envío en el buzón de su conexión.
+    @EventListener
+    public void alGuardarEventos(IngestaEventosSesion.EventosGuardados guardados) {
+        Map<Long, List<EventoSesion>> porUsuario = new LinkedHashMap<>();
+        for (EventoSesion evento : guardados.eventos()) {
+            if (suscripciones.containsKey(evento.usuarioId())) {
+                porUsuario.computeIfAbsent(evento.usuarioId(), id -> new ArrayList<>()).add(evento);
+            }
+        }
+        porUsuario.forEach((usuarioId, eventos) -> {
+            Suscripcion suscripcion = suscripciones.get(usuarioId);
+            EstadoDia estado = suscripcion != null ? suscripcion.estado.get() : null;
+            if (estado == null) {
+                return;
+            }
+            boolean cambio = false;
+            for (EventoSesion evento : eventos) {
+                cambio |= estado.aplicar(evento);
+            }
+            if (cambio) {
+                DashboardResumen resumen = estado.resumen();
+                suscripcion.conexiones.forEach(c -> c.ofrecer(resumen));
+            }
+        });
+    }
+
+    // Latido: comentario SSE a cada conexión, cierre de las que no leen y cambio de día.
+    @Scheduled(fixedDelayString = "${focoprod.dashboard.latido:30s}")
+    public void latir() {
+        long limite = System.nanoTime() - properties.getTimeoutEnvio().toNanos();
+        LocalDate hoy = hoy();
+        suscripciones.forEach((usuarioId, suscripcion) -> {
+            EstadoDia estado = suscripcion.estado.get();
+            DashboardResumen nuevoDia = estado != null && !estado.dia.equals(hoy)
+                    ? estado(usuarioId, suscripcion).resumen() : null;
+            for (Conexion conexion : suscripcion.conexiones) {
+                if (conexion.atascadaDesdeAntesDe(limite)) {
+                    lentos.increment();
+                    conexion.cerrar();
+                } else {
+                    conexion.ofrecer(nuevoDia != null ? nuevoDia : LATIDO);
+                }
+            }
+        });
+    }
+
+    private void quitar(Conexion conexion) {
+        suscripciones.computeIfPresent(conexion.usuarioId, (id, s) -> {
+            if (s.conexiones.remove(conexion)) {
+                conexiones.decrementAndGet();
+            }
+            return s.conexiones.isEmpty() ? null : s;
+        });
+    }
+
+    // Al parar la aplicación se cierran las conexiones (los clientes reconectan a otro nodo).
+    @Override
+    public void destroy() {
+        suscripciones.values().forEach(s -> s.conexiones.forEach(Conexion::cerrar));
+        envios.shutdownNow();
+    }
+
+    private static final class Suscripcion {
+        final List<Conexion> conexiones = new CopyOnWriteArrayList<>();
+        final AtomicReference<EstadoDia> estado = new AtomicReference<>();
+    }
+
+    // Una conexión SSE con su buzón de un hueco (el último resumen, o un latido si no hay nada pendiente).
+    private final class Conexion {
+
+        final long usuarioId;
+        final SseEmitter emitter;
+        final AtomicReference<Object> pendiente = new AtomicReference<>();
+        final AtomicBoolean enviando = new AtomicBoolean();
+        // System.nanoTime() del inicio del envío en curso; 0 si no hay ninguno.
+        volatile long envioDesde;
+
+        Conexion(long usuarioId, SseEmitter emitter) {
+            this.usuarioId = usuarioId;
+            this.emitter = emitter;
+        }
+
+        void ofrecer(Object mensaje) {
+            if (mensaje == LATIDO) {
+                // Un latido nunca sustituye a un resumen pendiente.
+                pendiente.compareAndSet(null, LATIDO);
+            } else if (pendiente.getAndSet(mensaje) instanceof DashboardResumen) {
+                coalescidos.increment();
+            }
+            programar();
+        }
+
+        private void programar() {
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::vaciar);
+                } catch (RuntimeException e) {
+                    // Ejecutor cerrado: la aplicación se está parando.
+                    enviando.set(false);
+                }
+            }
+        }
+
+        private void vaciar() {
+            try {
+                Object mensaje;
+                while ((mensaje = pendiente.getAndSet(null)) != null) {
+                    envioDesde = System.nanoTime();
+                    if (mensaje instanceof DashboardResumen resumen) {
+                        emitter.send(SseEmitter.event().name("dashboard").data(resumen, MediaType.APPLICATION_JSON));
+                        enviados.increment();
+                    } else {
+                        emitter.send(SseEmitter.event().comment(LATIDO));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // El cliente se fue (o la conexión ya estaba cerrada).
+                cerrar();
+            } finally {
+                envioDesde = 0;
+                enviando.set(false);
+            }
+            // Lo que llegó justo después de vaciar el buzón y antes de soltar "enviando".
+            if (pendiente.get() != null) {
+                programar();
+            }
+        }
+
+        boolean atascadaDesdeAntesDe(long instante) {
+            long desde = envioDesde;
+            return desde != 0 && desde - instante < 0;
+        }
+
+        void cerrar() {
+            quitar(this);
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // Ya cerrada.
+            }
+        }
+    }
+
+    // Totales de un día de un usuario, a partir de sus eventos (en cualquier orden, sin repetir).
+    private static final class EstadoDia {
+
+        final LocalDate dia;
+        final Instant desde;
+        final Instant hasta;
+        private final Set<String> aplicados = new HashSet<>();
+        private final Map<String, EventoSesion> ultimoPorSesion = new HashMap<>();
+        private int completadas;
+        private long focoMs;
+        private Instant actualizado = Instant.now();
+
+        EstadoDia(LocalDate dia, DashboardProperties properties) {
+            this.dia = dia;
+            this.desde = dia.atStartOfDay(properties.getZona()).toInstant();
+            this.hasta = dia.plusDays(1).atStartOfDay(properties.getZona()).toInstant();
+        }
+
+        synchronized boolean aplicar(EventoSesion evento) {
+            if (evento.ocurridoEn().isBefore(desde) || !evento.ocurridoEn().isBefore(hasta)
+                    || !aplicados.add(evento.eventoId())) {
+                return false;
+            }
+            if (evento.tipo() == EventoSesion.Tipo.END) {
+                completadas++;
+                if (evento.duracionMs() != null) {
+                    focoMs += evento.duracionMs();
+                }
+            }
+            ultimoPorSesion.merge(evento.sesionId(), evento,
+                    (anterior, nuevo) -> nuevo.ocurridoEn().isBefore(anterior.ocurridoEn()) ? anterior : nuevo);
+            actualizado = Instant.now();
+            return true;
+        }
+
+        synchronized DashboardResumen resumen() {
+            DashboardResumen resumen = new DashboardResumen();
+            resumen.setDia(dia);
+            for (EventoSesion ultimo : ultimoPorSesion.values()) {
+                switch (ultimo.tipo()) {
+                    case START, RESUME -> resumen.setSesionesActivas(resumen.getSesionesActivas() + 1);
+                    case PAUSE -> resumen.setSesionesEnPausa(resumen.getSesionesEnPausa() + 1);
+                    case END -> {
+                    }
+                }
+            }
+            resumen.setSesionesCompletadas(completadas);
+            resumen.setFocoMs(focoMs);
+            resumen.setEventos(aplicados.size());
+            resumen.setActualizado(actualizado);
+            return resumen;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.focoprod.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.config.ImportacionProperties;
+import com.focoprod.backend.dto.ErrorFila;
+import com.focoprod.backend.dto.ImportacionResultado;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.UsuarioBatchRepository;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import com.focoprod.backend.security.PasswordHashingEngine;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Importación masiva de usuarios desde sistemas externos (NDJSON o CSV).
+//
+// El archivo se lee línea a línea y se procesa en bloques de focoprod.import.chunk-size filas:
+//  1. se validan las filas del bloque,
+//  2. se buscan duplicados con UNA consulta IN para todo el bloque,
+//  3. se hashean las contraseñas en paralelo en el pool de PasswordHashingEngine,
+//  4. se insertan con un único batch JDBC.
+// Solo hay un bloque en memoria a la vez, así que un archivo de millones de filas usa memoria acotada.
+@Service
+public class UsuarioImportService {
+
+    // Formatos aceptados por la importación (y por la exportación, UsuarioListadoService).
+    public enum Formato { NDJSON, CSV }
+
+    private final UsuarioRepository usuarioRepository;
+    private final UsuarioBatchRepository usuarioBatchRepository;
+    private final PasswordHashingEngine passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final ImportacionProperties properties;
+    private final EmailExistenceFilter emailExistenceFilter;
+
+    public UsuarioImportService(UsuarioRepository usuarioRepository,
+                                UsuarioBatchRepository usuarioBatchRepository,
+                                PasswordHashingEngine passwordEncoder,
+                                ObjectMapper objectMapper,
+                                ImportacionProperties properties,
+                                EmailExistenceFilter emailExistenceFilter) {
+        this.usuarioRepository = usuarioRepository;
+        this.usuarioBatchRepository = usuarioBatchRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.emailExistenceFilter = emailExistenceFilter;
+    }
+
+    public ImportacionResultado importar(InputStream cuerpo, Formato formato) throws IOException {
+        ImportacionResultado resultado = new ImportacionResultado();
+        List<Fila> bloque = new ArrayList<>(properties.getChunkSize());
+
+        // Posición de cada columna en el CSV. Si la primera línea es una cabecera, se toma de ahí.
+        int[] columnas = {0, 1, 2};
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(cuerpo, StandardCharsets.UTF_8));
+        String linea;
+        long numero = 0;
+        while ((linea = reader.readLine()) != null) {
+            numero++;
+            if (numero == 1 && linea.startsWith("\uFEFF")) {
+                // BOM de UTF-8 (p. ej. CSV exportados con Excel).
+                linea = linea.substring(1);
+            }
+            if (linea.isBlank()) {
+                continue;
+            }
+            if (formato == Formato.CSV && numero == 1) {
+                List<String> campos = camposCsv(linea);
+                if (esCabecera(campos)) {
+                    columnas = columnasCabecera(campos);
+                    continue;
+                }
+            }
+            resultado.setLeidas(resultado.getLeidas() + 1);
+
+            RegistroRequest request;
+            try {
+                request = formato == Formato.NDJSON
+                        ? objectMapper.readValue(linea, RegistroRequest.class)
+                        : desdeCsv(camposCsv(linea), columnas);
+            } catch (IOException | RuntimeException e) {
+                invalida(resultado, numero, null, "Formato de fila inválido");
+                continue;
+            }
+
+            String motivo = validar(request);
+            if (motivo != null) {
+                invalida(resultado, numero, request.getEmail(), motivo);
+                continue;
+            }
+
+            bloque.add(new Fila(numero, request));
+            if (bloque.size() >= properties.getChunkSize()) {
+                procesarBloque(bloque, resultado);
+                bloque.clear();
+            }
+        }
+        if (!bloque.isEmpty()) {
+            procesarBloque(bloque, resultado);
+        }
+        return resultado;
+    }
+
+    private void procesarBloque(List<Fila> bloque, ImportacionResultado resultado) {
+        // 1) Emails repetidos dentro del mismo bloque: se queda la primera aparición.
+        Map<String, Fila> unicas = new LinkedHashMap<>();
+        for (Fila fila : bloque) {
+            if (unicas.putIfAbsent(fila.request().getEmail(), fila) != null) {
+                duplicada(resultado, fila, "Email repetido en el archivo");
+            }
+        }
+
+        // 2) Emails que ya existen en la BD: una sola consulta para todo el bloque,
+        //    y solo con los emails que el filtro de Bloom no descarta.
+        //    Si todo el bloque es de emails nuevos, ni siquiera se hace la consulta.
+        List<String> candidatos = unicas.keySet().stream().filter(emailExistenceFilter::podriaExistir).toList();
+        Set<String> existentes = candidatos.isEmpty()
+                ? Set.of()
+                : new HashSet<>(usuarioRepository.findEmailsExistentes(candidatos));
+        List<Fila> nuevas = new ArrayList<>(unicas.size());
+        for (Fila fila : unicas.values()) {
+            if (existentes.contains(fila.request().getEmail())) {
+                duplicada(resultado, fila, "El usuario ya existe");
+            } else {
+                nuevas.add(fila);
+            }
+        }
+        if (nuevas.isEmpty()) {
+            return;
+        }
+
+        // 3) Hash de contraseñas en paralelo (pool acotado de BCrypt).
+        List<String> hashes = passwordEncoder.encodeAll(
+                nuevas.stream().map(f -> f.request().getPassword()).toList());
+
+        // 4) Insert en un único batch JDBC.
+        List<Usuario> usuarios = new ArrayList<>(nuevas.size());
+        for (int i = 0; i < nuevas.size(); i++) {
+            RegistroRequest request = nuevas.get(i).request();
+            Usuario usuario = new Usuario();
+            usuario.setEmail(request.getEmail());
+            usuario.setName(request.getName());
+            usuario.setPassword(hashes.get(i));
+            usuario.setProvider("local");
+            usuarios.add(usuario);
+            emailExistenceFilter.registrar(usuario.getEmail());
+        }
+        int[] filas = usuarioBatchRepository.insertarLocales(usuarios);
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] != 0) {
+                resultado.setInsertadas(resultado.getInsertadas() + 1);
+            } else {
+                // Otro proceso insertó el mismo email entre la consulta y el insert.
+                duplicada(resultado, nuevas.get(i), "El usuario ya existe");
+            }
+        }
+    }
+
+    private static String validar(RegistroRequest request) {
+        if (request.getEmail() == null || !request.getEmail().contains("@")) {
+            return "Email inválido";
+        }
+        if (request.getName() == null || request.getName().isBlank()) {
+            return "Falta el nombre";
+        }
+        if (request.getPassword() == null || request.getPassword().isEmpty()) {
+            return "Falta la contraseña";
+        }
+        return null;
+    }
+
+    private void invalida(ImportacionResultado resultado, long linea, String email, String motivo) {
+        resultado.setInvalidas(resultado.getInvalidas() + 1);
+        registrarError(resultado, new ErrorFila(linea, email, motivo));
+    }
+
+    private void duplicada(ImportacionResultado resultado, Fila fila, String motivo) {
+        resultado.setDuplicadas(resultado.getDuplicadas() + 1);
+        registrarError(resultado, new ErrorFila(fila.linea(), fila.request().getEmail(), motivo));
+    }
+
+    // Solo guardamos los primeros maxErrores para no crecer sin límite con archivos enormes.
+    private void registrarError(ImportacionResultado resultado, ErrorFila error) {
+        if (resultado.getErrores().size() < properties.getMaxErrores()) {
+            resultado.getErrores().add(error);
+        } else {
+            resultado.setErroresTruncados(true);
+        }
+    }
+
+    // ====== CSV ======
+
+    // Columnas esperadas: email, name, password (en ese orden si no hay cabecera).
+    // La primera línea es cabecera si uno de sus campos es exactamente "email". Que la línea contenga
+    // "email" no basta: una primera fila de datos como "myemail@x.com,Ana,..." también lo contiene.
+    private static boolean esCabecera(List<String> campos) {
+        return campos.stream().anyMatch(campo -> campo.trim().equalsIgnoreCase("email"));
+    }
+
+    private static int[] columnasCabecera(List<String> cabecera) {
+        int[] columnas = {-1, -1, -1};
+        for (int i = 0; i < cabecera.size(); i++) {
+            switch (cabecera.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "email" -> columnas[0] = i;
+                case "name" -> columnas[1] = i;
+                case "password" -> columnas[2] = i;
+                default -> { }
+            }
+        }
+        return columnas;
+    }
+
+    private static RegistroRequest desdeCsv(List<String> campos, int[] columnas) {
+        RegistroRequest request = new RegistroRequest();
+        request.setEmail(campo(campos, columnas[0]));
+        request.setName(campo(campos, columnas[1]));
+        request.setPassword(campo(campos, columnas[2]));
+        return request;
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        return indice >= 0 && indice < campos.size() ? campos.get(indice).trim() : null;
+    }
+
+    // Separa una línea CSV (RFC 4180) respetando comillas dobles y comillas escapadas ("").
+    // No soporta saltos de línea dentro de un campo: cada fila debe ir en una sola línea.
+    // https://www.rfc-editor.org/rfc/rfc4180
+    static List<String> camposCsv(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    // Fila válida pendiente de procesar, con su número de línea para reportar errores.
+    private record Fila(long linea, RegistroRequest request) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.focoprod.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.focoprod.backend.config.ListadoProperties;
+import com.focoprod.backend.dto.PaginaUsuarios;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.exception.ParametroInvalidoException;
+import com.focoprod.backend.repositorios.UsuarioConsultaRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Listado paginado y exportación de usuarios para administración y soporte.
+//
+// La exportación escribe cada fila en la respuesta según llega del cursor de la BD:
+// nunca hay más de focoprod.listado.fetch-size usuarios en memoria, aunque se exporten millones.
+@Service
+public class UsuarioListadoService {
+
+    // Por debajo de 3 caracteres no hay trigramas y el índice GIN no sirve: se recorrería la tabla.
+    private static final int MIN_CONTIENE = 3;
+
+    private final UsuarioConsultaRepository usuarioConsultaRepository;
+    private final ObjectMapper objectMapper;
+    private final ListadoProperties properties;
+
+    public UsuarioListadoService(UsuarioConsultaRepository usuarioConsultaRepository,
+                                 ObjectMapper objectMapper,
+                                 ListadoProperties properties) {
+        this.usuarioConsultaRepository = usuarioConsultaRepository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public PaginaUsuarios pagina(String texto, UsuarioConsultaRepository.Busqueda busqueda, Long despues, Integer limite) {
+        validar(texto, busqueda);
+        int tamanio = limite == null ? properties.getTamanioPagina() : limite;
+        if (tamanio < 1 || tamanio > properties.getMaxTamanioPagina()) {
+            throw new ParametroInvalidoException("limite debe estar entre 1 y " + properties.getMaxTamanioPagina());
+        }
+
+        // Pedimos una fila de más: si llega, hay página siguiente (sin un count(*) aparte).
+        List<UsuarioResponse> usuarios = usuarioConsultaRepository.pagina(texto, busqueda, despues, tamanio + 1);
+        if (usuarios.size() <= tamanio) {
+            return new PaginaUsuarios(usuarios, null);
+        }
+        List<UsuarioResponse> estaPagina = usuarios.subList(0, tamanio);
+        return new PaginaUsuarios(estaPagina, estaPagina.get(tamanio - 1).getId());
+    }
+
+    public void exportar(String texto, UsuarioConsultaRepository.Busqueda busqueda,
+                         UsuarioImportService.Formato formato, OutputStream salida) throws IOException {
+        validar(texto, busqueda);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024)) {
+            if (formato == UsuarioImportService.Formato.CSV) {
+                exportarCsv(texto, busqueda, writer);
+            } else {
+                exportarNdjson(texto, busqueda, writer);
+            }
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la conexión a mitad: se corta el recorrido y se libera la conexión a la BD.
+            throw e.getCause();
+        }
+    }
+
+    private void exportarNdjson(String texto, UsuarioConsultaRepository.Busqueda busqueda, Writer writer)
+            throws IOException {
+        // SequenceWriter reutiliza el mismo generador JSON para todas las filas.
+        try (SequenceWriter json = objectMapper.writerFor(UsuarioResponse.class)
+                .withRootValueSeparator("\n")
+                .writeValues(writer)) {
+            usuarioConsultaRepository.recorrer(texto, busqueda, usuario -> {
+                try {
+                    json.write(usuario);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.flush();
+            writer.write('\n');
+        }
+    }
+
+    private void exportarCsv(String texto, UsuarioConsultaRepository.Busqueda busqueda, Writer writer)
+            throws IOException {
+        // Mismas columnas que acepta la importación (salvo password), con cabecera.
+        writer.write("id,name,email,provider\r\n");
+        usuarioConsultaRepository.recorrer(texto, busqueda, usuario -> {
+            try {
+                writer.write(String.valueOf(usuario.getId()));
+                writer.write(',');
+                writer.write(campoCsv(usuario.getName()));
+                writer.write(',');
+                writer.write(campoCsv(usuario.getEmail()));
+                writer.write(',');
+                writer.write(campoCsv(usuario.getProvider()));
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // RFC 4180: entre comillas si lleva coma, comillas o salto de línea; las comillas se duplican.
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    private static void validar(String texto, UsuarioConsultaRepository.Busqueda busqueda) {
+        if (busqueda == UsuarioConsultaRepository.Busqueda.CONTIENE
+                && texto != null && !texto.isBlank() && texto.trim().length() < MIN_CONTIENE) {
+            throw new ParametroInvalidoException(
+                    "La búsqueda por contenido necesita al menos " + MIN_CONTIENE + " caracteres");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.exception.UsuarioExistenteException;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.UsuarioReactivoRepository;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import com.focoprod.backend.security.PasswordHashingEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+// Registro con el perfil "r2dbc": los mismos pasos y respuestas que UsuarioService.registerUser,
+// pero sin ocupar el hilo de Tomcat mientras se espera al hash o a la BD.
+// El hash va al pool de PasswordHashingEngine y las consultas a UsuarioReactivoRepository;
+// AuthController devuelve el resultado como CompletionStage (petición asíncrona de Spring MVC).
+// Más info:
+// https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-ann-async.html
+@Service
+@Profile("r2dbc")
+public class UsuarioReactivoService {
+
+    private final UsuarioReactivoRepository usuarioRepository;
+    private final PasswordHashingEngine passwordEncoder;
+    private final EmailExistenceFilter emailExistenceFilter;
+
+    // Mismos contadores que UsuarioService (Micrometer devuelve el mismo Counter para el mismo nombre y tags).
+    private final Counter creados;
+    private final Counter duplicados;
+
+    public UsuarioReactivoService(UsuarioReactivoRepository usuarioRepository,
+                                  PasswordHashingEngine passwordEncoder,
+                                  EmailExistenceFilter emailExistenceFilter,
+                                  MeterRegistry registry) {
+        this.usuarioRepository = usuarioRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.creados = Counter.builder("focoprod.auth.register.results")
+                .tag("result", "created")
+                .description("Registros locales por resultado")
+                .register(registry);
+        this.duplicados = Counter.builder("focoprod.auth.register.results")
+                .tag("result", "duplicate")
+                .description("Registros locales por resultado")
+                .register(registry);
+    }
+
+    public Mono<UsuarioResponse> registerUser(RegistroRequest request) {
+        // Solo se consulta la BD si el filtro de emails dice que el email "podría existir".
+        Mono<Boolean> existe = emailExistenceFilter.podriaExistir(request.getEmail())
+                ? usuarioRepository.findByEmail(request.getEmail())
+                        .map(usuario -> true)
+                        .switchIfEmpty(Mono.fromSupplier(() -> {
+                            emailExistenceFilter.registrarFalsoPositivo();
+                            return false;
+                        }))
+                : Mono.just(false);
+
+        return existe.flatMap(yaExiste -> {
+            if (yaExiste) {
+                duplicados.increment();
+                return Mono.error(new UsuarioExistenteException());
+            }
+            // defer: encodeAsync encola el hash al suscribirse (y puede lanzar ServicioSaturadoException,
+            // que llega al controlador como error del Mono → 503 en ApiExceptionHandler).
+            return Mono.defer(() -> Mono.fromFuture(passwordEncoder.encodeAsync(request.getPassword())))
+                    .flatMap(hash -> {
+                        Usuario usuario = new Usuario();
+                        usuario.setName(request.getName());
+                        usuario.setEmail(request.getEmail());
+                        usuario.setPassword(hash);
+                        usuario.setProvider("local");
+                        // Como en UsuarioService: la restricción única de email es la garantía final.
+                        emailExistenceFilter.registrar(usuario.getEmail());
+                        return usuarioRepository.save(usuario);
+                    })
+                    .map(guardado -> {
+                        creados.increment();
+                        return UsuarioResponse.de(guardado);
+                    })
+                    // Como en UsuarioService: solo un email repetido es 409.
+                    .onErrorMap(e -> e instanceof DataIntegrityViolationException
+                            && UsuarioRepository.esEmailDuplicado(e), e -> {
+                        duplicados.increment();
+                        return new UsuarioExistenteException();
+                    });
+        });
+    }
+}
@@ -1,10 +1,19 @@
 package com.focoprod.backend.service;
 
 import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.exception.UsuarioExistenteException;
+import com.focoprod.backend.model.EventoOutbox;
 import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.OutboxRepository;
 import com.focoprod.backend.repositorios.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 // @Service indica que esta clase forma parte de la capa de servicios.
 // Spring la detecta como un bean y la gestiona automáticamente.
@@ -21,16 +30,45 @@ public class UsuarioService {
     // debido al bean definido en SecurityConfig.
     private final PasswordEncoder passwordEncoder;
 
+    // Filtro de Bloom sobre los emails existentes: evita el findByEmail para emails nuevos.
+    private final EmailExistenceFilter emailExistenceFilter;
+
+    // Evento UserRegistered en la misma transacción que el INSERT del usuario (ver DespachadorOutbox).
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Resultados del registro: focoprod.auth.register.results{result=created|duplicate}.
+    // Los errores (p. ej. cola de hashing llena) quedan en el tag "error" del timer focoprod.auth.register.
+    private final Counter creados;
+    private final Counter duplicados;
+
     // Inyección de dependencias por constructor (forma recomendada por Spring).
     // Más info:
     // https://docs.spring.io/spring-framework/reference/core/beans/dependencies.html#beans-constructor-injection
-    public UsuarioService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public UsuarioService(UsuarioRepository usuarioRepository,
+                          PasswordEncoder passwordEncoder,
+                          EmailExistenceFilter emailExistenceFilter,
+                          OutboxRepository outboxRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry registry) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.creados = Counter.builder("focoprod.auth.register.results")
+                .tag("result", "created")
+                .description("Registros locales por resultado")
+                .register(registry);
+        this.duplicados = Counter.builder("focoprod.auth.register.results")
+                .tag("result", "duplicate")
+                .description("Registros locales por resultado")
+                .register(registry);
     }
 
     // Método que registra un usuario nuevo usando datos de RegistroRequest.
-    public String registerUser(RegistroRequest request) {
+    // Devuelve el usuario creado; si el email ya tiene cuenta lanza UsuarioExistenteException (→ 409).
+    public UsuarioResponse registerUser(RegistroRequest request) {
 
         // Verifica si ya existe un usuario con el email proporcionado.
         // findByEmail(...) devuelve un Optional, y .isPresent()
@@ -38,8 +76,15 @@ public class UsuarioService {
         //
         // Más info Optional:
         // https://docs.oracle.com/javase/8/docs/api/java/util/Optional.html
-        if (usuarioRepository.findByEmail(request.getEmail()).isPresent()) {
-            return "El usuario ya existe";
+        //
+        // Solo consultamos la BD si el filtro de emails dice que el email "podría existir".
+        // Si dice que seguro no existe, vamos directo al INSERT.
+        if (emailExistenceFilter.podriaExistir(request.getEmail())) {
+            if (usuarioRepository.findByEmail(request.getEmail()).isPresent()) {
+                duplicados.increment();
+                throw new UsuarioExistenteException();
+            }
+            emailExistenceFilter.registrarFalsoPositivo();
         }
 
         // Creamos una nueva instancia Usuario y la llenamos con los datos del request.
@@ -60,9 +105,31 @@ public class UsuarioService {
 
         // Persistimos el usuario en la base de datos.
         // save() funciona tanto para insertar como para actualizar (upsert).
-        usuarioRepository.save(usuario);
+        //
+        // La restricción única de email sigue siendo la garantía final: si otro registro
+        // con el mismo email entró a la vez, la BD rechaza este INSERT.
+        //
+        // El usuario y su evento UserRegistered (outbox) se confirman juntos o no se confirma ninguno.
+        // La transacción empieza después del hash: no retiene una conexión mientras se calcula.
+        emailExistenceFilter.registrar(usuario.getEmail());
+        Usuario guardado;
+        try {
+            guardado = transactionTemplate.execute(tx -> {
+                Usuario nuevo = usuarioRepository.save(usuario);
+                outboxRepository.registrarUsuario(EventoOutbox.USUARIO_REGISTRADO, nuevo.getId());
+                return nuevo;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Solo la restricción de email es "ya existe"; cualquier otro fallo de integridad se propaga.
+            if (!UsuarioRepository.esEmailDuplicado(e)) {
+                throw e;
+            }
+            duplicados.increment();
+            throw new UsuarioExistenteException();
+        }
+        creados.increment();
 
-        // Retornamos un mensaje simple al controlador.
-        return "Usuario registrado correctamente";
+        // Retornamos al controlador los datos públicos del usuario creado (con su id).
+        return UsuarioResponse.de(guardado);
     }
 }
\ No newline at end of file
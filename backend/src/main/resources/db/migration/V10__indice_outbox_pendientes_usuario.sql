@@ -0,0 +1,13 @@
+-- Índice de los eventos pendientes por usuario: OutboxRepository.reclamar comprueba, para cada
+-- candidato, que no quede un evento anterior del mismo usuario sin entregar (orden por usuario).
+-- Parcial, como ix_outbox_eventos_pendientes: no crece con el histórico de entregados.
+--
+-- Fuera de transacción (ver el .conf): CREATE INDEX CONCURRENTLY no bloquea las escrituras en la outbox.
+-- https://www.postgresql.org/docs/current/sql-createindex.html#SQL-CREATEINDEX-CONCURRENTLY
+
+-- Un intento anterior fallido a medias deja un índice INVALID con este nombre.
+DROP INDEX CONCURRENTLY IF EXISTS ix_outbox_eventos_pendientes_usuario;
+
+CREATE INDEX CONCURRENTLY ix_outbox_eventos_pendientes_usuario
+    ON outbox_eventos (usuario_id, id)
+    WHERE procesado_en IS NULL AND fallido_en IS NULL;
@@ -0,0 +1,17 @@
+-- Esquema inicial: el mismo que generaba Hibernate con ddl-auto=update.
+-- IF NOT EXISTS para que las BDs creadas antes de Flyway (baseline 0) lo acepten sin cambios.
+
+CREATE TABLE IF NOT EXISTS usuarios (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email       varchar(255) NOT NULL UNIQUE,
+    name        varchar(255) NOT NULL,
+    password    varchar(255),
+    provider    varchar(255),
+    provider_id varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS tokens_revocados (
+    jti         varchar(255) PRIMARY KEY,
+    expira_en   timestamp(6) with time zone NOT NULL,
+    revocado_en timestamp(6) with time zone NOT NULL
+);
@@ -0,0 +1,27 @@
+-- Índice único (provider, provider_id): findByProviderAndProviderId pasa de recorrer la tabla
+-- entera a una búsqueda en el índice, y una misma cuenta de Google (sub) ya no puede quedar
+-- repartida en dos usuarios. Los usuarios locales tienen provider_id NULL y no chocan entre sí
+-- (en un índice único los NULL son distintos).
+--
+-- Se ejecuta fuera de transacción (ver el .conf): CREATE INDEX CONCURRENTLY no bloquea las
+-- escrituras en usuarios mientras se construye el índice.
+-- https://www.postgresql.org/docs/current/sql-createindex.html#SQL-CREATEINDEX-CONCURRENTLY
+
+-- Hasta ahora el login OAuth2 buscaba solo por email: si el email de una cuenta de Google cambiaba,
+-- se creaba otro usuario con el mismo sub. Nos quedamos con el vínculo en el más reciente; los
+-- anteriores siguen existiendo y se pueden usar entrando con su email.
+UPDATE usuarios u
+SET provider_id = NULL
+WHERE u.provider_id IS NOT NULL
+  AND EXISTS (SELECT 1
+              FROM usuarios mas_reciente
+              WHERE mas_reciente.provider = u.provider
+                AND mas_reciente.provider_id = u.provider_id
+                AND mas_reciente.id > u.id);
+
+-- Si una construcción anterior falló a medias, deja un índice INVALID con este nombre:
+-- se borra para que el reintento lo construya de nuevo (IF NOT EXISTS lo daría por bueno).
+DROP INDEX CONCURRENTLY IF EXISTS ux_usuarios_provider_provider_id;
+
+CREATE UNIQUE INDEX CONCURRENTLY ux_usuarios_provider_provider_id
+    ON usuarios (provider, provider_id);
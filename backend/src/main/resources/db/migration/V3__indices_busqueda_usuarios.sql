@@ -0,0 +1,26 @@
+-- Índices para la búsqueda de GET /api/admin/usuarios (UsuarioConsultaRepository).
+--
+-- Búsqueda por prefijo → lower(columna) LIKE 'texto%': B-tree con varchar_pattern_ops,
+-- que compara carácter a carácter y sirve para LIKE aunque la BD no use la collation "C".
+-- https://www.postgresql.org/docs/current/indexes-opclass.html
+--
+-- Búsqueda por contenido → columna ILIKE '%texto%': índice GIN de trigramas (pg_trgm).
+-- Un solo índice sobre las dos columnas; el OR de la consulta combina ambas en un BitmapOr.
+-- https://www.postgresql.org/docs/current/pgtrgm.html#PGTRGM-INDEX
+--
+-- Igual que V2: fuera de transacción y con CONCURRENTLY para no bloquear las escrituras.
+
+-- pg_trgm es una extensión "trusted": basta con permiso CREATE sobre la BD, no hace falta superusuario.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP INDEX CONCURRENTLY IF EXISTS ix_usuarios_email_prefijo;
+CREATE INDEX CONCURRENTLY ix_usuarios_email_prefijo
+    ON usuarios (lower(email) varchar_pattern_ops);
+
+DROP INDEX CONCURRENTLY IF EXISTS ix_usuarios_name_prefijo;
+CREATE INDEX CONCURRENTLY ix_usuarios_name_prefijo
+    ON usuarios (lower(name) varchar_pattern_ops);
+
+DROP INDEX CONCURRENTLY IF EXISTS ix_usuarios_busqueda_trgm;
+CREATE INDEX CONCURRENTLY ix_usuarios_busqueda_trgm
+    ON usuarios USING gin (name gin_trgm_ops, email gin_trgm_ops);
@@ -0,0 +1,14 @@
+-- Índice parcial con los usuarios cuyo email aún no está normalizado (mayúsculas o espacios).
+--
+-- Lo usa NormalizacionEmailsJob para encontrar lo que queda por normalizar sin recorrer la tabla.
+-- Como los emails nuevos ya llegan normalizados, el índice solo contiene filas antiguas y
+-- queda vacío (y casi sin coste de mantenimiento) cuando el job termina.
+-- https://www.postgresql.org/docs/current/indexes-partial.html
+--
+-- La búsqueda por email normalizado (lower(email) = ?) usa ix_usuarios_email_prefijo (V3):
+-- varchar_pattern_ops también sirve para la igualdad.
+
+DROP INDEX CONCURRENTLY IF EXISTS ix_usuarios_email_sin_normalizar;
+CREATE INDEX CONCURRENTLY ix_usuarios_email_sin_normalizar
+    ON usuarios (id)
+    WHERE email <> lower(btrim(email));
@@ -0,0 +1,44 @@
+-- Eventos de las sesiones de foco que suben los clientes (inicio, pausa, reanudación, fin).
+--
+-- Tabla particionada por mes según ocurrido_en:
+--  - Cada mes es una tabla e índice pequeños; insertar en el mes actual no toca los anteriores.
+--  - Las consultas con rango de fechas solo leen las particiones de ese rango (partition pruning).
+--  - Borrar datos antiguos es DROP TABLE de una partición, sin DELETE masivo ni VACUUM.
+-- https://www.postgresql.org/docs/current/ddl-partitioning.html
+--
+-- Clave primaria (usuario_id, ocurrido_en, evento_id):
+--  - Idempotencia: el cliente reintenta con el mismo evento_id y ON CONFLICT DO NOTHING lo descarta.
+--    La clave de partición tiene que formar parte de la clave única; el reintento de un evento
+--    lleva el mismo ocurrido_en, así que cae en la misma partición y choca con el original.
+--  - El mismo índice sirve para "eventos de un usuario entre dos fechas".
+-- Sin FK a usuarios: cada inserción la comprobaría, y el usuario_id sale del usuario autenticado.
+
+CREATE TABLE eventos_sesion (
+    usuario_id  bigint                      NOT NULL,
+    evento_id   varchar(64)                 NOT NULL,
+    sesion_id   varchar(64)                 NOT NULL,
+    tipo        varchar(8)                  NOT NULL CHECK (tipo IN ('START', 'PAUSE', 'RESUME', 'END')),
+    ocurrido_en timestamp(6) with time zone NOT NULL,
+    duracion_ms bigint,
+    recibido_en timestamp(6) with time zone NOT NULL DEFAULT now(),
+    PRIMARY KEY (usuario_id, ocurrido_en, evento_id)
+) PARTITION BY RANGE (ocurrido_en);
+
+-- Crea (si no existe) la partición del mes UTC que contiene "mes": eventos_sesion_2025_01, ...
+-- La usa también ParticionesEventosJob para tener siempre creados los meses que se aceptan.
+CREATE FUNCTION crear_particion_eventos_sesion(mes date) RETURNS void
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    desde timestamp := date_trunc('month', mes::timestamp);
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF eventos_sesion FOR VALUES FROM (%L) TO (%L)',
+                   'eventos_sesion_' || to_char(desde, 'YYYY_MM'),
+                   desde AT TIME ZONE 'UTC',
+                   (desde + interval '1 month') AT TIME ZONE 'UTC');
+END
+$$;
+
+-- Del mes pasado a dentro de dos meses; el resto lo crea ParticionesEventosJob al arrancar.
+SELECT crear_particion_eventos_sesion(((now() AT TIME ZONE 'UTC') + make_interval(months => m))::date)
+FROM generate_series(-1, 2) AS m;
@@ -0,0 +1,34 @@
+-- Outbox transaccional: eventos del ciclo de vida de los usuarios (UserRegistered, UserLinkedProvider).
+--
+-- La fila se escribe en la misma transacción (o la misma sentencia) que el usuario: si el alta se
+-- confirma, el evento también; si se deshace, no queda evento. DespachadorOutbox los entrega después,
+-- fuera de la petición, a los ManejadorOutbox registrados.
+-- https://microservices.io/patterns/data/transactional-outbox.html
+--
+-- Estados de una fila:
+--  - Pendiente:  procesado_en y fallido_en NULL. Se reclama cuando disponible_en <= now().
+--  - Entregado:  procesado_en. Se borra al cumplir focoprod.outbox.retencion.
+--  - Fallido:    fallido_en, tras agotar los intentos. Queda para revisarla a mano (ultimo_error).
+-- Al reclamarla, disponible_en pasa a now() + bloqueo: si el nodo muere a mitad de la entrega,
+-- otro la vuelve a reclamar cuando vence (entrega "al menos una vez").
+
+CREATE TABLE outbox_eventos (
+    id            bigint GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    tipo          varchar(64)                 NOT NULL,
+    usuario_id    bigint                      NOT NULL,
+    payload       jsonb                       NOT NULL,
+    creado_en     timestamp(6) with time zone NOT NULL DEFAULT now(),
+    disponible_en timestamp(6) with time zone NOT NULL DEFAULT now(),
+    intentos      integer                     NOT NULL DEFAULT 0,
+    ultimo_error  text,
+    procesado_en  timestamp(6) with time zone,
+    fallido_en    timestamp(6) with time zone
+);
+
+-- Solo las pendientes: el despachador lee siempre de aquí, y el índice no crece con el histórico.
+CREATE INDEX ix_outbox_eventos_pendientes ON outbox_eventos (disponible_en, id)
+    WHERE procesado_en IS NULL AND fallido_en IS NULL;
+
+-- Purga de las ya entregadas.
+CREATE INDEX ix_outbox_eventos_procesados ON outbox_eventos (procesado_en)
+    WHERE procesado_en IS NOT NULL;
@@ -0,0 +1,22 @@
+-- Claves de idempotencia (header Idempotency-Key) de las operaciones que las admiten, hoy solo
+-- POST /api/auth/register. Es el respaldo duradero de la caché en memoria de IdempotenciaRegistro:
+-- sirve para las repeticiones que llegan a otro nodo, después de un reinicio o cuando la clave ya
+-- salió de la caché.
+--
+--  - respuesta NULL: la operación está en curso (reservada por el nodo que la ejecuta desde creado_en).
+--  - huella: SHA-256 de los datos de la petición, sin la contraseña. La misma clave con otros datos
+--    se rechaza en lugar de devolver la respuesta de otra petición.
+-- https://datatracker.ietf.org/doc/draft-ietf-httpapi-idempotency-key-header/
+
+CREATE TABLE claves_idempotencia (
+    operacion varchar(32)                 NOT NULL,
+    clave     varchar(255)                NOT NULL,
+    huella    char(64)                    NOT NULL,
+    respuesta text,
+    creado_en timestamp(6) with time zone NOT NULL DEFAULT now(),
+    expira_en timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (operacion, clave)
+);
+
+-- Purga diaria de las caducadas.
+CREATE INDEX ix_claves_idempotencia_expira_en ON claves_idempotencia (expira_en);
@@ -0,0 +1,9 @@
+-- Rol de cada usuario para la autorización (ver SecurityConfig): USER o ADMIN.
+-- Todas las cuentas existentes y las nuevas (registro, OAuth2, importación) son USER; solo se llega a
+-- ADMIN con un UPDATE explícito en la BD:
+--   UPDATE usuarios SET rol = 'ADMIN' WHERE email = '...';
+-- Las rutas /api/admin/** (listado, exportación e importación de usuarios) exigen ADMIN.
+
+ALTER TABLE usuarios
+    ADD COLUMN rol varchar(16) NOT NULL DEFAULT 'USER'
+        CONSTRAINT ck_usuarios_rol CHECK (rol IN ('USER', 'ADMIN'));
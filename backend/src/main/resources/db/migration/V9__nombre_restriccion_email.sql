@@ -0,0 +1,24 @@
+-- Nombre fijo para la restricción única de usuarios.email.
+--
+-- Su nombre depende de quién creó la tabla: "usuarios_email_key" con V1 y "uk..." (un hash) en las BDs
+-- que creó Hibernate antes de Flyway. UsuarioRepository.esEmailDuplicado la reconoce por el nombre para
+-- responder 409 solo a un email repetido (y no a cualquier otra violación de integridad).
+-- Renombrar una restricción solo cambia el catálogo (también renombra su índice): no reescribe la tabla.
+-- https://www.postgresql.org/docs/current/sql-altertable.html
+
+DO $$
+DECLARE
+    actual text;
+BEGIN
+    SELECT c.conname INTO actual
+    FROM pg_constraint c
+    JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+    WHERE c.conrelid = 'usuarios'::regclass
+      AND c.contype = 'u'
+      AND array_length(c.conkey, 1) = 1
+      AND a.attname = 'email';
+    IF actual IS NOT NULL AND actual <> 'ux_usuarios_email' THEN
+        EXECUTE format('ALTER TABLE usuarios RENAME CONSTRAINT %I TO ux_usuarios_email', actual);
+    END IF;
+END
+$$;
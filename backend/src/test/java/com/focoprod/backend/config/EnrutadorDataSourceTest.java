@@ -0,0 +1,66 @@
+package com.focoprod.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnrutadorDataSourceTest {
+
+    // Pools sin arrancar: solo se usa su nombre para enrutar.
+    private final EnrutadorDataSource enrutador = new EnrutadorDataSource(new SimpleDriverDataSource(),
+            List.of(replica("replica-1"), replica("replica-2")), new SimpleMeterRegistry());
+
+    @AfterEach
+    void limpiar() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void lecturasAReplicasPorTurnoYEscriturasAlPrimario() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo("replica-1");
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo("replica-2");
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo("replica-1");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo(EnrutadorDataSource.PRIMARIO);
+
+        // Fuera de una petición HTTP escribir no fija el primario.
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(enrutador.determineCurrentLookupKey()).asString().startsWith("replica-");
+    }
+
+    @Test
+    void trasEscribirLaPeticionSigueLeyendoDelPrimario() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(enrutador.determineCurrentLookupKey()).asString().startsWith("replica-");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo(EnrutadorDataSource.PRIMARIO);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(enrutador.determineCurrentLookupKey()).isEqualTo(EnrutadorDataSource.PRIMARIO);
+
+        // Otra petición vuelve a leer de las réplicas.
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(enrutador.determineCurrentLookupKey()).asString().startsWith("replica-");
+    }
+
+    private static HikariDataSource replica(String nombre) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName(nombre);
+        return replica;
+    }
+}
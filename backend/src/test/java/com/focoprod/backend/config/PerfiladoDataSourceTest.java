@@ -0,0 +1,116 @@
+package com.focoprod.backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerfiladoDataSourceTest {
+
+    private static final String CONSULTA = "SELECT id FROM usuarios WHERE email = ?";
+
+    // BD falsa: cada consulta devuelve 2 filas con un 1 y cada actualización modifica 3 filas.
+    static class BaseDeDatosFalsa extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            return falso(Connection.class, (metodo, args) -> switch (metodo) {
+                case "prepareStatement" -> falso(PreparedStatement.class, (m, a) -> switch (m) {
+                    case "executeQuery" -> resultado();
+                    case "executeUpdate" -> 3;
+                    default -> null;
+                });
+                case "getAutoCommit" -> true;
+                default -> null;
+            });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+
+        private static ResultSet resultado() {
+            AtomicInteger quedan = new AtomicInteger(2);
+            return falso(ResultSet.class, (metodo, args) -> switch (metodo) {
+                case "next" -> quedan.getAndDecrement() > 0;
+                case "getLong" -> 1L;
+                default -> null;
+            });
+        }
+
+        interface Respuesta {
+            Object para(String metodo, Object[] args);
+        }
+
+        private static <T> T falso(Class<T> tipo, Respuesta respuesta) {
+            return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo},
+                    (proxy, metodo, args) -> {
+                        Object valor = respuesta.para(metodo.getName(), args);
+                        return valor == null && metodo.getReturnType() == boolean.class ? false
+                                : valor == null && metodo.getReturnType() == int.class ? 0 : valor;
+                    }));
+        }
+    }
+
+    private static PerfiladoSqlProperties properties() {
+        PerfiladoSqlProperties properties = new PerfiladoSqlProperties();
+        properties.setEnabled(true);
+        properties.setRepeticiones(3);
+        return properties;
+    }
+
+    @Test
+    void mideLatenciaYFilasPorSentencia() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PerfiladoDataSource perfilado = new PerfiladoDataSource(new BaseDeDatosFalsa(), properties(), registry);
+        JdbcTemplate jdbc = new JdbcTemplate(perfilado);
+
+        assertThat(jdbc.query(CONSULTA, (rs, i) -> rs.getLong(1), "a@x.com")).hasSize(2);
+        assertThat(jdbc.update("UPDATE   usuarios\n SET name = ? WHERE id = ?", "Ana", 1L)).isEqualTo(3);
+
+        assertThat(registry.get("focoprod.sql.statements").tags("operation", "select", "table", "usuarios")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get("focoprod.sql.rows").tags("operation", "select").summary().totalAmount())
+                .isEqualTo(2);
+        assertThat(registry.get("focoprod.sql.rows").tags("operation", "update", "table", "usuarios")
+                .summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void marcaLasPeticionesQueRepitenLaMismaSentencia() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PerfiladoDataSource perfilado = new PerfiladoDataSource(new BaseDeDatosFalsa(), properties(), registry);
+        JdbcTemplate jdbc = new JdbcTemplate(perfilado);
+
+        // 2 veces: por debajo del umbral.
+        perfilado.abrirPeticion("GET /a");
+        jdbc.query(CONSULTA, (rs, i) -> rs.getLong(1), "a@x.com");
+        jdbc.query(CONSULTA, (rs, i) -> rs.getLong(1), "b@x.com");
+        perfilado.cerrarPeticion();
+        assertThat(registry.find("focoprod.sql.repeated").counter()).isNull();
+
+        // 3 veces la misma sentencia (con otros parámetros) en una petición: N+1.
+        perfilado.abrirPeticion("GET /b");
+        for (String email : new String[]{"a@x.com", "b@x.com", "c@x.com"}) {
+            jdbc.query(CONSULTA, (rs, i) -> rs.getLong(1), email);
+        }
+        jdbc.update("UPDATE usuarios SET name = ? WHERE id = ?", "Ana", 1L);
+        perfilado.cerrarPeticion();
+        assertThat(registry.get("focoprod.sql.repeated").counter().count()).isEqualTo(1);
+
+        // Fuera de una petición no se cuenta nada.
+        for (int n = 0; n < 5; n++) {
+            jdbc.query(CONSULTA, (rs, i) -> rs.getLong(1), "a@x.com");
+        }
+        assertThat(registry.get("focoprod.sql.repeated").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.focoprod.backend.repositorios;
+
+import com.focoprod.backend.model.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+// Con la BD real: solo la restricción única de email cuenta como "el usuario ya existe" (→ 409),
+// y un email antiguo sin normalizar es la misma cuenta para el login OAuth2.
+@SpringBootTest(properties = "focoprod.warmup.enabled=false")
+class EmailDuplicadoTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> creados = new ArrayList<>();
+
+    @AfterEach
+    void borrarUsuarios() {
+        creados.forEach(id -> jdbcTemplate.update("DELETE FROM outbox_eventos WHERE usuario_id = ?", id));
+        usuarioRepository.deleteAllById(creados);
+    }
+
+    @Test
+    void elEmailRepetidoEsDuplicado() {
+        String email = "duplicado-" + UUID.randomUUID() + "@test.invalid";
+        creados.add(usuarioRepository.save(usuario(email, "Primero")).getId());
+
+        DataIntegrityViolationException error = catchThrowableOfType(DataIntegrityViolationException.class,
+                () -> usuarioRepository.save(usuario(email, "Segundo")));
+
+        assertThat(UsuarioRepository.esEmailDuplicado(error)).isTrue();
+    }
+
+    @Test
+    void otraViolacionNoLoEs() {
+        // name es NOT NULL y varchar(255): la BD lo rechaza, pero el email está libre.
+        DataIntegrityViolationException error = catchThrowableOfType(DataIntegrityViolationException.class,
+                () -> usuarioRepository.save(usuario("largo-" + UUID.randomUUID() + "@test.invalid", "x".repeat(300))));
+
+        assertThat(error).isNotNull();
+        assertThat(UsuarioRepository.esEmailDuplicado(error)).isFalse();
+    }
+
+    @Test
+    void elLoginOAuth2UsaLaCuentaConElEmailSinNormalizar() {
+        String email = "antiguo-" + UUID.randomUUID() + "@test.invalid";
+        // Como la dejaría un alta anterior a Usuario.normalizarEmail (el setter ya no lo permite).
+        Long id = jdbcTemplate.queryForObject(
+                "INSERT INTO usuarios (email, name, provider) VALUES (?, 'Antiguo', 'local') RETURNING id",
+                Long.class, email.toUpperCase());
+        creados.add(id);
+
+        var resultado = usuarioRepository.upsertOAuth2(email, "Antiguo", "google", "sub-" + id);
+
+        assertThat(resultado).isPresent();
+        assertThat(resultado.get().getId()).isEqualTo(id);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM usuarios WHERE lower(email) = ?",
+                Integer.class, email)).isEqualTo(1);
+    }
+
+    private static Usuario usuario(String email, String name) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail(email);
+        usuario.setName(name);
+        usuario.setProvider("local");
+        return usuario;
+    }
+}
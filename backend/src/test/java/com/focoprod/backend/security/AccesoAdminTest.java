@@ -0,0 +1,110 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// /api/admin/** con la BD real: cualquiera puede crearse una cuenta, así que estar autenticado no basta.
+@SpringBootTest(properties = "focoprod.warmup.enabled=false")
+@AutoConfigureMockMvc
+class AccesoAdminTest {
+
+    private static final String CONTRASENA = "contraseña-de-prueba";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PasswordHashingEngine passwordEncoder;
+
+    private final List<Long> creados = new ArrayList<>();
+
+    @AfterEach
+    void borrarUsuarios() {
+        usuarioRepository.deleteAllById(creados);
+    }
+
+    @Test
+    void unUsuarioRegistradoNoPuedeListarExportarNiImportar() throws Exception {
+        MockHttpSession sesion = login(crear(Usuario.ROL_USUARIO));
+
+        mockMvc.perform(get("/api/admin/usuarios").session(sesion)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/usuarios/export").session(sesion)).andExpect(status().isForbidden());
+        String csv = "importado-" + UUID.randomUUID() + "@test.invalid,Intruso,contraseña-elegida\n";
+        mockMvc.perform(post("/api/admin/usuarios/import").session(sesion).contentType("text/csv").content(csv))
+                .andExpect(status().isForbidden());
+        assertThat(usuarioRepository.findByEmail(csv.substring(0, csv.indexOf(',')))).isEmpty();
+        // Sin sesión: redirección al login, no 403.
+        mockMvc.perform(get("/api/admin/usuarios")).andExpect(status().is3xxRedirection());
+        mockMvc.perform(get("/api/admin/usuarios").with(user("a@x.com").roles(Usuario.ROL_USUARIO)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void deActuatorSoloLaSaludEsPublica() throws Exception {
+        mockMvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().is3xxRedirection());
+        mockMvc.perform(get("/actuator/metrics").with(user("a@x.com").roles(Usuario.ROL_USUARIO)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").with(user("a@x.com").roles(Usuario.ROL_USUARIO)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").with(user("admin@x.com").roles(Usuario.ROL_ADMIN)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void unAdminSi() throws Exception {
+        MockHttpSession sesion = login(crear(Usuario.ROL_ADMIN));
+
+        mockMvc.perform(get("/api/admin/usuarios").session(sesion)).andExpect(status().isOk());
+
+        // CSV sin cabecera cuya primera fila contiene "email": es una fila, no la cabecera.
+        String email = "email-" + UUID.randomUUID() + "@test.invalid";
+        mockMvc.perform(post("/api/admin/usuarios/import").session(sesion).contentType("text/csv")
+                        .content(email + ",Importado,contraseña-elegida\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.leidas").value(1))
+                .andExpect(jsonPath("$.insertadas").value(1));
+        usuarioRepository.findByEmail(email).ifPresent(cuenta -> creados.add(cuenta.id()));
+    }
+
+    private String crear(String rol) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail("acceso-admin-" + UUID.randomUUID() + "@test.invalid");
+        usuario.setName("Prueba");
+        usuario.setPassword(passwordEncoder.encode(CONTRASENA));
+        usuario.setProvider("local");
+        usuario.setRol(rol);
+        creados.add(usuarioRepository.save(usuario).getId());
+        return usuario.getEmail();
+    }
+
+    // Login con el formulario, como lo haría el navegador; devuelve la sesión autenticada.
+    private MockHttpSession login(String email) throws Exception {
+        return (MockHttpSession) mockMvc.perform(formLogin().userParameter("email").user(email).password(CONTRASENA))
+                .andExpect(authenticated())
+                .andReturn().getRequest().getSession(false);
+    }
+}
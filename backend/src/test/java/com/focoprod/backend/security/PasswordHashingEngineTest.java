@@ -0,0 +1,89 @@
+package com.focoprod.backend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.config.PasswordHashingProperties;
+import com.focoprod.backend.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class PasswordHashingEngineTest {
+
+    private static PasswordHashingEngine engine(int threads, int queueCapacity, int strength) {
+        PasswordHashingProperties props = new PasswordHashingProperties();
+        props.setThreads(threads);
+        props.setQueueCapacity(queueCapacity);
+        props.setStrength(strength);
+        return new PasswordHashingEngine(props, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void encodeYMatches() throws Exception {
+        PasswordHashingEngine engine = engine(2, 4, 4);
+        String hash = engine.encode("secreto");
+
+        assertThat(engine.matches("secreto", hash)).isTrue();
+        assertThat(engine.matches("otro", hash)).isFalse();
+        engine.destroy();
+    }
+
+    @Test
+    void pideRehashSiElCostGuardadoEsMenor() throws Exception {
+        PasswordHashingEngine engine = engine(1, 4, 5);
+
+        assertThat(engine.upgradeEncoding(new BCryptPasswordEncoder(4).encode("x"))).isTrue();
+        assertThat(engine.upgradeEncoding(engine.encode("x"))).isFalse();
+        engine.destroy();
+    }
+
+    @Test
+    void rechazaCuandoLaColaEstaLlena() throws Exception {
+        // Un hilo ocupado con un hash caro y una cola de 1: la tercera tarea no cabe.
+        PasswordHashingEngine engine = engine(1, 1, 13);
+        engine.encodeAsync("a");
+        engine.encodeAsync("b");
+
+        assertThatThrownBy(() -> engine.encodeAsync("c"))
+                .isInstanceOf(ServicioSaturadoException.class)
+                .satisfies(e -> assertThat(((ServicioSaturadoException) e).getRetryAfter()).isPositive());
+        engine.destroy();
+    }
+
+    @Test
+    void enElLoginLaColaLlenaEsUn503() throws Exception {
+        PasswordHashingEngine engine = engine(1, 1, 13);
+        engine.encodeAsync("a");
+        engine.encodeAsync("b");
+
+        // matches lo llama DaoAuthenticationProvider: el fallo tiene que ser una AuthenticationException.
+        AuthenticationServiceException error = catchThrowableOfType(AuthenticationServiceException.class,
+                () -> engine.matches("c", "$2a$13$hash"));
+        assertThat(error).hasCauseInstanceOf(ServicioSaturadoException.class);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new LoginFallidoHandler(new ObjectMapper())
+                .onAuthenticationFailure(new MockHttpServletRequest(), response, error);
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isNotBlank();
+        assertThat(response.getContentAsString()).contains("\"error\"");
+        engine.destroy();
+    }
+
+    @Test
+    void calibracionExtrapolaYRespetaLimites() {
+        long ms = TimeUnit.MILLISECONDS.toNanos(1);
+
+        assertThat(BCryptCalibrator.elegir(60 * ms, 250 * ms, 10, 14)).isEqualTo(12);
+        assertThat(BCryptCalibrator.elegir(400 * ms, 250 * ms, 10, 14)).isEqualTo(10);
+        assertThat(BCryptCalibrator.elegir(1 * ms, 250 * ms, 10, 14)).isEqualTo(14);
+    }
+}
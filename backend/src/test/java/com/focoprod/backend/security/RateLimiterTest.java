@@ -0,0 +1,183 @@
+package com.focoprod.backend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.config.IdempotenciaProperties;
+import com.focoprod.backend.config.RateLimitProperties;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.repositorios.ClaveIdempotenciaRepository;
+import com.focoprod.backend.service.IdempotenciaRegistro;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final AtomicLong reloj = new AtomicLong();
+
+    private static RateLimitProperties.Regla regla(int capacidad, Duration periodo) {
+        RateLimitProperties.Regla regla = new RateLimitProperties.Regla();
+        regla.setName("prueba");
+        regla.setCapacity(capacidad);
+        regla.setPeriod(periodo);
+        return regla;
+    }
+
+    private RateLimiter limitador(int maxBuckets) {
+        RateLimitProperties props = new RateLimitProperties();
+        props.setStripes(4);
+        props.setMaxBuckets(maxBuckets);
+        return new RateLimiter(props, reloj::get);
+    }
+
+    @Test
+    void admiteLaRafagaYLuegoAlRitmoDeRelleno() {
+        RateLimiter limitador = limitador(1000);
+        RateLimitProperties.Regla regla = regla(3, Duration.ofSeconds(3));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limitador.intentar(regla, "1.2.3.4")).isZero();
+        }
+        assertThat(limitador.intentar(regla, "1.2.3.4")).isEqualTo(Duration.ofSeconds(1).toNanos());
+        // Cada clave tiene su propio cubo.
+        assertThat(limitador.intentar(regla, "5.6.7.8")).isZero();
+
+        reloj.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(limitador.intentar(regla, "1.2.3.4")).isZero();
+        assertThat(limitador.intentar(regla, "1.2.3.4")).isPositive();
+    }
+
+    @Test
+    void borraLosCubosLlenosYAcotaElTamanio() {
+        RateLimiter limitador = limitador(8);
+        RateLimitProperties.Regla regla = regla(2, Duration.ofSeconds(2));
+
+        for (int i = 0; i < 100; i++) {
+            limitador.intentar(regla, "ip" + i);
+        }
+        // 4 particiones de 2 cubos como máximo.
+        assertThat(limitador.tamanio()).isLessThanOrEqualTo(8);
+
+        limitador.limpiar();
+        assertThat(limitador.tamanio()).isPositive();
+
+        reloj.addAndGet(Duration.ofSeconds(1).toNanos());
+        limitador.limpiar();
+        assertThat(limitador.tamanio()).isZero();
+    }
+
+    @Test
+    void soloElRegistroRepetidoConLaMismaClaveYLosMismosDatosNoGastaDelCuboPorEmail() throws Exception {
+        RateLimitProperties.Regla registroIp = regla("/api/auth/register", RateLimitProperties.Clave.IP, 2);
+        RateLimitProperties.Regla registroEmail = regla("/api/auth/register", RateLimitProperties.Clave.EMAIL, 1);
+        registroEmail.setExemptIdempotentReplays(true);
+        RateLimitProperties.Regla loginEmail = regla("/login", RateLimitProperties.Clave.EMAIL, 1);
+        RateLimitProperties props = new RateLimitProperties();
+        props.setRules(List.of(registroIp, registroEmail, loginEmail));
+
+        // claves_idempotencia en memoria; cuenta las lecturas para ver que el cubo por IP va antes.
+        AtomicInteger lecturas = new AtomicInteger();
+        Map<String, ClaveIdempotenciaRepository.Registro> guardadas = new ConcurrentHashMap<>();
+        ClaveIdempotenciaRepository claves = new ClaveIdempotenciaRepository(null) {
+            @Override
+            public boolean reservar(String operacion, String clave, String huella, Instant expiraEn, Duration reserva) {
+                return guardadas.putIfAbsent(clave, new Registro(huella, null)) == null;
+            }
+
+            @Override
+            public Optional<Registro> buscar(String operacion, String clave) {
+                lecturas.incrementAndGet();
+                return Optional.ofNullable(guardadas.get(clave));
+            }
+
+            @Override
+            public void guardarRespuesta(String operacion, String clave, String respuesta) {
+                guardadas.computeIfPresent(clave, (k, r) -> new Registro(r.huella(), respuesta));
+            }
+        };
+        IdempotenciaRegistro idempotencia = new IdempotenciaRegistro(claves, new IdempotenciaProperties(),
+                new ObjectMapper(), new SimpleMeterRegistry());
+        RateLimitFilter filtro = new RateLimitFilter(props, limitador(100), new ObjectMapper(), idempotencia,
+                new SimpleMeterRegistry());
+        try {
+            // Registro ya hecho con la clave "k": ana@x.com / Ana.
+            RegistroRequest hecho = new RegistroRequest();
+            hecho.setEmail("ana@x.com");
+            hecho.setName("Ana");
+            UsuarioResponse respuesta = new UsuarioResponse();
+            respuesta.setEmail("ana@x.com");
+            idempotencia.ejecutar("k", hecho, () -> CompletableFuture.completedFuture(respuesta))
+                    .get(5, TimeUnit.SECONDS);
+
+            // Repetirlo no gasta del cubo por email (capacidad 1), solo del de IP.
+            assertThat(registro(filtro, "1.1.1.1", "k", "ana@x.com", "Ana")).isEqualTo(200);
+            assertThat(registro(filtro, "1.1.1.2", "k", "ana@x.com", "Ana")).isEqualTo(200);
+            assertThat(registro(filtro, "1.1.1.3", "k", "ana@x.com", "Ana")).isEqualTo(200);
+            // Misma clave con otros datos: no es una repetición y se cobra.
+            assertThat(registro(filtro, "1.1.1.4", "k", "ana@x.com", "Otra")).isEqualTo(200);
+            assertThat(registro(filtro, "1.1.1.5", "k", "ana@x.com", "Otra")).isEqualTo(429);
+
+            // En el login una clave conocida no exime de nada.
+            assertThat(login(filtro, "k", "ana@x.com")).isEqualTo(200);
+            assertThat(login(filtro, "k", "ana@x.com")).isEqualTo(429);
+
+            // Lo que rechaza el cubo por IP no llega a consultar claves_idempotencia.
+            registro(filtro, "2.2.2.2", "nueva", "eva@x.com", "Eva");
+            registro(filtro, "2.2.2.2", "nueva", "eva@x.com", "Eva");
+            int antes = lecturas.get();
+            assertThat(registro(filtro, "2.2.2.2", "nueva", "eva@x.com", "Eva")).isEqualTo(429);
+            assertThat(lecturas).hasValue(antes);
+        } finally {
+            idempotencia.destroy();
+        }
+    }
+
+    private static RateLimitProperties.Regla regla(String ruta, RateLimitProperties.Clave clave, int capacidad) {
+        RateLimitProperties.Regla regla = regla(capacidad, Duration.ofMinutes(10));
+        regla.setName(ruta + "-" + clave);
+        regla.setPath(ruta);
+        regla.setMethods(List.of("POST"));
+        regla.setKey(clave);
+        return regla;
+    }
+
+    private static int registro(RateLimitFilter filtro, String ip, String idempotencyKey,
+                                String email, String name) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/register");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"name\":\"" + name + "\"}").getBytes(StandardCharsets.UTF_8));
+        request.addHeader("Idempotency-Key", idempotencyKey);
+        return filtrar(filtro, request);
+    }
+
+    private static int login(RateLimitFilter filtro, String idempotencyKey, String email) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setParameter("email", email);
+        request.setParameter("password", "probando");
+        request.addHeader("Idempotency-Key", idempotencyKey);
+        return filtrar(filtro, request);
+    }
+
+    private static int filtrar(RateLimitFilter filtro, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,101 @@
+package com.focoprod.backend.security;
+
+import com.focoprod.backend.model.CuentaUsuario;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.TokenRevocadoRepository;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Rotación de refresh tokens con la BD real: cada refresh token da tokens nuevos una sola vez.
+@SpringBootTest(properties = {"focoprod.warmup.enabled=false", "focoprod.auth.mode=stateless"})
+class RotacionRefreshTest {
+
+    private static final int PETICIONES = 8;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TokenRevocadoRepository tokenRevocadoRepository;
+
+    private CuentaUsuario cuenta;
+
+    @BeforeEach
+    void crearUsuario() {
+        Usuario usuario = new Usuario();
+        usuario.setEmail("refresh-" + UUID.randomUUID() + "@test.invalid");
+        usuario.setName("Prueba");
+        usuario.setProvider("local");
+        cuenta = CuentaUsuario.de(usuarioRepository.save(usuario));
+    }
+
+    @AfterEach
+    void borrarUsuario() {
+        usuarioRepository.deleteById(cuenta.id());
+    }
+
+    @Test
+    void unRefreshTokenUsadoNoSirveOtraVez() throws Exception {
+        String refresh = tokenService.emitir(cuenta).getRefreshToken();
+
+        assertThat(tokenService.refrescar(refresh).getRefreshToken()).isNotEqualTo(refresh);
+        assertThatThrownBy(() -> tokenService.refrescar(refresh)).isInstanceOf(JwtException.class);
+
+        // Otro nodo todavía no lo tiene en memoria: la BD lo rechaza igual.
+        TokenRevocationList otroNodo = new TokenRevocationList(tokenRevocadoRepository);
+        assertThat(otroNodo.estaRevocado(jti(refresh))).isFalse();
+        assertThat(otroNodo.reclamar(jti(refresh), Instant.now().plusSeconds(60))).isFalse();
+    }
+
+    @Test
+    void dosRefrescosALaVezSoloUnoGana() throws Exception {
+        String refresh = tokenService.emitir(cuenta).getRefreshToken();
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try (ExecutorService hilos = Executors.newFixedThreadPool(PETICIONES)) {
+            for (int i = 0; i < PETICIONES; i++) {
+                resultados.add(hilos.submit(() -> {
+                    salida.await();
+                    try {
+                        tokenService.refrescar(refresh);
+                        return true;
+                    } catch (JwtException e) {
+                        return false;
+                    }
+                }));
+            }
+            salida.countDown();
+        }
+
+        long ganadores = 0;
+        for (Future<Boolean> resultado : resultados) {
+            ganadores += resultado.get() ? 1 : 0;
+        }
+        assertThat(ganadores).isEqualTo(1);
+    }
+
+    private static String jti(String token) throws Exception {
+        return SignedJWT.parse(token).getJWTClaimsSet().getJWTID();
+    }
+}
@@ -0,0 +1,37 @@
+package com.focoprod.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void nuncaDaFalsosNegativos() {
+        BloomFilter filtro = BloomFilter.crear(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@focoprod.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filtro.podriaContener("usuario" + i + "@focoprod.com")).isTrue();
+        }
+    }
+
+    @Test
+    void tasaDeFalsosPositivosCercanaALaConfigurada() {
+        BloomFilter filtro = BloomFilter.crear(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@focoprod.com");
+        }
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.podriaContener("otro" + i + "@focoprod.com")) {
+                falsosPositivos++;
+            }
+        }
+
+        assertThat(falsosPositivos / 100_000.0).isLessThan(0.02);
+        assertThat(filtro.tasaFalsosPositivosEstimada()).isBetween(0.005, 0.02);
+    }
+}
@@ -0,0 +1,166 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.OutboxProperties;
+import com.focoprod.backend.model.EventoOutbox;
+import com.focoprod.backend.repositorios.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DespachadorOutboxTest {
+
+    // Outbox en memoria: reclamar() devuelve los pendientes (sin mirar disponible_en), solo el más antiguo
+    // de cada usuario, y suma un intento; reprogramar() los devuelve a pendientes.
+    static class RepositorioEnMemoria extends OutboxRepository {
+
+        final Map<Long, EventoOutbox> pendientes = new TreeMap<>();
+        final Map<Long, EventoOutbox> reclamados = new LinkedHashMap<>();
+        final List<Long> procesados = new ArrayList<>();
+        final List<Duration> esperas = new ArrayList<>();
+        final List<Long> fallidos = new ArrayList<>();
+
+        RepositorioEnMemoria(long... ids) {
+            super(null);
+            for (long id : ids) {
+                agregar(id, id);
+            }
+        }
+
+        void agregar(long id, long usuarioId) {
+            pendientes.put(id, new EventoOutbox(id, EventoOutbox.USUARIO_REGISTRADO, usuarioId, "{}", 0, Instant.now()));
+        }
+
+        @Override
+        public synchronized List<EventoOutbox> reclamar(int lote, Duration bloqueo) {
+            List<EventoOutbox> lista = new ArrayList<>();
+            Set<Long> usuarios = new HashSet<>();
+            for (EventoOutbox e : pendientes.values()) {
+                if (usuarios.add(e.usuarioId()) && lista.size() < lote) {
+                    lista.add(new EventoOutbox(e.id(), e.tipo(), e.usuarioId(), e.payload(),
+                            e.intentos() + 1, e.creadoEn()));
+                }
+            }
+            lista.forEach(e -> {
+                pendientes.remove(e.id());
+                reclamados.put(e.id(), e);
+            });
+            return lista;
+        }
+
+        @Override
+        public synchronized void marcarProcesados(List<Long> ids) {
+            procesados.addAll(ids);
+        }
+
+        @Override
+        public synchronized void reprogramar(long id, Duration espera, String error) {
+            esperas.add(espera);
+            pendientes.put(id, reclamados.remove(id));
+        }
+
+        @Override
+        public synchronized void marcarFallido(long id, String error) {
+            fallidos.add(id);
+        }
+    }
+
+    private static OutboxProperties properties(int maxIntentos) {
+        OutboxProperties p = new OutboxProperties();
+        p.setTamanoLote(10);
+        p.setMaxIntentos(maxIntentos);
+        p.setBackoffInicial(Duration.ofSeconds(1));
+        p.setBackoffMaximo(Duration.ofSeconds(4));
+        return p;
+    }
+
+    private static DespachadorOutbox despachador(RepositorioEnMemoria repo, OutboxProperties properties,
+                                                 ManejadorOutbox... manejadores) {
+        Map<String, Object> beans = new LinkedHashMap<>();
+        for (int i = 0; i < manejadores.length; i++) {
+            beans.put("manejador" + i, manejadores[i]);
+        }
+        return new DespachadorOutbox(repo, properties,
+                new StaticListableBeanFactory(beans).getBeanProvider(ManejadorOutbox.class),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void reintentaLoQueFallaYMarcaLoEntregado() {
+        RepositorioEnMemoria repo = new RepositorioEnMemoria(1, 2);
+        OutboxProperties properties = properties(5);
+        ManejadorOutboxEnMemoria enMemoria = new ManejadorOutboxEnMemoria(properties);
+        AtomicInteger fallos = new AtomicInteger();
+        // Falla la primera entrega del evento 1, antes de que llegue a enMemoria.
+        ManejadorOutbox inestable = evento -> {
+            if (evento.id() == 1 && fallos.getAndIncrement() == 0) {
+                throw new IllegalStateException("CRM caído");
+            }
+        };
+        DespachadorOutbox despachador = despachador(repo, properties, inestable, enMemoria);
+
+        assertThat(despachador.despachar()).isEqualTo(2);
+        assertThat(repo.procesados).containsExactly(2L);
+        assertThat(repo.esperas).hasSize(1);
+        assertThat(repo.esperas.getFirst()).isBetween(Duration.ofMillis(500), Duration.ofSeconds(1));
+
+        assertThat(despachador.despachar()).isEqualTo(1);
+        assertThat(repo.procesados).containsExactly(2L, 1L);
+        assertThat(enMemoria.recibidos()).extracting(EventoOutbox::id).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(repo.fallidos).isEmpty();
+    }
+
+    @Test
+    void losEventosDeUnUsuarioSalenEnOrdenAunqueElPrimeroFalle() {
+        RepositorioEnMemoria repo = new RepositorioEnMemoria();
+        repo.agregar(1, 5);
+        repo.agregar(2, 5);
+        repo.agregar(3, 6);
+        OutboxProperties properties = properties(5);
+        ManejadorOutboxEnMemoria enMemoria = new ManejadorOutboxEnMemoria(properties);
+        AtomicInteger fallos = new AtomicInteger();
+        ManejadorOutbox inestable = evento -> {
+            if (evento.id() == 1 && fallos.getAndIncrement() == 0) {
+                throw new IllegalStateException("CRM caído");
+            }
+        };
+        DespachadorOutbox despachador = despachador(repo, properties, inestable, enMemoria);
+
+        // El 2 espera al reintento del 1; el 3 es de otro usuario y sale ya.
+        despachador.despachar();
+        assertThat(repo.procesados).containsExactly(3L);
+        despachador.despachar();
+        despachador.despachar();
+        assertThat(repo.procesados).containsExactly(3L, 1L, 2L);
+        assertThat(enMemoria.recibidos()).extracting(EventoOutbox::id).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    void marcaFallidoAlAgotarLosIntentosYLimitaElBackoff() {
+        RepositorioEnMemoria repo = new RepositorioEnMemoria(7);
+        DespachadorOutbox despachador = despachador(repo, properties(3), evento -> {
+            throw new IllegalStateException("siempre falla");
+        });
+
+        for (int i = 0; i < 3; i++) {
+            despachador.despachar();
+        }
+
+        assertThat(repo.esperas).hasSize(2);
+        assertThat(repo.fallidos).containsExactly(7L);
+        assertThat(repo.procesados).isEmpty();
+        assertThat(despachador.espera(10)).isBetween(Duration.ofSeconds(2), Duration.ofSeconds(4));
+    }
+}
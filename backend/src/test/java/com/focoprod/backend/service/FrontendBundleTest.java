@@ -0,0 +1,79 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.FrontendProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrontendBundleTest {
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void incluyeFragmentosYReescribeAssetsConHuella() throws IOException {
+        Files.writeString(carpeta.resolve("index.html"), """
+                <link rel="stylesheet" href="main.css?v=7">
+                <div class="slot" data-include="header.html"></div>
+                <a href="registro.html">Registro</a>
+                """);
+        Files.writeString(carpeta.resolve("header.html"), "<img src=\"images/logo.png\">");
+        Files.writeString(carpeta.resolve("main.css"), "@import url(\"base.css\");\n");
+        Files.writeString(carpeta.resolve("base.css"), "body { background: url(images/logo.png); }");
+        Files.createDirectories(carpeta.resolve("images"));
+        Files.write(carpeta.resolve("images/logo.png"), new byte[]{1, 2, 3});
+
+        FrontendBundle bundle = bundle();
+        String html = new String(bundle.buscar("/").orElseThrow().contenido(), StandardCharsets.UTF_8);
+
+        assertThat(html).doesNotContain("data-include").contains("<div class=\"slot\"><img src=\"/assets/images/logo.");
+        assertThat(html).contains("href=\"registro.html\"");
+        String css = urlDe(html, "/assets/main\\.[0-9a-f]{10}\\.css");
+        FrontendBundle.Recurso main = bundle.buscar(css).orElseThrow();
+        assertThat(main.inmutable()).isTrue();
+        String base = urlDe(new String(main.contenido(), StandardCharsets.UTF_8), "/assets/base\\.[0-9a-f]{10}\\.css");
+        assertThat(new String(bundle.buscar(base).orElseThrow().contenido(), StandardCharsets.UTF_8))
+                .contains("url(/assets/images/logo.");
+        // Los fragmentos no se sirven como páginas; los assets también por su nombre original, sin caché larga.
+        assertThat(bundle.buscar("/header.html")).isEmpty();
+        assertThat(bundle.buscar("/assets/main.css").orElseThrow().inmutable()).isFalse();
+    }
+
+    @Test
+    void precomprimeSoloLoQueCompensa() throws IOException {
+        Files.writeString(carpeta.resolve("index.html"), "<p>FocoProd</p>\n".repeat(200));
+        Files.write(carpeta.resolve("logo.png"), new byte[]{1, 2, 3});
+
+        FrontendBundle bundle = bundle();
+        FrontendBundle.Recurso pagina = bundle.buscar("/index.html").orElseThrow();
+
+        assertThat(pagina.gzip()).isNotNull().hasSizeLessThan(pagina.contenido().length / 10);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(pagina.gzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(pagina.contenido());
+        }
+        assertThat(bundle.buscar("/assets/logo.png").orElseThrow().gzip()).isNull();
+    }
+
+    private FrontendBundle bundle() {
+        FrontendProperties properties = new FrontendProperties();
+        properties.setLocation(carpeta.toUri().toString());
+        return new FrontendBundle(properties, new DefaultResourceLoader());
+    }
+
+    private static String urlDe(String texto, String patron) {
+        Matcher m = Pattern.compile(patron).matcher(texto);
+        assertThat(m.find()).as("%s en %s", patron, texto).isTrue();
+        return m.group();
+    }
+}
@@ -0,0 +1,183 @@
+package com.focoprod.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.config.IdempotenciaProperties;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.UsuarioResponse;
+import com.focoprod.backend.exception.ClaveIdempotenciaException;
+import com.focoprod.backend.repositorios.ClaveIdempotenciaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotenciaRegistroTest {
+
+    // Tabla claves_idempotencia en memoria (sin caducidad).
+    static class RepositorioEnMemoria extends ClaveIdempotenciaRepository {
+
+        final Map<String, Registro> claves = new ConcurrentHashMap<>();
+
+        RepositorioEnMemoria() {
+            super(null);
+        }
+
+        @Override
+        public boolean reservar(String operacion, String clave, String huella, Instant expiraEn, Duration reserva) {
+            return claves.putIfAbsent(clave, new Registro(huella, null)) == null;
+        }
+
+        @Override
+        public Optional<Registro> buscar(String operacion, String clave) {
+            return Optional.ofNullable(claves.get(clave));
+        }
+
+        @Override
+        public void guardarRespuesta(String operacion, String clave, String respuesta) {
+            claves.computeIfPresent(clave, (k, r) -> new Registro(r.huella(), respuesta));
+        }
+
+        @Override
+        public void liberar(String operacion, String clave) {
+            claves.remove(clave);
+        }
+    }
+
+    private static IdempotenciaRegistro idempotencia(RepositorioEnMemoria repo) {
+        return new IdempotenciaRegistro(repo, new IdempotenciaProperties(), new ObjectMapper(),
+                new SimpleMeterRegistry());
+    }
+
+    private static UsuarioResponse usuario(long id, String email) {
+        UsuarioResponse usuario = new UsuarioResponse();
+        usuario.setId(id);
+        usuario.setName("Ana");
+        usuario.setEmail(email);
+        usuario.setProvider("local");
+        return usuario;
+    }
+
+    private static RegistroRequest peticion(String email) {
+        RegistroRequest request = new RegistroRequest();
+        request.setEmail(email);
+        request.setName("Ana");
+        request.setPassword("clave-segura-1");
+        return request;
+    }
+
+    @Test
+    void unaSolaEjecucionPorClaveAunqueLleguenAlaVez() throws Exception {
+        RepositorioEnMemoria repo = new RepositorioEnMemoria();
+        IdempotenciaRegistro idempotencia = idempotencia(repo);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CompletableFuture<UsuarioResponse> registro = new CompletableFuture<>();
+        try {
+            var primera = idempotencia.ejecutar("k1", peticion("ana@x.com"), () -> {
+                ejecuciones.incrementAndGet();
+                return registro;
+            });
+            var segunda = idempotencia.ejecutar("k1", peticion("ana@x.com"), () -> {
+                ejecuciones.incrementAndGet();
+                return CompletableFuture.completedFuture(usuario(2L, "ana@x.com"));
+            });
+
+            registro.complete(usuario(1L, "ana@x.com"));
+            assertThat(primera.get(5, TimeUnit.SECONDS).repetida()).isFalse();
+            assertThat(segunda.get(5, TimeUnit.SECONDS))
+                    .isEqualTo(new IdempotenciaRegistro.Respuesta(usuario(1L, "ana@x.com"), true));
+            assertThat(ejecuciones).hasValue(1);
+
+            // Otro nodo (caché vacía) con la misma clave: responde lo guardado en la BD.
+            IdempotenciaRegistro otroNodo = idempotencia(repo);
+            try {
+                assertThat(otroNodo.ejecutar("k1", peticion("ana@x.com"), () -> {
+                    throw new AssertionError("no debe ejecutarse");
+                }).get(5, TimeUnit.SECONDS).cuerpo()).isEqualTo(usuario(1L, "ana@x.com"));
+            } finally {
+                otroNodo.destroy();
+            }
+        } finally {
+            idempotencia.destroy();
+        }
+    }
+
+    @Test
+    void rechazaClaveReutilizadaYLiberaLaClaveSiElRegistroFalla() throws Exception {
+        RepositorioEnMemoria repo = new RepositorioEnMemoria();
+        IdempotenciaRegistro idempotencia = idempotencia(repo);
+        try {
+            var fallida = idempotencia.ejecutar("k2", peticion("bea@x.com"),
+                    () -> CompletableFuture.failedFuture(new IllegalStateException("cola llena")));
+            assertThatThrownBy(() -> fallida.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(repo.claves).doesNotContainKey("k2");
+
+            assertThat(idempotencia.ejecutar("k2", peticion("bea@x.com"),
+                    () -> CompletableFuture.completedFuture(usuario(3L, "bea@x.com")))
+                    .get(5, TimeUnit.SECONDS).repetida()).isFalse();
+            var otraPeticion = idempotencia.ejecutar("k2", peticion("carla@x.com"),
+                    () -> CompletableFuture.completedFuture(usuario(4L, "carla@x.com")));
+            assertThatThrownBy(() -> otraPeticion.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ClaveIdempotenciaException.class);
+        } finally {
+            idempotencia.destroy();
+        }
+    }
+
+    @Test
+    void elRegistroSeEjecutaConLosAtributosDeLaPeticion() throws Exception {
+        MockHttpServletRequest peticionHttp = new MockHttpServletRequest();
+        peticionHttp.setAttribute("origen", "peticion");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(peticionHttp));
+        // La reserva termina después de que ejecutar() devuelva: el registro corre en el hilo virtual
+        // y no en el de la petición.
+        CountDownLatch reserva = new CountDownLatch(1);
+        RepositorioEnMemoria repo = new RepositorioEnMemoria() {
+            @Override
+            public boolean reservar(String operacion, String clave, String huella, Instant expiraEn, Duration espera) {
+                try {
+                    reserva.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.reservar(operacion, clave, huella, expiraEn, espera);
+            }
+        };
+        IdempotenciaRegistro idempotencia = idempotencia(repo);
+        try {
+            AtomicReference<Object> visto = new AtomicReference<>();
+            var respuesta = idempotencia.ejecutar("k3", peticion("dani@x.com"), () -> {
+                RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+                if (atributos != null) {
+                    visto.set(atributos.getAttribute("origen", RequestAttributes.SCOPE_REQUEST));
+                    // Como EnrutadorDataSource al escribir: tiene que llegar a la petición original.
+                    atributos.setAttribute("escrito", Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+                }
+                return CompletableFuture.completedFuture(usuario(5L, "dani@x.com"));
+            });
+            reserva.countDown();
+            respuesta.get(5, TimeUnit.SECONDS);
+
+            assertThat(visto).hasValue("peticion");
+            assertThat(peticionHttp.getAttribute("escrito")).isEqualTo(Boolean.TRUE);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            idempotencia.destroy();
+        }
+    }
+}
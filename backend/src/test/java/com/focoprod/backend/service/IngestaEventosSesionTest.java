@@ -0,0 +1,158 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.config.EventosSesionProperties;
+import com.focoprod.backend.dto.EventoSesionRequest;
+import com.focoprod.backend.dto.IngestaEventosResultado;
+import com.focoprod.backend.exception.ServicioSaturadoException;
+import com.focoprod.backend.model.EventoSesion;
+import com.focoprod.backend.repositorios.EventoSesionBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestaEventosSesionTest {
+
+    // Repositorio en memoria con la misma semántica que ON CONFLICT DO NOTHING ... RETURNING.
+    static class RepositorioEnMemoria extends EventoSesionBatchRepository {
+
+        final Set<EventoSesion.Clave> guardados = new HashSet<>();
+        final List<Integer> lotes = new ArrayList<>();
+        final CountDownLatch bloqueo;
+
+        RepositorioEnMemoria(CountDownLatch bloqueo) {
+            super(null);
+            this.bloqueo = bloqueo;
+        }
+
+        @Override
+        public synchronized Set<EventoSesion.Clave> insertar(List<EventoSesion> eventos) {
+            try {
+                bloqueo.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lotes.add(eventos.size());
+            Set<EventoSesion.Clave> nuevos = new HashSet<>();
+            for (EventoSesion e : eventos) {
+                if (guardados.add(e.clave())) {
+                    nuevos.add(e.clave());
+                }
+            }
+            return nuevos;
+        }
+    }
+
+    private static EventoSesionRequest evento(String id) {
+        EventoSesionRequest e = new EventoSesionRequest();
+        e.setId(id);
+        e.setSesionId("s1");
+        e.setTipo("START");
+        e.setOcurridoEn(Instant.now());
+        return e;
+    }
+
+    private static EventosSesionProperties properties(int capacidad) {
+        EventosSesionProperties p = new EventosSesionProperties();
+        p.setCapacidadBuffer(capacidad);
+        p.setMaxPorPeticion(capacidad);
+        p.setIntervaloFlush(Duration.ofMillis(200));
+        return p;
+    }
+
+    @Test
+    void agrupaPeticionesEnUnaEscrituraYDescartaReintentos() throws Exception {
+        RepositorioEnMemoria repo = new RepositorioEnMemoria(new CountDownLatch(0));
+        IngestaEventosSesion ingesta = new IngestaEventosSesion(repo, properties(100), evento -> { },
+                new SimpleMeterRegistry());
+        try {
+            CompletableFuture<IngestaEventosResultado> a = ingesta.ingerir(1, List.of(evento("a"), evento("b")));
+            CompletableFuture<IngestaEventosResultado> b = ingesta.ingerir(1, List.of(evento("b"), evento("c")));
+            CompletableFuture<IngestaEventosResultado> otroUsuario = ingesta.ingerir(2, List.of(evento("a")));
+
+            assertThat(a.get(5, TimeUnit.SECONDS).getInsertados()).isEqualTo(2);
+            assertThat(b.get(5, TimeUnit.SECONDS).getInsertados()).isEqualTo(1);
+            assertThat(b.get().getDuplicados()).isEqualTo(1);
+            assertThat(otroUsuario.get(5, TimeUnit.SECONDS).getInsertados()).isEqualTo(1);
+            assertThat(repo.lotes).containsExactly(5);
+
+            IngestaEventosResultado reintento = ingesta.ingerir(1, List.of(evento("a"), evento("a")))
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(reintento.getInsertados()).isZero();
+            assertThat(reintento.getDuplicados()).isEqualTo(2);
+        } finally {
+            ingesta.destroy();
+        }
+    }
+
+    @Test
+    void rechazaLaPeticionEnteraSiElBufferEstaLleno() throws Exception {
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        RepositorioEnMemoria repo = new RepositorioEnMemoria(bloqueo);
+        IngestaEventosSesion ingesta = new IngestaEventosSesion(repo, properties(3), evento -> { },
+                new SimpleMeterRegistry());
+        try {
+            CompletableFuture<IngestaEventosResultado> primera = ingesta.ingerir(1, List.of(evento("a"), evento("b")));
+
+            assertThatThrownBy(() -> ingesta.ingerir(1, List.of(evento("c"), evento("d"))))
+                    .isInstanceOf(ServicioSaturadoException.class);
+
+            bloqueo.countDown();
+            assertThat(primera.get(5, TimeUnit.SECONDS).getInsertados()).isEqualTo(2);
+            // Escrito el lote, el hueco vuelve a estar libre.
+            assertThat(ingesta.ingerir(1, List.of(evento("c"), evento("d"))).get(5, TimeUnit.SECONDS)
+                    .getInsertados()).isEqualTo(2);
+        } finally {
+            ingesta.destroy();
+        }
+    }
+
+    @Test
+    void alCerrarTodasLasPeticionesAceptadasRecibenRespuesta() throws Exception {
+        IngestaEventosSesion ingesta = new IngestaEventosSesion(new RepositorioEnMemoria(new CountDownLatch(0)),
+                properties(10_000), evento -> { }, new SimpleMeterRegistry());
+        List<CompletableFuture<IngestaEventosResultado>> aceptadas = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean cerrando = new AtomicBoolean();
+        List<Thread> emisores = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefijo = "t" + t + "-";
+            emisores.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; ; i++) {
+                    try {
+                        aceptadas.add(ingesta.ingerir(1, List.of(evento(prefijo + i))));
+                    } catch (ServicioSaturadoException e) {
+                        if (cerrando.get()) {
+                            return;
+                        }
+                    }
+                }
+            }));
+        }
+
+        Thread.sleep(50);
+        cerrando.set(true);
+        ingesta.destroy();
+        for (Thread emisor : emisores) {
+            emisor.join(5_000);
+        }
+
+        assertThat(aceptadas).isNotEmpty();
+        // Lo aceptado mientras se cerraba se escribe; lo que llega después se rechaza con 503, nada queda esperando.
+        for (CompletableFuture<IngestaEventosResultado> futuro : aceptadas) {
+            assertThat(futuro.get(5, TimeUnit.SECONDS).getInsertados()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.focoprod.backend.service;
+
+import com.focoprod.backend.model.EventoOutbox;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.OutboxRepository;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Con la BD real. Para poder crear dos cuentas que solo se diferencian en mayúsculas hay que quitar
+// antes el índice único sobre lower(email); el propio job lo vuelve a crear al terminar.
+@SpringBootTest(properties = "focoprod.warmup.enabled=false")
+class NormalizacionEmailsJobTest {
+
+    @Autowired
+    private NormalizacionEmailsJob job;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String email = "fusion-" + UUID.randomUUID() + "@test.invalid";
+
+    private long superviviente;
+    private long duplicado;
+
+    @AfterEach
+    void borrar() {
+        for (long id : new long[]{superviviente, duplicado}) {
+            jdbcTemplate.update("DELETE FROM eventos_sesion WHERE usuario_id = ?", id);
+            jdbcTemplate.update("DELETE FROM outbox_eventos WHERE usuario_id = ?", id);
+            jdbcTemplate.update("DELETE FROM usuarios WHERE id = ?", id);
+        }
+    }
+
+    @Test
+    void laFusionLlevaLosEventosYElRolALaSupervivienteYDescartaLosPendientesDeLaBorrada() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + UsuarioRepository.INDICE_EMAIL_NORMALIZADO);
+        superviviente = insertarUsuario(email.toUpperCase(), "hash", "local", null);
+        duplicado = insertarUsuario(email, null, "google", "sub-" + UUID.randomUUID());
+        jdbcTemplate.update("UPDATE usuarios SET rol = ? WHERE id = ?", Usuario.ROL_ADMIN, duplicado);
+        outboxRepository.registrarUsuario(EventoOutbox.USUARIO_REGISTRADO, duplicado);
+
+        Instant ahora = Instant.now();
+        insertarEvento(superviviente, "e1", ahora);
+        insertarEvento(duplicado, "e1", ahora);
+        insertarEvento(duplicado, "e2", ahora.plusSeconds(1));
+
+        job.ejecutar();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM usuarios WHERE lower(email) = ?", Long.class, email))
+                .containsExactly(superviviente);
+        assertThat(jdbcTemplate.queryForObject("SELECT rol FROM usuarios WHERE id = ?", String.class, superviviente))
+                .isEqualTo(Usuario.ROL_ADMIN);
+        assertThat(jdbcTemplate.queryForList("SELECT evento_id FROM eventos_sesion WHERE usuario_id = ? ORDER BY evento_id",
+                String.class, superviviente)).containsExactly("e1", "e2");
+        assertThat(contar("SELECT count(*) FROM eventos_sesion WHERE usuario_id = ?", duplicado)).isZero();
+        // El despachador puede haber entregado el alta antes de la fusión; solo importan las pendientes.
+        assertThat(contar("SELECT count(*) FROM outbox_eventos WHERE usuario_id = ? AND procesado_en IS NULL",
+                duplicado)).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT tipo FROM outbox_eventos WHERE usuario_id = ?",
+                String.class, superviviente)).containsExactly(EventoOutbox.PROVEEDOR_VINCULADO);
+        assertThat(jdbcTemplate.queryForList("SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                + "WHERE c.relname = ?", Boolean.class, UsuarioRepository.INDICE_EMAIL_NORMALIZADO)).containsExactly(true);
+    }
+
+    private long insertarUsuario(String email, String password, String provider, String providerId) {
+        return jdbcTemplate.queryForObject("INSERT INTO usuarios (email, name, password, provider, provider_id) "
+                + "VALUES (?, 'Fusión', ?, ?, ?) RETURNING id", Long.class, email, password, provider, providerId);
+    }
+
+    private void insertarEvento(long usuarioId, String eventoId, Instant ocurridoEn) {
+        jdbcTemplate.update("INSERT INTO eventos_sesion (usuario_id, evento_id, sesion_id, tipo, ocurrido_en) "
+                + "VALUES (?, ?, 's1', 'START', ?)", usuarioId, eventoId, Timestamp.from(ocurridoEn));
+    }
+
+    private int contar(String sql, long usuarioId) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, usuarioId);
+    }
+}
@@ -0,0 +1,44 @@
+package com.focoprod.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Punto de entrada de target/benchmarks.jar.
+//
+// Acepta las mismas opciones que org.openjdk.jmh.Main (filtro por regex, -p, -f, -wi, -i, -prof...),
+// pero si no se indican -rf/-rff guarda los resultados en JSON en
+// results/jmh-<fecha>.json, para comparar ejecuciones entre sí (p. ej. con https://jmh.morethan.io).
+//
+// Ejemplos:
+//   java -jar target/benchmarks.jar                         → todos los benchmarks
+//   java -jar target/benchmarks.jar PasswordEncoder -p cost=10,12
+//   java -jar target/benchmarks.jar Registro -rff base.json
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(cli);
+
+        if (!cli.getResultFormat().hasValue()) {
+            opciones.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            Path directorio = Files.createDirectories(Path.of("results"));
+            String fecha = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            opciones.result(directorio.resolve("jmh-" + fecha + ".json").toString());
+        }
+
+        new Runner(opciones.build()).run();
+    }
+}
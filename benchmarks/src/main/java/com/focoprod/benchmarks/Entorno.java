@@ -0,0 +1,54 @@
+package com.focoprod.benchmarks;
+
+import com.focoprod.backend.config.EmailFilterProperties;
+import com.focoprod.backend.service.EmailExistenceFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Piezas compartidas por los benchmarks que necesitan el filtro de emails.
+final class Entorno {
+
+    private Entorno() {
+    }
+
+    // BD H2 en memoria con una tabla usuarios(email) y los emails indicados.
+    // Solo la usa EmailExistenceFilter para llenarse al arrancar.
+    static DataSource baseDeDatos(String nombre, List<String> emails) {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP TABLE IF EXISTS usuarios");
+        jdbc.execute("CREATE TABLE usuarios (email VARCHAR(255) PRIMARY KEY)");
+        List<Object[]> filas = new ArrayList<>(emails.size());
+        emails.forEach(e -> filas.add(new Object[]{e}));
+        jdbc.batchUpdate("INSERT INTO usuarios (email) VALUES (?)", filas);
+        return ds;
+    }
+
+    // Filtro de emails. Si construir es true se llena desde la BD y se espera a que esté listo,
+    // igual que tras el ApplicationReadyEvent; si es false se queda sin construir y
+    // UsuarioService consulta siempre el repositorio.
+    static EmailExistenceFilter filtro(DataSource ds, MeterRegistry registry, boolean construir) throws InterruptedException {
+        EmailFilterProperties properties = new EmailFilterProperties();
+        properties.setEnabled(construir);
+        EmailExistenceFilter filtro = new EmailExistenceFilter(properties, ds, new DataSourceTransactionManager(ds), registry);
+        filtro.alArrancar();
+        if (construir) {
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (registry.get("focoprod.email.filter.ready").gauge().value() < 1) {
+                if (System.nanoTime() > limite) {
+                    throw new IllegalStateException("El filtro de emails no se construyó a tiempo");
+                }
+                Thread.sleep(10);
+            }
+        }
+        return filtro;
+    }
+}
@@ -0,0 +1,127 @@
+package com.focoprod.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.dto.PaginaUsuarios;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.UsuarioResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON frente a CBOR y Smile (FormatosBinariosConfig) con los DTOs de la API: coste de leer y escribir
+// cada cuerpo. El tamaño en bytes de cada combinación lo imprime main (fuera de JMH, para no mezclarlo
+// con su salida).
+//
+// Parámetros:
+//  - formato: json, cbor o smile. Mappers de Jackson2ObjectMapperBuilder, como los conversores de Spring MVC.
+//  - cuerpo: registro (petición de POST /api/auth/register), usuario (su respuesta) o
+//            pagina (una página de 50 usuarios de GET /api/admin/usuarios).
+//
+// Ejemplos:
+//   java -jar target/benchmarks.jar Formatos -p cuerpo=pagina
+//   java -cp target/benchmarks.jar com.focoprod.benchmarks.FormatosBenchmark   → tamaños
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatosBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String formato;
+
+    @Param({"registro", "usuario", "pagina"})
+    public String cuerpo;
+
+    private ObjectMapper mapper;
+    private Object objeto;
+    private byte[] bytes;
+
+    @Setup
+    public void preparar() throws IOException {
+        mapper = mapper(formato);
+        objeto = cuerpo(cuerpo);
+        bytes = mapper.writeValueAsBytes(objeto);
+    }
+
+    // Tamaño en bytes de cada cuerpo en cada formato (mismos valores que los @Param).
+    public static void main(String[] args) throws IOException {
+        String[] formatos = {"json", "cbor", "smile"};
+        System.out.printf("%-10s", "cuerpo");
+        for (String formato : formatos) {
+            System.out.printf("%8s", formato);
+        }
+        System.out.println();
+        for (String cuerpo : new String[]{"registro", "usuario", "pagina"}) {
+            System.out.printf("%-10s", cuerpo);
+            for (String formato : formatos) {
+                System.out.printf("%8d", mapper(formato).writeValueAsBytes(cuerpo(cuerpo)).length);
+            }
+            System.out.println();
+        }
+    }
+
+    private static ObjectMapper mapper(String formato) {
+        return switch (formato) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException("formato: " + formato);
+        };
+    }
+
+    private static Object cuerpo(String cuerpo) {
+        return switch (cuerpo) {
+            case "registro" -> {
+                RegistroRequest registro = new RegistroRequest();
+                registro.setEmail("ana.garcia@focoprod.com");
+                registro.setName("Ana García");
+                registro.setPassword("contraseña-segura-123");
+                yield registro;
+            }
+            case "usuario" -> usuario(123456L);
+            case "pagina" -> {
+                List<UsuarioResponse> usuarios = new ArrayList<>();
+                for (long id = 1000; id < 1050; id++) {
+                    usuarios.add(usuario(id));
+                }
+                yield new PaginaUsuarios(usuarios, 1049L);
+            }
+            default -> throw new IllegalArgumentException("cuerpo: " + cuerpo);
+        };
+    }
+
+    private static UsuarioResponse usuario(long id) {
+        UsuarioResponse usuario = new UsuarioResponse();
+        usuario.setId(id);
+        usuario.setName("Usuario " + id);
+        usuario.setEmail("usuario" + id + "@focoprod.com");
+        usuario.setProvider(id % 2 == 0 ? "google" : "local");
+        return usuario;
+    }
+
+    @Benchmark
+    public byte[] escribir() throws IOException {
+        return mapper.writeValueAsBytes(objeto);
+    }
+
+    @Benchmark
+    public Object leer() throws IOException {
+        return mapper.readValue(bytes, objeto.getClass());
+    }
+}
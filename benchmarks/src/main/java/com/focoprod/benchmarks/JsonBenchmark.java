@@ -0,0 +1,75 @@
+package com.focoprod.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.dto.UsuarioResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// (De)serialización JSON de los DTOs con Jackson.
+// El ObjectMapper se crea con Jackson2ObjectMapperBuilder, igual que el que usa Spring MVC.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private ObjectMapper mapper;
+    private byte[] registroJson;
+    private byte[] usuarioJson;
+    private RegistroRequest registro;
+    private UsuarioResponse usuario;
+
+    @Setup
+    public void preparar() throws IOException {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        registroJson = """
+                {"email":"ana.garcia@focoprod.com","name":"Ana García","password":"contraseña-segura-123"}
+                """.getBytes(StandardCharsets.UTF_8);
+        registro = mapper.readValue(registroJson, RegistroRequest.class);
+
+        usuario = new UsuarioResponse();
+        usuario.setId(123456L);
+        usuario.setName("Ana García");
+        usuario.setEmail("ana.garcia@focoprod.com");
+        usuario.setProvider("google");
+        usuarioJson = mapper.writeValueAsBytes(usuario);
+    }
+
+    // Cuerpo de POST /api/auth/register.
+    @Benchmark
+    public RegistroRequest leerRegistroRequest() throws IOException {
+        return mapper.readValue(registroJson, RegistroRequest.class);
+    }
+
+    @Benchmark
+    public byte[] escribirRegistroRequest() throws IOException {
+        return mapper.writeValueAsBytes(registro);
+    }
+
+    @Benchmark
+    public UsuarioResponse leerUsuarioResponse() throws IOException {
+        return mapper.readValue(usuarioJson, UsuarioResponse.class);
+    }
+
+    @Benchmark
+    public byte[] escribirUsuarioResponse() throws IOException {
+        return mapper.writeValueAsBytes(usuario);
+    }
+}
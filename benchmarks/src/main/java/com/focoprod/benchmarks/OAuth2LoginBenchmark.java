@@ -0,0 +1,91 @@
+package com.focoprod.benchmarks;
+
+import com.focoprod.backend.repositorios.UsuarioReactivoRepository;
+import com.focoprod.backend.security.CustomOAuth2SuccessHandler;
+import com.focoprod.backend.security.PerfilOAuth2;
+import com.focoprod.backend.security.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Login con Google una vez que Spring Security ya validó el token:
+//  - mapearPerfil: solo extraer provider/sub/email/name de los atributos (PerfilOAuth2).
+//  - onAuthenticationSuccess: el handler completo (mapeo + upsert + métricas + redirección),
+//    con repositorio en memoria y un usuario que ya existe sin cambios (el caso más común).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OAuth2LoginBenchmark {
+
+    private OAuth2AuthenticationToken token;
+    private CustomOAuth2SuccessHandler handler;
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/login/oauth2/code/google");
+
+    @Setup
+    public void preparar() throws Exception {
+        Instant ahora = Instant.now();
+        // Claims típicos de un ID token de Google.
+        OidcIdToken idToken = new OidcIdToken("token", ahora, ahora.plusSeconds(3600), Map.of(
+                "iss", "https://accounts.google.com",
+                "sub", "110248495921238986420",
+                "aud", List.of("focoprod-client-id"),
+                "email", "ana.garcia@focoprod.com",
+                "email_verified", true,
+                "name", "Ana García",
+                "given_name", "Ana",
+                "family_name", "García",
+                "picture", "https://lh3.googleusercontent.com/a/foto",
+                "locale", "es"));
+        DefaultOidcUser usuario = new DefaultOidcUser(AuthorityUtils.createAuthorityList("OIDC_USER"), idToken, "sub");
+        token = new OAuth2AuthenticationToken(usuario, usuario.getAuthorities(), "google");
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UsuarioRepositoryEnMemoria repositorio = new UsuarioRepositoryEnMemoria();
+        handler = new CustomOAuth2SuccessHandler(
+                repositorio.repositorio(),
+                Entorno.filtro(Entorno.baseDeDatos("oauth2", List.of()), registry, false),
+                // Modo sesión: sin TokenService.
+                new StaticListableBeanFactory().getBeanProvider(TokenService.class),
+                // Sin el perfil r2dbc: upsert por UsuarioRepository.
+                new StaticListableBeanFactory().getBeanProvider(UsuarioReactivoRepository.class),
+                registry);
+
+        // Primer login: crea el usuario. Los siguientes no cambian nada.
+        handler.onAuthenticationSuccess(request, new MockHttpServletResponse(), token);
+    }
+
+    @Benchmark
+    public PerfilOAuth2 mapearPerfil() {
+        return PerfilOAuth2.desde(token);
+    }
+
+    @Benchmark
+    public String onAuthenticationSuccess() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.onAuthenticationSuccess(request, response, token);
+        return response.getRedirectedUrl();
+    }
+}
@@ -0,0 +1,54 @@
+package com.focoprod.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Coste de BCryptPasswordEncoder según el work factor (cada +1 duplica el tiempo).
+// Sirve para elegir focoprod.password-hashing.* en cada tipo de máquina y para detectar
+// regresiones si cambia la versión de Spring Security.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"10", "11", "12", "13"})
+    public int cost;
+
+    private static final String CONTRASENA = "contraseña-segura-123";
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(cost);
+        hash = encoder.encode(CONTRASENA);
+    }
+
+    // Registro: hashear la contraseña nueva.
+    @Benchmark
+    public String encode() {
+        return encoder.encode(CONTRASENA);
+    }
+
+    // Login local: comprobar la contraseña contra el hash guardado.
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(CONTRASENA, hash);
+    }
+}
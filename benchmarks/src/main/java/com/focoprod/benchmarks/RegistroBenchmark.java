@@ -0,0 +1,105 @@
+package com.focoprod.benchmarks;
+
+import com.focoprod.backend.dto.RegistroRequest;
+import com.focoprod.backend.exception.UsuarioExistenteException;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.OutboxRepository;
+import com.focoprod.backend.service.UsuarioService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UsuarioService.registerUser con repositorio en memoria.
+//
+// BCrypt va con cost 4 (el mínimo) para que el resultado refleje el trabajo propio del servicio
+// (filtro de emails, búsqueda, armado de la entidad, save); el coste de BCrypt se mide en PasswordEncoderBenchmark.
+//
+// Parámetros:
+//  - escenario: "nuevo" (email nunca visto) o "duplicado" (email ya registrado).
+//  - filtro: con el filtro de emails construido o sin él (siempre se consulta el repositorio).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistroBenchmark {
+
+    private static final int EXISTENTES = 10_000;
+
+    @Param({"nuevo", "duplicado"})
+    public String escenario;
+
+    @Param({"true", "false"})
+    public boolean filtro;
+
+    private final UsuarioRepositoryEnMemoria repositorio = new UsuarioRepositoryEnMemoria();
+    private final List<String> existentes = new ArrayList<>(EXISTENTES);
+    private final AtomicLong contador = new AtomicLong();
+    private UsuarioService usuarioService;
+
+    @Setup(Level.Trial)
+    public void preparar() throws InterruptedException {
+        for (int i = 0; i < EXISTENTES; i++) {
+            existentes.add("existente" + i + "@focoprod.com");
+        }
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DataSource ds = Entorno.baseDeDatos("registro", existentes);
+        // El evento UserRegistered de la outbox no se guarda; la transacción es la de la BD embebida.
+        OutboxRepository outbox = new OutboxRepository(null) {
+            @Override
+            public void registrarUsuario(String tipo, long usuarioId) {
+            }
+        };
+        usuarioService = new UsuarioService(repositorio.repositorio(), new BCryptPasswordEncoder(4),
+                Entorno.filtro(ds, registry, filtro), outbox, new DataSourceTransactionManager(ds), registry);
+    }
+
+    // Cada iteración parte del mismo estado: solo los usuarios existentes.
+    @Setup(Level.Iteration)
+    public void reiniciar() {
+        repositorio.limpiar();
+        for (String email : existentes) {
+            Usuario u = new Usuario();
+            u.setEmail(email);
+            u.setName("Existente");
+            u.setProvider("local");
+            repositorio.repositorio().save(u);
+        }
+    }
+
+    // "duplicado" mide también la UsuarioExistenteException (→ 409 en el controlador).
+    @Benchmark
+    public Object registerUser() {
+        long n = contador.incrementAndGet();
+        RegistroRequest request = new RegistroRequest();
+        request.setEmail("duplicado".equals(escenario)
+                ? existentes.get((int) (n % EXISTENTES))
+                : "nuevo" + n + "@focoprod.com");
+        request.setName("Usuario " + n);
+        request.setPassword("contraseña-segura-" + n);
+        try {
+            return usuarioService.registerUser(request);
+        } catch (UsuarioExistenteException e) {
+            return e;
+        }
+    }
+}
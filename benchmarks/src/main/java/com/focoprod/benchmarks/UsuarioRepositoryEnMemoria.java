@@ -0,0 +1,115 @@
+package com.focoprod.benchmarks;
+
+import com.focoprod.backend.model.CuentaUsuario;
+import com.focoprod.backend.model.Usuario;
+import com.focoprod.backend.repositorios.UsuarioRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UsuarioRepository en memoria (un ConcurrentHashMap por email) para medir los servicios sin BD.
+//
+// Implementa solo los métodos que usan UsuarioService y CustomOAuth2SuccessHandler, con la misma
+// semántica que la BD: email único (DataIntegrityViolationException) y upsert que no escribe si nada cambió.
+// Cualquier otro método lanza UnsupportedOperationException para que se note si un benchmark lo empieza a usar.
+final class UsuarioRepositoryEnMemoria implements InvocationHandler {
+
+    private final Map<String, Usuario> porEmail = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final UsuarioRepository proxy;
+
+    UsuarioRepositoryEnMemoria() {
+        this.proxy = (UsuarioRepository) Proxy.newProxyInstance(
+                UsuarioRepository.class.getClassLoader(), new Class<?>[]{UsuarioRepository.class}, this);
+    }
+
+    UsuarioRepository repositorio() {
+        return proxy;
+    }
+
+    void limpiar() {
+        porEmail.clear();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "findByEmail" -> Optional.ofNullable(porEmail.get((String) args[0])).map(CuentaUsuario::de);
+            case "save" -> guardar((Usuario) args[0]);
+            case "upsertOAuth2" -> upsert((String) args[0], (String) args[1], (String) args[2], (String) args[3]);
+            case "count" -> (long) porEmail.size();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "UsuarioRepositoryEnMemoria";
+            default -> throw new UnsupportedOperationException(method.getName());
+        };
+    }
+
+    private Usuario guardar(Usuario usuario) {
+        if (usuario.getId() == null) {
+            usuario.setId(secuencia.incrementAndGet());
+            if (porEmail.putIfAbsent(usuario.getEmail(), usuario) != null) {
+                // Mismo error que Postgres, para que UsuarioRepository.esEmailDuplicado lo reconozca.
+                String mensaje = "duplicate key value violates unique constraint \"" + UsuarioRepository.RESTRICCION_EMAIL + "\"";
+                throw new DataIntegrityViolationException(mensaje, new SQLException(mensaje, "23505"));
+            }
+        } else {
+            porEmail.put(usuario.getEmail(), usuario);
+        }
+        return usuario;
+    }
+
+    private Optional<UsuarioRepository.ResultadoUpsert> upsert(String email, String name, String provider, String providerId) {
+        String nombre = name == null || name.isBlank() ? null : name;
+        boolean[] escrito = {false};
+        Usuario u = porEmail.compute(email, (clave, actual) -> {
+            if (actual == null) {
+                Usuario nuevo = new Usuario();
+                nuevo.setId(secuencia.incrementAndGet());
+                nuevo.setEmail(email);
+                nuevo.setName(nombre != null ? nombre : "Usuario sin nombre");
+                nuevo.setProvider(provider);
+                nuevo.setProviderId(providerId);
+                escrito[0] = true;
+                return nuevo;
+            }
+            String nombreFinal = nombre != null ? nombre : actual.getName();
+            if (!Objects.equals(actual.getName(), nombreFinal)
+                    || !Objects.equals(actual.getProvider(), provider)
+                    || !Objects.equals(actual.getProviderId(), providerId)) {
+                actual.setName(nombreFinal);
+                actual.setProvider(provider);
+                actual.setProviderId(providerId);
+                escrito[0] = true;
+            }
+            return actual;
+        });
+        return Optional.of(new Resultado(u.getId(), u.getName(), escrito[0]));
+    }
+
+    private record Resultado(Long id, String name, boolean escrito) implements UsuarioRepository.ResultadoUpsert {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Boolean getEscrito() {
+            return escrito;
+        }
+    }
+}
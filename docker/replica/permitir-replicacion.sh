@@ -0,0 +1,5 @@
+#!/bin/sh
+# Se ejecuta una sola vez, al crear la BD del contenedor "db" (docker-entrypoint-initdb.d).
+# Permite que db-replica se conecte en modo replicación para copiar la BD y seguir el WAL.
+# Más info: https://www.postgresql.org/docs/17/warm-standby.html#STREAMING-REPLICATION
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,222 @@
+package com.focoprod.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+// Tiempo hasta la primera petición atendida de cada variante del build del backend
+// (perfiles aot, cds y native de backend/pom.xml):
+//   jar    → java -jar, tal cual.
+//   aot    → el mismo jar con -Dspring.aot.enabled=true (si se compiló con -Paot o -Pcds).
+//   cds    → el jar extraído en target/cds con su archivo AppCDS, y AOT (si se compiló con -Pcds).
+//   native → el ejecutable target/backend (si se compiló con -Pnative native:compile).
+// Cada arranque cuenta desde que se lanza el proceso hasta que /actuator/health responde UP:
+// incluye la JVM, el contexto de Spring, el pool de conexiones y Flyway, como un nodo nuevo al escalar.
+// Las variantes sin artefacto se omiten. Misma BD embebida y proveedor OAuth2 que LoadTest.
+//
+// java -cp target/loadtest.jar com.focoprod.loadtest.Arranque [opciones] [-- argumentos de Spring]
+public final class Arranque {
+
+    static final String AYUDA = """
+            Uso: java -cp target/loadtest.jar com.focoprod.loadtest.Arranque [opciones] [-- argumentos de Spring]
+
+              --backend-target=DIR   carpeta target del backend (../backend/target)
+              --variants=a,b         jar, aot, cds, native (todas las disponibles)
+              --runs=N               arranques medidos por variante, tras uno de calentamiento (5)
+              --port=N               puerto del backend (18083)
+              --jvm-args="..."       opciones de la JVM en las variantes jar, aot y cds (-Xmx512m)
+              --jdbc-url=URL         usar esta BD (usuario/clave con -- --spring.datasource.*) en vez de una embebida
+              --results=DIR          carpeta del informe JSON y de los logs del backend (results)
+            """;
+
+    private static final DateTimeFormatter MARCA = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String JAR = "backend-0.0.1-SNAPSHOT-exec.jar";
+    // Clase que genera el procesado AOT: si está en el jar, se puede arrancar con spring.aot.enabled.
+    private static final String CLASE_AOT =
+            "BOOT-INF/classes/com/focoprod/backend/BackendApplication__ApplicationContextInitializer.class";
+
+    record Variante(String nombre, List<String> comando, Path directorio) {
+    }
+
+    record Resultado(String variante, List<String> comando, List<Long> arranquesMs,
+                     long minMs, long medianaMs, long maxMs, long memoriaResidenteMb) {
+    }
+
+    private Arranque() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int separador = Arrays.asList(args).indexOf("--");
+        Map<String, String> valores = opciones(separador < 0 ? args : Arrays.copyOfRange(args, 0, separador));
+        List<String> argsUsuario = separador < 0 ? List.of() : List.of(Arrays.copyOfRange(args, separador + 1, args.length));
+
+        Path target = Path.of(valores.getOrDefault("backend-target", "../backend/target")).toAbsolutePath().normalize();
+        List<String> nombres = List.of(valores.getOrDefault("variants", "jar,aot,cds,native").split(","));
+        int arranques = Integer.parseInt(valores.getOrDefault("runs", "5"));
+        int puerto = Integer.parseInt(valores.getOrDefault("port", "18083"));
+        List<String> jvmArgs = List.of(valores.getOrDefault("jvm-args", "-Xmx512m").trim().split("\\s+"));
+        Path resultados = Path.of(valores.getOrDefault("results", "results"));
+        String marca = LocalDateTime.now().format(MARCA);
+        Files.createDirectories(resultados);
+
+        List<Variante> variantes = variantes(target, nombres, jvmArgs);
+        if (variantes.isEmpty()) {
+            throw new IllegalStateException("No hay ningún artefacto del backend en " + target
+                    + ". Compílalo antes con: (cd ../backend && ./mvnw package -DskipTests)");
+        }
+
+        List<Resultado> resultadosVariantes = new ArrayList<>();
+        try (BaseDeDatos bd = BaseDeDatos.iniciar(valores.get("jdbc-url"));
+             MockIdentityProvider idp = MockIdentityProvider.iniciar()) {
+            List<String> argsSpring = new ArrayList<>();
+            argsSpring.add("--server.port=" + puerto);
+            argsSpring.addAll(bd.argsBackend());
+            argsSpring.addAll(idp.argsBackend(puerto));
+            argsSpring.addAll(argsUsuario);
+
+            for (Variante variante : variantes) {
+                List<String> comando = new ArrayList<>(variante.comando());
+                comando.addAll(argsSpring);
+                Path log = resultados.resolve("arranque-" + marca + "-" + variante.nombre() + ".log").toAbsolutePath();
+                System.out.printf("%s: 1 + %d arranques (log en %s)%n", variante.nombre(), arranques, log);
+
+                // El primero no cuenta: aplica las migraciones pendientes y llena la caché de disco del SO.
+                List<Long> tiempos = new ArrayList<>();
+                List<Long> memorias = new ArrayList<>();
+                for (int i = 0; i <= arranques; i++) {
+                    try (BackendProcess backend = BackendProcess.iniciar(comando, variante.directorio(), puerto, log)) {
+                        Duration tiempo = backend.esperarListo(Duration.ofMinutes(2), Duration.ofMillis(5));
+                        if (i > 0) {
+                            tiempos.add(tiempo.toMillis());
+                            memorias.add(backend.memoriaResidenteKb());
+                        }
+                    }
+                }
+                resultadosVariantes.add(resumir(variante, tiempos, memorias));
+            }
+        }
+
+        imprimir(resultadosVariantes);
+        Path informe = resultados.resolve("arranque-" + marca + ".json");
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("fecha", Instant.now().toString());
+        cuerpo.put("config", Map.of(
+                "backendTarget", target.toString(),
+                "arranques", arranques,
+                "argsBackend", argsUsuario,
+                "procesadores", Runtime.getRuntime().availableProcessors(),
+                "java", Runtime.version().toString()));
+        cuerpo.put("variantes", resultadosVariantes);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(informe.toFile(), cuerpo);
+        System.out.printf("%nInforme: %s%n", informe);
+    }
+
+    private static List<Variante> variantes(Path target, List<String> nombres, List<String> jvmArgs) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Path jar = target.resolve(JAR);
+        Path cds = target.resolve("cds");
+        List<Variante> variantes = new ArrayList<>();
+        for (String nombre : nombres) {
+            List<String> comando = new ArrayList<>();
+            Path directorio = null;
+            String falta = null;
+            switch (nombre.trim()) {
+                case "jar" -> {
+                    comando.add(java);
+                    comando.addAll(jvmArgs);
+                    comando.addAll(List.of("-jar", jar.toString()));
+                    falta = Files.isRegularFile(jar) ? null : jar + " (./mvnw package)";
+                }
+                case "aot" -> {
+                    comando.add(java);
+                    comando.addAll(jvmArgs);
+                    comando.addAll(List.of("-Dspring.aot.enabled=true", "-jar", jar.toString()));
+                    falta = tieneAot(jar) ? null : "procesado AOT en " + jar + " (./mvnw -Paot package)";
+                }
+                case "cds" -> {
+                    // Desde target/cds y con rutas relativas: el classpath tiene que coincidir
+                    // con el del arranque de entrenamiento que generó application.jsa.
+                    directorio = cds;
+                    comando.add(java);
+                    comando.addAll(jvmArgs);
+                    comando.addAll(List.of("-XX:SharedArchiveFile=application.jsa", "-Dspring.aot.enabled=true",
+                            "-jar", JAR));
+                    falta = Files.isRegularFile(cds.resolve("application.jsa"))
+                            ? null : cds.resolve("application.jsa") + " (./mvnw -Pcds package)";
+                }
+                case "native" -> {
+                    Path ejecutable = target.resolve("backend");
+                    comando.add(ejecutable.toString());
+                    falta = Files.isExecutable(ejecutable) && Files.isRegularFile(ejecutable)
+                            ? null : ejecutable + " (./mvnw -Pnative native:compile)";
+                }
+                default -> throw new IllegalArgumentException("Variante desconocida: " + nombre + "\n\n" + AYUDA);
+            }
+            if (falta != null) {
+                System.out.printf("%s: omitida, falta %s%n", nombre.trim(), falta);
+            } else {
+                variantes.add(new Variante(nombre.trim(), comando, directorio));
+            }
+        }
+        return variantes;
+    }
+
+    private static boolean tieneAot(Path jar) throws IOException {
+        if (!Files.isRegularFile(jar)) {
+            return false;
+        }
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            return zip.getEntry(CLASE_AOT) != null;
+        }
+    }
+
+    private static Resultado resumir(Variante variante, List<Long> tiempos, List<Long> memorias) {
+        List<Long> ordenados = tiempos.stream().sorted().toList();
+        long memoria = memorias.stream().sorted().toList().get(memorias.size() / 2);
+        return new Resultado(variante.nombre(), variante.comando(), tiempos,
+                ordenados.get(0), ordenados.get(ordenados.size() / 2), ordenados.get(ordenados.size() - 1),
+                memoria < 0 ? -1 : memoria / 1024);
+    }
+
+    private static void imprimir(List<Resultado> resultados) {
+        System.out.printf("%n%-8s %9s %9s %9s %9s%n", "variante", "min ms", "p50 ms", "max ms", "RSS MiB");
+        for (Resultado r : resultados) {
+            System.out.printf("%-8s %9d %9d %9d %9s%n", r.variante(), r.minMs(), r.medianaMs(), r.maxMs(),
+                    r.memoriaResidenteMb() < 0 ? "-" : String.valueOf(r.memoriaResidenteMb()));
+        }
+    }
+
+    private static Map<String, String> opciones(String[] args) {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            if (arg.equals("--help") || arg.equals("-h")) {
+                System.out.println(AYUDA);
+                System.exit(0);
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opción no válida: " + arg + "\n\n" + AYUDA);
+            }
+            valores.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        List<String> desconocidas = new ArrayList<>(valores.keySet());
+        desconocidas.removeAll(List.of("backend-target", "variants", "runs", "port", "jvm-args", "jdbc-url", "results"));
+        if (!desconocidas.isEmpty()) {
+            throw new IllegalArgumentException("Opciones desconocidas: " + desconocidas + "\n\n" + AYUDA);
+        }
+        return valores;
+    }
+}
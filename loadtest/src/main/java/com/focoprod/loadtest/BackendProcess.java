@@ -0,0 +1,114 @@
+package com.focoprod.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// El backend en su propio proceso (java -jar ...-exec.jar), como en producción:
+// así la prueba no comparte heap, GC ni CPU de JIT con el generador de carga,
+// y se le pueden pasar opciones de JVM distintas en cada ejecución.
+final class BackendProcess implements AutoCloseable {
+
+    private final Process proceso;
+    private final String urlBase;
+    // System.nanoTime() justo antes de lanzar el proceso.
+    private final long inicio;
+
+    private BackendProcess(Process proceso, int puerto, long inicio) {
+        this.proceso = proceso;
+        this.urlBase = "http://localhost:" + puerto;
+        this.inicio = inicio;
+    }
+
+    static BackendProcess iniciar(Path jar, int puerto, List<String> jvmArgs, List<String> argsSpring, Path log)
+            throws IOException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalArgumentException("No existe " + jar.toAbsolutePath()
+                    + ". Compílalo antes con: (cd ../backend && ./mvnw package -DskipTests)");
+        }
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(jvmArgs);
+        comando.add("-jar");
+        comando.add(jar.toAbsolutePath().toString());
+        comando.add("--server.port=" + puerto);
+        comando.addAll(argsSpring);
+        return iniciar(comando, null, puerto, log);
+    }
+
+    // Cualquier comando que arranque el backend en ese puerto (p. ej. la imagen nativa).
+    // directorio null → el actual.
+    static BackendProcess iniciar(List<String> comando, Path directorio, int puerto, Path log) throws IOException {
+        Files.createDirectories(log.getParent());
+        ProcessBuilder builder = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+        if (directorio != null) {
+            builder.directory(directorio.toFile());
+        }
+        long inicio = System.nanoTime();
+        return new BackendProcess(builder.start(), puerto, inicio);
+    }
+
+    String urlBase() {
+        return urlBase;
+    }
+
+    // Espera a que /actuator/health responda UP.
+    void esperarListo(Duration limite) throws IOException, InterruptedException {
+        esperarListo(limite, Duration.ofMillis(250));
+    }
+
+    // Igual, comprobando cada "intervalo". Devuelve el tiempo desde que se lanzó el proceso
+    // hasta la primera respuesta UP (con un error de como mucho "intervalo").
+    Duration esperarListo(Duration limite, Duration intervalo) throws IOException, InterruptedException {
+        HttpClient cliente = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(urlBase + "/actuator/health")).build();
+        long fin = System.nanoTime() + limite.toNanos();
+        while (System.nanoTime() < fin) {
+            if (!proceso.isAlive()) {
+                throw new IllegalStateException("El backend terminó al arrancar (código " + proceso.exitValue() + ")");
+            }
+            try {
+                HttpResponse<String> r = cliente.send(health, HttpResponse.BodyHandlers.ofString());
+                if (r.statusCode() == 200 && r.body().contains("UP")) {
+                    return Duration.ofNanos(System.nanoTime() - inicio);
+                }
+            } catch (IOException e) {
+                // Todavía no escucha.
+            }
+            Thread.sleep(intervalo);
+        }
+        throw new IllegalStateException("El backend no estuvo listo en " + limite.toSeconds() + " s");
+    }
+
+    // Memoria residente del proceso en KiB (VmRSS de /proc, solo Linux). -1 si no se puede leer.
+    long memoriaResidenteKb() {
+        try {
+            for (String linea : Files.readAllLines(Path.of("/proc", String.valueOf(proceso.pid()), "status"))) {
+                if (linea.startsWith("VmRSS:")) {
+                    return Long.parseLong(linea.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // No es Linux, o el proceso ya terminó.
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        proceso.destroy();
+        if (!proceso.waitFor(15, TimeUnit.SECONDS)) {
+            proceso.destroyForcibly();
+        }
+    }
+}
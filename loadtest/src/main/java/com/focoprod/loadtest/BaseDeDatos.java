@@ -0,0 +1,37 @@
+package com.focoprod.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// BD embebida (se borra al terminar) o externa (--jdbc-url, credenciales con -- --spring.datasource.*).
+record BaseDeDatos(EmbeddedPostgres embebida, String jdbcUrl) implements AutoCloseable {
+
+    static BaseDeDatos iniciar(String jdbcUrl) throws IOException {
+        if (jdbcUrl != null) {
+            return new BaseDeDatos(null, jdbcUrl);
+        }
+        System.out.println("Arrancando PostgreSQL embebido...");
+        EmbeddedPostgres pg = EmbeddedPostgres.builder().start();
+        return new BaseDeDatos(pg, pg.getJdbcUrl("postgres", "postgres"));
+    }
+
+    List<String> argsBackend() {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=" + jdbcUrl);
+        if (embebida != null) {
+            args.add("--spring.datasource.username=postgres");
+            args.add("--spring.datasource.password=postgres");
+        }
+        return args;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (embebida != null) {
+            embebida.close();
+        }
+    }
+}
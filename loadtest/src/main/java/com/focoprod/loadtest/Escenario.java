@@ -0,0 +1,18 @@
+package com.focoprod.loadtest;
+
+// Una operación completa que repite cada usuario virtual (un registro, un login...).
+// Lanza FalloEscenario si la respuesta no es la esperada; cualquier otra excepción cuenta también como error.
+interface Escenario {
+
+    String nombre();
+
+    // n es un número único por operación dentro de la ejecución (para generar emails distintos).
+    void ejecutar(long n) throws Exception;
+
+    final class FalloEscenario extends RuntimeException {
+
+        FalloEscenario(String tipo) {
+            super(tipo, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.focoprod.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.StringJoiner;
+
+// Login con "Google" completo, como lo hace un navegador:
+//   1. GET  /oauth2/authorization/google          → 302 al /authorize del proveedor (+ cookie de sesión o firmada)
+//   2. GET  proveedor /authorize?...&login_hint=  → 302 a /login/oauth2/code/google?code&state
+//   3. GET  /login/oauth2/code/google (con cookie) → el backend canjea el code, llama a /userinfo,
+//                                                    hace el upsert del usuario y redirige a success.html
+// Los emails rotan entre --oauth2-users usuarios: primero se crean y después se repiten logins sin cambios.
+final class EscenarioLoginOAuth2 implements Escenario {
+
+    private final HttpClient cliente;
+    private final URI inicio;
+    private final int usuarios;
+
+    EscenarioLoginOAuth2(HttpClient cliente, String urlBase, int usuarios) {
+        this.cliente = cliente;
+        this.inicio = URI.create(urlBase + "/oauth2/authorization/google");
+        this.usuarios = usuarios;
+    }
+
+    @Override
+    public String nombre() {
+        return "oauth2-login";
+    }
+
+    @Override
+    public void ejecutar(long n) throws Exception {
+        HttpResponse<Void> paso1 = redireccion(HttpRequest.newBuilder(inicio).build(), "inicio");
+        String cookies = cookies(paso1.headers());
+
+        String email = "oauth-" + (n % usuarios) + "@loadtest.local";
+        String autorizar = ubicacion(paso1) + "&login_hint=" + URLEncoder.encode(email, StandardCharsets.UTF_8);
+        HttpResponse<Void> paso2 = redireccion(HttpRequest.newBuilder(URI.create(autorizar)).build(), "authorize");
+
+        HttpRequest.Builder callback = HttpRequest.newBuilder(URI.create(ubicacion(paso2)));
+        if (!cookies.isEmpty()) {
+            callback.header("Cookie", cookies);
+        }
+        HttpResponse<Void> paso3 = redireccion(callback.build(), "callback");
+        if (!ubicacion(paso3).contains("success.html")) {
+            throw new FalloEscenario("callback → " + ubicacion(paso3).replaceAll("\\?.*", ""));
+        }
+    }
+
+    private HttpResponse<Void> redireccion(HttpRequest request, String paso) throws Exception {
+        HttpResponse<Void> r = cliente.send(request, HttpResponse.BodyHandlers.discarding());
+        if (r.statusCode() != 302) {
+            throw new FalloEscenario(paso + " HTTP " + r.statusCode());
+        }
+        return r;
+    }
+
+    private static String ubicacion(HttpResponse<?> r) {
+        return r.headers().firstValue("Location").orElseThrow(() -> new FalloEscenario("302 sin Location"));
+    }
+
+    // Reenviamos las cookies del paso 1 (JSESSIONID en modo sesión, oauth2_auth_request en modo stateless).
+    private static String cookies(HttpHeaders headers) {
+        List<String> setCookie = headers.allValues("Set-Cookie");
+        StringJoiner cookies = new StringJoiner("; ");
+        for (String c : setCookie) {
+            cookies.add(c.split(";", 2)[0]);
+        }
+        return cookies.toString();
+    }
+}
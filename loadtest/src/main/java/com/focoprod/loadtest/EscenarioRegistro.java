@@ -0,0 +1,44 @@
+package com.focoprod.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+// POST /api/auth/register con un email nuevo en cada operación (incluye el hash BCrypt de la contraseña).
+final class EscenarioRegistro implements Escenario {
+
+    private final HttpClient cliente;
+    private final URI registro;
+    private final String prefijo;
+
+    EscenarioRegistro(HttpClient cliente, String urlBase, String idEjecucion) {
+        this.cliente = cliente;
+        this.registro = URI.create(urlBase + "/api/auth/register");
+        this.prefijo = "lt-" + idEjecucion + "-";
+    }
+
+    @Override
+    public String nombre() {
+        return "register";
+    }
+
+    @Override
+    public void ejecutar(long n) throws Exception {
+        String cuerpo = """
+                {"email":"%s%d@loadtest.local","name":"Usuario %d","password":"contraseña-%d"}
+                """.formatted(prefijo, n, n, n);
+        HttpRequest request = HttpRequest.newBuilder(registro)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+        HttpResponse<String> r = cliente.send(request, HttpResponse.BodyHandlers.ofString());
+        if (r.statusCode() != 200) {
+            throw new FalloEscenario("HTTP " + r.statusCode());
+        }
+        // Cuerpo: el usuario creado, {"id":...,"name":...,"email":...,"provider":"local"}.
+        if (!r.body().contains("\"id\"")) {
+            throw new FalloEscenario("respuesta: " + r.body());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.focoprod.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Carga de bucle cerrado: N usuarios virtuales (hilos virtuales) repiten el escenario sin pausa
+// durante el tiempo indicado. La concurrencia es fija y el throughput es el resultado.
+final class GeneradorCarga {
+
+    private final AtomicLong secuencia = new AtomicLong();
+
+    Medicion ejecutar(Escenario escenario, int concurrencia, Duration duracion) throws InterruptedException {
+        Medicion medicion = new Medicion();
+        long fin = System.nanoTime() + duracion.toNanos();
+
+        List<Thread> usuarios = new ArrayList<>(concurrencia);
+        for (int i = 0; i < concurrencia; i++) {
+            usuarios.add(Thread.ofVirtual().name(escenario.nombre() + "-", i).start(() -> {
+                while (System.nanoTime() < fin) {
+                    long inicio = System.nanoTime();
+                    try {
+                        escenario.ejecutar(secuencia.incrementAndGet());
+                        medicion.exito(System.nanoTime() - inicio);
+                    } catch (Escenario.FalloEscenario e) {
+                        medicion.error(e.getMessage());
+                    } catch (Exception e) {
+                        medicion.error(e.getClass().getSimpleName());
+                    }
+                }
+            }));
+        }
+        for (Thread usuario : usuarios) {
+            usuario.join();
+        }
+        return medicion;
+    }
+}
@@ -0,0 +1,126 @@
+package com.focoprod.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Prueba de carga de extremo a extremo, sin red ni servicios externos:
+//   1. PostgreSQL embebido (zonky) en un directorio temporal, o la BD de --jdbc-url.
+//   2. MockIdentityProvider en el papel de Google.
+//   3. El jar del backend en un proceso aparte, apuntando a los dos anteriores.
+//   4. Cada escenario: calentamiento (no cuenta) + medición con N usuarios virtuales.
+//   5. Tabla por consola e informe JSON en results/ para comparar ejecuciones.
+//
+// Ver Opciones.AYUDA para los parámetros.
+public final class LoadTest {
+
+    private static final DateTimeFormatter MARCA = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Opciones opciones = Opciones.desde(args);
+        String marca = LocalDateTime.now().format(MARCA);
+        Files.createDirectories(opciones.resultados());
+
+        try (BaseDeDatos bd = BaseDeDatos.iniciar(opciones.jdbcUrl());
+             MockIdentityProvider idp = MockIdentityProvider.iniciar()) {
+
+            List<String> argsBackend = new ArrayList<>(bd.argsBackend());
+            argsBackend.addAll(idp.argsBackend(opciones.puertoBackend()));
+            // Toda la carga sale de 127.0.0.1: con el limitador de auth se mediría el 429, no el backend.
+            // Para medir el propio limitador: -- --focoprod.rate-limit.enabled=true
+            argsBackend.add("--focoprod.rate-limit.enabled=false");
+            // Los argumentos del usuario van al final: en Spring gana el último valor repetido.
+            argsBackend.addAll(opciones.argsBackend());
+
+            Path logBackend = opciones.resultados().resolve("backend-" + marca + ".log");
+            System.out.printf("Arrancando backend (log en %s)...%n", logBackend);
+            try (BackendProcess backend = BackendProcess.iniciar(opciones.backendJar(), opciones.puertoBackend(),
+                    opciones.jvmArgs(), argsBackend, logBackend)) {
+                backend.esperarListo(Duration.ofMinutes(2));
+
+                List<Medicion.Resumen> resumenes = ejecutarEscenarios(opciones, backend.urlBase(), marca);
+                imprimir(resumenes);
+                System.out.printf("IdP simulado: %s%n", idp.resumenLlamadas());
+                Path informe = opciones.resultados().resolve("loadtest-" + marca + ".json");
+                escribirInforme(informe, opciones, resumenes);
+                System.out.printf("%nInforme: %s%n", informe);
+            }
+        }
+    }
+
+    private static List<Medicion.Resumen> ejecutarEscenarios(Opciones opciones, String urlBase, String marca)
+            throws InterruptedException {
+        // Un único cliente compartido (pool de conexiones keep-alive), sin seguir redirecciones:
+        // los escenarios inspeccionan cada 302. HTTP/1.1 porque Tomcat no negocia h2c.
+        HttpClient cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        GeneradorCarga generador = new GeneradorCarga();
+        List<Medicion.Resumen> resumenes = new ArrayList<>();
+        for (String nombre : opciones.escenarios()) {
+            Escenario escenario = switch (nombre) {
+                case "register" -> new EscenarioRegistro(cliente, urlBase, marca);
+                case "oauth2-login" -> new EscenarioLoginOAuth2(cliente, urlBase, opciones.usuariosOAuth2());
+                default -> throw new IllegalArgumentException("Escenario desconocido: " + nombre);
+            };
+            System.out.printf("%s: calentamiento %d s, medición %d s, %d usuarios virtuales%n", nombre,
+                    opciones.calentamiento().toSeconds(), opciones.duracion().toSeconds(), opciones.concurrencia());
+            if (!opciones.calentamiento().isZero()) {
+                generador.ejecutar(escenario, opciones.concurrencia(), opciones.calentamiento());
+            }
+            resumenes.add(generador.ejecutar(escenario, opciones.concurrencia(), opciones.duracion())
+                    .resumen(nombre, opciones.duracion()));
+        }
+        return resumenes;
+    }
+
+    private static void imprimir(List<Medicion.Resumen> resumenes) {
+        System.out.printf("%n%-14s %10s %10s %9s %9s %9s %9s %9s%n",
+                "escenario", "ops", "ops/s", "errores%", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Medicion.Resumen r : resumenes) {
+            System.out.printf("%-14s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    r.escenario(), r.operaciones(), r.throughput(), r.porcentajeErrores(),
+                    r.p50Ms(), r.p90Ms(), r.p99Ms(), r.maxMs());
+            r.erroresPorTipo().forEach((tipo, n) -> System.out.printf("    %8d × %s%n", n, tipo));
+        }
+    }
+
+    private static void escribirInforme(Path informe, Opciones opciones,
+                                        List<Medicion.Resumen> resumenes) throws IOException {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("backendJar", opciones.backendJar().toString());
+        config.put("jvmArgs", opciones.jvmArgs());
+        config.put("argsBackend", opciones.argsBackend());
+        config.put("baseDeDatos", opciones.jdbcUrl() == null ? "embebida" : opciones.jdbcUrl());
+        config.put("concurrencia", opciones.concurrencia());
+        config.put("calentamientoS", opciones.calentamiento().toSeconds());
+        config.put("duracionS", opciones.duracion().toSeconds());
+        config.put("usuariosOAuth2", opciones.usuariosOAuth2());
+        config.put("procesadores", Runtime.getRuntime().availableProcessors());
+        config.put("java", Runtime.version().toString());
+
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("fecha", Instant.now().toString());
+        cuerpo.put("config", config);
+        cuerpo.put("escenarios", resumenes);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(informe.toFile(), cuerpo);
+    }
+}
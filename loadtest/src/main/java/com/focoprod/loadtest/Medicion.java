@@ -0,0 +1,54 @@
+package com.focoprod.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Resultados de un escenario: latencias de las operaciones correctas en un histograma HDR
+// (precisión de 3 dígitos, sin guardar cada muestra) y errores contados por tipo.
+final class Medicion {
+
+    private final Recorder latencias = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+    private final Map<String, LongAdder> errores = new ConcurrentHashMap<>();
+
+    void exito(long nanos) {
+        latencias.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), TimeUnit.MINUTES.toMicros(1)));
+    }
+
+    void error(String tipo) {
+        errores.computeIfAbsent(tipo, t -> new LongAdder()).increment();
+    }
+
+    Resumen resumen(String escenario, Duration duracion) {
+        Histogram h = latencias.getIntervalHistogram();
+        Map<String, Long> porTipo = new TreeMap<>();
+        errores.forEach((tipo, n) -> porTipo.put(tipo, n.sum()));
+        long fallidas = porTipo.values().stream().mapToLong(Long::longValue).sum();
+        long total = h.getTotalCount() + fallidas;
+        double segundos = duracion.toNanos() / 1e9;
+        return new Resumen(
+                escenario,
+                total,
+                h.getTotalCount(),
+                fallidas,
+                total == 0 ? 0 : 100.0 * fallidas / total,
+                h.getTotalCount() / segundos,
+                h.getValueAtPercentile(50) / 1000.0,
+                h.getValueAtPercentile(90) / 1000.0,
+                h.getValueAtPercentile(99) / 1000.0,
+                h.getMaxValue() / 1000.0,
+                porTipo);
+    }
+
+    // Latencias en milisegundos; throughput en operaciones correctas por segundo.
+    record Resumen(String escenario, long operaciones, long correctas, long errores, double porcentajeErrores,
+                   double throughput, double p50Ms, double p90Ms, double p99Ms, double maxMs,
+                   Map<String, Long> erroresPorTipo) {
+    }
+}
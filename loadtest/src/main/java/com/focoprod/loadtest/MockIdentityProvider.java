@@ -0,0 +1,241 @@
+package com.focoprod.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Proveedor OpenID Connect mínimo que sustituye a Google durante la prueba de carga.
+//
+// Implementa el flujo authorization code tal como lo usa Spring Security:
+//   /.well-known/openid-configuration  → descubrimiento (el backend lo lee al arrancar)
+//   /authorize                         → redirige al backend con ?code&state sin pantalla de login;
+//                                        el usuario se elige con el parámetro login_hint (email)
+//   /token                             → access token + ID token firmado (RS256)
+//   /userinfo                          → sub, email, name
+//   /jwks                              → clave pública para verificar el ID token
+//
+// No valida client_secret ni redirect_uri: solo sirve para pruebas locales.
+// Responde en hilos virtuales para no ser el cuello de botella de la prueba.
+final class MockIdentityProvider implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpServer server;
+    private final String issuer;
+    private final RSAKey clave;
+
+    // code → autorización pendiente (se consume al canjearlo). El access token lleva el email dentro:
+    // el backend normalmente no llama a /userinfo y no hay nada que limpiar.
+    private final Map<String, Autorizacion> codigos = new ConcurrentHashMap<>();
+
+    // Llamadas del backend a /userinfo y /jwks, para comprobar que salen del camino del login.
+    private final AtomicLong llamadasUserinfo = new AtomicLong();
+    private final AtomicLong llamadasJwks = new AtomicLong();
+
+    private record Autorizacion(String email, String clientId, String nonce) {
+
+        String sub() {
+            return "sub-" + Integer.toUnsignedString(email.hashCode());
+        }
+
+        String nombre() {
+            return "Usuario " + email.substring(0, email.indexOf('@'));
+        }
+    }
+
+    private MockIdentityProvider(HttpServer server, RSAKey clave) {
+        this.server = server;
+        this.clave = clave;
+        this.issuer = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    static MockIdentityProvider iniciar() throws IOException, JOSEException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        RSAKey clave = new RSAKeyGenerator(2048).keyID("loadtest").generate();
+        MockIdentityProvider idp = new MockIdentityProvider(server, clave);
+
+        server.createContext("/.well-known/openid-configuration", idp::descubrimiento);
+        server.createContext("/authorize", idp::autorizar);
+        server.createContext("/token", idp::token);
+        server.createContext("/userinfo", idp::userinfo);
+        server.createContext("/jwks", idp::jwks);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return idp;
+    }
+
+    String resumenLlamadas() {
+        return "%d llamadas a /userinfo, %d a /jwks".formatted(llamadasUserinfo.get(), llamadasJwks.get());
+    }
+
+    String issuer() {
+        return issuer;
+    }
+
+    // Argumentos de Spring para que el registro "google" del backend apunte a este proveedor.
+    List<String> argsBackend(int puertoBackend) {
+        String registro = "--spring.security.oauth2.client.registration.google.";
+        String proveedor = "--spring.security.oauth2.client.provider.google.";
+        return List.of(
+                registro + "client-id=focoprod-loadtest",
+                registro + "client-secret=loadtest",
+                registro + "redirect-uri=http://localhost:" + puertoBackend + "/login/oauth2/code/google",
+                proveedor + "issuer-uri=" + issuer,
+                proveedor + "authorization-uri=" + issuer + "/authorize",
+                proveedor + "token-uri=" + issuer + "/token",
+                proveedor + "user-info-uri=" + issuer + "/userinfo",
+                proveedor + "jwk-set-uri=" + issuer + "/jwks");
+    }
+
+    private void descubrimiento(HttpExchange ex) throws IOException {
+        Map<String, Object> doc = new LinkedHashMap<>();
+        doc.put("issuer", issuer);
+        doc.put("authorization_endpoint", issuer + "/authorize");
+        doc.put("token_endpoint", issuer + "/token");
+        doc.put("userinfo_endpoint", issuer + "/userinfo");
+        doc.put("jwks_uri", issuer + "/jwks");
+        doc.put("response_types_supported", List.of("code"));
+        doc.put("subject_types_supported", List.of("public"));
+        doc.put("id_token_signing_alg_values_supported", List.of("RS256"));
+        doc.put("scopes_supported", List.of("openid", "profile", "email"));
+        doc.put("token_endpoint_auth_methods_supported", List.of("client_secret_basic", "client_secret_post"));
+        responderJson(ex, 200, doc);
+    }
+
+    private void autorizar(HttpExchange ex) throws IOException {
+        Map<String, String> params = parametros(ex.getRequestURI().getRawQuery());
+        String redirectUri = params.get("redirect_uri");
+        if (redirectUri == null) {
+            responderJson(ex, 400, Map.of("error", "invalid_request"));
+            return;
+        }
+        String email = params.getOrDefault("login_hint", "usuario@loadtest.local");
+        String code = UUID.randomUUID().toString();
+        codigos.put(code, new Autorizacion(email, params.get("client_id"), params.get("nonce")));
+
+        String destino = redirectUri + (redirectUri.contains("?") ? "&" : "?")
+                + "code=" + code
+                + "&state=" + URLEncoder.encode(params.getOrDefault("state", ""), StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Location", destino);
+        ex.sendResponseHeaders(302, -1);
+        ex.close();
+    }
+
+    private void token(HttpExchange ex) throws IOException {
+        Map<String, String> params = parametros(new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        Autorizacion autorizacion = codigos.remove(params.getOrDefault("code", ""));
+        if (autorizacion == null) {
+            responderJson(ex, 400, Map.of("error", "invalid_grant"));
+            return;
+        }
+        String accessToken = UUID.randomUUID() + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(autorizacion.email().getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("access_token", accessToken);
+        respuesta.put("token_type", "Bearer");
+        respuesta.put("expires_in", 3600);
+        respuesta.put("scope", "openid profile email");
+        respuesta.put("id_token", idToken(autorizacion));
+        responderJson(ex, 200, respuesta);
+    }
+
+    private void userinfo(HttpExchange ex) throws IOException {
+        llamadasUserinfo.incrementAndGet();
+        String auth = ex.getRequestHeaders().getFirst("Authorization");
+        int punto = auth == null ? -1 : auth.lastIndexOf('.');
+        if (punto < 0) {
+            responderJson(ex, 401, Map.of("error", "invalid_token"));
+            return;
+        }
+        Autorizacion autorizacion = new Autorizacion(
+                new String(Base64.getUrlDecoder().decode(auth.substring(punto + 1)), StandardCharsets.UTF_8), null, null);
+        responderJson(ex, 200, Map.of(
+                "sub", autorizacion.sub(),
+                "email", autorizacion.email(),
+                "email_verified", true,
+                "name", autorizacion.nombre()));
+    }
+
+    private void jwks(HttpExchange ex) throws IOException {
+        llamadasJwks.incrementAndGet();
+        responderJson(ex, 200, new JWKSet(clave.toPublicJWK()).toJSONObject());
+    }
+
+    private String idToken(Autorizacion autorizacion) {
+        Instant ahora = Instant.now();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(autorizacion.sub())
+                .audience(autorizacion.clientId())
+                .issueTime(Date.from(ahora))
+                .expirationTime(Date.from(ahora.plusSeconds(3600)))
+                .claim("email", autorizacion.email())
+                .claim("email_verified", true)
+                .claim("name", autorizacion.nombre());
+        if (autorizacion.nonce() != null) {
+            claims.claim("nonce", autorizacion.nonce());
+        }
+        try {
+            SignedJWT jwt = new SignedJWT(
+                    new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(clave.getKeyID()).build(), claims.build());
+            jwt.sign(new RSASSASigner(clave));
+            return jwt.serialize();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("No se pudo firmar el ID token", e);
+        }
+    }
+
+    private static Map<String, String> parametros(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = URLDecoder.decode(igual < 0 ? par : par.substring(0, igual), StandardCharsets.UTF_8);
+            String valor = igual < 0 ? "" : URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+            params.put(clave, valor);
+        }
+        return params;
+    }
+
+    private static void responderJson(HttpExchange ex, int estado, Object cuerpo) throws IOException {
+        byte[] bytes = JSON.writeValueAsBytes(cuerpo);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(estado, bytes.length);
+        ex.getResponseBody().write(bytes);
+        ex.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.focoprod.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Opciones de línea de comandos: --clave=valor. Todo lo que va después de "--" se pasa tal cual
+// al backend como argumentos de Spring (p. ej. -- --spring.threads.virtual.enabled=true).
+record Opciones(
+        Path backendJar,
+        int puertoBackend,
+        List<String> jvmArgs,
+        List<String> argsBackend,
+        String jdbcUrl,
+        List<String> escenarios,
+        int concurrencia,
+        Duration calentamiento,
+        Duration duracion,
+        int usuariosOAuth2,
+        Path resultados) {
+
+    static final String AYUDA = """
+            Uso: java -jar target/loadtest.jar [opciones] [-- argumentos de Spring para el backend]
+
+              --backend-jar=PATH     jar ejecutable del backend (../backend/target/backend-0.0.1-SNAPSHOT-exec.jar)
+              --port=N               puerto del backend (18083)
+              --jvm-args="..."       opciones de la JVM del backend, separadas por espacios (-Xmx512m)
+              --jdbc-url=URL         usar esta BD (usuario/clave con -- --spring.datasource.*) en vez de una embebida
+              --scenarios=a,b        register, oauth2-login (ambos)
+              --concurrency=N        usuarios virtuales simultáneos por escenario (50)
+              --warmup=DUR           calentamiento por escenario, no se cuenta (10s)
+              --duration=DUR         medición por escenario (30s)
+              --oauth2-users=N       usuarios distintos que rotan en oauth2-login (1000)
+              --results=DIR          carpeta del informe JSON y del log del backend (results)
+
+            Ejemplo, comparar hilos virtuales:
+              java -jar target/loadtest.jar --duration=60s
+              java -jar target/loadtest.jar --duration=60s -- --spring.threads.virtual.enabled=true
+            """;
+
+    static Opciones desde(String[] args) {
+        int separador = Arrays.asList(args).indexOf("--");
+        List<String> propias = Arrays.asList(separador < 0 ? args : Arrays.copyOfRange(args, 0, separador));
+        List<String> backend = separador < 0 ? List.of() : List.of(Arrays.copyOfRange(args, separador + 1, args.length));
+
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : propias) {
+            if (arg.equals("--help") || arg.equals("-h")) {
+                System.out.println(AYUDA);
+                System.exit(0);
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opción no válida: " + arg + "\n\n" + AYUDA);
+            }
+            valores.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        Opciones opciones = new Opciones(
+                Path.of(valores.getOrDefault("backend-jar", "../backend/target/backend-0.0.1-SNAPSHOT-exec.jar")),
+                Integer.parseInt(valores.getOrDefault("port", "18083")),
+                separar(valores.getOrDefault("jvm-args", "-Xmx512m"), " "),
+                backend,
+                valores.get("jdbc-url"),
+                separar(valores.getOrDefault("scenarios", "register,oauth2-login"), ","),
+                Integer.parseInt(valores.getOrDefault("concurrency", "50")),
+                duracion(valores.getOrDefault("warmup", "10s")),
+                duracion(valores.getOrDefault("duration", "30s")),
+                Integer.parseInt(valores.getOrDefault("oauth2-users", "1000")),
+                Path.of(valores.getOrDefault("results", "results")));
+        valores.keySet().removeAll(List.of("backend-jar", "port", "jvm-args", "jdbc-url", "scenarios",
+                "concurrency", "warmup", "duration", "oauth2-users", "results"));
+        if (!valores.isEmpty()) {
+            throw new IllegalArgumentException("Opciones desconocidas: " + valores.keySet() + "\n\n" + AYUDA);
+        }
+        return opciones;
+    }
+
+    private static List<String> separar(String valor, String separador) {
+        List<String> partes = new ArrayList<>();
+        for (String parte : valor.split(separador)) {
+            if (!parte.isBlank()) {
+                partes.add(parte.trim());
+            }
+        }
+        return partes;
+    }
+
+    // Acepta "500ms", "30s", "2m" o un ISO-8601 ("PT30S").
+    private static Duration duracion(String valor) {
+        if (valor.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(valor.substring(0, valor.length() - 2)));
+        }
+        if (valor.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(valor.substring(0, valor.length() - 1)));
+        }
+        if (valor.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(valor.substring(0, valor.length() - 1)));
+        }
+        return Duration.parse(valor);
+    }
+}